@@ -0,0 +1,26 @@
+package com.global.api.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the suites with the GC profiler attached, so every result carries its allocation rate
+ * (gc.alloc.rate.norm is bytes per operation), and writes them as JSON for comparing runs.
+ * Usage: {@code java -jar benchmarks.jar [include regex] [result file]}.
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : BenchmarkRunner.class.getPackage().getName() + ".*")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(args.length > 1 ? args[1] : "target/jmh-result.json")
+                .build();
+
+        new Runner(options).run();
+    }
+}
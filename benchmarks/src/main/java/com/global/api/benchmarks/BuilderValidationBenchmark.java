@@ -0,0 +1,61 @@
+package com.global.api.benchmarks;
+
+import com.global.api.builders.AuthorizationBuilder;
+import com.global.api.builders.ManagementBuilder;
+import com.global.api.entities.Transaction;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.BuilderException;
+import com.global.api.paymentMethods.CreditCardData;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of constructing a builder (which sets up its validation rules) and validating it, the
+ * part of every execute() that runs before any connector is involved.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BuilderValidationBenchmark {
+    private CreditCardData card;
+
+    @Setup
+    public void setup() {
+        card = new CreditCardData();
+        card.setNumber("4111111111111111");
+        card.setExpMonth(12);
+        card.setExpYear(2025);
+        card.setCvn("123");
+    }
+
+    @Benchmark
+    public AuthorizationBuilder validSale() throws ApiException {
+        AuthorizationBuilder builder = card.charge(new BigDecimal("10")).withCurrency("USD");
+        builder.getValidations().validate(builder);
+        return builder;
+    }
+
+    @Benchmark
+    public ManagementBuilder validCapture() throws ApiException {
+        ManagementBuilder builder = Transaction.fromId("1234567890").capture(new BigDecimal("10"));
+        builder.getValidations().validate(builder);
+        return builder;
+    }
+
+    @Benchmark
+    public BuilderException invalidSale() {
+        AuthorizationBuilder builder = card.charge();
+        try {
+            builder.getValidations().validate(builder);
+            return null;
+        }
+        catch(BuilderException exc) {
+            return exc;
+        }
+    }
+}
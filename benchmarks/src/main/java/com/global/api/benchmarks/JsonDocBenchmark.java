@@ -0,0 +1,50 @@
+package com.global.api.benchmarks;
+
+import com.global.api.utils.JsonDoc;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonDocBenchmark {
+    private static final String TRANSACTION = "{\"id\":\"TRN_4S2yMJVVJgTzW3kYvJRJlbL6Tg7tJp\",\"time_created\":\"2020-10-19T12:00:00.000Z\","
+            + "\"type\":\"SALE\",\"status\":\"CAPTURED\",\"channel\":\"CNP\",\"amount\":\"1999\",\"currency\":\"USD\","
+            + "\"reference\":\"5c13a5e3-9d8f-4a5f-8e3c-0e1e3b9a9a11\",\"country\":\"US\",\"batch_id\":\"BAT_783464\","
+            + "\"payment_method\":{\"result\":\"00\",\"message\":\"[ test system ] AUTHORISED\",\"entry_mode\":\"ECOM\","
+            + "\"card\":{\"brand\":\"VISA\",\"masked_number_last4\":\"XXXXXXXXXXXX1111\",\"authcode\":\"12345\","
+            + "\"brand_reference\":\"Mz4pDm8ujR4Uo7ov\",\"brand_time_created\":\"\",\"cvv_result\":\"MATCHED\"}},"
+            + "\"action\":{\"id\":\"ACT_4S2yMJVVJgTzW3kYvJRJlbL6Tg7tJp\",\"type\":\"AUTHORIZE\",\"time_created\":\"2020-10-19T12:00:00.000Z\","
+            + "\"result_code\":\"SUCCESS\",\"app_id\":\"i872l4VgZRtSrykvSn8Lkah8RE1jihvT\",\"app_name\":\"sample_app_CERT\"}}";
+
+    @Benchmark
+    public String parse() {
+        JsonDoc doc = JsonDoc.parse(TRANSACTION);
+        return doc.get("payment_method").get("card").getString("authcode");
+    }
+
+    @Benchmark
+    public String serialize() {
+        JsonDoc doc = new JsonDoc()
+                .set("account_name", "Transaction_Processing")
+                .set("type", "SALE")
+                .set("channel", "CNP")
+                .set("amount", new BigDecimal("19.99"))
+                .set("currency", "USD")
+                .set("reference", "5c13a5e3-9d8f-4a5f-8e3c-0e1e3b9a9a11")
+                .set("country", "US");
+        doc.subElement("payment_method")
+                .set("entry_mode", "ECOM")
+                .subElement("card")
+                .set("number", "4111111111111111")
+                .set("expiry_month", "12")
+                .set("expiry_year", "25")
+                .set("cvv", "123");
+        return doc.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package com.global.api.benchmarks;
+
+import com.global.api.network.NetworkMessage;
+import com.global.api.network.enums.DataElementId;
+import com.global.api.network.enums.Iso8583MessageType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NetworkMessageBenchmark {
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        encoded = authorization().buildMessage();
+    }
+
+    @Benchmark
+    public byte[] buildMessage() {
+        return authorization().buildMessage();
+    }
+
+    @Benchmark
+    public NetworkMessage parse() {
+        return NetworkMessage.parse(encoded, Iso8583MessageType.CompleteMessage);
+    }
+
+    @Benchmark
+    public String parseAndRead() {
+        NetworkMessage message = NetworkMessage.parse(encoded, Iso8583MessageType.CompleteMessage);
+        return message.getString(DataElementId.DE_011) + message.getString(DataElementId.DE_041);
+    }
+
+    static NetworkMessage authorization() {
+        return new NetworkMessage()
+                .set(DataElementId.DE_003, "000000")
+                .set(DataElementId.DE_004, "000000001089")
+                .set(DataElementId.DE_007, "1019120000")
+                .set(DataElementId.DE_011, "000153")
+                .set(DataElementId.DE_012, "201019120000")
+                .set(DataElementId.DE_018, "5541")
+                .set(DataElementId.DE_024, "100")
+                .set(DataElementId.DE_025, "1508")
+                .set(DataElementId.DE_035, "5473500000000014=25121019999888877776")
+                .set(DataElementId.DE_041, "00009121")
+                .set(DataElementId.DE_042, "000000000112233")
+                .set(DataElementId.DE_049, "840");
+    }
+}
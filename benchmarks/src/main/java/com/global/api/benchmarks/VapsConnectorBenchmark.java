@@ -0,0 +1,61 @@
+package com.global.api.benchmarks;
+
+import com.global.api.entities.Transaction;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.gateways.VapsConnector;
+import com.global.api.network.enums.*;
+import com.global.api.paymentMethods.CreditCardData;
+import com.global.api.serviceConfigs.AcceptorConfig;
+import com.global.api.terminals.abstractions.IDeviceMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request building and response mapping in {@link VapsConnector}, with the transport replaced
+ * by an echo: the request (less its length header) comes back as the response, which is a
+ * well formed header plus ISO 8583 message for the parser.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VapsConnectorBenchmark {
+    private VapsConnector connector;
+    private CreditCardData card;
+
+    @Setup
+    public void setup() {
+        connector = new VapsConnector() {
+            @Override
+            public byte[] send(IDeviceMessage message, int timeout, boolean hedgeable) {
+                byte[] buffer = message.getSendBuffer();
+                return Arrays.copyOfRange(buffer, 2, buffer.length);
+            }
+        };
+        connector.setCompanyId("0044");
+        connector.setTerminalId("0000912197711");
+        connector.setMessageType(MessageType.Heartland_POS_8583);
+        connector.setConnectionType(ConnectionType.ISDN);
+        connector.setNodeIdentification("    ");
+        connector.setProtocolType(ProtocolType.TCP_IP);
+        connector.setProcessingFlag(NetworkProcessingFlag.NonPersistentConnection);
+        connector.setAcceptorConfig(new AcceptorConfig());
+
+        card = new CreditCardData();
+        card.setNumber("4111111111111111");
+        card.setExpMonth(12);
+        card.setExpYear(2025);
+        card.setCvn("123");
+        card.setCardHolderName("John Smith");
+    }
+
+    @Benchmark
+    public Transaction creditSale() throws ApiException {
+        return connector.processAuthorization(card.charge(new BigDecimal("10.89")).withCurrency("USD"));
+    }
+}
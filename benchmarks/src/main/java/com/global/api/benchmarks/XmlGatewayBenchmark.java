@@ -0,0 +1,85 @@
+package com.global.api.benchmarks;
+
+import com.global.api.entities.Transaction;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.gateways.PorticoConnector;
+import com.global.api.gateways.RealexConnector;
+import com.global.api.paymentMethods.CreditCardData;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XML request building and response mapping for the Portico and Realex connectors; the HTTP
+ * round trip is replaced by a recorded approval.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XmlGatewayBenchmark {
+    private static final String PORTICO_RESPONSE = "<?xml version=\"1.0\" encoding=\"utf-8\"?>"
+            + "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+            + "<PosResponse rootUrl=\"https://cert.api2.heartlandportico.com/Hps.Exchange.PosGateway\" xmlns=\"http://Hps.Exchange.PosGateway\"><Ver1.0>"
+            + "<Header><LicenseId>20903</LicenseId><SiteId>20904</SiteId><DeviceId>90911395</DeviceId>"
+            + "<GatewayTxnId>1234567890</GatewayTxnId><GatewayRspCode>0</GatewayRspCode><GatewayRspMsg>Success</GatewayRspMsg>"
+            + "<RspDT>2020-10-19T12:00:00.000</RspDT></Header>"
+            + "<Transaction><CreditSale><RspCode>00</RspCode><RspText>APPROVAL</RspText><AuthCode>12345A</AuthCode>"
+            + "<AVSRsltCode>0</AVSRsltCode><CVVRsltCode>M</CVVRsltCode><RefNbr>029312345678</RefNbr>"
+            + "<AVSResultCodeAction>ACCEPT</AVSResultCodeAction><CVVResultCodeAction>ACCEPT</CVVResultCodeAction>"
+            + "<CardType>Visa</CardType><AVSRsltText>AVS Not Requested.</AVSRsltText><CVVRsltText>Match.</CVVRsltText>"
+            + "</CreditSale></Transaction></Ver1.0></PosResponse></soap:Body></soap:Envelope>";
+    private static final String REALEX_RESPONSE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<response timestamp=\"20201019120000\"><merchantid>heartlandgpsandbox</merchantid><account>api</account>"
+            + "<orderid>N6qsk4kYRZihmPrTXWYS6g</orderid><result>00</result><authcode>12345</authcode>"
+            + "<message>[ test system ] AUTHORISED</message><pasref>14610544313177922</pasref>"
+            + "<cvnresult>M</cvnresult><avspostcoderesponse>M</avspostcoderesponse><avsaddressresponse>M</avsaddressresponse>"
+            + "<batchid>319623</batchid><cardissuer><bank>AIB BANK</bank><country>IRELAND</country>"
+            + "<countrycode>IE</countrycode><region>EUR</region></cardissuer>"
+            + "<sha1hash>867a2d1b55cf3d5bc7bd3b7b3a5c46c1a3ac0f48</sha1hash></response>";
+
+    private PorticoConnector portico;
+    private RealexConnector realex;
+    private CreditCardData card;
+
+    @Setup
+    public void setup() {
+        portico = new PorticoConnector() {
+            @Override
+            public String doTransaction(String request) {
+                return PORTICO_RESPONSE;
+            }
+        };
+        portico.setSecretApiKey("skapi_cert_MTeSAQAfG1UA9qQDrzl-kz4toXvARyieptFwSKP24w");
+
+        realex = new RealexConnector() {
+            @Override
+            public String doTransaction(String request) {
+                return REALEX_RESPONSE;
+            }
+        };
+        realex.setMerchantId("heartlandgpsandbox");
+        realex.setAccountId("api");
+        realex.setSharedSecret("secret");
+
+        card = new CreditCardData();
+        card.setNumber("4111111111111111");
+        card.setExpMonth(12);
+        card.setExpYear(2025);
+        card.setCvn("123");
+        card.setCardHolderName("John Smith");
+    }
+
+    @Benchmark
+    public Transaction porticoCreditSale() throws ApiException {
+        return portico.processAuthorization(card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true));
+    }
+
+    @Benchmark
+    public Transaction realexCreditSale() throws ApiException {
+        return realex.processAuthorization(card.charge(new BigDecimal("10")).withCurrency("EUR"));
+    }
+}
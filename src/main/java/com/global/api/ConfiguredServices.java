@@ -1,8 +1,11 @@
 package com.global.api;
 
 import com.global.api.entities.enums.Secure3dVersion;
+import com.global.api.entities.exceptions.ApiException;
 import com.global.api.entities.exceptions.ConfigurationException;
 import com.global.api.gateways.*;
+import com.global.api.resilience.DuplicateDetector;
+import com.global.api.resilience.IdempotencyCache;
 import com.global.api.terminals.DeviceController;
 import com.global.api.terminals.abstractions.IDeviceInterface;
 import com.global.api.terminals.abstractions.IDisposable;
@@ -10,6 +13,8 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 public class ConfiguredServices implements IDisposable {
     private IPaymentGateway gatewayConnector;
@@ -20,6 +25,9 @@ public class ConfiguredServices implements IDisposable {
     private TableServiceConnector tableServiceConnector;
     private PayrollConnector payrollConnector;
     private HashMap<Secure3dVersion, ISecure3dProvider> secure3dProviders;
+    private IdempotencyCache idempotencyCache;
+    private DuplicateDetector duplicateDetector;
+    private boolean rejectDuplicates;
 
     IPaymentGateway getGatewayConnector() {
         return gatewayConnector;
@@ -50,6 +58,17 @@ public class ConfiguredServices implements IDisposable {
         deviceInterface = deviceController.configureInterface();
     }
 
+    void removeDeviceController() {
+        deviceController = null;
+        deviceInterface = null;
+    }
+
+    boolean isEmpty() {
+        return gatewayConnector == null && recurringConnector == null && reportingService == null
+                && deviceController == null && tableServiceConnector == null && payrollConnector == null
+                && secure3dProviders.isEmpty();
+    }
+
     TableServiceConnector getTableServiceConnector() {
         return tableServiceConnector;
     }
@@ -66,6 +85,30 @@ public class ConfiguredServices implements IDisposable {
         this.payrollConnector = payrollConnector;
     }
 
+    IdempotencyCache getIdempotencyCache() {
+        return idempotencyCache;
+    }
+
+    public void setIdempotencyCache(IdempotencyCache idempotencyCache) {
+        this.idempotencyCache = idempotencyCache;
+    }
+
+    DuplicateDetector getDuplicateDetector() {
+        return duplicateDetector;
+    }
+
+    public void setDuplicateDetector(DuplicateDetector duplicateDetector) {
+        this.duplicateDetector = duplicateDetector;
+    }
+
+    boolean isRejectDuplicates() {
+        return rejectDuplicates;
+    }
+
+    public void setRejectDuplicates(boolean rejectDuplicates) {
+        this.rejectDuplicates = rejectDuplicates;
+    }
+
     public ISecure3dProvider getSecure3dProvider(Secure3dVersion version) {
         if (secure3dProviders.containsKey(version)) {
             return secure3dProviders.get(version);
@@ -87,7 +130,28 @@ public class ConfiguredServices implements IDisposable {
         secure3dProviders = new HashMap<Secure3dVersion, ISecure3dProvider>();
     }
 
+    /**
+     * Warms up each connector of the configuration once, however many services it provides.
+     */
+    void warmUp(int cycles) throws ApiException {
+        Set<Object> connectors = new LinkedHashSet<Object>();
+        connectors.add(gatewayConnector);
+        connectors.add(recurringConnector);
+        connectors.add(reportingService);
+        connectors.add(tableServiceConnector);
+        connectors.add(payrollConnector);
+        connectors.addAll(secure3dProviders.values());
+
+        for(Object connector : connectors) {
+            if(connector instanceof IWarmable) {
+                ((IWarmable) connector).warmUp(cycles);
+            }
+        }
+    }
+
     public void dispose() {
-        deviceController.dispose();
+        if(deviceController != null) {
+            deviceController.dispose();
+        }
     }
 }
@@ -1,18 +1,33 @@
 package com.global.api;
 
+import com.global.api.builders.AuthorizationBuilder;
+import com.global.api.builders.ManagementBuilder;
+import com.global.api.entities.Transaction;
 import com.global.api.entities.enums.Secure3dVersion;
 import com.global.api.entities.exceptions.ApiException;
 import com.global.api.entities.exceptions.ConfigurationException;
 import com.global.api.gateways.*;
+import com.global.api.paymentMethods.CreditCardData;
+import com.global.api.resilience.DuplicateDetector;
+import com.global.api.resilience.GatewayRouter;
+import com.global.api.resilience.IdempotencyCache;
 import com.global.api.serviceConfigs.Configuration;
 import com.global.api.terminals.DeviceController;
 import com.global.api.terminals.abstractions.IDeviceInterface;
 import com.global.api.terminals.abstractions.IDisposable;
+import com.global.api.utils.CardUtils;
+import com.global.api.utils.CountryUtils;
+import com.global.api.utils.EmvUtils;
+
+import java.math.BigDecimal;
 
 import java.util.HashMap;
 
 public class ServicesContainer implements IDisposable {
+    private static final int DEFAULT_WARM_UP_CYCLES = 500;
+    private static final String WARM_UP_TAG_DATA = "950500000000009B02E8005F280208405F2A0208405F3401009F02060000000010009F3704C6B1A04F";
     private HashMap<String, ConfiguredServices> configurations;
+    private HashMap<String, GatewayRouter> routers;
     private static ServicesContainer instance;
 
     public IDeviceInterface getDeviceInterface(String configName) throws ApiException {
@@ -55,6 +70,42 @@ public class ServicesContainer implements IDisposable {
         }
         throw new ConfigurationException("Secure 3d is not configured on the connector");
     }
+    /**
+     * @return the idempotency cache of the configuration, or null when it has none
+     */
+    public IdempotencyCache getIdempotencyCache(String configName) {
+        if(configurations.containsKey(configName))
+            return configurations.get(configName).getIdempotencyCache();
+        return null;
+    }
+    /**
+     * @return the duplicate detector of the configuration, or null when it has none
+     */
+    public DuplicateDetector getDuplicateDetector(String configName) {
+        if(configurations.containsKey(configName))
+            return configurations.get(configName).getDuplicateDetector();
+        return null;
+    }
+    /**
+     * @return the router registered under the name, or null when the name is a configuration
+     */
+    public GatewayRouter getRouter(String routeName) {
+        return routers.get(routeName);
+    }
+
+    public boolean isConfigured(String configName) {
+        return configurations.containsKey(configName);
+    }
+
+    /**
+     * @return whether the router is registered under a route name
+     */
+    public boolean isRouterConfigured(GatewayRouter router) {
+        return routers.containsValue(router);
+    }
+    public boolean isRejectDuplicates(String configName) {
+        return configurations.containsKey(configName) && configurations.get(configName).isRejectDuplicates();
+    }
     public TableServiceConnector getTableService(String configName) throws ApiException {
         if(configurations.containsKey(configName))
             return configurations.get(configName).getTableServiceConnector();
@@ -103,14 +154,106 @@ public class ServicesContainer implements IDisposable {
         if(!config.isValidated())
             config.validate();
 
+        if(getInstance().routers.containsKey(configName)) {
+            throw new ConfigurationException(String.format("%s is already the name of a route.", configName));
+        }
+
         ConfiguredServices cs = getInstance().getConfiguration(configName);
         config.configureContainer(cs);
+        if(config.getIdempotencyWindow() > 0) {
+            cs.setIdempotencyCache(new IdempotencyCache(configName, config.getIdempotencyWindow(), config.getIdempotencyCacheSize(), config.getIdempotencyStore()));
+        }
+        if(config.getDuplicateCheckWindow() > 0) {
+            cs.setDuplicateDetector(new DuplicateDetector(config.getDuplicateCheckWindow(), config.getDuplicateCheckCapacity(), config.getDuplicateCheckFalsePositiveRate()));
+            cs.setRejectDuplicates(config.isRejectDuplicates());
+        }
 
         getInstance().addConfiguration(configName, cs);
     }
 
+    public static void warmUp(String configName) throws ApiException {
+        warmUp(configName, DEFAULT_WARM_UP_CYCLES);
+    }
+    /**
+     * Does the SDK's one-time startup work so the first transaction after a deploy does not pay
+     * for it: loads the static lookup tables, runs the builder validations and each connector's
+     * request building and response parsing code enough times for the JIT to compile them, and
+     * opens a TLS session with each endpoint. Nothing is sent to the gateway.
+     *
+     * @param cycles number of synthetic validation and build and parse cycles
+     */
+    public static void warmUp(String configName, int cycles) throws ApiException {
+        ConfiguredServices cs = getInstance().configurations.get(configName);
+        if(cs == null) {
+            throw new ConfigurationException(String.format("The configuration %s has not been configured.", configName));
+        }
+
+        CountryUtils.getCountryCodeByCountry("United States");
+        CountryUtils.getCountryByCode("US");
+        CardUtils.mapCardType("4111111111111111");
+        EmvUtils.parseTagData(WARM_UP_TAG_DATA);
+
+        for(int i = 0; i < cycles; i++) {
+            CreditCardData card = new CreditCardData();
+            card.setNumber("4111111111111111");
+            card.setExpMonth(12);
+            card.setExpYear(2030);
+
+            AuthorizationBuilder sale = card.charge(new BigDecimal("10.00")).withCurrency("USD");
+            sale.getValidations().validate(sale);
+
+            ManagementBuilder capture = Transaction.fromId("0").capture(new BigDecimal("10.00"));
+            capture.getValidations().validate(capture);
+        }
+
+        cs.warmUp(cycles);
+    }
+
+    /**
+     * Removes a device from its configuration without disposing it, for owners that have already
+     * closed it. Nothing is removed if the configuration has since been given another device, and
+     * the configuration itself is dropped once it holds no other services.
+     */
+    public static void removeDevice(String configName, DeviceController controller) {
+        ServicesContainer container = getInstance();
+        ConfiguredServices cs = container.configurations.get(configName);
+        if(cs == null || cs.getDeviceController() != controller) {
+            return;
+        }
+
+        cs.removeDeviceController();
+        if(cs.isEmpty()) {
+            container.configurations.remove(configName);
+        }
+    }
+
+    /**
+     * Registers a router so builders executed with the route name are sent to one of its
+     * configurations, each of which must already be configured.
+     */
+    public static void configureRouter(GatewayRouter router, String routeName) throws ConfigurationException {
+        ServicesContainer container = getInstance();
+        if(container.configurations.containsKey(routeName)) {
+            throw new ConfigurationException(String.format("%s is already the name of a configuration.", routeName));
+        }
+        if(router.getTargets().isEmpty()) {
+            throw new ConfigurationException("A route must have at least one configuration.");
+        }
+        for(String target : router.getTargets()) {
+            if(!container.configurations.containsKey(target)) {
+                throw new ConfigurationException(String.format("The route target %s has not been configured.", target));
+            }
+        }
+
+        GatewayRouter previous = container.routers.put(routeName, router);
+        if(previous != null && previous != router) {
+            previous.dispose();
+        }
+    }
+
     private ServicesContainer() {
         configurations = new HashMap<String, ConfiguredServices>();
+        routers = new HashMap<String, GatewayRouter>();
     }
 
     private ConfiguredServices getConfiguration(String configName) {
@@ -127,5 +270,7 @@ public class ServicesContainer implements IDisposable {
     public void dispose() {
         for(ConfiguredServices cs : configurations.values())
             cs.dispose();
+        for(GatewayRouter router : routers.values())
+            router.dispose();
     }
 }
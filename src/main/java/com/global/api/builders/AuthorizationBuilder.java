@@ -4,8 +4,10 @@ import com.global.api.ServicesContainer;
 import com.global.api.entities.*;
 import com.global.api.entities.enums.*;
 import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.DuplicateTransactionException;
 import com.global.api.entities.exceptions.UnsupportedTransactionException;
 import com.global.api.gateways.IPaymentGateway;
+import com.global.api.metrics.MetricsRegistry;
 import com.global.api.network.entities.FleetData;
 import com.global.api.network.entities.PriorMessageInformation;
 import com.global.api.network.entities.ProductData;
@@ -17,7 +19,11 @@ import com.global.api.paymentMethods.EBTCardData;
 import com.global.api.paymentMethods.GiftCard;
 import com.global.api.paymentMethods.IPaymentMethod;
 import com.global.api.paymentMethods.TransactionReference;
+import com.global.api.resilience.DuplicateDetector;
+import com.global.api.resilience.GatewayRouter;
+import com.global.api.resilience.IdempotencyCache;
 import com.global.api.utils.StringUtils;
+import com.global.api.utils.TtlCache;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -47,6 +53,7 @@ public class AuthorizationBuilder extends TransactionBuilder<Transaction> {
     private String customerIpAddress;
     private String cvn;
     private DccRateData dccRateData;
+    private boolean indicativeRate;
     private String description;
     private DecisionManager decisionManager;
     private String dynamicDescriptor;
@@ -152,6 +159,9 @@ public class AuthorizationBuilder extends TransactionBuilder<Transaction> {
         return cvn;
     }
     public DccRateData getDccRateData() { return dccRateData; }
+    public boolean isIndicativeRate() {
+        return indicativeRate;
+    }
     public String getDescription() {
         return description;
     }
@@ -380,6 +390,14 @@ public class AuthorizationBuilder extends TransactionBuilder<Transaction> {
         this.dccRateData = dccRateData;
         return this;
     }
+    /**
+     * Asks a DCC rate lookup for an indicative quote, which a gateway may serve from a local rate
+     * cache. The rate returned is marked indicative and cannot be used to process a transaction.
+     */
+    public AuthorizationBuilder withIndicativeRate(boolean value) {
+        this.indicativeRate = value;
+        return this;
+    }
     public AuthorizationBuilder withDescription(String value) {
         this.description = value;
         return this;
@@ -400,6 +418,10 @@ public class AuthorizationBuilder extends TransactionBuilder<Transaction> {
         this.forceGatewayTimeout = value;
         return this;
     }
+    public AuthorizationBuilder withTimeout(int value) {
+        this.timeout = value;
+        return this;
+    }
     public AuthorizationBuilder withFraudFilter(FraudFilterMode value) {
         this.fraudFilterMode = value;
         return this;
@@ -606,10 +628,87 @@ public class AuthorizationBuilder extends TransactionBuilder<Transaction> {
     }
 
     public Transaction execute(String configName) throws ApiException {
+        GatewayRouter router = ServicesContainer.getInstance().getRouter(configName);
+        if(router != null) {
+            return router.execute(this);
+        }
         super.execute(configName);
 
-        IPaymentGateway client = ServicesContainer.getInstance().getGateway(configName);
-        return client.processAuthorization(this);
+        final IPaymentGateway client = ServicesContainer.getInstance().getGateway(configName);
+        IdempotencyCache idempotency = ServicesContainer.getInstance().getIdempotencyCache(configName);
+        String idempotencyKey = null;
+        if(idempotency != null) {
+            idempotencyKey = IdempotencyCache.getKey(transactionType, IdempotencyCache.getReference(client, clientTransactionId, orderId), paymentMethod, amount, currency);
+        }
+
+        long started = System.nanoTime();
+        String responseCode = "error";
+        try {
+            Transaction response;
+            if(idempotencyKey != null) {
+                final AuthorizationBuilder builder = this;
+                final String config = configName;
+                response = idempotency.execute(idempotencyKey, new TtlCache.ILoader<String, Transaction>() {
+                    public Transaction load(String key) throws ApiException {
+                        return builder.process(client, config);
+                    }
+                });
+            }
+            else {
+                response = process(client, configName);
+            }
+            if(response != null && response.getResponseCode() != null) {
+                responseCode = response.getResponseCode();
+            }
+            return response;
+        }
+        finally {
+            MetricsRegistry.getInstance().recordLatency(client.getClass().getSimpleName(), transactionType.toString(), configName, null, responseCode, started);
+        }
+    }
+
+    /**
+     * Sends the request, flagging it, or refusing it when the configuration rejects duplicates, if
+     * the duplicate check takes it for a repeat of a recently approved one. Replayed idempotent
+     * retries never get here, so they are not taken for repeats.
+     */
+    private Transaction process(IPaymentGateway client, String configName) throws ApiException {
+        DuplicateDetector duplicates = ServicesContainer.getInstance().getDuplicateDetector(configName);
+        String duplicateKey = null;
+        if(duplicates != null && !allowDuplicates && (transactionType == TransactionType.Sale || transactionType == TransactionType.Auth)) {
+            duplicateKey = DuplicateDetector.getKey(transactionType, paymentMethod, amount, currency);
+        }
+        if(duplicateKey == null) {
+            return client.processAuthorization(this);
+        }
+
+        DuplicateDetector.Registration registration = duplicates.register(duplicateKey);
+        if(registration == null) {
+            if(ServicesContainer.getInstance().isRejectDuplicates(configName)) {
+                throw new DuplicateTransactionException();
+            }
+
+            Transaction response = client.processAuthorization(this);
+            if(response != null) {
+                response.setSuspectedDuplicate(true);
+            }
+            return response;
+        }
+
+        // held while the request is in flight so a concurrent repeat is caught, and kept only if
+        // it is approved; a decline, timeout or failure may be retried without being reported
+        Transaction response;
+        try {
+            response = client.processAuthorization(this);
+        }
+        catch(ApiException exc) {
+            duplicates.release(registration);
+            throw exc;
+        }
+        if(!DuplicateDetector.isApproved(response)) {
+            duplicates.release(registration);
+        }
+        return response;
     }
 
     public String serialize() throws ApiException {
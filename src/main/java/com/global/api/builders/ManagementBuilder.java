@@ -7,6 +7,7 @@ import com.global.api.entities.enums.*;
 import com.global.api.entities.Transaction;
 import com.global.api.entities.exceptions.ApiException;
 import com.global.api.gateways.IPaymentGateway;
+import com.global.api.metrics.MetricsRegistry;
 import com.global.api.network.entities.FleetData;
 import com.global.api.network.entities.PriorMessageInformation;
 import com.global.api.network.entities.ProductData;
@@ -14,7 +15,10 @@ import com.global.api.network.entities.TransactionMatchingData;
 import com.global.api.network.enums.CardIssuerEntryTag;
 import com.global.api.paymentMethods.IPaymentMethod;
 import com.global.api.paymentMethods.TransactionReference;
+import com.global.api.resilience.GatewayRouter;
+import com.global.api.resilience.IdempotencyCache;
 import com.global.api.utils.StringUtils;
+import com.global.api.utils.TtlCache;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -236,6 +240,10 @@ public class ManagementBuilder extends TransactionBuilder<Transaction> {
         this.forceGatewayTimeout = value;
         return this;
     }
+    public ManagementBuilder withTimeout(int value) {
+        this.timeout = value;
+        return this;
+    }
     public ManagementBuilder withForcedReversal(boolean value) {
         forcedReversal = value;
         return this;
@@ -365,10 +373,43 @@ public class ManagementBuilder extends TransactionBuilder<Transaction> {
 
     @Override
     public Transaction execute(String configName) throws ApiException {
+        GatewayRouter router = ServicesContainer.getInstance().getRouter(configName);
+        if(router != null) {
+            return router.execute(this);
+        }
         super.execute(configName);
 
-        IPaymentGateway gateway = ServicesContainer.getInstance().getGateway(configName);
-        return gateway.manageTransaction(this);
+        final IPaymentGateway gateway = ServicesContainer.getInstance().getGateway(configName);
+        IdempotencyCache idempotency = ServicesContainer.getInstance().getIdempotencyCache(configName);
+        String idempotencyKey = null;
+        if(idempotency != null) {
+            // only an id given for this request, the referenced transaction's id is shared by its follow ups
+            idempotencyKey = IdempotencyCache.getKey(transactionType, clientTransactionId, paymentMethod, amount, currency);
+        }
+
+        long started = System.nanoTime();
+        String responseCode = "error";
+        try {
+            Transaction response;
+            if(idempotencyKey != null) {
+                final ManagementBuilder builder = this;
+                response = idempotency.execute(idempotencyKey, new TtlCache.ILoader<String, Transaction>() {
+                    public Transaction load(String key) throws ApiException {
+                        return gateway.manageTransaction(builder);
+                    }
+                });
+            }
+            else {
+                response = gateway.manageTransaction(this);
+            }
+            if(response != null && response.getResponseCode() != null) {
+                responseCode = response.getResponseCode();
+            }
+            return response;
+        }
+        finally {
+            MetricsRegistry.getInstance().recordLatency(gateway.getClass().getSimpleName(), transactionType.toString(), configName, null, responseCode, started);
+        }
     }
 
     @Override
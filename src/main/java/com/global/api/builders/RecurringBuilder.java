@@ -18,6 +18,8 @@ public class RecurringBuilder<TResult> extends TransactionBuilder<TResult> {
     private HashMap<String, String> searchCriteria = new HashMap<String, String>();
     private Class<TResult> clazz;
     private boolean forceDelete = false;
+    private Integer pageSize;
+    private Integer pageOffset;
 
     public String getKey() {
         return key;
@@ -34,6 +36,12 @@ public class RecurringBuilder<TResult> extends TransactionBuilder<TResult> {
     public boolean isForceDelete() {
         return forceDelete;
     }
+    public Integer getPageSize() {
+        return pageSize;
+    }
+    public Integer getPageOffset() {
+        return pageOffset;
+    }
 
     public RecurringBuilder<TResult> addSearchCriteria(String key, String value) {
         searchCriteria.put(key, value);
@@ -47,6 +55,20 @@ public class RecurringBuilder<TResult> extends TransactionBuilder<TResult> {
         this.forceDelete = value;
         return this;
     }
+    /**
+     * Limits a search to this many results per request.
+     */
+    public RecurringBuilder<TResult> withPageSize(int value) {
+        this.pageSize = value;
+        return this;
+    }
+    /**
+     * Skips this many results of a search before the page starts.
+     */
+    public RecurringBuilder<TResult> withPageOffset(int value) {
+        this.pageOffset = value;
+        return this;
+    }
 
     public RecurringBuilder(TransactionType type) {
         super(type);
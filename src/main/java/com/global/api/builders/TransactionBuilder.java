@@ -13,6 +13,7 @@ import java.util.LinkedHashMap;
 
 public abstract class TransactionBuilder<TResult> extends BaseBuilder<TResult> {
     protected boolean forceGatewayTimeout;
+    protected Integer timeout;
     protected TransactionType transactionType;
     protected TransactionModifier transactionModifier = TransactionModifier.None;
     protected IPaymentMethod paymentMethod;
@@ -51,6 +52,9 @@ public abstract class TransactionBuilder<TResult> extends BaseBuilder<TResult> {
     public boolean isForceGatewayTimeout() {
         return forceGatewayTimeout;
     }
+    public Integer getTimeout() {
+        return timeout;
+    }
 
     // network fields
     public int getBatchNumber() { return batchNumber; }
@@ -148,7 +148,7 @@ public class Customer extends RecurringEntity<Customer> {
         return create("default");
     }
     public Customer create(String configName) throws ApiException {
-        return RecurringService.create(this, Customer.class);
+        return RecurringService.create(this, Customer.class, configName);
     }
 
     public void delete() throws ApiException {
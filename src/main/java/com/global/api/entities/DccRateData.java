@@ -17,6 +17,7 @@ public class DccRateData {
     private BigDecimal merchantAmount;
     private String merchantCurrency;
     private String marginRatePercentage;
+    private boolean indicative;
 
     public BigDecimal getCardHolderAmount() {
         return cardHolderAmount;
@@ -84,4 +85,14 @@ public class DccRateData {
     public void setMarginRatePercentage(String marginRatePercentage) {
         this.marginRatePercentage = marginRatePercentage;
     }
+    public boolean isIndicative() {
+        return indicative;
+    }
+    /**
+     * Marks the rate as an indicative quote, as returned for an indicative rate lookup. It may have
+     * been served from a local cache, so it may be displayed but not used to authorize a transaction.
+     */
+    public void setIndicative(boolean indicative) {
+        this.indicative = indicative;
+    }
 }
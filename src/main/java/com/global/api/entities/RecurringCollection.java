@@ -3,4 +3,15 @@ package com.global.api.entities;
 import java.util.ArrayList;
 
 public class RecurringCollection<T> extends ArrayList<T> implements IRecurringCollection {
+    private Integer totalRecords;
+
+    /**
+     * @return the number of records matching a search across all pages, when the gateway reports it
+     */
+    public Integer getTotalRecords() {
+        return totalRecords;
+    }
+    public void setTotalRecords(Integer totalRecords) {
+        this.totalRecords = totalRecords;
+    }
 }
@@ -254,7 +254,7 @@ public class Schedule extends RecurringEntity<Schedule> {
     }
 
     public Schedule create(String configName) throws ApiException {
-        return RecurringService.create(this, Schedule.class);
+        return RecurringService.create(this, Schedule.class, configName);
     }
 
     public void delete() throws ApiException {
@@ -49,6 +49,7 @@ public class Transaction {
     private String responseMessage;
     private HashMap<String, String> responseValues;
     private String schemeId;
+    private boolean suspectedDuplicate;
     private ThreeDSecure threeDsecure;
     private String timestamp;
     private String transactionDescriptor;
@@ -358,6 +359,16 @@ public class Transaction {
     public void setSchemeId(String schemeId) {
         this.schemeId = schemeId;
     }
+    /**
+     * @return whether the duplicate check saw the same card and amount within its window; only
+     * set when the configuration flags duplicates instead of rejecting them
+     */
+    public boolean isSuspectedDuplicate() {
+        return suspectedDuplicate;
+    }
+    public void setSuspectedDuplicate(boolean suspectedDuplicate) {
+        this.suspectedDuplicate = suspectedDuplicate;
+    }
     public String getSystemTraceAuditNumber() {
         if(transactionReference != null) {
             return transactionReference.getSystemTraceAuditNumber();
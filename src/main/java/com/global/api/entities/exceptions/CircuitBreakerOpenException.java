@@ -0,0 +1,23 @@
+package com.global.api.entities.exceptions;
+
+/**
+ * Raised without contacting the gateway when the circuit breaker for every usable endpoint is
+ * open. Callers may retry once {@link #getRetryAfter()} milliseconds have passed.
+ */
+public class CircuitBreakerOpenException extends GatewayException {
+    private String endpoint;
+    private long retryAfter;
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    public CircuitBreakerOpenException(String endpoint, long retryAfter) {
+        super(String.format("The circuit breaker for the %s endpoint is open.", endpoint));
+        this.endpoint = endpoint;
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,18 @@
+package com.global.api.entities.exceptions;
+
+/**
+ * Raised without contacting the gateway when the number of requests already in flight has
+ * reached the connector's current adaptive concurrency limit.
+ */
+public class ConcurrencyLimitExceededException extends GatewayException {
+    private int limit;
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public ConcurrencyLimitExceededException(int limit) {
+        super(String.format("The gateway concurrency limit of %s in-flight requests has been reached.", limit));
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,12 @@
+package com.global.api.entities.exceptions;
+
+/**
+ * Raised without contacting the gateway when the same card was charged the same amount within
+ * the configuration's duplicate check window. Resend with allow duplicates set if the repeat is
+ * intended.
+ */
+public class DuplicateTransactionException extends GatewayException {
+    public DuplicateTransactionException() {
+        super("The transaction appears to duplicate one sent within the duplicate check window.");
+    }
+}
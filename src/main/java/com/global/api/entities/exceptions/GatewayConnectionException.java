@@ -0,0 +1,11 @@
+package com.global.api.entities.exceptions;
+
+/**
+ * Raised when no connection could be made to any processing endpoint, so the request was never
+ * written and the host cannot have processed it.
+ */
+public class GatewayConnectionException extends GatewayException {
+    public GatewayConnectionException(String message) {
+        super(message);
+    }
+}
@@ -202,6 +202,10 @@ public class Employee extends PayrollEntity {
         this.deactivateAccounts = deactivateAccounts;
     }
 
+    String getSyncKey(JsonDoc doc) {
+        return doc.getString("EmployeeId");
+    }
+
     void fromJson(JsonDoc doc, PayrollEncoder encoder) throws ApiException {
         ValueConverter<DateTime> dateConverter = new ValueConverter<DateTime>() {
             @Override
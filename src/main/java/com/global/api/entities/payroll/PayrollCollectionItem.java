@@ -30,6 +30,10 @@ public abstract class PayrollCollectionItem extends PayrollEntity {
         descriptionField = descriptionFieldName;
     }
 
+    String getSyncKey(JsonDoc doc) {
+        return doc.getString(idField);
+    }
+
     void fromJson(JsonDoc doc, PayrollEncoder encoder) {
         id = doc.getString(idField);
         description = doc.getString(descriptionField);
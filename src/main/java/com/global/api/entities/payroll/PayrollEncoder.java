@@ -15,6 +15,8 @@ import java.security.spec.AlgorithmParameterSpec;
 public class PayrollEncoder implements IRequestEncoder {
     private String username;
     private String apiKey;
+    private volatile CipherKey cipherKey;
+    private final ThreadLocal<Cipher> ciphers = new ThreadLocal<Cipher>();
 
     public String getUsername() {
         return username;
@@ -22,6 +24,7 @@ public class PayrollEncoder implements IRequestEncoder {
 
     public void setUsername(String username) {
         this.username = username;
+        this.cipherKey = null;
     }
 
     public String getApiKey() {
@@ -30,6 +33,7 @@ public class PayrollEncoder implements IRequestEncoder {
 
     public void setApiKey(String apiKey) {
         this.apiKey = apiKey;
+        this.cipherKey = null;
     }
 
     public ValueConverter<String> getEncoder() {
@@ -63,18 +67,7 @@ public class PayrollEncoder implements IRequestEncoder {
             return null;
 
         try {
-            SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
-            PBEKeySpec pbeKeySpec = new PBEKeySpec(apiKey.toCharArray(), username.getBytes("UTF-8"), 1000, 384);
-            Key secretKey = factory.generateSecret(pbeKeySpec);
-            byte[] key = new byte[32];
-            byte[] iv = new byte[16];
-            System.arraycopy(secretKey.getEncoded(), 0, key, 0, 32);
-            System.arraycopy(secretKey.getEncoded(), 32, iv, 0, 16);
-
-            SecretKeySpec secret = new SecretKeySpec(key, "AES");
-            AlgorithmParameterSpec ivSpec = new IvParameterSpec(iv);
-            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-            cipher.init(Cipher.ENCRYPT_MODE, secret, ivSpec);
+            Cipher cipher = getCipher(Cipher.ENCRYPT_MODE);
             byte[] results = cipher.doFinal(value.toString().getBytes("UTF-8"));
             return Base64.encodeBase64String(results);
         }
@@ -88,6 +81,23 @@ public class PayrollEncoder implements IRequestEncoder {
             return null;
 
         try {
+            Cipher cipher = getCipher(Cipher.DECRYPT_MODE);
+            byte[] decode = Base64.decodeBase64(value.toString());
+            byte[] results = cipher.doFinal(decode);
+            return new String(results);
+        }
+        catch(Exception exc) {
+            return value.toString();
+        }
+    }
+
+    /**
+     * The key is derived once per username and api key rather than for every field, and each
+     * thread reuses its own cipher instance.
+     */
+    private Cipher getCipher(int mode) throws Exception {
+        CipherKey current = cipherKey;
+        if(current == null) {
             SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
             PBEKeySpec pbeKeySpec = new PBEKeySpec(apiKey.toCharArray(), username.getBytes("UTF-8"), 1000, 384);
             Key secretKey = factory.generateSecret(pbeKeySpec);
@@ -96,16 +106,26 @@ public class PayrollEncoder implements IRequestEncoder {
             System.arraycopy(secretKey.getEncoded(), 0, key, 0, 32);
             System.arraycopy(secretKey.getEncoded(), 32, iv, 0, 16);
 
-            SecretKeySpec secret = new SecretKeySpec(key, "AES");
-            AlgorithmParameterSpec ivSpec = new IvParameterSpec(iv);
-            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-            cipher.init(Cipher.DECRYPT_MODE, secret, ivSpec);
-            byte[] decode = Base64.decodeBase64(value.toString());
-            byte[] results = cipher.doFinal(decode);
-            return new String(results);
+            current = new CipherKey(new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+            cipherKey = current;
         }
-        catch(Exception exc) {
-            return value.toString();
+
+        Cipher cipher = ciphers.get();
+        if(cipher == null) {
+            cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            ciphers.set(cipher);
+        }
+        cipher.init(mode, current.secret, current.iv);
+        return cipher;
+    }
+
+    private static class CipherKey {
+        private final SecretKeySpec secret;
+        private final AlgorithmParameterSpec iv;
+
+        CipherKey(SecretKeySpec secret, AlgorithmParameterSpec iv) {
+            this.secret = secret;
+            this.iv = iv;
         }
     }
 }
@@ -5,4 +5,12 @@ import com.global.api.utils.JsonDoc;
 
 public abstract class PayrollEntity {
     abstract void fromJson(JsonDoc doc, PayrollEncoder encoder) throws ApiException;
+
+    /**
+     * @return the field of a raw result that identifies the record across syncs, or null when
+     *         records of this type are not tracked in a {@link PayrollSnapshot}
+     */
+    String getSyncKey(JsonDoc doc) {
+        return null;
+    }
 }
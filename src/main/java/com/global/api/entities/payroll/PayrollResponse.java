@@ -4,9 +4,14 @@ import com.global.api.entities.exceptions.ApiException;
 import com.global.api.utils.JsonDoc;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class PayrollResponse <TResult extends PayrollEntity> extends BasePayrollResponse {
     private ArrayList<TResult> results;
+    private List<String> removedKeys;
+    private int unchangedCount;
 
     public ArrayList<TResult> getResults() {
         return results;
@@ -16,21 +21,73 @@ public class PayrollResponse <TResult extends PayrollEntity> extends BasePayroll
         this.results = results;
     }
 
+    /**
+     * @return ids of the records in the snapshot that the response no longer contains
+     */
+    public List<String> getRemovedKeys() {
+        return removedKeys;
+    }
+
+    /**
+     * @return records skipped because they match the snapshot
+     */
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
     public PayrollResponse(String rawResponse, PayrollEncoder encoder, Class<TResult> clazz) throws ApiException {
+        this(rawResponse, encoder, clazz, null);
+    }
+
+    /**
+     * With a snapshot, the results hold only the records that are new or changed since it was
+     * taken and the snapshot is brought up to date. The response must then hold every record of
+     * the type, since any record it lacks is reported as removed.
+     */
+    public PayrollResponse(String rawResponse, PayrollEncoder encoder, Class<TResult> clazz, PayrollSnapshot snapshot) throws ApiException {
         super(rawResponse);
 
         results = new ArrayList<TResult>();
+        removedKeys = new ArrayList<String>();
+        String type = clazz.getSimpleName();
+        Set<String> seen = new HashSet<String>();
         if (rawResults != null) {
             for(JsonDoc result: rawResults) {
                 try {
                     TResult item = clazz.newInstance();
+                    String key = snapshot != null ? item.getSyncKey(result) : null;
+                    String digest = null;
+                    if(key != null) {
+                        seen.add(key);
+                        digest = PayrollSnapshot.digest(result);
+                        if(digest.equals(snapshot.get(type, key))) {
+                            unchangedCount++;
+                            continue;
+                        }
+                    }
+
                     item.fromJson(result, encoder);
                     results.add(item);
+                    if(key != null) {
+                        snapshot.put(type, key, digest);
+                    }
+                }
+                catch(ApiException exc) {
+                    throw exc;
                 }
                 catch(Exception exc) {
                     throw new ApiException(exc.getMessage(), exc);
                 }
             }
         }
+
+        if(snapshot != null) {
+            for(String key: snapshot.getKeys(type)) {
+                if(!seen.contains(key)) {
+                    removedKeys.add(key);
+                    snapshot.remove(type, key);
+                }
+            }
+        }
     }
 }
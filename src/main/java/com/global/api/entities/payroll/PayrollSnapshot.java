@@ -0,0 +1,184 @@
+package com.global.api.entities.payroll;
+
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.utils.JsonDoc;
+import org.apache.commons.codec.binary.Hex;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Digests of the payroll records seen by the last sync, keyed by record type and id. Records
+ * whose raw, still encrypted, result matches the digest are skipped without being decrypted,
+ * and records the last sync saw but the current one did not are reported as removed. The
+ * snapshot is updated as responses are read, so save it only once they have been processed.
+ * One snapshot may hold several clients; each sync works on the view returned by
+ * {@link #forClient(String)}, so one client's records are never reported removed by another's.
+ */
+public class PayrollSnapshot {
+    private final ConcurrentHashMap<String, String> digests;
+    private final String scope;
+
+    public PayrollSnapshot() {
+        this(new ConcurrentHashMap<String, String>(), "");
+    }
+
+    private PayrollSnapshot(ConcurrentHashMap<String, String> digests, String scope) {
+        this.digests = digests;
+        this.scope = scope;
+    }
+
+    /**
+     * @return a view of the records of one client, backed by this snapshot
+     */
+    public PayrollSnapshot forClient(String clientCode) {
+        return new PayrollSnapshot(digests, scope + "client:" + clientCode + "|");
+    }
+
+    public int size() {
+        if(scope.length() == 0) {
+            return digests.size();
+        }
+
+        int size = 0;
+        for(String key : digests.keySet()) {
+            if(key.startsWith(scope)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    public String get(String type, String key) {
+        return digests.get(scope + type + "|" + key);
+    }
+
+    public void put(String type, String key, String digest) {
+        digests.put(scope + type + "|" + key, digest);
+    }
+
+    public void remove(String type, String key) {
+        digests.remove(scope + type + "|" + key);
+    }
+
+    /**
+     * @return the ids of every record of the type in the snapshot
+     */
+    public Set<String> getKeys(String type) {
+        String prefix = scope + type + "|";
+        Set<String> keys = new HashSet<String>();
+        for(String key : digests.keySet()) {
+            if(key.startsWith(prefix)) {
+                keys.add(key.substring(prefix.length()));
+            }
+        }
+        return keys;
+    }
+
+    public static PayrollSnapshot load(String path) throws ApiException {
+        PayrollSnapshot snapshot = new PayrollSnapshot();
+        File file = new File(path);
+        if(!file.exists()) {
+            return snapshot;
+        }
+
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            try {
+                String line;
+                while((line = reader.readLine()) != null) {
+                    int separator = line.lastIndexOf('\t');
+                    if(separator > 0) {
+                        snapshot.digests.put(line.substring(0, separator), line.substring(separator + 1));
+                    }
+                }
+            }
+            finally {
+                reader.close();
+            }
+        }
+        catch(IOException exc) {
+            throw new ApiException(String.format("Unable to read payroll snapshot %s.", path), exc);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Writes the snapshot to a temporary file first, so a crash never leaves a partial snapshot.
+     */
+    public void save(String path) throws ApiException {
+        File file = new File(path);
+        File temp = new File(path + ".tmp");
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), "UTF-8"));
+            try {
+                for(Map.Entry<String, String> entry : new TreeMap<String, String>(digests).entrySet()) {
+                    writer.write(entry.getKey());
+                    writer.write('\t');
+                    writer.write(entry.getValue());
+                    writer.write('\n');
+                }
+            }
+            finally {
+                writer.close();
+            }
+
+            if(file.exists() && !file.delete() || !temp.renameTo(file)) {
+                throw new IOException("Unable to replace the previous snapshot.");
+            }
+        }
+        catch(IOException exc) {
+            throw new ApiException(String.format("Unable to write payroll snapshot %s.", path), exc);
+        }
+    }
+
+    /**
+     * Digest of a raw result, independent of the order of its fields.
+     */
+    public static String digest(JsonDoc doc) {
+        StringBuilder canonical = new StringBuilder();
+        appendCanonical(canonical, doc);
+        return digest(canonical.toString());
+    }
+
+    public static String digest(String value) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return Hex.encodeHexString(sha.digest(value.getBytes("UTF-8")));
+        }
+        catch(NoSuchAlgorithmException exc) {
+            throw new IllegalStateException(exc);
+        }
+        catch(UnsupportedEncodingException exc) {
+            throw new IllegalStateException(exc);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void appendCanonical(StringBuilder buffer, JsonDoc doc) {
+        buffer.append('{');
+        for(String key : new TreeSet<String>(doc.getKeys())) {
+            buffer.append(key.length()).append(':').append(key).append('=');
+            Object value = doc.getValue(key);
+            if(value instanceof JsonDoc) {
+                appendCanonical(buffer, (JsonDoc) value);
+            }
+            else if(value instanceof List) {
+                buffer.append('[');
+                for(JsonDoc element : (List<JsonDoc>) value) {
+                    appendCanonical(buffer, element);
+                }
+                buffer.append(']');
+            }
+            else {
+                String text = String.valueOf(value);
+                buffer.append(text.length()).append(':').append(text);
+            }
+            buffer.append(';');
+        }
+        buffer.append('}');
+    }
+}
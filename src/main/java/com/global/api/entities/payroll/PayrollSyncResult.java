@@ -0,0 +1,36 @@
+package com.global.api.entities.payroll;
+
+/**
+ * The changes to a client's payroll collections since the snapshot a sync was run against.
+ */
+public class PayrollSyncResult {
+    private PayrollResponse<Employee> employees;
+    private PayrollResponse<PayItem> payItems;
+    private PayrollResponse<LaborField> laborFields;
+    private PayrollResponse<WorkLocation> workLocations;
+
+    public PayrollResponse<Employee> getEmployees() {
+        return employees;
+    }
+    public void setEmployees(PayrollResponse<Employee> employees) {
+        this.employees = employees;
+    }
+    public PayrollResponse<PayItem> getPayItems() {
+        return payItems;
+    }
+    public void setPayItems(PayrollResponse<PayItem> payItems) {
+        this.payItems = payItems;
+    }
+    public PayrollResponse<LaborField> getLaborFields() {
+        return laborFields;
+    }
+    public void setLaborFields(PayrollResponse<LaborField> laborFields) {
+        this.laborFields = laborFields;
+    }
+    public PayrollResponse<WorkLocation> getWorkLocations() {
+        return workLocations;
+    }
+    public void setWorkLocations(PayrollResponse<WorkLocation> workLocations) {
+        this.workLocations = workLocations;
+    }
+}
@@ -0,0 +1,151 @@
+package com.global.api.gateways;
+
+import com.global.api.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rolling health of a single processing endpoint. Latency and failures are recorded into a
+ * window that is replaced every {@link #getWindow()} milliseconds; reads cover the current and
+ * the previous window, so a sample stops counting between one and two windows after it was
+ * taken. Together they give a score used to decide whether the primary endpoint should be
+ * demoted behind the secondary.
+ */
+public class EndpointHealth {
+    private static final int DEFAULT_WINDOW = 30000;
+    private static final int DEFAULT_PROBE_INTERVAL = 20;
+    private static final int MIN_SAMPLES = 20;
+    private static final int MIN_FAILURE_SAMPLES = 4;
+
+    private final String host;
+    private int window = DEFAULT_WINDOW;
+    private int probeInterval = DEFAULT_PROBE_INTERVAL;
+    private final AtomicLong probeCounter = new AtomicLong();
+    private Window current = new Window(System.currentTimeMillis());
+    private Window previous = new Window(0);
+
+    public EndpointHealth(String host) {
+        this.host = host;
+    }
+
+    public String getHost() {
+        return host;
+    }
+    public int getWindow() {
+        return window;
+    }
+    /**
+     * Milliseconds of history each window holds; a demoted endpoint that gets no traffic is
+     * promoted again once its samples have aged out, at most two windows later.
+     */
+    public void setWindow(int window) {
+        this.window = window;
+    }
+    public int getProbeInterval() {
+        return probeInterval;
+    }
+    /**
+     * While demoted, one in this many sends still tries the endpoint first so its health is
+     * measured against current traffic. Zero disables probing.
+     */
+    public void setProbeInterval(int probeInterval) {
+        this.probeInterval = probeInterval;
+    }
+
+    public synchronized double getFailureRate() {
+        rotate(System.currentTimeMillis());
+        long attempts = current.attempts + previous.attempts;
+        return attempts == 0 ? 0.0 : (double) (current.failures + previous.failures) / attempts;
+    }
+    public synchronized long getSampleCount() {
+        rotate(System.currentTimeMillis());
+        return current.latency.getCount() + previous.latency.getCount();
+    }
+
+    /**
+     * @return observed p95 latency in milliseconds, or the supplied default when too few
+     * samples have been collected to be meaningful
+     */
+    public synchronized long getP95Millis(long defaultValue) {
+        if(getSampleCount() < MIN_SAMPLES) {
+            return defaultValue;
+        }
+        return Math.max(1, getP95Micros() / 1000);
+    }
+
+    /**
+     * Lower is better: p95 latency inflated by the recent failure rate.
+     */
+    public synchronized double getScore() {
+        double p95 = getSampleCount() == 0 ? 0.0 : getP95Micros() / 1000.0;
+        return (p95 + 1.0) * (1.0 + 10.0 * getFailureRate());
+    }
+
+    public boolean isWorseThan(EndpointHealth other) {
+        double failureRate = getFailureRate();
+        if(failureRate >= 0.5 && getAttempts() >= MIN_FAILURE_SAMPLES && other.getFailureRate() < failureRate) {
+            return true;
+        }
+        if(getSampleCount() < MIN_SAMPLES || other.getSampleCount() < MIN_SAMPLES) {
+            return false;
+        }
+        return getScore() > other.getScore() * 2.0;
+    }
+
+    /**
+     * @return true for one in {@link #getProbeInterval()} calls
+     */
+    boolean isProbeDue() {
+        return probeInterval > 0 && probeCounter.incrementAndGet() % probeInterval == 0;
+    }
+
+    synchronized void recordSuccess(long elapsedMillis) {
+        rotate(System.currentTimeMillis());
+        current.latency.record(elapsedMillis * 1000);
+        current.attempts++;
+    }
+
+    synchronized void recordFailure() {
+        rotate(System.currentTimeMillis());
+        current.attempts++;
+        current.failures++;
+    }
+
+    /**
+     * An attempt given up on because another endpoint answered first. The time waited is a
+     * lower bound on this endpoint's latency and is recorded as such.
+     */
+    synchronized void recordAbandoned(long elapsedMillis) {
+        rotate(System.currentTimeMillis());
+        current.latency.record(elapsedMillis * 1000);
+    }
+
+    private synchronized long getAttempts() {
+        rotate(System.currentTimeMillis());
+        return current.attempts + previous.attempts;
+    }
+
+    private long getP95Micros() {
+        return current.latency.getValueAtPercentile(95.0, previous.latency);
+    }
+
+    private void rotate(long now) {
+        long age = now - current.started;
+        if(age < window) {
+            return;
+        }
+        previous = age < window * 2L ? current : new Window(0);
+        current = new Window(now);
+    }
+
+    private static class Window {
+        private final long started;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private long attempts;
+        private long failures;
+
+        Window(long started) {
+            this.started = started;
+        }
+    }
+}
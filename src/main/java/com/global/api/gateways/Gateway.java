@@ -1,6 +1,14 @@
 package com.global.api.gateways;
 
+import com.global.api.builders.AuthorizationBuilder;
+import com.global.api.entities.exceptions.ApiException;
 import com.global.api.entities.exceptions.GatewayException;
+import com.global.api.logging.GatewayLogger;
+import com.global.api.logging.ILogMessage;
+import com.global.api.logging.IRequestLogger;
+import com.global.api.metrics.MetricsRegistry;
+import com.global.api.paymentMethods.CreditCardData;
+import com.global.api.resilience.ResiliencePolicy;
 import com.global.api.utils.IOUtils;
 import com.global.api.utils.StringUtils;
 
@@ -8,30 +16,57 @@ import org.apache.http.entity.mime.MultipartEntity;
 import sun.net.www.protocol.https.HttpsURLConnectionImpl;
 
 import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
 import java.io.*;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.net.ConnectException;
 import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.net.UnknownHostException;
+import java.security.GeneralSecurityException;
 import java.util.*;
 import java.util.zip.GZIPInputStream;
 
-abstract class Gateway {
+abstract class Gateway implements IWarmable {
     private String contentType;
-    private boolean enableLogging;
+    private GatewayLogger logger;
+    private ResiliencePolicy resiliencePolicy;
     protected HashMap<String, String> headers;
     protected int timeout;
     protected String serviceUrl;
+    private SSLSocketFactory sslSocketFactory;
 
     public String getContentType() {
         return contentType;
     }
     public void setEnableLogging(boolean enableLogging) {
-		this.enableLogging = enableLogging;
+		logger.setEnabled(enableLogging);
 	}
     public boolean getEnableLogging() {
-        return enableLogging;
+        return logger.isEnabled();
+    }
+    public void setRequestLogger(IRequestLogger requestLogger) {
+        logger.setRequestLogger(requestLogger);
+    }
+    public void setLogSampleRate(double logSampleRate) {
+        logger.setSampleRate(logSampleRate);
+    }
+    protected GatewayLogger getLogger() {
+        return logger;
+    }
+    public ResiliencePolicy getResiliencePolicy() {
+        return resiliencePolicy;
+    }
+    public void setResiliencePolicy(ResiliencePolicy resiliencePolicy) {
+        this.resiliencePolicy = resiliencePolicy;
     }
 	public HashMap<String, String> getHeaders() {
         return headers;
@@ -51,10 +86,20 @@ abstract class Gateway {
     public void setServiceUrl(String serviceUrl) {
         this.serviceUrl = serviceUrl;
     }
+    public SSLSocketFactory getSslSocketFactory() {
+        return sslSocketFactory;
+    }
+    /**
+     * Replaces the default TLS setup, e.g. to trust a local mock gateway's certificate.
+     */
+    public void setSslSocketFactory(SSLSocketFactory sslSocketFactory) {
+        this.sslSocketFactory = sslSocketFactory;
+    }
 
     public Gateway(String contentType) {
         headers = new HashMap<String, String>();
         this.contentType = contentType;
+        this.logger = new GatewayLogger(getClass().getSimpleName());
     }
 
     protected GatewayResponse sendRequest(String verb, String endpoint) throws GatewayException {
@@ -63,12 +108,20 @@ abstract class Gateway {
     protected GatewayResponse sendRequest(String verb, String endpoint, String data) throws GatewayException {
         return sendRequest(verb, endpoint, data, null);
     }
-    protected GatewayResponse sendRequest(String verb, String endpoint, String data, HashMap<String, String> queryStringParams) throws GatewayException {
-        HttpsURLConnection conn;
+    protected GatewayResponse sendRequest(String verb, String endpoint, final String data, HashMap<String, String> queryStringParams) throws GatewayException {
+        HttpsURLConnection conn = null;
+        ResiliencePolicy.Permit permit = acquirePermit();
+        boolean failed = true;
+        boolean logging = logger.sample();
+        long started = System.nanoTime();
+        String responseCode = "error";
+        String host = null;
         try{
             String queryString = buildQueryString(queryStringParams);
-            conn = (HttpsURLConnection)new URL((serviceUrl + endpoint + queryString).trim()).openConnection();
-            conn.setSSLSocketFactory(new SSLSocketFactoryEx());
+            URL url = new URL((serviceUrl + endpoint + queryString).trim());
+            host = url.getHost();
+            conn = (HttpsURLConnection)url.openConnection();
+            conn.setSSLSocketFactory(getSocketFactory());
             conn.setConnectTimeout(timeout);
             conn.setDoInput(true);
             // ----------------------------------------------------------------------
@@ -94,15 +147,20 @@ abstract class Gateway {
                 conn.setDoOutput(true);
                 conn.addRequestProperty("Content-Length", String.valueOf(request.length));
 
-                if (this.enableLogging)
-                    System.out.println("Request: " + StringUtils.mask(data));
+                if (logging) {
+                    logger.log(new ILogMessage() {
+                        public String getMessage() {
+                            return "Request: " + StringUtils.mask(data);
+                        }
+                    });
+                }
                 DataOutputStream requestStream = new DataOutputStream(conn.getOutputStream());
                 requestStream.write(request);
                 requestStream.flush();
                 requestStream.close();
             }
-            else if (this.enableLogging) {
-                System.out.println("Request: " + endpoint);
+            else if (logging) {
+                logger.log("Request: " + endpoint);
             }
 
             InputStream responseStream = conn.getInputStream();
@@ -125,24 +183,39 @@ abstract class Gateway {
             }
 
             responseStream.close();
-            if (this.enableLogging) {
-                System.out.println("Response: " + rawResponse);
+            if (logging) {
+                logger.log("Response: " + rawResponse);
             }
 
             GatewayResponse response = new GatewayResponse();
             response.setStatusCode(conn.getResponseCode());
             response.setRawResponse(rawResponse);
+            responseCode = String.valueOf(response.getStatusCode());
+            failed = false;
             return response;
         }
         catch(Exception exc) {
+            failed = isEndpointFailure(conn, exc);
             throw new GatewayException("Error occurred while communicating with gateway.", exc);
         }
+        finally {
+            releasePermit(permit, failed);
+            MetricsRegistry.getInstance().recordLatency(logger.getConnectorName(), verb, host, responseCode, started);
+        }
     }
     protected GatewayResponse sendRequest(String endpoint, MultipartEntity content) throws GatewayException {
-        HttpsURLConnection conn;
+        HttpsURLConnection conn = null;
+        ResiliencePolicy.Permit permit = acquirePermit();
+        boolean failed = true;
+        boolean logging = logger.sample();
+        long started = System.nanoTime();
+        String responseCode = "error";
+        String host = null;
         try{
-            conn = (HttpsURLConnection)new URL((serviceUrl + endpoint).trim()).openConnection();
-            conn.setSSLSocketFactory(new SSLSocketFactoryEx());
+            URL url = new URL((serviceUrl + endpoint).trim());
+            host = url.getHost();
+            conn = (HttpsURLConnection)url.openConnection();
+            conn.setSSLSocketFactory(getSocketFactory());
             conn.setConnectTimeout(timeout);
             conn.setDoInput(true);
             conn.setDoOutput(true);
@@ -151,8 +224,8 @@ abstract class Gateway {
             conn.addRequestProperty("Content-Length", String.valueOf(content.getContentLength()));
 
             OutputStream out = conn.getOutputStream();
-			if (this.enableLogging) {
-                System.out.println("Request: " + content);
+			if (logging) {
+                logger.log("Request: " + content);
             }
             content.writeTo(out);
             out.flush();
@@ -161,18 +234,115 @@ abstract class Gateway {
             InputStream responseStream = conn.getInputStream();
             String rawResponse = IOUtils.readFully(responseStream);
             responseStream.close();
-			if (this.enableLogging) {
-                System.out.println("Response: " + rawResponse);
+			if (logging) {
+                logger.log("Response: " + rawResponse);
             }
 
             GatewayResponse response = new GatewayResponse();
             response.setStatusCode(conn.getResponseCode());
             response.setRawResponse(rawResponse);
+            responseCode = String.valueOf(response.getStatusCode());
+            failed = false;
             return response;
         }
         catch(Exception exc) {
+            failed = isEndpointFailure(conn, exc);
             throw new GatewayException("Error occurred while communicating with gateway.", exc);
         }
+        finally {
+            releasePermit(permit, failed);
+            MetricsRegistry.getInstance().recordLatency(logger.getConnectorName(), "POST", host, responseCode, started);
+        }
+    }
+
+    public void warmUp(int cycles) throws ApiException {
+        for(int i = 0; i < cycles; i++) {
+            warmUpCycle();
+        }
+        primeTlsSession();
+    }
+
+    /**
+     * One synthetic build and parse of a message in the connector's format, nothing is sent.
+     * Connectors build a request with their own request code and map a canned response with
+     * their own response mapping.
+     */
+    protected void warmUpCycle() throws ApiException { }
+
+    /**
+     * @return a sale of a test card for {@link #warmUpCycle()} to build; it is never executed
+     */
+    protected static AuthorizationBuilder createWarmUpSale() {
+        CreditCardData card = new CreditCardData();
+        card.setNumber("4111111111111111");
+        card.setExpMonth(12);
+        card.setExpYear(2030);
+        card.setCvn("123");
+        card.setCardHolderName("Warm Up");
+        return card.charge(new BigDecimal("10.00")).withCurrency("USD");
+    }
+
+    // a handshake only, so the context's session cache lets the first request resume the session
+    private void primeTlsSession() throws GatewayException {
+        if(StringUtils.isNullOrEmpty(serviceUrl)) {
+            return;
+        }
+
+        try {
+            URL url = new URL(serviceUrl.trim());
+            int port = url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+
+            Socket socket = new Socket();
+            socket.connect(new InetSocketAddress(url.getHost(), port), timeout);
+            SSLSocket sslSocket = (SSLSocket) getSocketFactory().createSocket(socket, url.getHost(), port, true);
+            try {
+                sslSocket.setSoTimeout(timeout);
+                sslSocket.startHandshake();
+            }
+            finally {
+                sslSocket.close();
+            }
+        }
+        catch(IOException | GeneralSecurityException exc) {
+            throw new GatewayException("Unable to open a TLS session with the gateway.", exc);
+        }
+    }
+
+    private SSLSocketFactory getSocketFactory() throws GeneralSecurityException {
+        return sslSocketFactory != null ? sslSocketFactory : SSLSocketFactoryEx.getShared();
+    }
+
+    private ResiliencePolicy.Permit acquirePermit() throws GatewayException {
+        if(resiliencePolicy == null) {
+            return null;
+        }
+        return resiliencePolicy.acquire("primary");
+    }
+
+    private void releasePermit(ResiliencePolicy.Permit permit, boolean failed) {
+        if(permit != null) {
+            if(failed) {
+                permit.failure();
+            }
+            else permit.success();
+        }
+    }
+
+    // transport problems and 5xx responses count against the endpoint, client side errors do not
+    private boolean isEndpointFailure(HttpURLConnection conn, Exception exc) {
+        if(!(exc instanceof IOException)) {
+            return false;
+        }
+        if(conn == null || exc instanceof SocketTimeoutException || exc instanceof ConnectException
+                || exc instanceof UnknownHostException || exc instanceof SSLException) {
+            return true;
+        }
+        try {
+            return conn.getResponseCode() >= 500;
+        }
+        catch(IOException e) {
+            return true;
+        }
     }
 
     private String buildQueryString(HashMap<String, String> queryStringParams) throws UnsupportedEncodingException {
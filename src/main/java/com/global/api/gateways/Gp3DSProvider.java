@@ -13,17 +13,38 @@ import com.global.api.paymentMethods.RecurringPaymentMethod;
 import com.global.api.utils.GenerationUtils;
 import com.global.api.utils.JsonDoc;
 import com.global.api.utils.StringUtils;
+import com.global.api.utils.TtlCache;
 import org.joda.time.DateTime;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.*;
 
 public class Gp3DSProvider extends RestGateway implements ISecure3dProvider {
+    // ACS card ranges are listed by up to 8 digit BINs
+    private static final int CARD_RANGE_LENGTH = 8;
+    // a not enrolled check-version answer, mapped by the warm-up in place of a gateway response
+    private static final String WARM_UP_RESPONSE = "{\"enrolled\":false,\"message_version\":\"2.1.0\","
+            + "\"ds_protocol_version_start\":\"2.1.0\",\"ds_protocol_version_end\":\"2.1.0\","
+            + "\"acs_protocol_version_start\":\"2.1.0\",\"acs_protocol_version_end\":\"2.1.0\"}";
+    private static final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "gp-3ds-refresh");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     private String accountId;
     private String challengeNotificationUrl;
     private String merchantContactUrl;
     private String merchantId;
     private String methodNotificationUrl;
     private String sharedSecret;
+    private TtlCache<String, CachedEnrollment> enrollmentCache;
+    private final Set<String> refreshing = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private Gp3DSProvider refresher;
 
     public Secure3dVersion getVersion() { return Secure3dVersion.TWO; }
 
@@ -46,34 +67,106 @@ public class Gp3DSProvider extends RestGateway implements ISecure3dProvider {
         this.methodNotificationUrl = methodNotificationUrl;
     }
 
+    /**
+     * Answers enrollment checks for card ranges that recently came back as not enrolled without a
+     * gateway call. Entries are refreshed in the background once three quarters of their TTL has
+     * passed. Enrolled results are never served from the cache, since the server transaction id and
+     * method data they carry are specific to one authentication.
+     */
+    public void setEnrollmentCache(TtlCache<String, CachedEnrollment> enrollmentCache) {
+        this.enrollmentCache = enrollmentCache;
+    }
+    public TtlCache<String, CachedEnrollment> getEnrollmentCache() {
+        return enrollmentCache;
+    }
+
     public Transaction processSecure3d(Secure3dBuilder builder) throws ApiException {
+        if(enrollmentCache != null && builder.getTransactionType().equals(TransactionType.VerifyEnrolled)) {
+            String key = getEnrollmentCacheKey(builder.getPaymentMethod());
+            if(key != null) {
+                return checkEnrollment(builder, key);
+            }
+        }
+        return process(builder);
+    }
+
+    private String getEnrollmentCacheKey(IPaymentMethod paymentMethod) {
+        String rangeKey = null;
+        if(paymentMethod instanceof CreditCardData) {
+            String number = ((CreditCardData) paymentMethod).getNumber();
+            if(number != null && number.length() >= CARD_RANGE_LENGTH) {
+                rangeKey = number.substring(0, CARD_RANGE_LENGTH);
+            }
+        }
+        else if(paymentMethod instanceof RecurringPaymentMethod) {
+            RecurringPaymentMethod storedCard = (RecurringPaymentMethod) paymentMethod;
+            rangeKey = storedCard.getCustomerKey() + "/" + storedCard.getKey();
+        }
+        return rangeKey != null ? merchantId + "|" + accountId + "|" + rangeKey : null;
+    }
+
+    private Transaction checkEnrollment(final Secure3dBuilder builder, final String key) throws ApiException {
+        CachedEnrollment cached = enrollmentCache.get(key);
+        if(cached != null) {
+            if(cached.isRefreshDue() && refreshing.add(key)) {
+                refreshExecutor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            cacheEnrollment(key, getRefresher().process(builder));
+                        }
+                        catch(Exception exc) {
+                            // keep the entry until it expires
+                        }
+                        finally {
+                            refreshing.remove(key);
+                        }
+                    }
+                });
+            }
+            return cached.toTransaction();
+        }
+        return cacheEnrollment(key, process(builder));
+    }
+
+    private Transaction cacheEnrollment(String key, Transaction response) {
+        ThreeDSecure secureEcom = response.getThreeDsecure();
+        if(secureEcom != null && !secureEcom.isEnrolled()) {
+            long refreshAfter = TimeUnit.MILLISECONDS.toNanos(enrollmentCache.getTtlMillis() * 3 / 4);
+            enrollmentCache.put(key, new CachedEnrollment(secureEcom, System.nanoTime() + refreshAfter));
+        }
+        else {
+            enrollmentCache.invalidate(key);
+        }
+        return response;
+    }
+
+    // background refreshes use their own instance so they never share request headers with a foreground call
+    private synchronized Gp3DSProvider getRefresher() {
+        if(refresher == null) {
+            refresher = new Gp3DSProvider();
+            refresher.setMerchantId(merchantId);
+            refresher.setAccountId(accountId);
+            refresher.setSharedSecret(sharedSecret);
+            refresher.setMethodNotificationUrl(methodNotificationUrl);
+            refresher.setServiceUrl(serviceUrl);
+            refresher.setTimeout(timeout);
+            refresher.setSslSocketFactory(getSslSocketFactory());
+            refresher.setResiliencePolicy(getResiliencePolicy());
+        }
+        return refresher;
+    }
+
+    private Transaction process(Secure3dBuilder builder) throws ApiException {
         TransactionType transType = builder.getTransactionType();
-        String timestamp = DateTime.now().toString("yyyy-MM-dd'T'hh:mm:ss.SSSSSS");
+        String timestamp = generateTimestamp();
         IPaymentMethod paymentMethod = builder.getPaymentMethod();
         ISecure3d secure3d = (ISecure3d)paymentMethod;
 
         JsonDoc request = new JsonDoc();
         if(transType.equals(TransactionType.VerifyEnrolled)) {
-            request.set("request_timestamp", timestamp)
-                    .set("merchant_id", merchantId)
-                    .set("account_id", accountId)
-                    .set("method_notification_url", methodNotificationUrl);
+            request = buildEnrollmentCheck(paymentMethod, timestamp);
 
-            String hashValue = "";
-            if(paymentMethod instanceof CreditCardData) {
-                CreditCardData cardData = (CreditCardData)paymentMethod;
-                request.set("number", cardData.getNumber())
-                        .set("scheme", mapCardScheme(cardData.getCardType().toUpperCase()));
-                hashValue = cardData.getNumber();
-            }
-            else if(paymentMethod instanceof RecurringPaymentMethod) {
-                RecurringPaymentMethod storedCard = (RecurringPaymentMethod)paymentMethod;
-                request.set("payer_reference", storedCard.getCustomerKey())
-                        .set("payment_method_reference", storedCard.getKey());
-                hashValue = storedCard.getCustomerKey();
-            }
-
-            String hash = GenerationUtils.generateHash(sharedSecret, timestamp, merchantId, hashValue);
+            String hash = GenerationUtils.generateHash(sharedSecret, timestamp, merchantId, getEnrollmentHashValue(paymentMethod));
             headers.put("Authorization", String.format("securehash %s", hash));
 
             String rawResponse = doTransaction("POST", "protocol-versions", request.toString());
@@ -306,6 +399,50 @@ public class Gp3DSProvider extends RestGateway implements ISecure3dProvider {
         throw new ApiException(String.format("Unknown transaction type %s.", transType));
     }
 
+    private String generateTimestamp() {
+        return DateTime.now().toString("yyyy-MM-dd'T'hh:mm:ss.SSSSSS");
+    }
+
+    private JsonDoc buildEnrollmentCheck(IPaymentMethod paymentMethod, String timestamp) {
+        JsonDoc request = new JsonDoc()
+                .set("request_timestamp", timestamp)
+                .set("merchant_id", merchantId)
+                .set("account_id", accountId)
+                .set("method_notification_url", methodNotificationUrl);
+
+        if(paymentMethod instanceof CreditCardData) {
+            CreditCardData cardData = (CreditCardData)paymentMethod;
+            request.set("number", cardData.getNumber())
+                    .set("scheme", mapCardScheme(cardData.getCardType().toUpperCase()));
+        }
+        else if(paymentMethod instanceof RecurringPaymentMethod) {
+            RecurringPaymentMethod storedCard = (RecurringPaymentMethod)paymentMethod;
+            request.set("payer_reference", storedCard.getCustomerKey())
+                    .set("payment_method_reference", storedCard.getKey());
+        }
+        return request;
+    }
+
+    private String getEnrollmentHashValue(IPaymentMethod paymentMethod) {
+        if(paymentMethod instanceof CreditCardData) {
+            return ((CreditCardData)paymentMethod).getNumber();
+        }
+        else if(paymentMethod instanceof RecurringPaymentMethod) {
+            return ((RecurringPaymentMethod)paymentMethod).getCustomerKey();
+        }
+        return "";
+    }
+
+    // the hash is computed but not put in the headers, so a request in flight keeps its own
+    @Override
+    protected void warmUpCycle() {
+        IPaymentMethod card = createWarmUpSale().getPaymentMethod();
+        String timestamp = generateTimestamp();
+        buildEnrollmentCheck(card, timestamp).toString();
+        GenerationUtils.generateHash(sharedSecret, timestamp, merchantId, getEnrollmentHashValue(card));
+        mapResponse(WARM_UP_RESPONSE);
+    }
+
     private Transaction mapResponse(String rawResponse) {
         JsonDoc doc = JsonDoc.parse(rawResponse);
 
@@ -375,6 +512,45 @@ public class Gp3DSProvider extends RestGateway implements ISecure3dProvider {
         return response;
     }
 
+    /**
+     * The range level part of a not enrolled check-version answer.
+     */
+    public static class CachedEnrollment {
+        private final String directoryServerStartVersion;
+        private final String directoryServerEndVersion;
+        private final String acsStartVersion;
+        private final String acsEndVersion;
+        private final String messageVersion;
+        private final long refreshDue;
+
+        CachedEnrollment(ThreeDSecure secureEcom, long refreshDue) {
+            this.directoryServerStartVersion = secureEcom.getDirectoryServerStartVersion();
+            this.directoryServerEndVersion = secureEcom.getDirectoryServerEndVersion();
+            this.acsStartVersion = secureEcom.getAcsStartVersion();
+            this.acsEndVersion = secureEcom.getAcsEndVersion();
+            this.messageVersion = secureEcom.getMessageVersion();
+            this.refreshDue = refreshDue;
+        }
+
+        boolean isRefreshDue() {
+            return System.nanoTime() - refreshDue >= 0;
+        }
+
+        Transaction toTransaction() {
+            ThreeDSecure secureEcom = new ThreeDSecure();
+            secureEcom.setEnrolled(false);
+            secureEcom.setDirectoryServerStartVersion(directoryServerStartVersion);
+            secureEcom.setDirectoryServerEndVersion(directoryServerEndVersion);
+            secureEcom.setAcsStartVersion(acsStartVersion);
+            secureEcom.setAcsEndVersion(acsEndVersion);
+            secureEcom.setMessageVersion(messageVersion);
+
+            Transaction response = new Transaction();
+            response.setThreeDsecure(secureEcom);
+            return response;
+        }
+    }
+
     private String mapCardScheme(String cardType) {
         if(cardType.equals("MC")) {
             return "MASTERCARD";
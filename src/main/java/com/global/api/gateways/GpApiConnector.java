@@ -43,6 +43,14 @@ public class GpApiConnector extends RestGateway implements IPaymentGateway, IRep
     private static final DateTimeFormatter TIMESTAMP_DTF = DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
     private static final SimpleDateFormat DATE_SDF = new SimpleDateFormat("yyyy-MM-dd");
 
+    // a captured sale, mapped by the warm-up in place of a gateway response
+    private static final String WARM_UP_RESPONSE = "{\"id\":\"TRN_warmup\",\"time_created\":\"2020-01-01T12:00:00.000Z\","
+            + "\"type\":\"SALE\",\"status\":\"CAPTURED\",\"channel\":\"CNP\",\"amount\":\"1000\",\"currency\":\"USD\","
+            + "\"reference\":\"warmup\",\"country\":\"US\",\"batch_id\":\"BAT_1\","
+            + "\"payment_method\":{\"result\":\"00\",\"message\":\"[ test system ] AUTHORISED\",\"entry_mode\":\"ECOM\","
+            + "\"card\":{\"brand\":\"VISA\",\"masked_number_last4\":\"XXXXXXXXXXXX1111\",\"authcode\":\"12345\"}},"
+            + "\"action\":{\"id\":\"ACT_warmup\",\"type\":\"AUTHORIZE\",\"time_created\":\"2020-01-01T12:00:00.000Z\",\"result_code\":\"SUCCESS\"}}";
+
     public GpApiConnector(GatewayConfig gatewayConfig) {
         super();    // ContentType is: "application/json"
 
@@ -192,19 +200,7 @@ public class GpApiConnector extends RestGateway implements IPaymentGateway, IRep
         // CardData
         if (builderPaymentMethod instanceof ICardData) {
             ICardData cardData = (ICardData) builderPaymentMethod;
-
-            JsonDoc card = new JsonDoc();
-            card.set("number", cardData.getNumber());
-            card.set("expiry_month", cardData.getExpMonth() != null ? StringUtils.padLeft(cardData.getExpMonth().toString(), 2, '0') : null);
-            card.set("expiry_year", cardData.getExpYear() != null ? cardData.getExpYear().toString().substring(2, 4) : null);
-            //card.set("track", "");
-            card.set("tag", builder.getTagData());
-            card.set("cvv", cardData.getCvn());
-            card.set("avs_address", builderBillingAddress != null ? builderBillingAddress.getStreetAddress1() : "");
-            card.set("avs_postal_code", builderBillingAddress != null ? builderBillingAddress.getPostalCode() : "");
-            card.set("funding", builderPaymentMethod.getPaymentMethodType() == PaymentMethodType.Debit ? "DEBIT" : "CREDIT"); // [DEBIT, CREDIT]
-            card.set("authcode", builder.getOfflineAuthCode());
-            //card.set("brand_reference", "")
+            JsonDoc card = buildCard(builder, cardData);
 
             if (builderTransactionType == TransactionType.Verify) {
                 if (builder.isRequestMultiUseToken()) {
@@ -314,7 +310,35 @@ public class GpApiConnector extends RestGateway implements IPaymentGateway, IRep
             }
         }
 
-        JsonDoc data = new JsonDoc()
+        JsonDoc data = buildTransaction(builder, paymentMethod);
+        String rawResponse = doTransaction("POST", "/transactions", data.toString());
+
+        return mapResponse(rawResponse);
+    }
+
+    private JsonDoc buildCard(AuthorizationBuilder builder, ICardData cardData) {
+        Address builderBillingAddress = builder.getBillingAddress();
+
+        JsonDoc card = new JsonDoc();
+        card.set("number", cardData.getNumber());
+        card.set("expiry_month", cardData.getExpMonth() != null ? StringUtils.padLeft(cardData.getExpMonth().toString(), 2, '0') : null);
+        card.set("expiry_year", cardData.getExpYear() != null ? cardData.getExpYear().toString().substring(2, 4) : null);
+        //card.set("track", "");
+        card.set("tag", builder.getTagData());
+        card.set("cvv", cardData.getCvn());
+        card.set("avs_address", builderBillingAddress != null ? builderBillingAddress.getStreetAddress1() : "");
+        card.set("avs_postal_code", builderBillingAddress != null ? builderBillingAddress.getPostalCode() : "");
+        card.set("funding", builder.getPaymentMethod().getPaymentMethodType() == PaymentMethodType.Debit ? "DEBIT" : "CREDIT"); // [DEBIT, CREDIT]
+        card.set("authcode", builder.getOfflineAuthCode());
+        //card.set("brand_reference", "")
+        return card;
+    }
+
+    private JsonDoc buildTransaction(AuthorizationBuilder builder, JsonDoc paymentMethod) {
+        TransactionType builderTransactionType = builder.getTransactionType();
+        Address builderBillingAddress = builder.getBillingAddress();
+
+        return new JsonDoc()
                 .set("account_name", "Transaction_Processing")
                 .set("type", builderTransactionType == Refund ? "REFUND" : "SALE") // [SALE, REFUND]
                 .set("channel", gatewayConfig.getChannel()) // [CP, CNP]
@@ -336,10 +360,16 @@ public class GpApiConnector extends RestGateway implements IPaymentGateway, IRep
                 .set("ip_address", builder.getCustomerIpAddress())
                 //.set("site_reference", "") //
                 .set("payment_method", paymentMethod);
+    }
 
-        String rawResponse = doTransaction("POST", "/transactions", data.toString());
-
-        return mapResponse(rawResponse);
+    @Override
+    protected void warmUpCycle() {
+        AuthorizationBuilder sale = createWarmUpSale();
+        JsonDoc paymentMethod = new JsonDoc()
+                .set("entry_mode", getEntryMode(sale))
+                .set("card", buildCard(sale, (ICardData) sale.getPaymentMethod()));
+        buildTransaction(sale, paymentMethod).toString();
+        mapResponse(WARM_UP_RESPONSE);
     }
 
     public Transaction manageTransaction(ManagementBuilder builder) throws GatewayException {
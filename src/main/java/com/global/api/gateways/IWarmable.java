@@ -0,0 +1,16 @@
+package com.global.api.gateways;
+
+import com.global.api.entities.exceptions.ApiException;
+
+/**
+ * A connector that can do its one-time startup work before the first transaction.
+ */
+public interface IWarmable {
+    /**
+     * Builds and parses synthetic messages in the connector's format without sending them, so
+     * the JIT compiles that code, then opens and closes a TLS session with each endpoint.
+     *
+     * @param cycles number of synthetic build and parse cycles
+     */
+    void warmUp(int cycles) throws ApiException;
+}
@@ -1,38 +1,58 @@
 package com.global.api.gateways;
 
 import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.CircuitBreakerOpenException;
+import com.global.api.entities.exceptions.GatewayConnectionException;
 import com.global.api.entities.exceptions.GatewayException;
 import com.global.api.entities.exceptions.GatewayTimeoutException;
 import com.global.api.gateways.events.*;
+import com.global.api.io.ISslEngineFactory;
+import com.global.api.io.ITransport;
+import com.global.api.io.PlainTransport;
+import com.global.api.io.SslTransport;
+import com.global.api.logging.GatewayLogger;
+import com.global.api.logging.IRequestLogger;
+import com.global.api.metrics.MetricsRegistry;
+import com.global.api.resilience.CircuitBreaker;
+import com.global.api.resilience.ResiliencePolicy;
 import com.global.api.terminals.abstractions.IDeviceMessage;
 import com.global.api.utils.StringUtils;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 
-import javax.net.ssl.SSLSocket;
-import javax.net.ssl.SSLSocketFactory;
-import java.io.*;
-import java.math.BigInteger;
-
-public class NetworkGateway {
-    private SSLSocket client;
-    private DataOutputStream out;
-    private InputStream in;
-    private int connectionFaults = 0;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+public class NetworkGateway implements IWarmable {
+    private static final int DEFAULT_TIMEOUT = 20000;
+    private static final ExecutorService hedgeExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "gp-network-hedge");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
 
     private String primaryEndpoint;
     private Integer primaryPort;
     private String secondaryEndpoint;
     private Integer secondaryPort;
 
-    String currentEndpoint;
-
-    private boolean enableLogging = false;
     private boolean forceGatewayTimeout = false;
     private int timeout;
+    private boolean hedgingEnabled = false;
+    private int hedgeDelay = 0;
+    private final EndpointHealth primaryHealth = new EndpointHealth("primary");
+    private final EndpointHealth secondaryHealth = new EndpointHealth("secondary");
+    private ResiliencePolicy resiliencePolicy;
+    private boolean tlsEnabled = true;
+    private ISslEngineFactory sslEngineFactory;
 
     private String connectorName = "NetworkGateway";
     private IGatewayEventHandler gatewayEventHandler;
+    private GatewayLogger logger = new GatewayLogger(getClass().getSimpleName());
 
     public String getPrimaryEndpoint() {
         return primaryEndpoint;
@@ -64,11 +84,77 @@ public class NetworkGateway {
     public void setTimeout(int timeout) {
         this.timeout = timeout;
     }
+    public boolean isHedgingEnabled() {
+        return hedgingEnabled;
+    }
+    public void setHedgingEnabled(boolean hedgingEnabled) {
+        this.hedgingEnabled = hedgingEnabled;
+    }
+    public int getHedgeDelay() {
+        return hedgeDelay;
+    }
+    /**
+     * Delay in milliseconds before a hedged request is also sent to the other endpoint. When
+     * zero the observed p95 latency of the endpoint tried first is used.
+     */
+    public void setHedgeDelay(int hedgeDelay) {
+        this.hedgeDelay = hedgeDelay;
+    }
+    public EndpointHealth getPrimaryHealth() {
+        return primaryHealth;
+    }
+    public EndpointHealth getSecondaryHealth() {
+        return secondaryHealth;
+    }
+    public ResiliencePolicy getResiliencePolicy() {
+        return resiliencePolicy;
+    }
+    /**
+     * Enables per-endpoint circuit breakers and the adaptive concurrency limit. While the
+     * primary's breaker is open requests are routed to the secondary endpoint.
+     */
+    public void setResiliencePolicy(ResiliencePolicy resiliencePolicy) {
+        this.resiliencePolicy = resiliencePolicy;
+    }
+    public boolean isTlsEnabled() {
+        return tlsEnabled;
+    }
+    /**
+     * Plain TCP is only meant for local host emulators; the Heartland hosts require TLS.
+     */
+    public void setTlsEnabled(boolean tlsEnabled) {
+        this.tlsEnabled = tlsEnabled;
+    }
+    public ISslEngineFactory getSslEngineFactory() {
+        return sslEngineFactory;
+    }
+    /**
+     * Replaces the default TLS setup, e.g. to trust a test host's certificate.
+     */
+    public void setSslEngineFactory(ISslEngineFactory sslEngineFactory) {
+        this.sslEngineFactory = sslEngineFactory;
+    }
+    /**
+     * @param host "primary" or "secondary"
+     * @return false while the circuit breaker for the endpoint is refusing calls
+     */
+    public boolean isEndpointAvailable(String host) {
+        return resiliencePolicy == null || resiliencePolicy.isAvailable(host);
+    }
     boolean isEnableLogging() {
-        return enableLogging;
+        return logger.isEnabled();
     }
     public void setEnableLogging(boolean enableLogging) {
-        this.enableLogging = enableLogging;
+        logger.setEnabled(enableLogging);
+    }
+    public void setRequestLogger(IRequestLogger requestLogger) {
+        logger.setRequestLogger(requestLogger);
+    }
+    public void setLogSampleRate(double logSampleRate) {
+        logger.setSampleRate(logSampleRate);
+    }
+    GatewayLogger getLogger() {
+        return logger;
     }
     private boolean isForceGatewayTimeout() {
         return forceGatewayTimeout;
@@ -78,115 +164,264 @@ public class NetworkGateway {
     }
     public void setGatewayEventHandler(IGatewayEventHandler eventHandler) { this.gatewayEventHandler = eventHandler; }
 
-    // establish connection
-    private void connect(String endpoint, Integer port) throws ApiException {
-        currentEndpoint = endpoint.equals(primaryEndpoint) ? "primary" : "secondary";
+    public void warmUp(int cycles) throws ApiException {
+        for(int i = 0; i < cycles; i++) {
+            warmUpCycle();
+        }
+
+        // connect to each endpoint once, so the TLS session can be resumed by the first request
+        long deadline = System.currentTimeMillis() + (timeout > 0 ? timeout : DEFAULT_TIMEOUT);
+        boolean connected = false;
+        if(hasPrimary()) {
+            connected = warmUpEndpoint("primary", deadline);
+        }
+        if(hasSecondary()) {
+            connected |= warmUpEndpoint("secondary", deadline);
+        }
+        if(!connected) {
+            throw new GatewayConnectionException("Failed to connect to primary or secondary processing endpoints.");
+        }
+    }
+
+    /**
+     * One synthetic build and parse of a message in the connector's format, nothing is sent.
+     */
+    protected void warmUpCycle() throws ApiException { }
+
+    private boolean warmUpEndpoint(String host, long deadline) {
+        if(!tryAcquireEndpoint(host)) {
+            return false;
+        }
+
+        // a failed connection is recorded against the endpoint by openConnection
+        NetworkGatewayConnection connection = openConnection(host, 0, deadline);
+        if(connection == null) {
+            return false;
+        }
+        disconnect(connection);
+
+        CircuitBreaker breaker = getCircuitBreaker(host);
+        if(breaker != null) {
+            breaker.recordSuccess();
+        }
+        return true;
+    }
+
+    // establish connection, failing over between the endpoints until the deadline; every attempt
+    // needs its endpoint's permission, so a half open circuit only lets its probe through
+    private NetworkGatewayConnection connect(String host, long deadline) throws ApiException {
+        int connectionFaults = 0;
+        while(true) {
+            if(!tryAcquireEndpoint(host)) {
+                String alternate = getAlternate(host);
+                if(!hasEndpoint(alternate) || !tryAcquireEndpoint(alternate)) {
+                    throw new CircuitBreakerOpenException(host, getCircuitBreaker(host).getRetryAfter());
+                }
+                host = alternate;
+            }
+
+            NetworkGatewayConnection connection = openConnection(host, connectionFaults, deadline);
+            if(connection != null) {
+                return connection;
+            }
+
+            if(connectionFaults++ == 3 || System.currentTimeMillis() >= deadline) {
+                throw new GatewayConnectionException("Failed to connect to primary or secondary processing endpoints.");
+            }
+
+            if(host.equals("primary") && hasSecondary()) {
+                host = "secondary";
+            }
+            else if(hasPrimary()) {
+                host = "primary";
+            }
+        }
+    }
+
+    // single connection attempt against one endpoint, null when it could not be established
+    private NetworkGatewayConnection openConnection(String host, int connectionAttempts, long deadline) {
+        boolean primary = host.equals("primary");
+        String endpoint = primary ? primaryEndpoint : secondaryEndpoint;
+        Integer port = primary ? primaryPort : secondaryPort;
 
         // create the connection event
         ConnectionEvent connectionEvent = new ConnectionEvent(connectorName);
         connectionEvent.setEndpoint(endpoint);
         connectionEvent.setPort(port.toString());
-        connectionEvent.setHost(currentEndpoint);
-        connectionEvent.setConnectionAttempts(connectionFaults);
-        raiseGatewayEvent(connectionEvent);
+        connectionEvent.setHost(host);
+        connectionEvent.setConnectionAttempts(connectionAttempts);
 
+        // connection started
         DateTime connectionStarted = DateTime.now(DateTimeZone.UTC);
-        if(client == null) {
-            try {
-                // connection started
-                connectionEvent.setConnectionStarted(connectionStarted);
+        connectionEvent.setConnectionStarted(connectionStarted);
+        raiseGatewayEvent(connectionEvent);
 
-                try {
-                    SSLSocketFactory factory = new SSLSocketFactoryEx();
-                    client = (SSLSocket) factory.createSocket(endpoint, port);
-                    client.startHandshake();
+        NetworkGatewayConnection connection = new NetworkGatewayConnection(endpoint, port, host);
+        try {
+            // the connect may use no more than what is left of the caller's budget
+            long remaining = deadline - System.currentTimeMillis();
+            connection.open(createTransport(), (int) Math.max(1, Math.min(timeout > 0 ? timeout : DEFAULT_TIMEOUT, remaining)));
+            raiseGatewayEvent(new SslHandshakeEvent(connectorName, null));
+        }
+        catch(Exception exc) {
+            raiseGatewayEvent(new SslHandshakeEvent(connectorName, exc));
+        }
 
-                    raiseGatewayEvent(new SslHandshakeEvent(connectorName, null));
-                }
-                catch(Exception exc) {
-                    raiseGatewayEvent(new SslHandshakeEvent(connectorName, exc));
-                }
+        if(connection.isConnected()) {
+            // connection completed
+            raiseGatewayEvent(new ConnectionCompleteEvent(connectorName, connectionStarted, DateTime.now(DateTimeZone.UTC)));
+            MetricsRegistry.getInstance().incrementGauge(logger.getConnectorName(), "openConnections");
+            return connection;
+        }
+        connection.abort();
 
-                if(client != null && client.isConnected()) {
-                    // connection completed
-                    raiseGatewayEvent(new ConnectionCompleteEvent(connectorName, connectionStarted, DateTime.now(DateTimeZone.UTC)));
+        // connection fail over
+        raiseGatewayEvent(new FailOverEvent(connectorName, connectionStarted, DateTime.now(DateTimeZone.UTC)));
+        recordFailure(host);
+        return null;
+    }
 
-                    out = new DataOutputStream(client.getOutputStream());
-                    in = client.getInputStream();
-                    client.setKeepAlive(true);
-                    connectionFaults = 0;
-                }
-                else {
-                    // connection fail over
-                    raiseGatewayEvent(new FailOverEvent(connectorName, connectionStarted, DateTime.now(DateTimeZone.UTC)));
-
-                    if(connectionFaults++ != 3) {
-                        if(endpoint.equals(primaryEndpoint) && secondaryEndpoint != null) {
-                            connect(secondaryEndpoint, secondaryPort);
-                        }
-                        else {
-                            connect(primaryEndpoint, primaryPort);
-                        }
-                    }
-                    else {
-                        throw new IOException("Failed to connect to primary or secondary processing endpoints.");
-                    }
-                }
-            }
-            catch(Exception exc) {
-                throw new GatewayException(exc.getMessage(), exc);
-            }
+    private ITransport createTransport() throws Exception {
+        if(!tlsEnabled) {
+            return new PlainTransport();
         }
+        return new SslTransport(sslEngineFactory != null ? sslEngineFactory : SSLSocketFactoryEx.getShared());
     }
 
     // close connection
-    private void disconnect() {
+    private void disconnect(NetworkGatewayConnection connection) {
+        if(connection != null && connection.close()) {
+            MetricsRegistry.getInstance().decrementGauge(logger.getConnectorName(), "openConnections");
+        }
+    }
+
+    public byte[] send(IDeviceMessage message) throws ApiException {
+        return send(message, timeout, false);
+    }
+
+    /**
+     * Sends the message and waits for the response within the given budget.
+     *
+     * @param timeout total time in milliseconds the caller is willing to wait, across both
+     *                endpoints; zero or less uses the default
+     * @param hedgeable whether the message may safely be delivered to both hosts; only then is
+     *                  it raced against the secondary endpoint when hedging is enabled
+     */
+    public byte[] send(IDeviceMessage message, int timeout, boolean hedgeable) throws ApiException {
+        long deadline = System.currentTimeMillis() + (timeout > 0 ? timeout : DEFAULT_TIMEOUT);
+        ResiliencePolicy.Permit permit = resiliencePolicy != null ? resiliencePolicy.acquire() : null;
+        long started = System.nanoTime();
+        String responseCode = "error";
+        SendTarget target = new SendTarget();
+        MetricsRegistry.getInstance().incrementGauge(logger.getConnectorName(), "inFlightRequests");
+
         try {
-            if (client != null && !client.isClosed()) {
-                in.close();
-                out.close();
-                client.close();
+            byte[] rvalue;
+            if(hedgingEnabled && hedgeable && hasSecondary() && hasPrimary() && !isForceGatewayTimeout()
+                    && isEndpointAvailable("primary") && isEndpointAvailable("secondary")) {
+                rvalue = sendHedged(message.getSendBuffer(), deadline, target);
+            }
+            else {
+                rvalue = sendSequential(message.getSendBuffer(), deadline, target);
+            }
+            responseCode = "success";
+            return rvalue;
+        }
+        catch(GatewayTimeoutException exc) {
+            responseCode = "timeout";
+            if(exc.getHost() == null) {
+                exc.setHost(target.host);
             }
-            client = null;
+            throw exc;
         }
-        catch(IOException exc) {
-            // eat the close exception
+        catch(CircuitBreakerOpenException exc) {
+            responseCode = "circuitOpen";
+            throw exc;
+        }
+        finally {
+            if(permit != null) {
+                if(responseCode.equals("success")) {
+                    permit.success();
+                }
+                else if(responseCode.equals("circuitOpen")) {
+                    permit.cancel();
+                }
+                else permit.failure();
+            }
+            MetricsRegistry.getInstance().decrementGauge(logger.getConnectorName(), "inFlightRequests");
+            MetricsRegistry.getInstance().recordLatency(logger.getConnectorName(), "send", target.host, responseCode, started);
+
+            raiseGatewayEvent(new DisconnectEvent(connectorName));
+
+            // remove the force timeout
+            if(isForceGatewayTimeout()) {
+                setForceGatewayTimeout(false);
+            }
         }
     }
 
-    public byte[] send(IDeviceMessage message) throws ApiException {
+    private byte[] sendSequential(byte[] buffer, long deadline, SendTarget target) throws ApiException {
         boolean timedOut = false;
-        connect(getPrimaryEndpoint(), getPrimaryPort());
-
-        byte[] buffer = message.getSendBuffer();
+        IOException failure = null;
+        NetworkGatewayConnection connection = null;
         try {
+            connection = connectPreferred(deadline);
+            target.host = connection.getHost();
+
             for(int i = 0; i < 2; i++) {
+                boolean canFailOver = i < 1 && canFailOverFrom(connection.getHost());
+
+                // leave half of the remaining budget for the other host when we can fail over
+                long attemptDeadline = deadline;
+                if(canFailOver) {
+                    attemptDeadline = System.currentTimeMillis() + (deadline - System.currentTimeMillis()) / 2;
+                }
+
                 raiseGatewayEvent(new RequestSentEvent(connectorName));
                 DateTime requestSent = DateTime.now(DateTimeZone.UTC);
-                out.write(buffer);
+                long attemptStarted = System.currentTimeMillis();
+                byte[] rvalue = null;
+                try {
+                    connection.write(buffer);
+                    rvalue = connection.readResponse(attemptDeadline);
+                }
+                catch(IOException exc) {
+                    // the request may already have reached the host, so this is handled like a
+                    // missed response rather than a failure to connect
+                    failure = exc;
+                }
 
-                byte[] rvalue = getGatewayResponse();
                 if (rvalue != null && !isForceGatewayTimeout()) {
+                    recordSuccess(connection.getHost(), System.currentTimeMillis() - attemptStarted);
                     raiseGatewayEvent(new ResponseReceivedEvent(connectorName, requestSent));
                     return rvalue;
                 }
 
                 // did not get a response, switch endpoints and try again
                 timedOut = true;
-                if(!currentEndpoint.equals("secondary") && !StringUtils.isNullOrEmpty(secondaryEndpoint) && i < 1) {
-                    raiseGatewayEvent(new TimeoutEvent(connectorName, GatewayEventType.TimeoutFailOver));
-
-                    disconnect();
-                    connect(getSecondaryEndpoint(), getSecondaryPort());
+                recordFailure(connection.getHost());
+                if(!canFailOver || System.currentTimeMillis() >= deadline) {
+                    break;
                 }
+
+                raiseGatewayEvent(new TimeoutEvent(connectorName, GatewayEventType.TimeoutFailOver));
+                disconnect(connection);
+                connection = connectAlternate(connection.getHost(), deadline);
+                target.host = connection.getHost();
             }
 
             raiseGatewayEvent(new TimeoutEvent(connectorName, GatewayEventType.Timeout));
-            throw new GatewayTimeoutException();
+            throw failure != null ? new GatewayTimeoutException(failure) : new GatewayTimeoutException();
         }
         catch(GatewayTimeoutException exc) {
             throw exc;
         }
+        catch(ApiException exc) {
+            if(timedOut) {
+                throw new GatewayTimeoutException(exc);
+            }
+            throw exc;
+        }
         catch(Exception exc) {
             if(timedOut) {
                 throw new GatewayTimeoutException(exc);
@@ -196,56 +431,148 @@ public class NetworkGateway {
             }
         }
         finally {
-            disconnect();
-            raiseGatewayEvent(new DisconnectEvent(connectorName));
+            disconnect(connection);
+        }
+    }
 
-            // remove the force timeout
-            if(isForceGatewayTimeout()) {
-                setForceGatewayTimeout(false);
+    private byte[] sendHedged(byte[] buffer, long deadline, SendTarget target) throws ApiException {
+        boolean primaryFirst = isPrimaryPreferred();
+        EndpointHealth firstHealth = primaryFirst ? primaryHealth : secondaryHealth;
+        long delay = hedgeDelay > 0 ? hedgeDelay : firstHealth.getP95Millis(DEFAULT_TIMEOUT / 4);
+
+        CompletionService<HedgedAttempt> completionService = new ExecutorCompletionService<HedgedAttempt>(hedgeExecutor);
+        List<HedgedAttempt> attempts = new ArrayList<HedgedAttempt>();
+        try {
+            attempts.add(submit(completionService, primaryFirst ? "primary" : "secondary", buffer, deadline));
+
+            int pending = 1;
+            boolean hedged = false;
+            while(pending > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if(remaining <= 0) {
+                    break;
+                }
+
+                long wait = hedged ? remaining : Math.min(delay, remaining);
+                Future<HedgedAttempt> completed = completionService.poll(wait, TimeUnit.MILLISECONDS);
+                if(completed == null) {
+                    if(hedged) {
+                        break;
+                    }
+
+                    // primary is running slow, race the other endpoint
+                    hedged = true;
+                    pending++;
+                    raiseGatewayEvent(new TimeoutEvent(connectorName, GatewayEventType.TimeoutFailOver));
+                    attempts.add(submit(completionService, primaryFirst ? "secondary" : "primary", buffer, deadline));
+                    continue;
+                }
+
+                pending--;
+                HedgedAttempt attempt = completed.get();
+                if(attempt.response != null) {
+                    target.host = attempt.host;
+                    return attempt.response;
+                }
+
+                // this endpoint failed outright, no point waiting for the hedge delay
+                if(!hedged) {
+                    hedged = true;
+                    pending++;
+                    attempts.add(submit(completionService, primaryFirst ? "secondary" : "primary", buffer, deadline));
+                }
+            }
+
+            target.host = attempts.get(attempts.size() - 1).host;
+            raiseGatewayEvent(new TimeoutEvent(connectorName, GatewayEventType.Timeout));
+            throw new GatewayTimeoutException();
+        }
+        catch(InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new GatewayTimeoutException(exc);
+        }
+        catch(ExecutionException exc) {
+            throw new GatewayException(exc.getMessage(), exc);
+        }
+        finally {
+            for(HedgedAttempt attempt : attempts) {
+                attempt.cancel();
             }
         }
     }
 
-    private byte[] getGatewayResponse() throws IOException, GatewayTimeoutException {
-        byte[] buffer = new byte[2048];
-        int bytesReceived = awaitResponse(in, buffer);
+    private HedgedAttempt submit(CompletionService<HedgedAttempt> completionService, String host, byte[] buffer, long deadline) {
+        HedgedAttempt attempt = new HedgedAttempt(host, buffer, deadline);
+        completionService.submit(attempt);
+        return attempt;
+    }
 
-        if(bytesReceived > 0) {
-            byte[] rec_buffer = new byte[bytesReceived];
-            System.arraycopy(buffer, 0, rec_buffer, 0, bytesReceived);
-            return rec_buffer;
+    // the preferred endpoint's circuit being open routes the connection around it
+    private NetworkGatewayConnection connectPreferred(long deadline) throws ApiException {
+        String preferred = "primary";
+        if(!hasPrimary() || (hasSecondary() && !isPrimaryPreferred())) {
+            preferred = "secondary";
         }
+        return connect(preferred, deadline);
+    }
 
-        return null;
+    // a demoted primary still goes first now and then, so it can show it has recovered
+    private boolean isPrimaryPreferred() {
+        return !primaryHealth.isWorseThan(secondaryHealth) || primaryHealth.isProbeDue();
     }
 
-    private int awaitResponse(InputStream in, byte[] buffer) throws GatewayTimeoutException, IOException {
-        long t = System.currentTimeMillis();
+    private NetworkGatewayConnection connectAlternate(String host, long deadline) throws ApiException {
+        return connect(getAlternate(host), deadline);
+    }
 
-        int position = 0;
-        Integer messageLength = null;
-        do {
-            if(messageLength == null) {
-                byte[] lengthBuffer = new byte[2];
-                int length = in.read(lengthBuffer, 0, 2);
-                if(length == 2) {
-                    messageLength = new BigInteger(lengthBuffer).intValue() - 2;
-                }
-            }
+    private boolean canFailOverFrom(String host) {
+        String alternate = getAlternate(host);
+        return hasEndpoint(alternate) && isEndpointAvailable(alternate);
+    }
 
-            if(messageLength != null) {
-                int currLength = in.read(buffer, position, messageLength);
-                if (currLength == messageLength) {
-                    return messageLength;
-                }
-                else {
-                    position += currLength;
-                }
-            }
+    private boolean tryAcquireEndpoint(String host) {
+        CircuitBreaker breaker = getCircuitBreaker(host);
+        return breaker == null || breaker.tryAcquirePermission();
+    }
+
+    private void recordSuccess(String host, long elapsedMillis) {
+        getHealth(host).recordSuccess(elapsedMillis);
+        CircuitBreaker breaker = getCircuitBreaker(host);
+        if(breaker != null) {
+            breaker.recordSuccess();
         }
-        while((System.currentTimeMillis() - t) <= 20000);
+    }
+
+    private void recordFailure(String host) {
+        getHealth(host).recordFailure();
+        CircuitBreaker breaker = getCircuitBreaker(host);
+        if(breaker != null) {
+            breaker.recordFailure();
+        }
+    }
+
+    private CircuitBreaker getCircuitBreaker(String host) {
+        return resiliencePolicy != null ? resiliencePolicy.getCircuitBreaker(host) : null;
+    }
 
-        throw new GatewayTimeoutException();
+    private String getAlternate(String host) {
+        return host.equals("primary") ? "secondary" : "primary";
+    }
+
+    private boolean hasEndpoint(String host) {
+        return host.equals("primary") ? hasPrimary() : hasSecondary();
+    }
+
+    private boolean hasPrimary() {
+        return !StringUtils.isNullOrEmpty(primaryEndpoint);
+    }
+
+    private boolean hasSecondary() {
+        return !StringUtils.isNullOrEmpty(secondaryEndpoint);
+    }
+
+    private EndpointHealth getHealth(String host) {
+        return host.equals("primary") ? primaryHealth : secondaryHealth;
     }
 
     private void raiseGatewayEvent(final IGatewayEvent event) {
@@ -257,4 +584,77 @@ public class NetworkGateway {
             }
         }).start();
     }
+
+    // the host a send was last attempted against, held per call so concurrent and hedged sends
+    // on one gateway each report their own
+    private static class SendTarget {
+        private String host;
+    }
+
+    private class HedgedAttempt implements Callable<HedgedAttempt> {
+        private final String host;
+        private final byte[] buffer;
+        private final long deadline;
+        private volatile NetworkGatewayConnection connection;
+        private volatile boolean cancelled;
+        private long attemptStarted;
+        private byte[] response;
+
+        HedgedAttempt(String host, byte[] buffer, long deadline) {
+            this.host = host;
+            this.buffer = buffer;
+            this.deadline = deadline;
+        }
+
+        public HedgedAttempt call() {
+            // a hedge is a host attempt like any other and needs the endpoint's permission
+            if(!tryAcquireEndpoint(host)) {
+                return this;
+            }
+
+            connection = openConnection(host, 0, deadline);
+            if(connection == null) {
+                return this;
+            }
+
+            try {
+                if(cancelled) {
+                    return this;
+                }
+
+                raiseGatewayEvent(new RequestSentEvent(connectorName));
+                DateTime requestSent = DateTime.now(DateTimeZone.UTC);
+                attemptStarted = System.currentTimeMillis();
+                connection.write(buffer);
+
+                response = connection.readResponse(deadline);
+                if(response != null) {
+                    recordSuccess(host, System.currentTimeMillis() - attemptStarted);
+                    raiseGatewayEvent(new ResponseReceivedEvent(connectorName, requestSent));
+                }
+                else recordFailure(host);
+            }
+            catch(IOException exc) {
+                if(!cancelled) {
+                    recordFailure(host);
+                }
+                else if(attemptStarted > 0) {
+                    getHealth(host).recordAbandoned(System.currentTimeMillis() - attemptStarted);
+                }
+            }
+            finally {
+                disconnect(connection);
+                connection = null;
+            }
+            return this;
+        }
+
+        void cancel() {
+            cancelled = true;
+            NetworkGatewayConnection current = connection;
+            if(current != null) {
+                current.abort();
+            }
+        }
+    }
 }
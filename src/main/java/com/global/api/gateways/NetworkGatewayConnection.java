@@ -0,0 +1,93 @@
+package com.global.api.gateways;
+
+import com.global.api.io.ITransport;
+import com.global.api.io.LengthPrefixedFrameDecoder;
+import com.global.api.io.NioConnection;
+import com.global.api.io.NioReactor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * A single connection, normally TLS, to one of the network gateway endpoints. Each send attempt owns its
+ * own connection so hedged attempts against the primary and secondary hosts never share a
+ * socket. Reads are serviced by the shared {@link NioReactor}; the sending thread simply waits
+ * for the decoded frame.
+ */
+class NetworkGatewayConnection {
+    private final String endpoint;
+    private final int port;
+    private final String host;
+    private NioConnection connection;
+    private volatile boolean closed;
+
+    NetworkGatewayConnection(String endpoint, int port, String host) {
+        this.endpoint = endpoint;
+        this.port = port;
+        this.host = host;
+    }
+
+    String getEndpoint() {
+        return endpoint;
+    }
+    int getPort() {
+        return port;
+    }
+    String getHost() {
+        return host;
+    }
+
+    void open(ITransport transport, int connectTimeout) throws Exception {
+        connection = new NioConnection(
+                transport,
+                new LengthPrefixedFrameDecoder(true),
+                NioReactor.getDefault());
+        connection.open(endpoint, port, connectTimeout);
+    }
+
+    boolean isConnected() {
+        return connection != null && connection.isOpen() && !closed;
+    }
+
+    void write(byte[] buffer) throws IOException {
+        connection.send(buffer);
+    }
+
+    /**
+     * Waits for one length prefixed frame.
+     *
+     * @param deadline absolute deadline in {@link System#currentTimeMillis()} terms
+     * @return the frame without its two byte length header, or null if the deadline passed
+     */
+    byte[] readResponse(long deadline) throws IOException {
+        try {
+            return connection.awaitFrame(deadline);
+        }
+        catch(InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while awaiting the gateway response.");
+        }
+    }
+
+    /**
+     * @return true the first time the connection is closed
+     */
+    synchronized boolean close() {
+        if(closed) {
+            return false;
+        }
+        closed = true;
+        abort();
+        return true;
+    }
+
+    /**
+     * Closes the socket to unblock a pending read without marking the connection closed; the
+     * owning thread still calls {@link #close()}.
+     */
+    void abort() {
+        if(connection != null) {
+            connection.close();
+        }
+    }
+}
@@ -17,9 +17,15 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 
 public class PayPlanConnector extends RestGateway implements IRecurringGateway {
+    // a created customer, mapped by the warm-up in place of a gateway response
+    private static final String WARM_UP_RESPONSE = "{\"customerKey\":\"1\",\"customerIdentifier\":\"warmup\","
+            + "\"firstName\":\"Warm\",\"lastName\":\"Up\",\"customerStatus\":\"Active\",\"primaryEmail\":\"warmup@example.com\","
+            + "\"addressLine1\":\"1 Main St\",\"city\":\"Anytown\",\"stateProvince\":\"GA\",\"zipPostalCode\":\"30001\",\"country\":\"USA\"}";
+
     private String secretApiKey;
     private ValueConverter<Date> dateConverter = new ValueConverter<Date>(){
         public Date call(String value) {
@@ -61,6 +67,37 @@ public class PayPlanConnector extends RestGateway implements IRecurringGateway {
     public boolean supportsUpdatePaymentDetails() { return false; }
 
     public <T> T processRecurring(RecurringBuilder<T> builder, Class<T> clazz) throws ApiException {
+        JsonDoc request = buildRequest(builder);
+
+        HashMap<String, String> queryStringParams = null;
+        if(builder.getTransactionType() == TransactionType.Search && (builder.getPageSize() != null || builder.getPageOffset() != null)) {
+            queryStringParams = new HashMap<String, String>();
+            if(builder.getPageSize() != null)
+                queryStringParams.put("limit", builder.getPageSize().toString());
+            if(builder.getPageOffset() != null)
+                queryStringParams.put("offset", builder.getPageOffset().toString());
+        }
+
+        String response = doTransaction(mapMethod(builder.getTransactionType()), mapUrl(builder, clazz), request.toString(), queryStringParams);
+        return mapResponse(response, clazz);
+    }
+
+    @Override
+    protected void warmUpCycle() throws ApiException {
+        Customer customer = new Customer();
+        customer.setId("warmup");
+        customer.setFirstName("Warm");
+        customer.setLastName("Up");
+        customer.setStatus("Active");
+        customer.setEmail("warmup@example.com");
+
+        RecurringBuilder<Customer> builder = new RecurringBuilder<Customer>(TransactionType.Create, customer, Customer.class);
+        buildRequest(builder).toString();
+        mapUrl(builder, Customer.class);
+        mapResponse(WARM_UP_RESPONSE, Customer.class);
+    }
+
+    private JsonDoc buildRequest(RecurringBuilder<?> builder) {
         JsonDoc request = new JsonDoc();
 
         if(builder.getTransactionType() == TransactionType.Create || builder.getTransactionType() == TransactionType.Edit) {
@@ -82,9 +119,7 @@ public class PayPlanConnector extends RestGateway implements IRecurringGateway {
         else if(builder.getTransactionType() == TransactionType.Delete) {
             request.set("forceDelete", builder.isForceDelete());
         }
-
-        String response = doTransaction(mapMethod(builder.getTransactionType()), mapUrl(builder, clazz), request.toString());
-        return mapResponse(response, clazz);
+        return request;
     }
 
     private <T> T mapResponse(String rawResponse, Class<T> clazz) throws ApiException {
@@ -92,34 +127,48 @@ public class PayPlanConnector extends RestGateway implements IRecurringGateway {
         if(StringUtils.isNullOrEmpty(rawResponse))
             return null;
 
-        // Normal response elements
-        JsonDoc response = JsonDoc.parse(rawResponse);
         try {
             T type = clazz.newInstance();
-            if(type instanceof Customer)
-                return hydrateCustomer(response, clazz);
-            else if(type instanceof CustomerCollection) {
-                for(JsonDoc customer: response.getEnumerator("results")) {
-                    ((CustomerCollection)type).add(hydrateCustomer(customer, Customer.class));
-                }
+            // search results are decoded one at a time rather than as a whole document
+            if(type instanceof CustomerCollection) {
+                final CustomerCollection customers = (CustomerCollection)type;
+                JsonDoc response = JsonDoc.parse(rawResponse, "results", new JsonDoc.IArrayVisitor() {
+                    public void visit(JsonDoc customer) {
+                        customers.add(hydrateCustomer(customer, Customer.class));
+                    }
+                });
+                customers.setTotalRecords(response.getInt("totalRecords"));
                 return type;
             }
-            else if(type instanceof RecurringPaymentMethod)
-                return hydratePaymentMethod(response, clazz);
             else if(type instanceof RecurringPaymentMethodCollection) {
-                for(JsonDoc payment: response.getEnumerator("results")) {
-                    ((RecurringPaymentMethodCollection)type).add(hydratePaymentMethod(payment, RecurringPaymentMethod.class));
-                }
+                final RecurringPaymentMethodCollection payments = (RecurringPaymentMethodCollection)type;
+                JsonDoc response = JsonDoc.parse(rawResponse, "results", new JsonDoc.IArrayVisitor() {
+                    public void visit(JsonDoc payment) {
+                        payments.add(hydratePaymentMethod(payment, RecurringPaymentMethod.class));
+                    }
+                });
+                payments.setTotalRecords(response.getInt("totalRecords"));
                 return type;
             }
-            else if(type instanceof Schedule)
-                return hydrateSchedule(response, clazz);
             else if(type instanceof ScheduleCollection) {
-                for(JsonDoc schedule: response.getEnumerator("results")) {
-                    ((ScheduleCollection)type).add(hydrateSchedule(schedule, Schedule.class));
-                }
+                final ScheduleCollection schedules = (ScheduleCollection)type;
+                JsonDoc response = JsonDoc.parse(rawResponse, "results", new JsonDoc.IArrayVisitor() {
+                    public void visit(JsonDoc schedule) {
+                        schedules.add(hydrateSchedule(schedule, Schedule.class));
+                    }
+                });
+                schedules.setTotalRecords(response.getInt("totalRecords"));
                 return type;
             }
+
+            // Normal response elements
+            JsonDoc response = JsonDoc.parse(rawResponse);
+            if(type instanceof Customer)
+                return hydrateCustomer(response, clazz);
+            else if(type instanceof RecurringPaymentMethod)
+                return hydratePaymentMethod(response, clazz);
+            else if(type instanceof Schedule)
+                return hydrateSchedule(response, clazz);
             return type;
         }
         catch(Exception e) {
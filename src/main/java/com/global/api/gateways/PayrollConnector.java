@@ -70,19 +70,62 @@ public class PayrollConnector extends RestGateway {
         return sendEncryptedRequest(requestBuilder.buildRequest(getEncoder(), clazz), clazz);
     }
 
+    public <T extends PayrollEntity> PayrollResponse<T> sendEncryptedRequest(IPayrollRequestBuilder requestBuilder, Class<T> clazz, PayrollSnapshot snapshot) throws ApiException {
+        return sendEncryptedRequest(requestBuilder.buildRequest(getEncoder(), clazz), clazz, snapshot);
+    }
+
     public <T extends PayrollEntity> PayrollResponse<T> sendEncryptedRequest(PayrollRequest request, Class<T> clazz) throws ApiException {
+        return sendEncryptedRequest(request, clazz, null);
+    }
+
+    /**
+     * With a snapshot, only the records that changed since it was taken are decrypted and returned.
+     */
+    public <T extends PayrollEntity> PayrollResponse<T> sendEncryptedRequest(PayrollRequest request, Class<T> clazz, PayrollSnapshot snapshot) throws ApiException {
         try {
             if(clazz != SessionInfo.class && StringUtils.isNullOrEmpty(sessionToken))
                 throw new ApiException("Payroll connector is not signed in, please check your configuration.");
 
             String response = doTransaction("POST", request.getEndpoint(), request.getRequestBody());
-            return new PayrollResponse<T>(response, getEncoder(), clazz);
+            return new PayrollResponse<T>(response, getEncoder(), clazz, snapshot);
         }
         catch(Exception exc) {
             throw new ApiException(exc.getMessage(), exc);
         }
     }
 
+    /**
+     * Builds an employee lookup and decrypts a canned employee, exercising the encoder's key
+     * derivation and cipher without signing in.
+     */
+    @Override
+    protected void warmUpCycle() throws ApiException {
+        PayrollEncoder encoder = getEncoder();
+
+        EmployeeFilter filter = new EmployeeFilter();
+        filter.setClientCode("warmup");
+        filter.setActive(true);
+        filter.getEmployeeRequest().buildRequest(encoder, Employee.class);
+
+        String employee = new JsonDoc()
+                .set("ClientCode", encoder.encode("warmup"))
+                .set("EmployeeId", 1)
+                .set("TimeClockId", 1)
+                .set("FirstName", "Warm")
+                .set("LastName", encoder.encode("Up"))
+                .set("Ssn", encoder.encode("123456789"))
+                .set("Address1", encoder.encode("1 Main St"))
+                .set("ZipCode", encoder.encode("30001"))
+                .set("BirthDay", encoder.encode("1980-01-01"))
+                .set("PayGroupId", 1)
+                .set("HourlyRate", encoder.encode("10.00"))
+                .set("PerPaySalary", encoder.encode("0.00"))
+                .set("WorkLocationId", 1)
+                .toString();
+        String response = String.format("{\"TotalRecords\":1,\"StatusCode\":200,\"ResponseMessage\":\"OK\",\"Results\":[%s]}", employee);
+        new PayrollResponse<Employee>(response, encoder, Employee.class);
+    }
+
     protected String handleResponse(GatewayResponse response) throws GatewayException {
         if (response.getStatusCode() != 200) {
             String responseMessage = JsonDoc.parseSingleValue(response.getRawResponse(), "ResponseMessage");
@@ -13,6 +13,7 @@ import com.global.api.network.NetworkMessageHeader;
 import com.global.api.paymentMethods.*;
 import com.global.api.utils.Element;
 import com.global.api.utils.ElementTree;
+import com.global.api.utils.RequestTemplate;
 import com.global.api.utils.ReverseStringEnumMap;
 import com.global.api.utils.StringUtils;
 
@@ -31,35 +32,60 @@ public class PorticoConnector extends XmlGateway implements IPaymentGateway {
     private String developerId;
     private String versionNumber;
     private String secretApiKey;
+    private volatile RequestTemplate envelopeTemplate;
+
+    // an approved credit sale, mapped by the warm-up in place of a gateway response
+    private static final String WARM_UP_RESPONSE = "<?xml version=\"1.0\" encoding=\"utf-8\"?>"
+            + "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+            + "<PosResponse rootUrl=\"https://127.0.0.1/Hps.Exchange.PosGateway\" xmlns=\"http://Hps.Exchange.PosGateway\"><Ver1.0>"
+            + "<Header><GatewayTxnId>1</GatewayTxnId><GatewayRspCode>0</GatewayRspCode><GatewayRspMsg>Success</GatewayRspMsg>"
+            + "<RspDT>2020-01-01T12:00:00.000</RspDT></Header>"
+            + "<Transaction><CreditSale><RspCode>00</RspCode><RspText>APPROVAL</RspText><AuthCode>12345A</AuthCode>"
+            + "<AVSRsltCode>0</AVSRsltCode><CVVRsltCode>M</CVVRsltCode><RefNbr>1</RefNbr><AuthAmt>10.00</AuthAmt>"
+            + "<CardType>Visa</CardType><AVSRsltText>AVS Not Requested.</AVSRsltText><CVVRsltText>Match.</CVVRsltText>"
+            + "</CreditSale></Transaction></Ver1.0></PosResponse></soap:Body></soap:Envelope>";
 
     public boolean supportsHostedPayments() { return false; }
 
     public void setSiteId(int siteId) {
         this.siteId = siteId;
+        this.envelopeTemplate = null;
     }
     public void setLicenseId(int licenseId) {
         this.licenseId = licenseId;
+        this.envelopeTemplate = null;
     }
     public void setDeviceId(int deviceId) {
         this.deviceId = deviceId;
+        this.envelopeTemplate = null;
     }
     public void setUsername(String username) {
         this.username = username;
+        this.envelopeTemplate = null;
     }
     public void setPassword(String password) {
         this.password = password;
+        this.envelopeTemplate = null;
     }
     public void setDeveloperId(String developerId) {
         this.developerId = developerId;
+        this.envelopeTemplate = null;
     }
     public void setVersionNumber(String versionNumber) {
         this.versionNumber = versionNumber;
+        this.envelopeTemplate = null;
     }
     public void setSecretApiKey(String secretApiKey) {
         this.secretApiKey = secretApiKey;
+        this.envelopeTemplate = null;
     }
 
     public Transaction processAuthorization(AuthorizationBuilder builder) throws ApiException {
+        String response = doTransaction(buildAuthorization(builder));
+        return mapResponse(response, builder.getPaymentMethod());
+    }
+
+    private String buildAuthorization(AuthorizationBuilder builder) throws ApiException {
         ElementTree et = new ElementTree();
         TransactionType type = builder.getTransactionType();
         TransactionModifier modifier = builder.getTransactionModifier();
@@ -398,8 +424,7 @@ public class PorticoConnector extends XmlGateway implements IPaymentGateway {
 //            }
         }
 
-        String response = doTransaction(buildEnvelope(et, transaction, builder.getClientTransactionId()));
-        return mapResponse(response, builder.getPaymentMethod());
+        return buildEnvelope(et, transaction, builder.getClientTransactionId());
     }
 
     public String serializeRequest(AuthorizationBuilder builder) throws ApiException {
@@ -535,10 +560,34 @@ public class PorticoConnector extends XmlGateway implements IPaymentGateway {
         return mapReportResponse(response, builder.getReportType(), clazz);
     }
 
+    @Override
+    protected void warmUpCycle() throws ApiException {
+        AuthorizationBuilder sale = createWarmUpSale();
+        buildAuthorization(sale);
+        mapResponse(WARM_UP_RESPONSE, sale.getPaymentMethod());
+    }
+
     private String buildEnvelope(ElementTree et, Element transaction) {
         return buildEnvelope(et, transaction, null);
     }
     private String buildEnvelope(ElementTree et, Element transaction, String clientTransactionId) {
+        String date = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX").format(new Date());
+
+        return getEnvelopeTemplate().render(
+                RequestTemplate.element("ClientTxnId", clientTransactionId),
+                RequestTemplate.element("PosReqDT", date),
+                et.toFragment(transaction)
+        );
+    }
+
+    // the envelope and credential header only change with the configuration, so they are rendered once
+    private RequestTemplate getEnvelopeTemplate() {
+        RequestTemplate template = envelopeTemplate;
+        if(template != null) {
+            return template;
+        }
+
+        ElementTree et = new ElementTree();
         Element envelope = et.element("soap:Envelope");
         envelope.set("xmlns:soap", "http://schemas.xmlsoap.org/soap/envelope/");
         envelope.set("xmlns:xsi", "http://www.w3.org/2001/XMLSchema-instance");
@@ -558,16 +607,15 @@ public class PorticoConnector extends XmlGateway implements IPaymentGateway {
         et.subElement(header, "Password", password);
         et.subElement(header, "DeveloperID", developerId);
         et.subElement(header, "VersionNbr", versionNumber);
-        et.subElement(header, "ClientTxnId", clientTransactionId);
-
-        String date = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX").format(new Date());
-        et.subElement(header, "PosReqDT", date);
+        header.text(RequestTemplate.slot(0));
+        header.text(RequestTemplate.slot(1));
 
         // Transaction
-        Element trans = et.subElement(version1, "Transaction");
-        trans.append(transaction);
+        et.subElement(version1, "Transaction").text(RequestTemplate.slot(2));
 
-        return et.toString(envelope);
+        template = RequestTemplate.compile(et.toString(envelope));
+        envelopeTemplate = template;
+        return template;
     }
 
     private Transaction mapResponse(String rawResponse, IPaymentMethod paymentMethod) throws ApiException {
@@ -13,8 +13,11 @@ import com.global.api.paymentMethods.*;
 import com.global.api.utils.*;
 import org.joda.time.format.DateTimeFormat;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Currency;
 import java.util.List;
 import java.util.HashMap;
 
@@ -26,14 +29,26 @@ public class RealexConnector extends XmlGateway implements IPaymentGateway, IRec
     private String sharedSecret;
     private String channel;
     private HostedPaymentConfig hostedPaymentConfig;
+    private volatile RequestTemplate authTemplate;
+    private TtlCache<String, DccRateData> dccRateCache;
+
+    // an authorised sale, mapped by the warm-up in place of a gateway response
+    private static final String WARM_UP_RESPONSE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<response timestamp=\"20200101120000\"><merchantid>warmup</merchantid><account>internet</account>"
+            + "<orderid>warmup</orderid><result>00</result><authcode>12345</authcode>"
+            + "<message>[ test system ] AUTHORISED</message><pasref>1</pasref>"
+            + "<cvnresult>M</cvnresult><avspostcoderesponse>M</avspostcoderesponse><avsaddressresponse>M</avsaddressresponse>"
+            + "<batchid>1</batchid></response>";
 
     public Secure3dVersion getVersion() { return Secure3dVersion.ONE; }
 
     public void setMerchantId(String merchantId) {
         this.merchantId = merchantId;
+        this.authTemplate = null;
     }
     public void setAccountId(String accountId) {
         this.accountId = accountId;
+        this.authTemplate = null;
     }
     public void setRebatePassword(String rebatePassword) {
         this.rebatePassword = rebatePassword;
@@ -46,6 +61,18 @@ public class RealexConnector extends XmlGateway implements IPaymentGateway, IRec
     }
     public void setChannel(String channel) {
         this.channel = channel;
+        this.authTemplate = null;
+    }
+    /**
+     * Serves indicative DCC rate lookups ({@link AuthorizationBuilder#withIndicativeRate}) from the cache
+     * while the rate for the card range, account and currency is fresh. Cached results carry the cardholder
+     * amount for the requested amount but no order id. Regular rate lookups are always sent to the gateway.
+     */
+    public void setDccRateCache(TtlCache<String, DccRateData> dccRateCache) {
+        this.dccRateCache = dccRateCache;
+    }
+    public TtlCache<String, DccRateData> getDccRateCache() {
+        return dccRateCache;
     }
     public void setHostedPaymentConfig(HostedPaymentConfig config) {
         this.hostedPaymentConfig = config;
@@ -56,6 +83,22 @@ public class RealexConnector extends XmlGateway implements IPaymentGateway, IRec
     public boolean supportsHostedPayments() { return true; }
 
     public Transaction processAuthorization(AuthorizationBuilder builder) throws ApiException {
+        if(builder.getTransactionType().equals(TransactionType.DccRateLookup) && builder.isIndicativeRate()) {
+            return lookupIndicativeDccRate(builder);
+        }
+        return authorize(builder);
+    }
+
+    private Transaction authorize(AuthorizationBuilder builder) throws ApiException {
+        if(builder.getDccRateData() != null && builder.getDccRateData().isIndicative()) {
+            throw new BuilderException("Indicative DCC rate data cannot be used to process a transaction; use a regular rate lookup for a quote that can be charged.");
+        }
+
+        String response = doTransaction(buildAuthorization(builder));
+        return mapResponse(response, builder);
+    }
+
+    private String buildAuthorization(AuthorizationBuilder builder) throws ApiException {
         ElementTree et = new ElementTree();
         String timestamp = GenerationUtils.generateTimestamp(builder.getTimestamp());
         String orderId = GenerationUtils.generateOrderId(builder.getOrderId());
@@ -73,13 +116,8 @@ public class RealexConnector extends XmlGateway implements IPaymentGateway, IRec
             }
         }
 
-        // Build Request
-        Element request = et.element("request")
-                .set("timestamp", timestamp)
-                .set("type", mapAuthRequestType(builder));
-        et.subElement(request, "merchantid").text(merchantId);
-        et.subElement(request, "account", accountId);
-        et.subElement(request, "channel", channel);
+        // Build Request, the root element and merchant header come from the pre-rendered template
+        Element request = et.element("request");
         et.subElement(request, "orderid", orderId);
         if(builder.getAmount() != null) {
             et.subElement(request, "amount").text(StringUtils.toNumeric(builder.getAmount()))
@@ -327,8 +365,154 @@ public class RealexConnector extends XmlGateway implements IPaymentGateway, IRec
         }
         //</editor-fold>
 
-        String response = doTransaction(et.toString(request));
-        return mapResponse(response, builder);
+        return getAuthTemplate().render(
+                RequestTemplate.escape(timestamp),
+                RequestTemplate.escape(mapAuthRequestType(builder)),
+                et.toInnerFragment(request)
+        );
+    }
+
+    @Override
+    protected void warmUpCycle() throws ApiException {
+        AuthorizationBuilder sale = createWarmUpSale();
+        buildAuthorization(sale);
+        mapResponse(WARM_UP_RESPONSE, sale);
+    }
+
+    // rates depend on the card range, not the card, so the key uses the BIN for card lookups and the stored card for realvault ones
+    private String getDccRateCacheKey(AuthorizationBuilder builder) {
+        String cardKey = null;
+        if(builder.getPaymentMethod() instanceof CreditCardData) {
+            String number = ((CreditCardData) builder.getPaymentMethod()).getNumber();
+            if(number != null && number.length() >= 6) {
+                cardKey = number.substring(0, 6);
+            }
+        }
+        else if(builder.getPaymentMethod() instanceof RecurringPaymentMethod) {
+            RecurringPaymentMethod recurring = (RecurringPaymentMethod) builder.getPaymentMethod();
+            cardKey = recurring.getCustomerKey() + "/" + recurring.getKey();
+        }
+        if(cardKey == null) {
+            return null;
+        }
+
+        DccRateData dccRateData = builder.getDccRateData();
+        return String.format("%s|%s|%s|%s|%s|%s",
+                merchantId,
+                accountId,
+                cardKey,
+                builder.getCurrency(),
+                dccRateData != null ? dccRateData.getDccRateType() : null,
+                dccRateData != null ? dccRateData.getDccProcessor() : null);
+    }
+
+    // every result is indicative, whether it came from the cache or the gateway, so what a caller may do
+    // with it does not depend on whether the lookup hit the cache
+    private Transaction lookupIndicativeDccRate(final AuthorizationBuilder builder) throws ApiException {
+        String key = dccRateCache != null && builder.getAmount() != null ? getDccRateCacheKey(builder) : null;
+        if(key == null) {
+            return markIndicative(authorize(builder));
+        }
+
+        final Transaction[] lookup = new Transaction[1];
+        DccRateData cached = dccRateCache.get(key, new TtlCache.ILoader<String, DccRateData>() {
+            public DccRateData load(String key) throws ApiException {
+                lookup[0] = authorize(builder);
+
+                DccRateData rate = lookup[0].getDccRateData();
+                if("00".equals(lookup[0].getResponseCode()) && rate != null && rate.getCardHolderRate() != null) {
+                    DccRateData copy = new DccRateData();
+                    copy.setCardHolderCurrency(rate.getCardHolderCurrency());
+                    copy.setCardHolderRate(rate.getCardHolderRate());
+                    copy.setMerchantCurrency(rate.getMerchantCurrency());
+                    copy.setMarginRatePercentage(rate.getMarginRatePercentage());
+                    copy.setExchangeRateSourceName(rate.getExchangeRateSourceName());
+                    copy.setCommissionPercentage(rate.getCommissionPercentage());
+                    copy.setExchangeRateSourceTimestamp(rate.getExchangeRateSourceTimestamp());
+                    return copy;
+                }
+                return null;
+            }
+        });
+
+        // this caller did the lookup itself, or coalesced onto one that did not return a usable rate
+        if(lookup[0] != null) {
+            return markIndicative(lookup[0]);
+        }
+        else if(cached == null) {
+            return markIndicative(authorize(builder));
+        }
+
+        // convert through major units so currencies with different exponents (e.g. EUR to JPY) scale correctly,
+        // then return minor units as the gateway does
+        BigDecimal merchantAmount;
+        BigDecimal cardHolderAmount;
+        try {
+            int merchantDigits = Currency.getInstance(builder.getCurrency()).getDefaultFractionDigits();
+            int cardHolderDigits = Currency.getInstance(cached.getCardHolderCurrency()).getDefaultFractionDigits();
+            merchantAmount = builder.getAmount().movePointRight(Math.max(merchantDigits, 0)).setScale(0, RoundingMode.HALF_UP);
+            cardHolderAmount = builder.getAmount().multiply(new BigDecimal(cached.getCardHolderRate()))
+                    .setScale(Math.max(cardHolderDigits, 0), RoundingMode.HALF_UP)
+                    .movePointRight(Math.max(cardHolderDigits, 0));
+        }
+        catch(IllegalArgumentException exc) {
+            // unknown currency code or unparseable rate (NumberFormatException), let the gateway quote it
+            return markIndicative(authorize(builder));
+        }
+
+        DccRateData dccRateData = new DccRateData();
+        if(builder.getDccRateData() != null) {
+            dccRateData.setDccProcessor(builder.getDccRateData().getDccProcessor());
+            dccRateData.setDccRateType(builder.getDccRateData().getDccRateType());
+        }
+        dccRateData.setCardHolderCurrency(cached.getCardHolderCurrency());
+        dccRateData.setCardHolderAmount(cardHolderAmount);
+        dccRateData.setCardHolderRate(cached.getCardHolderRate());
+        dccRateData.setMerchantCurrency(cached.getMerchantCurrency());
+        dccRateData.setMerchantAmount(merchantAmount);
+        dccRateData.setMarginRatePercentage(cached.getMarginRatePercentage());
+        dccRateData.setExchangeRateSourceName(cached.getExchangeRateSourceName());
+        dccRateData.setCommissionPercentage(cached.getCommissionPercentage());
+        dccRateData.setExchangeRateSourceTimestamp(cached.getExchangeRateSourceTimestamp());
+        dccRateData.setIndicative(true);
+
+        // no order id: the gateway never quoted this rate, so it cannot be referenced by a charge
+        TransactionReference reference = new TransactionReference();
+        reference.setPaymentMethodType(PaymentMethodType.Credit);
+
+        Transaction result = new Transaction();
+        result.setResponseCode("00");
+        result.setResponseMessage("Cached DCC rate");
+        result.setTransactionReference(reference);
+        result.setDccRateData(dccRateData);
+        return result;
+    }
+
+    private Transaction markIndicative(Transaction response) {
+        if(response.getDccRateData() != null) {
+            response.getDccRateData().setIndicative(true);
+        }
+        return response;
+    }
+
+    private RequestTemplate getAuthTemplate() {
+        RequestTemplate template = authTemplate;
+        if(template != null) {
+            return template;
+        }
+
+        ElementTree et = new ElementTree();
+        Element request = et.element("request")
+                .set("timestamp", RequestTemplate.slot(0))
+                .set("type", RequestTemplate.slot(1));
+        et.subElement(request, "merchantid").text(merchantId);
+        et.subElement(request, "account", accountId);
+        et.subElement(request, "channel", channel);
+        request.text(RequestTemplate.slot(2));
+
+        template = RequestTemplate.compile(et.toString(request));
+        authTemplate = template;
+        return template;
     }
 
     public String serializeRequest(AuthorizationBuilder builder) throws ApiException {
@@ -1,5 +1,7 @@
 package com.global.api.gateways;
 
+import com.global.api.io.ISslEngineFactory;
+
 import javax.net.ssl.*;
 import java.io.IOException;
 import java.net.InetAddress;
@@ -11,8 +13,29 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-public class SSLSocketFactoryEx extends SSLSocketFactory
+public class SSLSocketFactoryEx extends SSLSocketFactory implements ISslEngineFactory
 {
+    private static volatile SSLSocketFactoryEx shared;
+
+    /**
+     * The default factory, created once so connections share one TLS context. Keep-alive
+     * connections are only reused, and TLS sessions only resumed, within the same context.
+     */
+    public static SSLSocketFactoryEx getShared() throws NoSuchAlgorithmException, KeyManagementException
+    {
+        SSLSocketFactoryEx factory = shared;
+        if(factory == null) {
+            synchronized (SSLSocketFactoryEx.class) {
+                factory = shared;
+                if(factory == null) {
+                    factory = new SSLSocketFactoryEx();
+                    shared = factory;
+                }
+            }
+        }
+        return factory;
+    }
+
     public SSLSocketFactoryEx() throws NoSuchAlgorithmException, KeyManagementException
     {
         initSSLSocketFactoryEx(null,null,null);
@@ -103,6 +126,16 @@ public class SSLSocketFactoryEx extends SSLSocketFactory
         return ss;
     }
 
+    public SSLEngine createSSLEngine(String host, int port)
+    {
+        SSLEngine engine = m_ctx.createSSLEngine(host, port);
+        engine.setUseClientMode(true);
+        engine.setEnabledProtocols(m_protocols);
+        engine.setEnabledCipherSuites(m_ciphers);
+
+        return engine;
+    }
+
     private void initSSLSocketFactoryEx(KeyManager[] km, TrustManager[] tm, SecureRandom random)
             throws NoSuchAlgorithmException, KeyManagementException
     {
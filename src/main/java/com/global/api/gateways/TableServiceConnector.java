@@ -1,11 +1,21 @@
 package com.global.api.gateways;
 
+import com.global.api.entities.exceptions.ApiException;
 import com.global.api.entities.exceptions.GatewayException;
 import com.global.api.entities.tableservice.BumpStatusCollection;
+import com.global.api.entities.tableservice.ServerListResponse;
 import com.global.api.utils.MultipartForm;
 import com.global.api.utils.StringUtils;
+import org.apache.http.entity.mime.MultipartEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 
 public class TableServiceConnector extends Gateway {
+    // a server list, mapped by the warm-up in place of a gateway response
+    private static final String WARM_UP_RESPONSE = "{\"code\":\"00\",\"codeMsg\":\"Success\",\"action\":\"getServerList\","
+            + "\"data\":{\"row\":{\"serverList\":\"Warm,Up\"}}}";
+
     private String locationId;
     private String securityToken;
     private String sessionId;
@@ -48,11 +58,7 @@ public class TableServiceConnector extends Gateway {
 
     public String call(String endpoint, MultipartForm content) throws GatewayException {
         try {
-            content.set("locID", locationId);
-            content.set("token", securityToken);
-            content.set("sessionID", sessionId);
-
-            GatewayResponse response = sendRequest(endpoint, content.getContent());
+            GatewayResponse response = sendRequest(endpoint, buildContent(content));
             if(response.getStatusCode() != 200) {
                 // TODO: put some error handling here
             }
@@ -63,4 +69,22 @@ public class TableServiceConnector extends Gateway {
             throw new GatewayException(exc.getMessage(), exc);
         }
     }
+
+    private MultipartEntity buildContent(MultipartForm content) throws ApiException {
+        content.set("locID", locationId);
+        content.set("token", securityToken);
+        content.set("sessionID", sessionId);
+        return content.getContent();
+    }
+
+    @Override
+    protected void warmUpCycle() throws ApiException {
+        try {
+            buildContent(new MultipartForm()).writeTo(new ByteArrayOutputStream());
+        }
+        catch(IOException exc) {
+            throw new GatewayException(exc.getMessage(), exc);
+        }
+        new ServerListResponse(WARM_UP_RESPONSE);
+    }
 }
@@ -8,6 +8,8 @@ import com.global.api.entities.Transaction;
 import com.global.api.entities.enums.*;
 import com.global.api.entities.exceptions.*;
 import com.global.api.entities.payroll.PayrollEncoder;
+import com.global.api.logging.GatewayLogger;
+import com.global.api.logging.ILogMessage;
 import com.global.api.network.*;
 import com.global.api.network.abstractions.IBatchProvider;
 import com.global.api.network.abstractions.IStanProvider;
@@ -29,6 +31,7 @@ import org.joda.time.DateTimeZone;
 import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 
@@ -49,9 +52,16 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
     private LinkedList<Transaction> resentTransactions;
     private Transaction resentBatch;
     private NetworkProcessingFlag processingFlag;
+    private volatile FixedDataElements fixedDataElements;
+    private StandInEngine standInEngine;
 
+    /**
+     * The data elements taken from the config are built once, when first needed. Changes made to
+     * the config afterwards take effect when it is set again.
+     */
     public void setAcceptorConfig(AcceptorConfig acceptorConfig) {
         this.acceptorConfig = acceptorConfig;
+        this.fixedDataElements = null;
     }
     public void setBatchProvider(IBatchProvider batchProvider) {
         this.batchProvider = batchProvider;
@@ -61,9 +71,11 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
     }
     public void setCompanyId(String companyId) {
         this.companyId = companyId;
+        this.fixedDataElements = null;
     }
     public void setMerchantType(String merchantType) {
         this.merchantType = merchantType;
+        this.fixedDataElements = null;
     }
     public void setMessageType(MessageType messageType) {
         this.messageType = messageType;
@@ -85,6 +97,7 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
     }
     public void setTerminalId(String terminalId) {
         this.terminalId = terminalId;
+        this.fixedDataElements = null;
     }
     public void setUniqueDeviceId(String uniqueDeviceId) {
         this.uniqueDeviceId = uniqueDeviceId;
@@ -95,6 +108,9 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
     public void setProcessingFlag(NetworkProcessingFlag processingFlag) {
         this.processingFlag = processingFlag;
     }
+    public void setStandInEngine(StandInEngine standInEngine) {
+        this.standInEngine = standInEngine;
+    }
 
     public boolean supportsHostedPayments() {
         return false;
@@ -264,7 +280,9 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
         // DE 17: Date, Capture - n4 (MMDD) // C
 
         // DE 18: Merchant Type - n4 // C 1100, 1200, 1220, 1300, 1320, 1420 (Same as MCC Code - Add to config since will be same for all transactions)
-        request.set(DataElementId.DE_018, merchantType);
+        // DE 18, 32, 41, 42 and 43 only depend on the configuration and are copied from the pre-built elements
+        FixedDataElements fixed = getFixedDataElements();
+        request.setAll(fixed.message);
 
         // DE 19: Country Code, Acquiring Institution - n3 (ISO 3166) // C Config value perhaps? Same for each message
         //request.set(DataElementId.DE_019, "840");
@@ -283,15 +301,8 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
             22.11 TERMINAL OUTPUT CAPABILITY an1 The print/display capabilities of the POS.
             22.12 PIN CAPTURE CAPABILITY an1 Indicates whether the PIN data can be captured and if so the maximum PIN data length that can be captured.
          */
-        dataCode.setCardDataInputCapability(acceptorConfig.getCardDataInputCapability());
-        dataCode.setCardHolderAuthenticationCapability(acceptorConfig.getCardHolderAuthenticationCapability());
-        dataCode.setCardCaptureCapability(acceptorConfig.isCardCaptureCapability());
-        dataCode.setOperatingEnvironment(acceptorConfig.getOperatingEnvironment());
-        dataCode.setCardHolderAuthenticationEntity(acceptorConfig.getCardHolderAuthenticationEntity());
-        dataCode.setCardDataOutputCapability(acceptorConfig.getCardDataOutputCapability());
-        dataCode.setTerminalOutputCapability(acceptorConfig.getTerminalOutputCapability());
-        dataCode.setPinCaptureCapability(acceptorConfig.getPinCaptureCapability());
-        request.set(DataElementId.DE_022, dataCode);
+        // the capabilities come from the pre-built elements, only 22.5 to 22.8 are set per transaction
+        request.set(DataElementId.DE_022, dataCode.toByteArray(fixed.posDataCapabilities));
 
         // DE 23: Card Sequence Number - n3 // C 1100, 1120, 1200, 1220, 1420 (Applies to EMV cards if the sequence number is returned from the terminal)
         // DE 24: Function Code - n3 // M
@@ -304,8 +315,7 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
             30.1 ORIGINAL AMOUNT, TRANSACTION n12 A copy of amount, transaction (DE 4) from the original transaction.
             30.2 ORIGINAL AMOUNT, RECONCILIATION n12 A copy of amount, reconciliation (DE 5) from the original transaction. Since DE 5 is not used, this element will contain all zeros.
          */
-        // DE 32: Acquiring Institution Identification Code - LLVAR n.. 11
-        request.set(DataElementId.DE_032, acceptorConfig.getAcquiringInstitutionIdentificationCode());
+        // DE 32: Acquiring Institution Identification Code - LLVAR n.. 11 (fixed, see DE 18)
 
         // DE 34: Primary Account Number, Extended - LLVAR ns.. 28
 
@@ -317,27 +327,20 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
 
         // DE 39: Action Code - n3
 
-        // DE 41: Card Acceptor Terminal Identification Code - ans8
-        String companyIdValue = builder.getCustomerId();
-        if(StringUtils.isNullOrEmpty(companyIdValue)) {
-            companyIdValue = companyId;
+        // DE 41: Card Acceptor Terminal Identification Code - ans8 (fixed, unless overridden per transaction)
+        if(!StringUtils.isNullOrEmpty(builder.getCustomerId())) {
+            request.set(DataElementId.DE_041, StringUtils.padRight(builder.getCustomerId(), 8, ' '));
         }
-        request.set(DataElementId.DE_041, StringUtils.padRight(companyIdValue, 8, ' '));
 
-        // DE 42: Card Acceptor Identification Code - ans15
-        request.set(DataElementId.DE_042, StringUtils.padRight(terminalId, 15, ' '));
+        // DE 42: Card Acceptor Identification Code - ans15 (fixed, see DE 18)
 
         /* DE 43: Card Acceptor Name/Location - LLVAR ans.. 99
             43.1 NAME-STREET-CITY ans..83 Name\street\city\
             43.2 POSTAL-CODE ans10
             43.3 REGION ans3 Two letter state/province code for the United States and Canada. Refer to the Heartland Integrator’s Guide.
             43.4 COUNTRY-CODE a3 See A.30.1 ISO 3166-1: Country Codes, p. 809.
+           (fixed, see DE 18)
          */
-        if(acceptorConfig.getAddress() != null) {
-            DE43_CardAcceptorData cardAcceptorData = new DE43_CardAcceptorData();
-            cardAcceptorData.setAddress(acceptorConfig.getAddress());
-            request.set(DataElementId.DE_043, cardAcceptorData);
-        }
 
         /* DE 44: Additional Response Data - LLVAR ans.. 99
             44.1 ACTION REASON CODE n4 Contains the reason code for the action. A value of zeros indicates there is no action reason code.
@@ -430,7 +433,7 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
 
         // DE 55: Integrated Circuit Card (ICC) Data - LLLVAR b..512
         if(!StringUtils.isNullOrEmpty(builder.getTagData())) {
-            EmvData tagData = EmvUtils.parseTagData(builder.getTagData(), isEnableLogging());
+            EmvData tagData = EmvUtils.parseTagData(builder.getTagData(), getLogger().sample() ? getLogger() : null);
             request.set(DataElementId.DE_023, StringUtils.padLeft(tagData.getCardSequenceNumber(), 3, '0'));
             request.set(DataElementId.DE_055, tagData.getSendBuffer());
         }
@@ -489,7 +492,19 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
             }
         }
 
-        return sendRequest(request, builder, orgCorr1, orgCorr2);
+        try {
+            return sendRequest(request, builder, orgCorr1, orgCorr2);
+        }
+        catch(GatewayException exc) {
+            // the host could not be reached, approve locally if the stand-in limits allow it
+            if(standInEngine != null) {
+                Transaction standIn = standInEngine.authorize(builder, request, exc);
+                if(standIn != null) {
+                    return standIn;
+                }
+            }
+            throw exc;
+        }
     }
     public Transaction manageTransaction(ManagementBuilder builder) throws ApiException {
         validate(builder);
@@ -644,7 +659,9 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
         }
 
         // DE 18: Merchant Type - n4 // C 1100, 1200, 1220, 1300, 1320, 1420 (Same as MCC Code - Add to config since will be same for all transactions)
-        request.set(DataElementId.DE_018, merchantType);
+        // DE 18, 32, 41, 42 and 43 only depend on the configuration and are copied from the pre-built elements
+        FixedDataElements fixed = getFixedDataElements();
+        request.setAll(fixed.message);
 
         // DE 19: Country Code, Acquiring Institution - n3 (ISO 3166) // C Config value perhaps? Same for each message
         //request.set(DataElementId.DE_019, "840");
@@ -663,16 +680,9 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
             22.11 TERMINAL OUTPUT CAPABILITY an1 The print/display capabilities of the POS.
             22.12 PIN CAPTURE CAPABILITY an1 Indicates whether the PIN data can be captured and if so the maximum PIN data length that can be captured.
          */
-        dataCode.setCardDataInputCapability(acceptorConfig.getCardDataInputCapability());
-        dataCode.setCardHolderAuthenticationCapability(acceptorConfig.getCardHolderAuthenticationCapability());
-        dataCode.setCardCaptureCapability(acceptorConfig.isCardCaptureCapability());
-        dataCode.setOperatingEnvironment(acceptorConfig.getOperatingEnvironment());
-        dataCode.setCardHolderAuthenticationEntity(acceptorConfig.getCardHolderAuthenticationEntity());
-        dataCode.setCardDataOutputCapability(acceptorConfig.getCardDataOutputCapability());
-        dataCode.setTerminalOutputCapability(acceptorConfig.getTerminalOutputCapability());
-        dataCode.setPinCaptureCapability(acceptorConfig.getPinCaptureCapability());
+        // the capabilities come from the pre-built elements, only 22.5 to 22.8 are set per transaction
         // TODO: Do not add for batch close
-        request.set(DataElementId.DE_022, dataCode);
+        request.set(DataElementId.DE_022, dataCode.toByteArray(fixed.posDataCapabilities));
 
         // DE 23: Card Sequence Number - n3 // C 1100, 1120, 1200, 1220, 1420 (Applies to EMV cards if the sequence number is returned from the terminal)
         // DE 24: Function Code - n3 // M
@@ -700,8 +710,7 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
             }
         }
 
-        // DE 32: Acquiring Institution Identification Code - LLVAR n.. 11
-        request.set(DataElementId.DE_032, acceptorConfig.getAcquiringInstitutionIdentificationCode());
+        // DE 32: Acquiring Institution Identification Code - LLVAR n.. 11 (fixed, see DE 18)
 
         // DE 34: Primary Account Number, Extended - LLVAR ns.. 28
 
@@ -713,27 +722,20 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
 
         // DE 39: Action Code - n3
 
-        // DE 41: Card Acceptor Terminal Identification Code - ans8
-        String companyIdValue = builder.getCompanyId();
-        if(StringUtils.isNullOrEmpty(companyIdValue)) {
-            companyIdValue = companyId;
+        // DE 41: Card Acceptor Terminal Identification Code - ans8 (fixed, unless overridden per transaction)
+        if(!StringUtils.isNullOrEmpty(builder.getCompanyId())) {
+            request.set(DataElementId.DE_041, StringUtils.padRight(builder.getCompanyId(), 8, ' '));
         }
-        request.set(DataElementId.DE_041, StringUtils.padRight(companyIdValue, 8, ' '));
 
-        // DE 42: Card Acceptor Identification Code - ans15
-        request.set(DataElementId.DE_042, StringUtils.padRight(terminalId, 15, ' '));
+        // DE 42: Card Acceptor Identification Code - ans15 (fixed, see DE 18)
 
         /* DE 43: Card Acceptor Name/Location - LLVAR ans.. 99
             43.1 NAME-STREET-CITY ans..83 Name\street\city\
             43.2 POSTAL-CODE ans10
             43.3 REGION ans3 Two letter state/province code for the United States and Canada. Refer to the Heartland Integrator’s Guide.
             43.4 COUNTRY-CODE a3 See A.30.1 ISO 3166-1: Country Codes, p. 809.
+           (fixed, see DE 18)
          */
-        if(acceptorConfig.getAddress() != null) {
-            DE43_CardAcceptorData cardAcceptorData = new DE43_CardAcceptorData();
-            cardAcceptorData.setAddress(acceptorConfig.getAddress());
-            request.set(DataElementId.DE_043, cardAcceptorData);
-        }
 
         /* DE 44: Additional Response Data - LLVAR ans.. 99
             44.1 ACTION REASON CODE n4 Contains the reason code for the action. A value of zeros indicates there is no action reason code.
@@ -930,6 +932,73 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
         throw new UnsupportedTransactionException("VAPS does not support hosted payments.");
     }
     
+    @Override
+    protected void warmUpCycle() throws ApiException {
+        NetworkMessage request = new NetworkMessage();
+        request.setMessageTypeIndicator("1200");
+        request.set(DataElementId.DE_003, "003000");
+        request.set(DataElementId.DE_004, StringUtils.toNumeric(new BigDecimal("10.00"), 12));
+        request.set(DataElementId.DE_007, DateTime.now(DateTimeZone.UTC).toString("MMddHHmmss"));
+        request.set(DataElementId.DE_011, "000001");
+        request.set(DataElementId.DE_012, DateTime.now().toString("yyMMddHHmmss"));
+        request.set(DataElementId.DE_041, "00000000");
+        if(acceptorConfig != null) {
+            FixedDataElements fixed = getFixedDataElements();
+            request.setAll(fixed.message);
+            request.set(DataElementId.DE_022, new DE22_PosDataCode().toByteArray(fixed.posDataCapabilities));
+        }
+
+        // the message without its MTI, as the host and mapResponse read it
+        byte[] buffer = request.buildMessage();
+        NetworkMessage response = NetworkMessage.parse(Arrays.copyOfRange(buffer, 4, buffer.length), Iso8583MessageType.CompleteMessage);
+        response.getAmount(DataElementId.DE_004);
+        response.getString(DataElementId.DE_011);
+    }
+
+    // DE 18, 32, 41, 42 and 43 and the DE 22 capabilities, which only change with the configuration.
+    // The elements are shared by every request built from them and are never modified.
+    private static class FixedDataElements {
+        private final NetworkMessage message;
+        private final byte[] posDataCapabilities;
+
+        FixedDataElements(NetworkMessage message, byte[] posDataCapabilities) {
+            this.message = message;
+            this.posDataCapabilities = posDataCapabilities;
+        }
+    }
+
+    private FixedDataElements getFixedDataElements() {
+        FixedDataElements fixed = fixedDataElements;
+        if(fixed != null) {
+            return fixed;
+        }
+
+        NetworkMessage message = new NetworkMessage();
+        message.set(DataElementId.DE_018, merchantType);
+        message.set(DataElementId.DE_032, acceptorConfig.getAcquiringInstitutionIdentificationCode());
+        message.set(DataElementId.DE_041, StringUtils.padRight(companyId, 8, ' '));
+        message.set(DataElementId.DE_042, StringUtils.padRight(terminalId, 15, ' '));
+        if(acceptorConfig.getAddress() != null) {
+            DE43_CardAcceptorData cardAcceptorData = new DE43_CardAcceptorData();
+            cardAcceptorData.setAddress(acceptorConfig.getAddress());
+            message.set(DataElementId.DE_043, cardAcceptorData);
+        }
+
+        DE22_PosDataCode capabilities = new DE22_PosDataCode();
+        capabilities.setCardDataInputCapability(acceptorConfig.getCardDataInputCapability());
+        capabilities.setCardHolderAuthenticationCapability(acceptorConfig.getCardHolderAuthenticationCapability());
+        capabilities.setCardCaptureCapability(acceptorConfig.isCardCaptureCapability());
+        capabilities.setOperatingEnvironment(acceptorConfig.getOperatingEnvironment());
+        capabilities.setCardHolderAuthenticationEntity(acceptorConfig.getCardHolderAuthenticationEntity());
+        capabilities.setCardDataOutputCapability(acceptorConfig.getCardDataOutputCapability());
+        capabilities.setTerminalOutputCapability(acceptorConfig.getTerminalOutputCapability());
+        capabilities.setPinCaptureCapability(acceptorConfig.getPinCaptureCapability());
+
+        fixed = new FixedDataElements(message, capabilities.toByteArray());
+        fixedDataElements = fixed;
+        return fixed;
+    }
+
     private IDeviceMessage buildMessage(byte[] message, byte[] orgCorr1, byte[] orgCorr2) {
         return buildMessage(message, orgCorr1, orgCorr2, false);
     }
@@ -977,7 +1046,7 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
     
     public NetworkMessageHeader sendKeepAlive() throws ApiException {
         IDeviceMessage keepAlive = buildMessage(new byte[0], new byte[2], new byte[8], true);
-        byte[] responseBuffer = send(keepAlive);
+        byte[] responseBuffer = send(keepAlive, getTimeout(), true);
         MessageReader mr = new MessageReader(responseBuffer);
 
         // parse the header
@@ -993,20 +1062,29 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
         }
     }
     
-    private <T extends TransactionBuilder<Transaction>> Transaction sendRequest(NetworkMessage request, T builder, byte[] orgCorr1, byte[] orgCorr2) throws ApiException {
+    private <T extends TransactionBuilder<Transaction>> Transaction sendRequest(final NetworkMessage request, T builder, byte[] orgCorr1, byte[] orgCorr2) throws ApiException {
         byte[] sendBuffer = request.buildMessage();
-        if(isEnableLogging()) {
-            System.out.println("Request Breakdown:\r\n" + request.toString());
+        boolean logging = getLogger().sample();
+        if(logging) {
+            getLogger().log(new ILogMessage() {
+                public String getMessage() {
+                    return "Request Breakdown:\r\n" + request.toString();
+                }
+            });
         }
         IDeviceMessage message = buildMessage(sendBuffer, orgCorr1, orgCorr2, false);
         TransactionType transactionType = null;
+        int timeout = getTimeout();
 
         try {
             if(builder != null) {
                 transactionType = builder.getTransactionType();
                 this.setForceGatewayTimeout(builder.isForceGatewayTimeout());
+                if(builder.getTimeout() != null) {
+                    timeout = builder.getTimeout();
+                }
             }
-            byte[] responseBuffer = send(message);
+            byte[] responseBuffer = send(message, timeout, isHedgeable(transactionType));
 
             String functionCode = request.getString(DataElementId.DE_024);
             String messageReasonCode = request.getString(DataElementId.DE_025);
@@ -1029,7 +1107,7 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
             priorMessageInformation.setProcessingCode(processingCode);
             priorMessageInformation.setSystemTraceAuditNumber(stan);
 
-            Transaction response = mapResponse(responseBuffer, request, builder);
+            Transaction response = mapResponse(responseBuffer, request, builder, logging);
             response.setMessageInformation(priorMessageInformation);
             if(batchProvider != null) {
                 batchProvider.setPriorMessageData(priorMessageInformation);
@@ -1155,12 +1233,16 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
                 }
             }
 
-            exc.setHost(this.currentEndpoint);
             throw exc;
         }
     }
 
-    private <T extends TransactionBuilder<Transaction>> Transaction mapResponse(byte[] buffer, NetworkMessage request, T builder) throws GatewayException {
+    // only requests without financial impact may be delivered to both hosts
+    private boolean isHedgeable(TransactionType transactionType) {
+        return transactionType != null && transactionType.equals(TransactionType.Balance);
+    }
+
+    private <T extends TransactionBuilder<Transaction>> Transaction mapResponse(byte[] buffer, NetworkMessage request, T builder, boolean logging) throws GatewayException {
         Transaction result = new Transaction();
         MessageReader mr = new MessageReader(buffer);
 
@@ -1180,12 +1262,16 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
             // parse the message
             if(!header.getMessageType().equals(MessageType.NoMessage)) {
                 String messageTransactionIndicator = mr.readString(4);
-                NetworkMessage message = NetworkMessage.parse(mr.readBytes(buffer.length), Iso8583MessageType.CompleteMessage);
+                final NetworkMessage message = NetworkMessage.parse(mr.readBytes(buffer.length), Iso8583MessageType.CompleteMessage);
                 message.setMessageTypeIndicator(messageTransactionIndicator);
 
                 // log out the breakdown
-                if(isEnableLogging()) {
-                    System.out.println("\r\nResponse Breakdown:\r\n" + message.toString());
+                if(logging) {
+                    getLogger().log(new ILogMessage() {
+                        public String getMessage() {
+                            return "\r\nResponse Breakdown:\r\n" + message.toString();
+                        }
+                    });
                 }
 
                 DE44_AdditionalResponseData additionalResponseData = message.getDataElement(DataElementId.DE_044, DE44_AdditionalResponseData.class);
@@ -1224,7 +1310,7 @@ public class VapsConnector extends NetworkGateway implements IPaymentGateway {
                 // EMV response
                 byte[] emvResponse = message.getByteArray(DataElementId.DE_055);
                 if(emvResponse != null){
-                    EmvData emvData = EmvUtils.parseTagData(StringUtils.hexFromBytes(emvResponse), isEnableLogging());
+                    EmvData emvData = EmvUtils.parseTagData(StringUtils.hexFromBytes(emvResponse), logging ? getLogger() : null);
                     result.setEmvIssuerResponse(emvData.getAcceptedTagData());
                 }
 
@@ -0,0 +1,51 @@
+package com.global.api.io;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small pool of fixed size read buffers shared by the NIO connections. Buffers are only held
+ * for the duration of a single read event so the pool stays small even with many connections.
+ */
+public class BufferPool {
+    private static final BufferPool defaultPool = new BufferPool(32 * 1024, 64);
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    public static BufferPool getDefault() {
+        return defaultPool;
+    }
+
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if(buffer == null) {
+            return ByteBuffer.allocate(bufferSize);
+        }
+        pooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        if(buffer == null || buffer.capacity() != bufferSize) {
+            return;
+        }
+        if(pooled.incrementAndGet() <= maxPooled) {
+            buffers.offer(buffer);
+        }
+        else pooled.decrementAndGet();
+    }
+}
@@ -0,0 +1,53 @@
+package com.global.api.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+final class ChannelWriter {
+    private static final long WRITE_TIMEOUT = 30000;
+
+    private ChannelWriter() { }
+
+    static void writeFully(SocketChannel channel, ByteBuffer src) throws IOException {
+        Selector selector = null;
+        try {
+            long deadline = System.currentTimeMillis() + WRITE_TIMEOUT;
+            while(src.hasRemaining()) {
+                if(channel.write(src) > 0) {
+                    continue;
+                }
+
+                // the send buffer is full, wait until the socket drains instead of spinning
+                if(selector == null) {
+                    selector = Selector.open();
+                    channel.register(selector, SelectionKey.OP_WRITE);
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if(remaining <= 0) {
+                    throw new IOException("Timed out writing to the remote host.");
+                }
+                selector.select(remaining);
+                selector.selectedKeys().clear();
+            }
+        }
+        finally {
+            if(selector != null) {
+                selector.close();
+            }
+        }
+    }
+
+    static void closeQuietly(SocketChannel channel) {
+        try {
+            if(channel != null) {
+                channel.close();
+            }
+        }
+        catch(IOException exc) {
+            // eat the close exception
+        }
+    }
+}
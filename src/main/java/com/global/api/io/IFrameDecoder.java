@@ -0,0 +1,13 @@
+package com.global.api.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Splits a byte stream into protocol frames. Implementations are stateful, consume everything
+ * readable in the supplied buffer and keep any partial frame until the next call.
+ */
+public interface IFrameDecoder {
+    void decode(ByteBuffer data, IFrameHandler handler) throws IOException;
+    void reset();
+}
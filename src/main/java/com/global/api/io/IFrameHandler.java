@@ -0,0 +1,5 @@
+package com.global.api.io;
+
+public interface IFrameHandler {
+    void frameReceived(byte[] frame);
+}
@@ -0,0 +1,7 @@
+package com.global.api.io;
+
+import javax.net.ssl.SSLEngine;
+
+public interface ISslEngineFactory {
+    SSLEngine createSSLEngine(String host, int port);
+}
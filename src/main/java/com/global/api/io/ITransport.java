@@ -0,0 +1,28 @@
+package com.global.api.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Byte transport over a {@link SocketChannel}. After {@link #connect} the channel is left in
+ * non-blocking mode ready to be registered with an {@link NioReactor}.
+ */
+public interface ITransport {
+    void connect(String host, int port, int timeout) throws IOException;
+    SocketChannel getChannel();
+
+    /**
+     * Reads whatever application data is available without blocking.
+     *
+     * @return the number of bytes placed in dst, or -1 once the peer has closed the connection
+     */
+    int read(ByteBuffer dst) throws IOException;
+
+    /**
+     * Writes the whole buffer, waiting for the socket to become writable if needed.
+     */
+    void write(ByteBuffer src) throws IOException;
+
+    void close();
+}
@@ -0,0 +1,72 @@
+package com.global.api.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decoder for frames carrying a two byte, big endian length header. The header is stripped
+ * from the emitted frame. Each frame is copied once, straight into an array of its exact size.
+ */
+public class LengthPrefixedFrameDecoder implements IFrameDecoder {
+    private static final int HEADER_LENGTH = 2;
+
+    private final boolean lengthIncludesHeader;
+    private final int maxFrameLength;
+    private int headerRead;
+    private int headerValue;
+    private byte[] frame;
+    private int framePosition;
+
+    /**
+     * @param lengthIncludesHeader true when the length value counts the two header bytes, as on
+     *                             the Heartland network gateway; false for HPA devices
+     */
+    public LengthPrefixedFrameDecoder(boolean lengthIncludesHeader) {
+        this(lengthIncludesHeader, 65535);
+    }
+    public LengthPrefixedFrameDecoder(boolean lengthIncludesHeader, int maxFrameLength) {
+        this.lengthIncludesHeader = lengthIncludesHeader;
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    public void decode(ByteBuffer data, IFrameHandler handler) throws IOException {
+        while(data.hasRemaining()) {
+            if(frame == null) {
+                headerValue = (headerValue << 8) | (data.get() & 0xFF);
+                if(++headerRead < HEADER_LENGTH) {
+                    continue;
+                }
+
+                int length = lengthIncludesHeader ? headerValue - HEADER_LENGTH : headerValue;
+                headerRead = 0;
+                headerValue = 0;
+                if(length <= 0) {
+                    continue;
+                }
+                if(length > maxFrameLength) {
+                    throw new IOException(String.format("Frame length %s exceeds the maximum of %s.", length, maxFrameLength));
+                }
+                frame = new byte[length];
+                framePosition = 0;
+                continue;
+            }
+
+            int count = Math.min(data.remaining(), frame.length - framePosition);
+            data.get(frame, framePosition, count);
+            framePosition += count;
+
+            if(framePosition == frame.length) {
+                byte[] completed = frame;
+                frame = null;
+                handler.frameReceived(completed);
+            }
+        }
+    }
+
+    public void reset() {
+        headerRead = 0;
+        headerValue = 0;
+        frame = null;
+        framePosition = 0;
+    }
+}
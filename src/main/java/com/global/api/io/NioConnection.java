@@ -0,0 +1,134 @@
+package com.global.api.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A framed connection serviced by an {@link NioReactor}. Received frames are queued for
+ * {@link #awaitFrame} or, when a handler is set, delivered to it on the reactor thread.
+ */
+public class NioConnection {
+    private static final byte[] CLOSED = new byte[0];
+
+    private final ITransport transport;
+    private final IFrameDecoder decoder;
+    private final NioReactor reactor;
+    private final BufferPool bufferPool;
+    private final LinkedBlockingQueue<byte[]> frames = new LinkedBlockingQueue<byte[]>();
+    private final IFrameHandler queueHandler = new IFrameHandler() {
+        public void frameReceived(byte[] frame) {
+            IFrameHandler handler = frameHandler;
+            if(handler != null) {
+                handler.frameReceived(frame);
+            }
+            else frames.offer(frame);
+        }
+    };
+    private volatile IFrameHandler frameHandler;
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    public NioConnection(ITransport transport, IFrameDecoder decoder, NioReactor reactor) {
+        this(transport, decoder, reactor, BufferPool.getDefault());
+    }
+    public NioConnection(ITransport transport, IFrameDecoder decoder, NioReactor reactor, BufferPool bufferPool) {
+        this.transport = transport;
+        this.decoder = decoder;
+        this.reactor = reactor;
+        this.bufferPool = bufferPool;
+    }
+
+    public void setFrameHandler(IFrameHandler frameHandler) {
+        this.frameHandler = frameHandler;
+    }
+
+    public void open(String host, int port, int timeout) throws IOException {
+        try {
+            transport.connect(host, port, timeout);
+        }
+        catch(IOException exc) {
+            // never connected, so it must not report itself open
+            onClosed(exc);
+            throw exc;
+        }
+        reactor.register(this);
+    }
+
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    SocketChannel getChannel() {
+        return transport.getChannel();
+    }
+
+    public void send(byte[] buffer) throws IOException {
+        if(closed) {
+            throw failure != null ? failure : new IOException("Connection is closed.");
+        }
+        transport.write(ByteBuffer.wrap(buffer));
+    }
+
+    /**
+     * Blocks until a frame arrives or the deadline passes.
+     *
+     * @param deadline absolute deadline in {@link System#currentTimeMillis()} terms
+     * @return the frame, or null when the deadline passed first
+     * @throws IOException if the connection closed before a frame arrived
+     */
+    public byte[] awaitFrame(long deadline) throws IOException, InterruptedException {
+        long remaining = deadline - System.currentTimeMillis();
+        byte[] frame = remaining > 0 ? frames.poll(remaining, TimeUnit.MILLISECONDS) : frames.poll();
+        if(frame == CLOSED) {
+            frames.offer(CLOSED);
+            throw failure != null ? failure : new IOException("Connection closed by the remote host.");
+        }
+        return frame;
+    }
+
+    public void clearFrames() {
+        frames.clear();
+    }
+
+    // called on the reactor thread, returns false once the connection is finished
+    boolean onReadable() {
+        ByteBuffer buffer = bufferPool.acquire();
+        try {
+            int read;
+            while((read = transport.read(buffer)) > 0) {
+                buffer.flip();
+                decoder.decode(buffer, queueHandler);
+                buffer.clear();
+            }
+            if(read < 0) {
+                onClosed(null);
+                return false;
+            }
+            return true;
+        }
+        catch(IOException exc) {
+            onClosed(exc);
+            return false;
+        }
+        finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    void onClosed(IOException cause) {
+        if(closed) {
+            return;
+        }
+        failure = cause;
+        closed = true;
+        transport.close();
+        frames.offer(CLOSED);
+    }
+
+    public void close() {
+        onClosed(null);
+    }
+}
@@ -0,0 +1,104 @@
+package com.global.api.io;
+
+import com.global.api.terminals.abstractions.IDisposable;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Single threaded selector loop that services reads for any number of {@link NioConnection}s.
+ * Frames are decoded on the reactor thread and handed to the waiting callers, so no thread is
+ * parked per connection.
+ */
+public class NioReactor implements IDisposable {
+    private static NioReactor defaultReactor;
+
+    private final Selector selector;
+    private final Thread thread;
+    private final ConcurrentLinkedQueue<NioConnection> registrations = new ConcurrentLinkedQueue<NioConnection>();
+    private volatile boolean running = true;
+
+    public static synchronized NioReactor getDefault() throws IOException {
+        if(defaultReactor == null || !defaultReactor.running) {
+            defaultReactor = new NioReactor("gp-nio-reactor");
+        }
+        return defaultReactor;
+    }
+
+    public NioReactor(String name) throws IOException {
+        selector = Selector.open();
+        thread = new Thread(new Runnable() {
+            public void run() {
+                loop();
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void register(NioConnection connection) {
+        registrations.add(connection);
+        selector.wakeup();
+    }
+
+    private void loop() {
+        while(running) {
+            try {
+                selector.select();
+                processRegistrations();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while(keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    NioConnection connection = (NioConnection) key.attachment();
+                    if(!key.isValid()) {
+                        connection.onClosed(null);
+                        continue;
+                    }
+                    if(key.isReadable() && !connection.onReadable()) {
+                        key.cancel();
+                    }
+                }
+            }
+            catch(IOException exc) {
+                // selector failures are not recoverable per connection, keep looping
+            }
+            catch(RuntimeException exc) {
+                // never let a single connection kill the reactor
+            }
+        }
+    }
+
+    private void processRegistrations() {
+        NioConnection connection;
+        while((connection = registrations.poll()) != null) {
+            try {
+                connection.getChannel().register(selector, SelectionKey.OP_READ, connection);
+            }
+            catch(ClosedChannelException exc) {
+                connection.onClosed(exc);
+            }
+        }
+    }
+
+    public void dispose() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(1000);
+            selector.close();
+        }
+        catch(InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+        catch(IOException exc) {
+            // eat the close exception
+        }
+    }
+}
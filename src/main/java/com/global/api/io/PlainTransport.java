@@ -0,0 +1,37 @@
+package com.global.api.io;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+public class PlainTransport implements ITransport {
+    private SocketChannel channel;
+    private final Object writeLock = new Object();
+
+    public void connect(String host, int port, int timeout) throws IOException {
+        channel = SocketChannel.open();
+        channel.socket().connect(new InetSocketAddress(host, port), timeout);
+        channel.socket().setKeepAlive(true);
+        channel.socket().setTcpNoDelay(true);
+        channel.configureBlocking(false);
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    public int read(ByteBuffer dst) throws IOException {
+        return channel.read(dst);
+    }
+
+    public void write(ByteBuffer src) throws IOException {
+        synchronized (writeLock) {
+            ChannelWriter.writeFully(channel, src);
+        }
+    }
+
+    public void close() {
+        ChannelWriter.closeQuietly(channel);
+    }
+}
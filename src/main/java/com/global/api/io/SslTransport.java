@@ -0,0 +1,199 @@
+package com.global.api.io;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * TLS over a non-blocking {@link SocketChannel} using an {@link SSLEngine}. The handshake is
+ * completed during {@link #connect}, bounded by the connect timeout; afterwards records are
+ * unwrapped as the reactor reports them readable.
+ */
+public class SslTransport implements ITransport {
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final ISslEngineFactory engineFactory;
+    private final Object writeLock = new Object();
+    private SocketChannel channel;
+    private SSLEngine engine;
+    private ByteBuffer netIn;
+    private ByteBuffer netOut;
+
+    public SslTransport(ISslEngineFactory engineFactory) {
+        this.engineFactory = engineFactory;
+    }
+
+    public void connect(String host, int port, int timeout) throws IOException {
+        channel = SocketChannel.open();
+        try {
+            channel.socket().connect(new InetSocketAddress(host, port), timeout);
+            channel.socket().setKeepAlive(true);
+            channel.socket().setTcpNoDelay(true);
+
+            engine = engineFactory.createSSLEngine(host, port);
+            engine.setUseClientMode(true);
+
+            int packetSize = engine.getSession().getPacketBufferSize();
+            netIn = ByteBuffer.allocate(packetSize);
+            netOut = ByteBuffer.allocate(packetSize);
+
+            channel.configureBlocking(false);
+            handshake(System.currentTimeMillis() + (timeout > 0 ? timeout : 30000));
+        }
+        catch(IOException exc) {
+            close();
+            throw exc;
+        }
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    private void handshake(long deadline) throws IOException {
+        ByteBuffer appIn = ByteBuffer.allocate(engine.getSession().getApplicationBufferSize());
+        Selector selector = Selector.open();
+        try {
+            channel.register(selector, SelectionKey.OP_READ);
+            handshake(appIn, selector, deadline);
+        }
+        finally {
+            selector.close();
+        }
+    }
+
+    private void handshake(ByteBuffer appIn, Selector selector, long deadline) throws IOException {
+        engine.beginHandshake();
+        HandshakeStatus status = engine.getHandshakeStatus();
+        while(status != HandshakeStatus.FINISHED && status != HandshakeStatus.NOT_HANDSHAKING) {
+            switch(status) {
+                case NEED_WRAP: {
+                    netOut.clear();
+                    SSLEngineResult result = engine.wrap(EMPTY, netOut);
+                    netOut.flip();
+                    ChannelWriter.writeFully(channel, netOut);
+                    status = result.getHandshakeStatus();
+                } break;
+                case NEED_UNWRAP: {
+                    netIn.flip();
+                    SSLEngineResult result = engine.unwrap(netIn, appIn);
+                    netIn.compact();
+
+                    if(result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                        awaitReadable(selector, deadline);
+                        if(channel.read(netIn) < 0) {
+                            throw new EOFException("Connection closed during the TLS handshake.");
+                        }
+                    }
+                    else if(result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                        throw new SSLException("TLS engine closed during the handshake.");
+                    }
+                    status = result.getHandshakeStatus();
+                } break;
+                case NEED_TASK: {
+                    runDelegatedTasks();
+                    status = engine.getHandshakeStatus();
+                } break;
+                default:
+                    status = engine.getHandshakeStatus();
+            }
+        }
+    }
+
+    private void awaitReadable(Selector selector, long deadline) throws IOException {
+        long remaining = deadline - System.currentTimeMillis();
+        if(remaining <= 0 || selector.select(remaining) == 0) {
+            throw new SocketTimeoutException("Timed out during the TLS handshake.");
+        }
+        selector.selectedKeys().clear();
+    }
+
+    public int read(ByteBuffer dst) throws IOException {
+        boolean endOfStream = channel.read(netIn) < 0;
+        int start = dst.position();
+
+        netIn.flip();
+        try {
+            while(netIn.hasRemaining()) {
+                SSLEngineResult result = engine.unwrap(netIn, dst);
+                handlePostHandshake(result.getHandshakeStatus());
+
+                SSLEngineResult.Status status = result.getStatus();
+                if(status == SSLEngineResult.Status.CLOSED) {
+                    endOfStream = true;
+                    break;
+                }
+                if(status != SSLEngineResult.Status.OK) {
+                    // underflow waits for more network data, overflow for the caller to drain dst
+                    break;
+                }
+                if(result.bytesConsumed() == 0 && result.bytesProduced() == 0) {
+                    break;
+                }
+            }
+        }
+        finally {
+            netIn.compact();
+        }
+
+        int produced = dst.position() - start;
+        if(produced == 0 && endOfStream) {
+            return -1;
+        }
+        return produced;
+    }
+
+    public void write(ByteBuffer src) throws IOException {
+        synchronized (writeLock) {
+            while(src.hasRemaining()) {
+                wrapAndSend(src);
+            }
+        }
+    }
+
+    private void wrapAndSend(ByteBuffer src) throws IOException {
+        netOut.clear();
+        SSLEngineResult result = engine.wrap(src, netOut);
+        if(result.getStatus() == SSLEngineResult.Status.CLOSED) {
+            throw new SSLException("TLS engine is closed.");
+        }
+        netOut.flip();
+        ChannelWriter.writeFully(channel, netOut);
+    }
+
+    // TLS 1.3 session tickets and key updates can arrive after the initial handshake
+    private void handlePostHandshake(HandshakeStatus status) throws IOException {
+        if(status == HandshakeStatus.NEED_TASK) {
+            runDelegatedTasks();
+            status = engine.getHandshakeStatus();
+        }
+        if(status == HandshakeStatus.NEED_WRAP) {
+            synchronized (writeLock) {
+                wrapAndSend(EMPTY);
+            }
+        }
+    }
+
+    private void runDelegatedTasks() {
+        Runnable task;
+        while((task = engine.getDelegatedTask()) != null) {
+            task.run();
+        }
+    }
+
+    public void close() {
+        if(engine != null) {
+            engine.closeOutbound();
+        }
+        ChannelWriter.closeQuietly(channel);
+    }
+}
@@ -0,0 +1,79 @@
+package com.global.api.logging;
+
+import com.global.api.terminals.abstractions.IDisposable;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands messages off to a bounded queue drained by a single daemon thread. Callers never
+ * block: when the queue is full the message is dropped and counted.
+ */
+public class AsyncRequestLogger implements IRequestLogger, IDisposable {
+    private final IRequestLogger target;
+    private final BlockingQueue<String[]> queue;
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public AsyncRequestLogger(IRequestLogger target) {
+        this(target, 1024);
+    }
+    public AsyncRequestLogger(IRequestLogger target, int capacity) {
+        this.target = target;
+        this.queue = new ArrayBlockingQueue<String[]>(capacity);
+
+        worker = new Thread(new Runnable() {
+            public void run() {
+                drain();
+            }
+        }, "gp-async-logger");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public void log(String connectorName, String message) {
+        if(!running || !queue.offer(new String[] { connectorName, message })) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    private void drain() {
+        try {
+            while(running || !queue.isEmpty()) {
+                String[] entry = queue.poll(250, TimeUnit.MILLISECONDS);
+                if(entry != null) {
+                    write(entry);
+                }
+            }
+        }
+        catch(InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(String[] entry) {
+        try {
+            target.log(entry[0], entry[1]);
+        }
+        catch(RuntimeException exc) {
+            // a failing destination must not kill the worker
+        }
+    }
+
+    public void dispose() {
+        running = false;
+        try {
+            worker.join(1000);
+        }
+        catch(InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.global.api.logging;
+
+public class ConsoleRequestLogger implements IRequestLogger {
+    private static final ConsoleRequestLogger instance = new ConsoleRequestLogger();
+
+    public static ConsoleRequestLogger getInstance() {
+        return instance;
+    }
+
+    public void log(String connectorName, String message) {
+        System.out.println(message);
+    }
+}
@@ -0,0 +1,59 @@
+package com.global.api.logging;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Per-connector logging front end. Combines the connector's enable flag and sample rate
+ * with the configured {@link IRequestLogger} so that disabled or unsampled calls cost a
+ * single branch and never build their message.
+ */
+public class GatewayLogger {
+    private final String connectorName;
+    private boolean enabled;
+    private double sampleRate = 1.0;
+    private IRequestLogger requestLogger = ConsoleRequestLogger.getInstance();
+
+    public GatewayLogger(String connectorName) {
+        this.connectorName = connectorName;
+    }
+
+    public String getConnectorName() {
+        return connectorName;
+    }
+    public boolean isEnabled() {
+        return enabled;
+    }
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    public double getSampleRate() {
+        return sampleRate;
+    }
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = Math.max(0.0, Math.min(1.0, sampleRate));
+    }
+    public IRequestLogger getRequestLogger() {
+        return requestLogger;
+    }
+    public void setRequestLogger(IRequestLogger requestLogger) {
+        this.requestLogger = requestLogger != null ? requestLogger : ConsoleRequestLogger.getInstance();
+    }
+
+    /**
+     * Decides whether the current operation should be logged. Call once per request and
+     * reuse the answer so request and response entries are sampled together.
+     */
+    public boolean sample() {
+        if(!enabled || sampleRate <= 0.0) {
+            return false;
+        }
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    public void log(String message) {
+        requestLogger.log(connectorName, message);
+    }
+    public void log(ILogMessage message) {
+        requestLogger.log(connectorName, message.getMessage());
+    }
+}
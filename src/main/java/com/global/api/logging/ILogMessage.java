@@ -0,0 +1,9 @@
+package com.global.api.logging;
+
+/**
+ * Deferred log message. Only evaluated when the owning {@link GatewayLogger} is
+ * enabled and the call has been sampled.
+ */
+public interface ILogMessage {
+    String getMessage();
+}
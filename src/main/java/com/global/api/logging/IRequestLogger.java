@@ -0,0 +1,10 @@
+package com.global.api.logging;
+
+/**
+ * Destination for connector request/response logging. Implementations receive fully
+ * rendered messages and should return quickly; wrap slow destinations in an
+ * {@link AsyncRequestLogger}.
+ */
+public interface IRequestLogger {
+    void log(String connectorName, String message);
+}
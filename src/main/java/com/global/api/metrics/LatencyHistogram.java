@@ -0,0 +1,103 @@
+package com.global.api.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear latency histogram in the style of HdrHistogram. Values are recorded in
+ * microseconds into buckets that double in width every octave, each octave split into
+ * {@value #SUB_BUCKETS} linear sub-buckets, giving roughly 6% worst case error on percentiles.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int OCTAVES = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray((OCTAVES + 1) * SUB_BUCKETS);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long micros) {
+        if(micros < 0) {
+            micros = 0;
+        }
+        counts.incrementAndGet(indexOf(micros));
+        totalCount.incrementAndGet();
+        totalMicros.addAndGet(micros);
+
+        long current = maxMicros.get();
+        while(micros > current && !maxMicros.compareAndSet(current, micros)) {
+            current = maxMicros.get();
+        }
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+    public long getMax() {
+        return maxMicros.get();
+    }
+    public double getMean() {
+        long count = totalCount.get();
+        return count == 0 ? 0.0 : (double) totalMicros.get() / count;
+    }
+
+    /**
+     * @param percentile value between 0 and 100
+     * @return the upper bound, in microseconds, of the bucket holding the requested percentile
+     */
+    public long getValueAtPercentile(double percentile) {
+        return getValueAtPercentile(percentile, this, null);
+    }
+
+    /**
+     * The percentile across the values recorded in both histograms, as if they had been
+     * recorded in one.
+     *
+     * @param other may be null, in which case only this histogram is read
+     */
+    public long getValueAtPercentile(double percentile, LatencyHistogram other) {
+        return getValueAtPercentile(percentile, this, other);
+    }
+
+    private static long getValueAtPercentile(double percentile, LatencyHistogram first, LatencyHistogram second) {
+        long count = first.getCount() + (second != null ? second.getCount() : 0);
+        long max = Math.max(first.getMax(), second != null ? second.getMax() : 0);
+        if(count == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(count * (Math.min(percentile, 100.0) / 100.0)));
+        long seen = 0;
+        for(int i = 0; i < first.counts.length(); i++) {
+            seen += first.counts.get(i) + (second != null ? second.counts.get(i) : 0);
+            if(seen >= target) {
+                return Math.min(upperBoundOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int indexOf(long value) {
+        if(value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int octave = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        if(octave > OCTAVES) {
+            return (OCTAVES + 1) * SUB_BUCKETS - 1;
+        }
+        int subBucket = (int) (value >>> (octave - 1)) - SUB_BUCKETS;
+        return octave * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(int index) {
+        int octave = index / SUB_BUCKETS;
+        int subBucket = index % SUB_BUCKETS;
+        if(octave == 0) {
+            return subBucket;
+        }
+        return (((long) (SUB_BUCKETS + subBucket + 1)) << (octave - 1)) - 1;
+    }
+}
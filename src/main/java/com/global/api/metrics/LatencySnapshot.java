@@ -0,0 +1,51 @@
+package com.global.api.metrics;
+
+/**
+ * Point in time view of a single {@link LatencyHistogram}. All latencies are in microseconds.
+ */
+public class LatencySnapshot {
+    private final MetricKey key;
+    private final long count;
+    private final double mean;
+    private final long p50;
+    private final long p95;
+    private final long p99;
+    private final long max;
+
+    LatencySnapshot(MetricKey key, LatencyHistogram histogram) {
+        this.key = key;
+        this.count = histogram.getCount();
+        this.mean = histogram.getMean();
+        this.p50 = histogram.getValueAtPercentile(50.0);
+        this.p95 = histogram.getValueAtPercentile(95.0);
+        this.p99 = histogram.getValueAtPercentile(99.0);
+        this.max = histogram.getMax();
+    }
+
+    public MetricKey getKey() {
+        return key;
+    }
+    public long getCount() {
+        return count;
+    }
+    public double getMean() {
+        return mean;
+    }
+    public long getP50() {
+        return p50;
+    }
+    public long getP95() {
+        return p95;
+    }
+    public long getP99() {
+        return p99;
+    }
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s count=%d mean=%.0fus p50=%dus p95=%dus p99=%dus max=%dus", key, count, mean, p50, p95, p99, max);
+    }
+}
@@ -0,0 +1,85 @@
+package com.global.api.metrics;
+
+/**
+ * Dimensions a latency is broken down by. The route is the configuration or lane the request
+ * was executed under; the endpoint is where it was actually sent ("primary"/"secondary" for
+ * network gateways, the service host for HTTP gateways, "device" for terminals). Either may be
+ * null where the recording point does not know it.
+ */
+public class MetricKey {
+    private final String connector;
+    private final String operation;
+    private final String route;
+    private final String endpoint;
+    private final String responseCode;
+
+    public MetricKey(String connector, String operation, String endpoint, String responseCode) {
+        this(connector, operation, null, endpoint, responseCode);
+    }
+    public MetricKey(String connector, String operation, String route, String endpoint, String responseCode) {
+        this.connector = connector;
+        this.operation = operation;
+        this.route = route;
+        this.endpoint = endpoint;
+        this.responseCode = responseCode;
+    }
+
+    public String getConnector() {
+        return connector;
+    }
+    public String getOperation() {
+        return operation;
+    }
+    public String getRoute() {
+        return route;
+    }
+    public String getEndpoint() {
+        return endpoint;
+    }
+    public String getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(this == obj) {
+            return true;
+        }
+        if(!(obj instanceof MetricKey)) {
+            return false;
+        }
+        MetricKey other = (MetricKey) obj;
+        return equal(connector, other.connector)
+                && equal(operation, other.operation)
+                && equal(route, other.route)
+                && equal(endpoint, other.endpoint)
+                && equal(responseCode, other.responseCode);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = connector != null ? connector.hashCode() : 0;
+        result = 31 * result + (operation != null ? operation.hashCode() : 0);
+        result = 31 * result + (route != null ? route.hashCode() : 0);
+        result = 31 * result + (endpoint != null ? endpoint.hashCode() : 0);
+        result = 31 * result + (responseCode != null ? responseCode.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(connector).append('.').append(operation);
+        if(route != null) {
+            sb.append('(').append(route).append(')');
+        }
+        if(endpoint != null) {
+            sb.append('[').append(endpoint).append(']');
+        }
+        return sb.append('.').append(responseCode).toString();
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
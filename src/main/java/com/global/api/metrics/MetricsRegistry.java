@@ -0,0 +1,110 @@
+package com.global.api.metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide collection point for connector latency and gauge metrics. Recording is
+ * lock-free; {@link #getLatencySnapshots()} and {@link #getGauges()} provide the pull side
+ * for bridging into an external metrics system.
+ */
+public class MetricsRegistry {
+    private static final MetricsRegistry instance = new MetricsRegistry();
+
+    private final ConcurrentHashMap<MetricKey, LatencyHistogram> histograms = new ConcurrentHashMap<MetricKey, LatencyHistogram>();
+    private final ConcurrentHashMap<String, AtomicLong> gauges = new ConcurrentHashMap<String, AtomicLong>();
+    private volatile boolean enabled = true;
+
+    public static MetricsRegistry getInstance() {
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @param startNanos value of {@link System#nanoTime()} taken when the operation started
+     */
+    public void recordLatency(String connector, String operation, String endpoint, String responseCode, long startNanos) {
+        recordLatency(connector, operation, null, endpoint, responseCode, startNanos);
+    }
+
+    /**
+     * @param route configuration or lane name the request was executed under
+     * @param endpoint where the request was actually sent, null when not known at this point
+     * @param startNanos value of {@link System#nanoTime()} taken when the operation started
+     */
+    public void recordLatency(String connector, String operation, String route, String endpoint, String responseCode, long startNanos) {
+        if(!enabled) {
+            return;
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        getHistogram(new MetricKey(connector, operation, route, endpoint, responseCode)).record(micros);
+    }
+
+    public LatencyHistogram getHistogram(MetricKey key) {
+        LatencyHistogram histogram = histograms.get(key);
+        if(histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(key, created);
+            if(histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    public void incrementGauge(String connector, String name) {
+        if(enabled) {
+            getGauge(connector, name).incrementAndGet();
+        }
+    }
+    public void decrementGauge(String connector, String name) {
+        if(enabled) {
+            getGauge(connector, name).decrementAndGet();
+        }
+    }
+
+    private AtomicLong getGauge(String connector, String name) {
+        String key = connector + "." + name;
+        AtomicLong gauge = gauges.get(key);
+        if(gauge == null) {
+            AtomicLong created = new AtomicLong();
+            gauge = gauges.putIfAbsent(key, created);
+            if(gauge == null) {
+                gauge = created;
+            }
+        }
+        return gauge;
+    }
+
+    public List<LatencySnapshot> getLatencySnapshots() {
+        List<LatencySnapshot> rvalue = new ArrayList<LatencySnapshot>();
+        for(Map.Entry<MetricKey, LatencyHistogram> entry : histograms.entrySet()) {
+            rvalue.add(new LatencySnapshot(entry.getKey(), entry.getValue()));
+        }
+        return rvalue;
+    }
+
+    public Map<String, Long> getGauges() {
+        Map<String, Long> rvalue = new HashMap<String, Long>();
+        for(Map.Entry<String, AtomicLong> entry : gauges.entrySet()) {
+            rvalue.put(entry.getKey(), entry.getValue().get());
+        }
+        return rvalue;
+    }
+
+    public void reset() {
+        histograms.clear();
+        gauges.clear();
+    }
+}
@@ -165,6 +165,20 @@ public class NetworkMessage {
         return this;
     }
 
+    /**
+     * Adds the data elements of another message, e.g. the fields a connector sends unchanged with
+     * every request. Elements are never modified once created, so they are shared rather than
+     * copied; setting an element on either message afterwards does not affect the other.
+     */
+    public NetworkMessage setAll(NetworkMessage message) {
+        for(DataElementId id : message.elements.keySet()) {
+            if(!id.equals(DataElementId.DE_001)) {
+                elements.put(id, message.elements.get(id));
+            }
+        }
+        return this;
+    }
+
     public byte[] buildMessage() {
         return buildMessage(false);
     }
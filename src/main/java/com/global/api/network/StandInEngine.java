@@ -0,0 +1,334 @@
+package com.global.api.network;
+
+import com.global.api.builders.AuthorizationBuilder;
+import com.global.api.entities.Transaction;
+import com.global.api.entities.enums.PaymentMethodType;
+import com.global.api.entities.enums.TransactionType;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.CircuitBreakerOpenException;
+import com.global.api.entities.exceptions.GatewayConnectionException;
+import com.global.api.entities.exceptions.GatewayException;
+import com.global.api.network.entities.NtsData;
+import com.global.api.network.enums.AuthorizerCode;
+import com.global.api.network.enums.DataElementId;
+import com.global.api.network.enums.FallbackCode;
+import com.global.api.paymentMethods.IPaymentMethod;
+import com.global.api.paymentMethods.ITrackData;
+import com.global.api.terminals.abstractions.IDisposable;
+import com.global.api.utils.EmvData;
+import com.global.api.utils.EmvUtils;
+import com.global.api.utils.StringUtils;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Approves EMV sales locally while the host cannot be reached. A sale is approved in stand-in
+ * only when it is known never to have been sent (an open circuit breaker or no connection to
+ * either endpoint; a timeout or an error after the write may have reached the host and is never
+ * stood in, so the sale cannot be charged twice), the chip data allows it ({@link EmvData#getStandInStatus()}) and the amount
+ * is within the floor limit, the per card velocity limits and the outstanding limit. Each
+ * approval is queued as an advice and sent to the host as a stand-in capture (1220) by
+ * {@link #forwardAdvices(String)}. The queue is held in memory only, so advices still pending
+ * when the process exits must be forwarded or recorded by the caller first.
+ */
+public class StandInEngine implements IDisposable {
+    // EMV authorization response code for an offline approval after failing to go online
+    private static final String STAND_IN_RESPONSE_CODE = "Y3";
+
+    private BigDecimal floorLimit = BigDecimal.ZERO;
+    private BigDecimal outstandingLimit;
+    private int velocityCount = 1;
+    private BigDecimal velocityAmount;
+    private long velocityWindow = TimeUnit.HOURS.toMillis(24);
+
+    private final LinkedList<Advice> pending = new LinkedList<Advice>();
+    private final HashMap<String, LinkedList<Advice>> usage = new HashMap<String, LinkedList<Advice>>();
+    private BigDecimal outstanding = BigDecimal.ZERO;
+    // keeps a scheduled and a manual forward from sending the same advice twice
+    private final Object forwardLock = new Object();
+    private ScheduledExecutorService forwarder;
+
+    /**
+     * A sale approved in stand-in and not yet accepted by the host.
+     */
+    public static class Advice {
+        private final Transaction transaction;
+        private final BigDecimal amount;
+        private final String currency;
+        private final long approvedAt;
+        private Transaction response;
+
+        Advice(Transaction transaction, BigDecimal amount, String currency, long approvedAt) {
+            this.transaction = transaction;
+            this.amount = amount;
+            this.currency = currency;
+            this.approvedAt = approvedAt;
+        }
+
+        /**
+         * @return the stand-in approval returned to the caller
+         */
+        public Transaction getTransaction() {
+            return transaction;
+        }
+        public BigDecimal getAmount() {
+            return amount;
+        }
+        public String getCurrency() {
+            return currency;
+        }
+        public long getApprovedAt() {
+            return approvedAt;
+        }
+        /**
+         * @return the host's response to the advice, once forwarded
+         */
+        public Transaction getResponse() {
+            return response;
+        }
+    }
+
+    public BigDecimal getFloorLimit() {
+        return floorLimit;
+    }
+    /**
+     * Largest sale approved in stand-in; zero disables stand-in.
+     */
+    public void setFloorLimit(BigDecimal floorLimit) {
+        this.floorLimit = floorLimit;
+    }
+    public BigDecimal getOutstandingLimit() {
+        return outstandingLimit;
+    }
+    /**
+     * Largest total of approvals waiting to be forwarded, or null for no limit.
+     */
+    public void setOutstandingLimit(BigDecimal outstandingLimit) {
+        this.outstandingLimit = outstandingLimit;
+    }
+    public int getVelocityCount() {
+        return velocityCount;
+    }
+    /**
+     * Number of stand-in approvals allowed for one card within the velocity window.
+     */
+    public void setVelocityCount(int velocityCount) {
+        this.velocityCount = velocityCount;
+    }
+    public BigDecimal getVelocityAmount() {
+        return velocityAmount;
+    }
+    /**
+     * Total of the stand-in approvals allowed for one card within the velocity window, or null
+     * to rely on the floor limit alone.
+     */
+    public void setVelocityAmount(BigDecimal velocityAmount) {
+        this.velocityAmount = velocityAmount;
+    }
+    public long getVelocityWindow() {
+        return velocityWindow;
+    }
+    /**
+     * Period, in milliseconds, over which the velocity limits apply.
+     */
+    public void setVelocityWindow(long velocityWindow) {
+        this.velocityWindow = velocityWindow;
+    }
+
+    public synchronized BigDecimal getOutstanding() {
+        return outstanding;
+    }
+
+    /**
+     * @return the approvals waiting to be forwarded, oldest first
+     */
+    public synchronized List<Advice> getPendingAdvices() {
+        return new ArrayList<Advice>(pending);
+    }
+
+    /**
+     * Approves the sale in stand-in if the failure and the sale allow it.
+     *
+     * @param builder the sale that could not be sent
+     * @param request the message built for it, whose STAN and times identify the advice
+     * @param cause the failure to reach the host
+     * @return the stand-in approval, or null if the sale must fail with the cause
+     */
+    public Transaction authorize(AuthorizationBuilder builder, NetworkMessage request, GatewayException cause) {
+        if(floorLimit == null || floorLimit.signum() <= 0 || !isHostUnavailable(cause)) {
+            return null;
+        }
+        if(!builder.getTransactionType().equals(TransactionType.Sale)) {
+            return null;
+        }
+
+        IPaymentMethod paymentMethod = builder.getPaymentMethod();
+        if(!(paymentMethod instanceof ITrackData) || paymentMethod.getPaymentMethodType() != PaymentMethodType.Credit) {
+            return null;
+        }
+        String pan = ((ITrackData) paymentMethod).getPan();
+        if(StringUtils.isNullOrEmpty(pan) || StringUtils.isNullOrEmpty(builder.getTagData())) {
+            return null;
+        }
+        EmvData emvData = EmvUtils.parseTagData(builder.getTagData());
+        if(!emvData.getStandInStatus()) {
+            return null;
+        }
+
+        BigDecimal amount = builder.getAmount();
+        BigDecimal cashBack = builder.getCashBackAmount();
+        if(amount == null || amount.compareTo(floorLimit) > 0 || (cashBack != null && cashBack.signum() > 0)) {
+            return null;
+        }
+
+        String cardKey = DigestUtils.sha256Hex(pan);
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if(outstandingLimit != null && outstanding.add(amount).compareTo(outstandingLimit) > 0) {
+                return null;
+            }
+
+            pruneUsage(now);
+            LinkedList<Advice> approvals = usage.get(cardKey);
+            if(approvals == null) {
+                approvals = new LinkedList<Advice>();
+            }
+            if(approvals.size() >= velocityCount) {
+                return null;
+            }
+            if(velocityAmount != null) {
+                BigDecimal total = amount;
+                for(Advice approval : approvals) {
+                    total = total.add(approval.amount);
+                }
+                if(total.compareTo(velocityAmount) > 0) {
+                    return null;
+                }
+            }
+
+            Transaction response = Transaction.fromNetwork(
+                    amount,
+                    standInAuthCode(request.getString(DataElementId.DE_011)),
+                    new NtsData(FallbackCode.Received_IssuerUnavailable, AuthorizerCode.Terminal_Authorized),
+                    paymentMethod,
+                    request.getMessageTypeIndicator(),
+                    request.getString(DataElementId.DE_011),
+                    request.getString(DataElementId.DE_012),
+                    request.getString(DataElementId.DE_003)
+            );
+            response.setResponseCode("000");
+            response.setResponseMessage("Approved in stand-in");
+            response.setAuthorizedAmount(amount);
+
+            Advice advice = new Advice(response, amount, builder.getCurrency(), now);
+            approvals.addLast(advice);
+            usage.put(cardKey, approvals);
+            pending.addLast(advice);
+            outstanding = outstanding.add(amount);
+            return response;
+        }
+    }
+
+    /**
+     * Sends the pending advices to the host, oldest first, stopping at the first that fails so
+     * the rest wait for the next attempt.
+     *
+     * @return the advices the host accepted
+     */
+    public List<Advice> forwardAdvices(String configName) {
+        List<Advice> forwarded = new ArrayList<Advice>();
+        synchronized (forwardLock) {
+            while(true) {
+                Advice advice;
+                synchronized (this) {
+                    advice = pending.peekFirst();
+                }
+                if(advice == null) {
+                    break;
+                }
+
+                try {
+                    advice.response = advice.transaction.capture(advice.amount)
+                            .withCurrency(advice.currency)
+                            .execute(configName);
+                }
+                catch(ApiException exc) {
+                    break;
+                }
+
+                synchronized (this) {
+                    pending.remove(advice);
+                    outstanding = outstanding.subtract(advice.amount);
+                }
+                forwarded.add(advice);
+            }
+        }
+        return forwarded;
+    }
+
+    /**
+     * Forwards pending advices in the background every interval until disposed.
+     */
+    public synchronized void startForwarding(final String configName, long interval) {
+        if(forwarder != null) {
+            return;
+        }
+        forwarder = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "gp-standin-forward");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        forwarder.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                forwardAdvices(configName);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void dispose() {
+        if(forwarder != null) {
+            forwarder.shutdownNow();
+            forwarder = null;
+        }
+    }
+
+    /**
+     * DE 38 is fixed at six characters, so the offline response code is followed by the last
+     * four digits of the STAN to tell the advices apart.
+     */
+    private String standInAuthCode(String stan) {
+        String digits = StringUtils.padLeft(stan == null ? "" : stan, 4, '0');
+        return STAND_IN_RESPONSE_CODE + digits.substring(digits.length() - 4);
+    }
+
+    /**
+     * Drops the approvals that have left the velocity window, and the cards left with none, so
+     * the usage held is bounded by the approvals of one window.
+     */
+    private void pruneUsage(long now) {
+        Iterator<LinkedList<Advice>> cards = usage.values().iterator();
+        while(cards.hasNext()) {
+            LinkedList<Advice> approvals = cards.next();
+            while(!approvals.isEmpty() && now - approvals.getFirst().approvedAt >= velocityWindow) {
+                approvals.removeFirst();
+            }
+            if(approvals.isEmpty()) {
+                cards.remove();
+            }
+        }
+    }
+
+    // only failures raised before anything was written; a concurrency limit rejection means the
+    // host is reachable but busy, so it is not stood in either
+    private boolean isHostUnavailable(GatewayException cause) {
+        return cause instanceof GatewayConnectionException || cause instanceof CircuitBreakerOpenException;
+    }
+}
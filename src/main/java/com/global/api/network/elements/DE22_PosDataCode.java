@@ -126,6 +126,19 @@ public class DE22_PosDataCode implements IDataElement<DE22_PosDataCode> {
                 .getBytes();
     }
 
+    /**
+     * Renders the code over a pre-rendered one, writing only the per-transaction positions 22.5 to
+     * 22.8; the capabilities are taken from the template as is.
+     */
+    public byte[] toByteArray(byte[] template) {
+        byte[] buffer = template.clone();
+        buffer[4] = (byte) getCardHolderPresence().getValue().charAt(0);
+        buffer[5] = (byte) getCardPresence().getValue().charAt(0);
+        buffer[6] = (byte) getCardDataInputMode().getValue().charAt(0);
+        buffer[7] = (byte) getCardHolderAuthenticationMethod().getValue().charAt(0);
+        return buffer;
+    }
+
     public String toString() {
         return new String(toByteArray());
     }
@@ -105,6 +105,14 @@ public class CreditCardData extends Credit implements ICardData {
                 .withDccRateData(dccRateData);
     }
 
+    /**
+     * A rate to display before checkout, possibly served from the gateway's rate cache. It cannot
+     * be charged; use {@link #getDccRate} for the quote a charge references.
+     */
+    public AuthorizationBuilder getIndicativeDccRate(DccRateType dccRateType, DccProcessor dccProcessor) {
+        return getDccRate(dccRateType, dccProcessor).withIndicativeRate(true);
+    }
+
     public boolean verifyEnrolled(BigDecimal amount, String currency) throws ApiException {
         return verifyEnrolled(amount, currency, null, "default");
     }
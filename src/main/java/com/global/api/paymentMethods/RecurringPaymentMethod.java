@@ -142,6 +142,14 @@ public class RecurringPaymentMethod extends RecurringEntity<RecurringPaymentMeth
                 .withDccRateData(dccRateData);
     }
 
+    /**
+     * A rate to display before checkout, possibly served from the gateway's rate cache. It cannot
+     * be charged; use {@link #getDccRate} for the quote a charge references.
+     */
+    public AuthorizationBuilder getIndicativeDccRate(DccRateType dccRateType, DccProcessor dccProcessor) {
+        return getDccRate(dccRateType, dccProcessor).withIndicativeRate(true);
+    }
+
     public AuthorizationBuilder refund() {
         return refund(null);
     }
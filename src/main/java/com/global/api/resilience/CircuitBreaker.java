@@ -0,0 +1,165 @@
+package com.global.api.resilience;
+
+/**
+ * Count based circuit breaker. The outcome of the last {@code windowSize} calls is kept in a
+ * ring; once at least {@code minimumRequests} have been seen and the share of failures reaches
+ * the threshold the circuit opens and calls are refused for {@code openDuration} milliseconds.
+ * After that a single probe is let through (half open) whose outcome closes or re-opens the
+ * circuit. A probe that never reports back is replaced after another open duration.
+ */
+public class CircuitBreaker {
+    private final String name;
+    private final double failureRateThreshold;
+    private final int minimumRequests;
+    private final long openDuration;
+    private final boolean[] outcomes;
+    private ICircuitBreakerListener listener;
+
+    private CircuitState state = CircuitState.Closed;
+    private int position;
+    private int recorded;
+    private int failures;
+    private long openedAt;
+    private boolean probeInFlight;
+    private long probeStarted;
+
+    public CircuitBreaker(String name) {
+        this(name, 0.5, 100, 20, 30000);
+    }
+    public CircuitBreaker(String name, double failureRateThreshold, int windowSize, int minimumRequests, long openDuration) {
+        if(windowSize < 1 || minimumRequests < 1 || minimumRequests > windowSize) {
+            throw new IllegalArgumentException("minimumRequests must be between 1 and windowSize.");
+        }
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumRequests = minimumRequests;
+        this.openDuration = openDuration;
+        this.outcomes = new boolean[windowSize];
+    }
+
+    public String getName() {
+        return name;
+    }
+    public synchronized CircuitState getState() {
+        return state;
+    }
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0.0 : (double) failures / recorded;
+    }
+    public void setListener(ICircuitBreakerListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return milliseconds until an open circuit will allow a probe, zero when calls are allowed
+     */
+    public synchronized long getRetryAfter() {
+        if(state != CircuitState.Open) {
+            return 0;
+        }
+        return Math.max(0, openedAt + openDuration - System.currentTimeMillis());
+    }
+
+    /**
+     * Non-consuming check used when choosing between endpoints.
+     */
+    public synchronized boolean isCallPermitted() {
+        long now = System.currentTimeMillis();
+        switch(state) {
+            case Open:
+                return now >= openedAt + openDuration;
+            case HalfOpen:
+                return !probeInFlight || now >= probeStarted + openDuration;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * @return true when the caller may proceed; in the half open state only one caller at a
+     * time is admitted as the probe
+     */
+    public boolean tryAcquirePermission() {
+        CircuitState previous;
+        synchronized (this) {
+            if(!isCallPermitted()) {
+                return false;
+            }
+            previous = state;
+            if(state == CircuitState.Closed) {
+                return true;
+            }
+            state = CircuitState.HalfOpen;
+            probeInFlight = true;
+            probeStarted = System.currentTimeMillis();
+        }
+        notifyListener(previous, CircuitState.HalfOpen);
+        return true;
+    }
+
+    public void recordSuccess() {
+        record(false);
+    }
+
+    public void recordFailure() {
+        record(true);
+    }
+
+    public void reset() {
+        transition(CircuitState.Closed);
+    }
+
+    private void record(boolean failed) {
+        CircuitState target = null;
+        synchronized (this) {
+            if(state == CircuitState.HalfOpen) {
+                target = failed ? CircuitState.Open : CircuitState.Closed;
+            }
+            else if(state == CircuitState.Closed) {
+                if(recorded == outcomes.length) {
+                    if(outcomes[position]) {
+                        failures--;
+                    }
+                }
+                else recorded++;
+
+                outcomes[position] = failed;
+                if(failed) {
+                    failures++;
+                }
+                position = (position + 1) % outcomes.length;
+
+                if(failed && recorded >= minimumRequests && (double) failures / recorded >= failureRateThreshold) {
+                    target = CircuitState.Open;
+                }
+            }
+        }
+        if(target != null) {
+            transition(target);
+        }
+    }
+
+    private void transition(CircuitState target) {
+        CircuitState previous;
+        synchronized (this) {
+            previous = state;
+            state = target;
+            probeInFlight = false;
+            if(target == CircuitState.Open) {
+                openedAt = System.currentTimeMillis();
+            }
+            else if(target == CircuitState.Closed) {
+                position = 0;
+                recorded = 0;
+                failures = 0;
+            }
+        }
+        notifyListener(previous, target);
+    }
+
+    private void notifyListener(CircuitState previous, CircuitState current) {
+        if(listener != null && previous != current) {
+            listener.stateChanged(name, previous, current);
+        }
+    }
+}
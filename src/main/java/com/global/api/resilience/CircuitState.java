@@ -0,0 +1,7 @@
+package com.global.api.resilience;
+
+public enum CircuitState {
+    Closed,
+    Open,
+    HalfOpen
+}
@@ -0,0 +1,78 @@
+package com.global.api.resilience;
+
+/**
+ * Adaptive limit on in-flight requests using additive increase / multiplicative decrease.
+ * Every successful call that completes while the limit is being used raises the limit by
+ * roughly one per round trip; a dropped call (timeout, connection failure) or one slower than
+ * the latency threshold cuts it by the backoff ratio.
+ */
+public class ConcurrencyLimiter {
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThreshold;
+
+    private double limit;
+    private int inFlight;
+
+    public ConcurrencyLimiter(int maxLimit) {
+        this(Math.max(1, maxLimit / 4), 1, maxLimit, 0.9, 0);
+    }
+
+    /**
+     * @param latencyThreshold calls slower than this many milliseconds are treated as a
+     *                         congestion signal; zero disables the check
+     */
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long latencyThreshold) {
+        if(minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= minLimit <= maxLimit.");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThreshold = latencyThreshold;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized boolean tryAcquire() {
+        if(inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    public synchronized void onSuccess(long elapsedMillis) {
+        if(latencyThreshold > 0 && elapsedMillis > latencyThreshold) {
+            decrease();
+        }
+        // only grow when the current limit is actually being exercised
+        else if(inFlight * 2 >= (int) limit) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+        inFlight--;
+    }
+
+    public synchronized void onDropped() {
+        decrease();
+        inFlight--;
+    }
+
+    /**
+     * Releases the slot without treating the outcome as a signal either way.
+     */
+    public synchronized void onIgnored() {
+        inFlight--;
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+}
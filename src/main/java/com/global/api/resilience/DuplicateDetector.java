@@ -0,0 +1,211 @@
+package com.global.api.resilience;
+
+import com.global.api.entities.Transaction;
+import com.global.api.entities.enums.TransactionType;
+import com.global.api.paymentMethods.ICardData;
+import com.global.api.paymentMethods.IPaymentMethod;
+import com.global.api.paymentMethods.ITokenizable;
+import com.global.api.paymentMethods.ITrackData;
+import com.global.api.utils.StringUtils;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Remembers the card, amount and type of the recent requests of one configuration, so a likely
+ * duplicate (a second swipe or a double submit) is caught before it reaches the gateway. Keys are
+ * hashed into counting Bloom filters, one per quarter of the window, so no card data is held and
+ * memory is fixed by the expected number of requests per window. A filter may report a request it
+ * has not seen at about the configured false positive rate, but never misses one it has. Requests
+ * are remembered for at least the window and at most a quarter longer.
+ */
+public class DuplicateDetector {
+    private static final int BUCKETS = 4;
+    // approval codes of the gateways: 00 and 10 (partial) on the XML and card networks, 000 and
+    // 002 (partial) on the VAPS network, SUCCESS on GP API and A0000 on TransIT
+    private static final List<String> APPROVAL_CODES = Arrays.asList("00", "10", "000", "002", "SUCCESS", "A0000");
+
+    private final long bucketMillis;
+    private final int size;
+    private final int hashes;
+    // BUCKETS + 1 filters so the oldest still covers the start of the window
+    private final byte[][] counters = new byte[BUCKETS + 1][];
+    private final long[] generations = new long[BUCKETS + 1];
+    private long currentGeneration;
+
+    /**
+     * A request recorded by {@link #register(String)}, which may be released if it never reached
+     * the gateway.
+     */
+    public static class Registration {
+        private final long generation;
+        private final int[] indexes;
+
+        Registration(long generation, int[] indexes) {
+            this.generation = generation;
+            this.indexes = indexes;
+        }
+    }
+
+    /**
+     * @param windowMillis how long a request is remembered
+     * @param expectedRequests requests expected within one window
+     * @param falsePositiveRate chance of reporting a request that was not seen
+     */
+    public DuplicateDetector(long windowMillis, int expectedRequests, double falsePositiveRate) {
+        if(windowMillis <= 0 || expectedRequests <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("The window, expected requests and false positive rate must be positive and the rate below one.");
+        }
+        this.bucketMillis = Math.max(1, windowMillis / BUCKETS);
+
+        // every filter is checked, so each gets a share of the error rate; each is sized for the
+        // whole window's requests so a burst within one quarter does not saturate it
+        double bucketRate = falsePositiveRate / (BUCKETS + 1);
+        this.size = (int) Math.max(64, Math.ceil(-expectedRequests * Math.log(bucketRate) / (Math.log(2) * Math.log(2))));
+        this.hashes = (int) Math.max(1, Math.round((double) size / expectedRequests * Math.log(2)));
+
+        for(int i = 0; i < counters.length; i++) {
+            counters[i] = new byte[size];
+            generations[i] = -1;
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+    public int getHashes() {
+        return hashes;
+    }
+
+    /**
+     * @return the key for a request, or null when the card cannot be identified
+     */
+    public static String getKey(TransactionType transactionType, IPaymentMethod paymentMethod, BigDecimal amount, String currency) {
+        String card = getCard(paymentMethod);
+        if(StringUtils.isNullOrEmpty(card) || amount == null) {
+            return null;
+        }
+        return String.format("%s|%s|%s|%s", transactionType, card, amount.stripTrailingZeros().toPlainString(), currency);
+    }
+
+    /**
+     * @return whether the gateway approved the request, so a repeat of it is a likely duplicate
+     */
+    public static boolean isApproved(Transaction response) {
+        return response != null && response.getResponseCode() != null && APPROVAL_CODES.contains(response.getResponseCode().toUpperCase());
+    }
+
+    /**
+     * @return the token, card number or track data identifying the card, or null if there is none
+     */
+    static String getCard(IPaymentMethod paymentMethod) {
+        String card = null;
+        if(paymentMethod instanceof ITokenizable && !StringUtils.isNullOrEmpty(((ITokenizable) paymentMethod).getToken())) {
+            card = "token:" + ((ITokenizable) paymentMethod).getToken();
+        }
+        else if(paymentMethod instanceof ICardData) {
+            card = ((ICardData) paymentMethod).getNumber();
+        }
+        else if(paymentMethod instanceof ITrackData) {
+            card = ((ITrackData) paymentMethod).getPan();
+            if(StringUtils.isNullOrEmpty(card)) {
+                card = ((ITrackData) paymentMethod).getValue();
+            }
+        }
+        return StringUtils.isNullOrEmpty(card) ? null : card;
+    }
+
+    /**
+     * Records the request unless it was already seen within the window.
+     *
+     * @return the registration, or null if the request is a likely duplicate
+     */
+    public synchronized Registration register(String key) {
+        int[] indexes = indexes(key);
+        int current = rotate(System.currentTimeMillis());
+        for(byte[] filter : counters) {
+            if(contains(filter, indexes)) {
+                return null;
+            }
+        }
+
+        byte[] filter = counters[current];
+        for(int index : indexes) {
+            // a saturated counter stays set rather than wrapping to zero
+            if(filter[index] != (byte) 0xFF) {
+                filter[index]++;
+            }
+        }
+        return new Registration(currentGeneration, indexes);
+    }
+
+    /**
+     * Forgets a request that was not approved, so sending it again is not reported.
+     */
+    public synchronized void release(Registration registration) {
+        int slot = (int) (registration.generation % counters.length);
+        if(generations[slot] != registration.generation) {
+            return;
+        }
+
+        byte[] filter = counters[slot];
+        for(int index : registration.indexes) {
+            if(filter[index] != 0 && filter[index] != (byte) 0xFF) {
+                filter[index]--;
+            }
+        }
+    }
+
+    /**
+     * Moves to the filter for the current quarter of the window, clearing it if it held an
+     * expired quarter.
+     */
+    private int rotate(long now) {
+        currentGeneration = now / bucketMillis;
+        int slot = (int) (currentGeneration % counters.length);
+        if(generations[slot] != currentGeneration) {
+            Arrays.fill(counters[slot], (byte) 0);
+            generations[slot] = currentGeneration;
+        }
+
+        // after an idle period other filters may hold quarters older than the window
+        for(int i = 0; i < counters.length; i++) {
+            if(generations[i] >= 0 && currentGeneration - generations[i] > BUCKETS) {
+                Arrays.fill(counters[i], (byte) 0);
+                generations[i] = -1;
+            }
+        }
+        return slot;
+    }
+
+    private boolean contains(byte[] filter, int[] indexes) {
+        for(int index : indexes) {
+            if(filter[index] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Double hashing over the two halves of a SHA-256 digest, so the card is never kept.
+     */
+    private int[] indexes(String key) {
+        byte[] digest = DigestUtils.sha256(key);
+        long first = 0;
+        long second = 0;
+        for(int i = 0; i < 8; i++) {
+            first = (first << 8) | (digest[i] & 0xFF);
+            second = (second << 8) | (digest[i + 8] & 0xFF);
+        }
+
+        int[] indexes = new int[hashes];
+        for(int i = 0; i < hashes; i++) {
+            long combined = first + i * second;
+            indexes[i] = (int) ((combined & Long.MAX_VALUE) % size);
+        }
+        return indexes;
+    }
+}
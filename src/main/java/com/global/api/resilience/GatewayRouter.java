@@ -0,0 +1,413 @@
+package com.global.api.resilience;
+
+import com.global.api.ServicesContainer;
+import com.global.api.builders.AuthorizationBuilder;
+import com.global.api.builders.ManagementBuilder;
+import com.global.api.entities.Transaction;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.BuilderException;
+import com.global.api.entities.exceptions.CircuitBreakerOpenException;
+import com.global.api.entities.exceptions.ConcurrencyLimitExceededException;
+import com.global.api.entities.exceptions.ConfigurationException;
+import com.global.api.entities.exceptions.GatewayException;
+import com.global.api.entities.exceptions.GatewayTimeoutException;
+import com.global.api.paymentMethods.IPaymentMethod;
+import com.global.api.paymentMethods.TransactionReference;
+import com.global.api.terminals.abstractions.IDisposable;
+import com.global.api.utils.StringUtils;
+import com.global.api.utils.TtlCache;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads transactions over several configurations able to process them, registered with
+ * {@link com.global.api.ServicesContainer#configureRouter(GatewayRouter, String)} and used by
+ * executing builders with the route's name. Each transaction goes to a configuration picked at
+ * random in proportion to its weight over the square of its smoothed latency, scaled down by its
+ * smoothed failure rate, so traffic shifts toward the fastest healthy gateway. A small exploration
+ * share is spread evenly so the others keep enough traffic for their figures to stay current. A
+ * configuration is left out while its health check fails or, after several failures in a row, for
+ * the ejection period. Follow up operations go to the configuration that processed the
+ * transaction they reference, and a retried authorization goes wherever the first attempt with
+ * its client transaction id went, so that configuration's idempotency and duplicate checks see it.
+ */
+public class GatewayRouter implements IDisposable {
+    public interface IHealthCheck {
+        /**
+         * @return whether the configuration can process transactions; an exception counts as no
+         */
+        boolean isHealthy(String configName) throws Exception;
+    }
+
+    private static class Target {
+        private final String configName;
+        private final double weight;
+        private double latencyMicros = -1;
+        private double failureRate;
+        private int consecutiveFailures;
+        private long ejectedUntil;
+        private volatile boolean healthy = true;
+
+        Target(String configName, double weight) {
+            this.configName = configName;
+            this.weight = weight;
+        }
+    }
+
+    private final LinkedHashMap<String, Target> targets = new LinkedHashMap<String, Target>();
+    private final TtlCache<String, String> affinity;
+    private double smoothing = 0.2;
+    private double explorationRate = 0.1;
+    private int ejectionThreshold = 5;
+    private long ejectionDuration = 30000;
+    private ScheduledExecutorService healthChecker;
+
+    public GatewayRouter() {
+        this(TimeUnit.DAYS.toMillis(1), 100000);
+    }
+    /**
+     * @param affinityWindow milliseconds for which follow ups are sent to the configuration that
+     *                       processed the original transaction
+     * @param affinitySize most transactions remembered for follow ups
+     */
+    public GatewayRouter(long affinityWindow, int affinitySize) {
+        affinity = new TtlCache<String, String>("GatewayRouter", "affinity", affinityWindow, affinitySize);
+    }
+
+    public GatewayRouter addTarget(String configName) {
+        return addTarget(configName, 1.0);
+    }
+    /**
+     * @param weight relative share of traffic the configuration gets when latencies are equal
+     */
+    public synchronized GatewayRouter addTarget(String configName, double weight) {
+        if(weight <= 0) {
+            throw new IllegalArgumentException("A route target's weight must be positive.");
+        }
+        // targets are checked when the route is registered, so later ones are checked here
+        ServicesContainer container = ServicesContainer.getInstance();
+        if(container.isRouterConfigured(this) && !container.isConfigured(configName)) {
+            throw new IllegalArgumentException(String.format("The route target %s has not been configured.", configName));
+        }
+        targets.put(configName, new Target(configName, weight));
+        return this;
+    }
+
+    public synchronized Set<String> getTargets() {
+        return new LinkedHashSet<String>(targets.keySet());
+    }
+
+    public double getSmoothing() {
+        return smoothing;
+    }
+    /**
+     * Weight of the latest request in the smoothed latency and failure rate, between 0 and 1.
+     */
+    public void setSmoothing(double smoothing) {
+        this.smoothing = smoothing;
+    }
+    public double getExplorationRate() {
+        return explorationRate;
+    }
+    /**
+     * Share of traffic spread evenly over the available configurations whatever their figures, so
+     * one that was slow once keeps being measured and can win its traffic back.
+     */
+    public void setExplorationRate(double explorationRate) {
+        this.explorationRate = explorationRate;
+    }
+    public int getEjectionThreshold() {
+        return ejectionThreshold;
+    }
+    /**
+     * Failures in a row after which a configuration is left out for the ejection period.
+     */
+    public void setEjectionThreshold(int ejectionThreshold) {
+        this.ejectionThreshold = ejectionThreshold;
+    }
+    public long getEjectionDuration() {
+        return ejectionDuration;
+    }
+    public void setEjectionDuration(long ejectionDuration) {
+        this.ejectionDuration = ejectionDuration;
+    }
+
+    /**
+     * Runs the health check against every configuration each interval until disposed.
+     */
+    public synchronized void setHealthCheck(final IHealthCheck healthCheck, long interval) {
+        if(healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        healthChecker = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "gp-router-health");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        healthChecker.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                List<Target> checked;
+                synchronized (GatewayRouter.this) {
+                    checked = new ArrayList<Target>(targets.values());
+                }
+                for(Target target : checked) {
+                    try {
+                        target.healthy = healthCheck.isHealthy(target.configName);
+                    }
+                    catch(Exception exc) {
+                        target.healthy = false;
+                    }
+                }
+            }
+        }, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the smoothed latency of the configuration in microseconds, or -1 before its first
+     * response
+     */
+    public synchronized double getLatency(String configName) {
+        Target target = targets.get(configName);
+        return target != null ? target.latencyMicros : -1;
+    }
+    public synchronized double getFailureRate(String configName) {
+        Target target = targets.get(configName);
+        return target != null ? target.failureRate : 0;
+    }
+    /**
+     * @return whether the configuration is currently considered for new transactions
+     */
+    public synchronized boolean isAvailable(String configName) {
+        Target target = targets.get(configName);
+        return target != null && isAvailable(target, System.currentTimeMillis());
+    }
+
+    /**
+     * Sends the authorization to the best configuration. Should every gateway refuse it before
+     * sending, because its circuit breaker is open or it is at its concurrency limit, it is tried
+     * on the next best; other failures are returned to the caller, as the request may have been
+     * processed. An authorization whose client transaction id was already routed is sent to the
+     * same configuration, and only there.
+     */
+    public Transaction execute(AuthorizationBuilder builder) throws ApiException {
+        String retryKey = StringUtils.isNullOrEmpty(builder.getClientTransactionId()) ? null : "client:" + builder.getClientTransactionId();
+        if(retryKey != null) {
+            String previous = affinity.get(retryKey);
+            if(previous != null) {
+                Transaction response = send(builder, previous);
+                remember(response, previous);
+                return response;
+            }
+        }
+
+        HashSet<String> refused = new HashSet<String>();
+        while(true) {
+            String configName = select(refused);
+            // pinned before sending, as a retry after a timeout must find the attempt it repeats
+            if(retryKey != null) {
+                affinity.put(retryKey, configName);
+            }
+            try {
+                Transaction response = send(builder, configName);
+                remember(response, configName);
+                return response;
+            }
+            catch(CircuitBreakerOpenException exc) {
+                refused.add(configName);
+                if(refused.size() >= targetCount()) {
+                    throw exc;
+                }
+            }
+            catch(ConcurrencyLimitExceededException exc) {
+                refused.add(configName);
+                if(refused.size() >= targetCount()) {
+                    throw exc;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the follow up to the configuration that processed the referenced transaction. Only
+     * that configuration's gateway knows the transaction, so a follow up to one the router did not
+     * route, or no longer remembers, is refused; execute it with the configuration's own name.
+     */
+    public Transaction execute(ManagementBuilder builder) throws ApiException {
+        String configName = null;
+        String key = getAffinityKey(builder.getPaymentMethod());
+        if(key != null) {
+            configName = affinity.get(key);
+        }
+        if(configName == null) {
+            throw new BuilderException("The referenced transaction was not routed by this route, or is no longer remembered; execute the follow up with the name of the configuration that processed it.");
+        }
+
+        Transaction response = send(builder, configName);
+        remember(response, configName);
+        return response;
+    }
+
+    /**
+     * Records the outcome of a request sent to the configuration outside the router.
+     */
+    public synchronized void record(String configName, long elapsedNanos, boolean failed) {
+        Target target = targets.get(configName);
+        if(target == null) {
+            return;
+        }
+
+        double micros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+        target.latencyMicros = target.latencyMicros < 0 ? micros : target.latencyMicros + smoothing * (micros - target.latencyMicros);
+        target.failureRate += smoothing * ((failed ? 1 : 0) - target.failureRate);
+        if(!failed) {
+            target.consecutiveFailures = 0;
+        }
+        else if(++target.consecutiveFailures >= ejectionThreshold) {
+            target.ejectedUntil = System.currentTimeMillis() + ejectionDuration;
+            target.consecutiveFailures = 0;
+        }
+    }
+
+    public synchronized void dispose() {
+        if(healthChecker != null) {
+            healthChecker.shutdownNow();
+            healthChecker = null;
+        }
+    }
+
+    private Transaction send(AuthorizationBuilder builder, String configName) throws ApiException {
+        long started = System.nanoTime();
+        try {
+            Transaction response = builder.execute(configName);
+            record(configName, System.nanoTime() - started, false);
+            return response;
+        }
+        catch(ApiException exc) {
+            recordFailure(configName, started, exc);
+            throw exc;
+        }
+    }
+    private Transaction send(ManagementBuilder builder, String configName) throws ApiException {
+        long started = System.nanoTime();
+        try {
+            Transaction response = builder.execute(configName);
+            record(configName, System.nanoTime() - started, false);
+            return response;
+        }
+        catch(ApiException exc) {
+            recordFailure(configName, started, exc);
+            throw exc;
+        }
+    }
+
+    /**
+     * Only failures to get an answer count against a gateway; a gateway rejecting the request is
+     * still healthy.
+     */
+    private void recordFailure(String configName, long started, ApiException exc) {
+        if(exc instanceof ConcurrencyLimitExceededException) {
+            return;
+        }
+        if(exc instanceof GatewayTimeoutException || exc instanceof CircuitBreakerOpenException
+                || (exc instanceof GatewayException && ((GatewayException) exc).getResponseCode() == null)) {
+            record(configName, System.nanoTime() - started, true);
+        }
+    }
+
+    private synchronized int targetCount() {
+        return targets.size();
+    }
+
+    private synchronized String select(Set<String> excluded) throws ConfigurationException {
+        long now = System.currentTimeMillis();
+        List<Target> candidates = new ArrayList<Target>();
+        for(Target target : targets.values()) {
+            if(!excluded.contains(target.configName) && isAvailable(target, now)) {
+                candidates.add(target);
+            }
+        }
+        // with nothing available, sending somewhere still beats failing without trying
+        if(candidates.isEmpty()) {
+            for(Target target : targets.values()) {
+                if(!excluded.contains(target.configName)) {
+                    candidates.add(target);
+                }
+            }
+        }
+        if(candidates.isEmpty()) {
+            throw new ConfigurationException("The route has no configurations to send to.");
+        }
+
+        // configurations without a response yet are assumed as fast as the fastest, so they get tried
+        double fastest = -1;
+        for(Target target : candidates) {
+            if(target.latencyMicros > 0 && (fastest < 0 || target.latencyMicros < fastest)) {
+                fastest = target.latencyMicros;
+            }
+        }
+
+        double[] scores = new double[candidates.size()];
+        double total = 0;
+        for(int i = 0; i < scores.length; i++) {
+            Target target = candidates.get(i);
+            double latency = Math.max(1, target.latencyMicros > 0 ? target.latencyMicros : fastest > 0 ? fastest : 1);
+            double success = 1 - target.failureRate;
+            scores[i] = target.weight * success * success / (latency * latency);
+            total += scores[i];
+        }
+        for(int i = 0; i < scores.length; i++) {
+            scores[i] = explorationRate / scores.length + (1 - explorationRate) * (total > 0 ? scores[i] / total : 1.0 / scores.length);
+        }
+        total = 1;
+
+        double pick = ThreadLocalRandom.current().nextDouble() * total;
+        for(int i = 0; i < scores.length; i++) {
+            pick -= scores[i];
+            if(pick < 0) {
+                return candidates.get(i).configName;
+            }
+        }
+        return candidates.get(candidates.size() - 1).configName;
+    }
+
+    private boolean isAvailable(Target target, long now) {
+        return target.healthy && target.ejectedUntil <= now;
+    }
+
+    private void remember(Transaction response, String configName) {
+        if(response != null && response.getTransactionReference() != null) {
+            String key = getAffinityKey(response.getTransactionReference());
+            if(key != null) {
+                affinity.put(key, configName);
+            }
+        }
+    }
+
+    /**
+     * Gateways identify a transaction by its id; the network hosts by its STAN and time.
+     */
+    private String getAffinityKey(IPaymentMethod paymentMethod) {
+        if(!(paymentMethod instanceof TransactionReference)) {
+            return null;
+        }
+
+        TransactionReference reference = (TransactionReference) paymentMethod;
+        if(!StringUtils.isNullOrEmpty(reference.getTransactionId())) {
+            return "id:" + reference.getTransactionId();
+        }
+        if(!StringUtils.isNullOrEmpty(reference.getClientTransactionId())) {
+            return "client:" + reference.getClientTransactionId();
+        }
+        if(!StringUtils.isNullOrEmpty(reference.getSystemTraceAuditNumber()) && !StringUtils.isNullOrEmpty(reference.getOriginalTransactionTime())) {
+            return "stan:" + reference.getSystemTraceAuditNumber() + "|" + reference.getOriginalTransactionTime();
+        }
+        return null;
+    }
+}
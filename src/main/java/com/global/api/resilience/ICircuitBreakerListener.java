@@ -0,0 +1,5 @@
+package com.global.api.resilience;
+
+public interface ICircuitBreakerListener {
+    void stateChanged(String name, CircuitState previousState, CircuitState newState);
+}
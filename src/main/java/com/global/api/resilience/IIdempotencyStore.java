@@ -0,0 +1,17 @@
+package com.global.api.resilience;
+
+import com.global.api.entities.Transaction;
+
+/**
+ * Durable backing for an {@link IdempotencyCache}, e.g. a database table, so responses can be
+ * replayed after a restart or by another instance. It is consulted when the in-memory cache
+ * misses and written once a request completes.
+ */
+public interface IIdempotencyStore {
+    /**
+     * @return the stored response for the key, or null when there is none or it has expired
+     */
+    Transaction get(String key);
+
+    void put(String key, Transaction response, long windowMillis);
+}
@@ -0,0 +1,107 @@
+package com.global.api.resilience;
+
+import com.global.api.entities.Transaction;
+import com.global.api.entities.enums.TransactionType;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.gateways.IPaymentGateway;
+import com.global.api.gateways.RealexConnector;
+import com.global.api.paymentMethods.IPaymentMethod;
+import com.global.api.paymentMethods.TransactionReference;
+import com.global.api.utils.StringUtils;
+import com.global.api.utils.TtlCache;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.math.BigDecimal;
+
+/**
+ * Remembers the requests of one configuration by the merchant's reference for them, so a retried
+ * request is answered with the response of the first attempt instead of being sent again.
+ * Identical requests in flight at the same time share one gateway call, and completed responses,
+ * approvals and declines alike, are replayed for the configured window. Failed requests are not
+ * remembered and may be retried; that includes timeouts, so a retry after a timeout is sent to the
+ * gateway again even though the first attempt may have been processed. Replayed responses are the
+ * same {@link Transaction} instance.
+ */
+public class IdempotencyCache {
+    private final TtlCache<String, Transaction> cache;
+    private final IIdempotencyStore store;
+    private final long windowMillis;
+
+    public IdempotencyCache(String configName, long windowMillis, int maxSize, IIdempotencyStore store) {
+        this.cache = new TtlCache<String, Transaction>("IdempotencyCache", configName, windowMillis, maxSize);
+        this.store = store;
+        this.windowMillis = windowMillis;
+    }
+
+    public TtlCache<String, Transaction> getCache() {
+        return cache;
+    }
+
+    /**
+     * The key covers the type, amount, currency and payment method as well as the reference, so a
+     * retry that changed any of them is sent rather than answered with the first response. The
+     * payment method is hashed, so no card data is held in the cache or the store.
+     *
+     * @return the key for a request, or null when it carries no reference that identifies it
+     */
+    public static String getKey(TransactionType transactionType, String reference, IPaymentMethod paymentMethod, BigDecimal amount, String currency) {
+        if(StringUtils.isNullOrEmpty(reference)) {
+            return null;
+        }
+        return String.format("%s|%s|%s|%s|%s",
+                transactionType,
+                reference,
+                amount != null ? amount.stripTrailingZeros().toPlainString() : "",
+                currency != null ? currency : "",
+                DigestUtils.sha256Hex(getPaymentMethodFingerprint(paymentMethod)));
+    }
+
+    private static String getPaymentMethodFingerprint(IPaymentMethod paymentMethod) {
+        if(paymentMethod == null) {
+            return "";
+        }
+
+        String card = DuplicateDetector.getCard(paymentMethod);
+        if(card != null) {
+            return card;
+        }
+        else if(paymentMethod instanceof TransactionReference) {
+            TransactionReference reference = (TransactionReference) paymentMethod;
+            return String.format("reference:%s|%s|%s", reference.getTransactionId(), reference.getOrderId(), reference.getClientTransactionId());
+        }
+        return paymentMethod.getClass().getName();
+    }
+
+    /**
+     * The client transaction id identifies a request on every gateway. Realex also refuses a second
+     * request with the same order id, so there the order id identifies it as well.
+     */
+    public static String getReference(IPaymentGateway gateway, String clientTransactionId, String orderId) {
+        if(!StringUtils.isNullOrEmpty(clientTransactionId)) {
+            return clientTransactionId;
+        }
+        else if(gateway instanceof RealexConnector && !StringUtils.isNullOrEmpty(orderId)) {
+            return "order:" + orderId;
+        }
+        return null;
+    }
+
+    public Transaction execute(String key, final TtlCache.ILoader<String, Transaction> request) throws ApiException {
+        return cache.get(key, new TtlCache.ILoader<String, Transaction>() {
+            public Transaction load(String key) throws ApiException {
+                if(store != null) {
+                    Transaction stored = store.get(key);
+                    if(stored != null) {
+                        return stored;
+                    }
+                }
+
+                Transaction response = request.load(key);
+                if(response != null && store != null) {
+                    store.put(key, response, windowMillis);
+                }
+                return response;
+            }
+        });
+    }
+}
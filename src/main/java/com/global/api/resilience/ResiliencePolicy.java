@@ -0,0 +1,162 @@
+package com.global.api.resilience;
+
+import com.global.api.entities.exceptions.CircuitBreakerOpenException;
+import com.global.api.entities.exceptions.ConcurrencyLimitExceededException;
+import com.global.api.entities.exceptions.GatewayException;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resilience settings for one connector: a circuit breaker per endpoint and a single adaptive
+ * concurrency limit shared by all of the connector's requests. Either part may be disabled.
+ * Connectors acquire a {@link Permit} before contacting the gateway and report the outcome on
+ * it; refused calls fail fast with {@link CircuitBreakerOpenException} or
+ * {@link ConcurrencyLimitExceededException}.
+ */
+public class ResiliencePolicy {
+    private final String name;
+    private final ConcurrentHashMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<String, CircuitBreaker>();
+    private boolean circuitBreakerEnabled = true;
+    private double failureRateThreshold = 0.5;
+    private int windowSize = 100;
+    private int minimumRequests = 20;
+    private long openDuration = 30000;
+    private ICircuitBreakerListener listener;
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    public ResiliencePolicy(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+    public boolean isCircuitBreakerEnabled() {
+        return circuitBreakerEnabled;
+    }
+    public void setCircuitBreakerEnabled(boolean circuitBreakerEnabled) {
+        this.circuitBreakerEnabled = circuitBreakerEnabled;
+    }
+    public void setFailureRateThreshold(double failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+    public void setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+    }
+    public void setMinimumRequests(int minimumRequests) {
+        this.minimumRequests = minimumRequests;
+    }
+    public void setOpenDuration(long openDuration) {
+        this.openDuration = openDuration;
+    }
+    public void setListener(ICircuitBreakerListener listener) {
+        this.listener = listener;
+    }
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+    public void setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    /**
+     * @return the breaker guarding the named endpoint, or null when circuit breaking is disabled
+     */
+    public CircuitBreaker getCircuitBreaker(String endpoint) {
+        if(!circuitBreakerEnabled) {
+            return null;
+        }
+
+        CircuitBreaker breaker = circuitBreakers.get(endpoint);
+        if(breaker == null) {
+            CircuitBreaker created = new CircuitBreaker(name + ":" + endpoint, failureRateThreshold, windowSize, Math.min(minimumRequests, windowSize), openDuration);
+            created.setListener(listener);
+            breaker = circuitBreakers.putIfAbsent(endpoint, created);
+            if(breaker == null) {
+                breaker = created;
+            }
+        }
+        return breaker;
+    }
+
+    public boolean isAvailable(String endpoint) {
+        CircuitBreaker breaker = getCircuitBreaker(endpoint);
+        return breaker == null || breaker.isCallPermitted();
+    }
+
+    /**
+     * Takes a concurrency slot only; the caller is responsible for per-endpoint breakers.
+     */
+    public Permit acquire() throws GatewayException {
+        return acquire(null);
+    }
+
+    /**
+     * Takes a concurrency slot and passes the circuit breaker of the given endpoint.
+     */
+    public Permit acquire(String endpoint) throws GatewayException {
+        if(concurrencyLimiter != null && !concurrencyLimiter.tryAcquire()) {
+            throw new ConcurrencyLimitExceededException(concurrencyLimiter.getLimit());
+        }
+
+        CircuitBreaker breaker = endpoint == null ? null : getCircuitBreaker(endpoint);
+        if(breaker != null && !breaker.tryAcquirePermission()) {
+            if(concurrencyLimiter != null) {
+                concurrencyLimiter.onIgnored();
+            }
+            throw new CircuitBreakerOpenException(endpoint, breaker.getRetryAfter());
+        }
+        return new Permit(breaker, concurrencyLimiter);
+    }
+
+    /**
+     * A single admitted call. Exactly one of the completion methods takes effect.
+     */
+    public static class Permit {
+        private final CircuitBreaker breaker;
+        private final ConcurrencyLimiter limiter;
+        private final long started = System.currentTimeMillis();
+        private boolean completed;
+
+        Permit(CircuitBreaker breaker, ConcurrencyLimiter limiter) {
+            this.breaker = breaker;
+            this.limiter = limiter;
+        }
+
+        public synchronized void success() {
+            if(complete()) {
+                if(breaker != null) {
+                    breaker.recordSuccess();
+                }
+                if(limiter != null) {
+                    limiter.onSuccess(System.currentTimeMillis() - started);
+                }
+            }
+        }
+
+        public synchronized void failure() {
+            if(complete()) {
+                if(breaker != null) {
+                    breaker.recordFailure();
+                }
+                if(limiter != null) {
+                    limiter.onDropped();
+                }
+            }
+        }
+
+        public synchronized void cancel() {
+            if(complete() && limiter != null) {
+                limiter.onIgnored();
+            }
+        }
+
+        private boolean complete() {
+            if(completed) {
+                return false;
+            }
+            completed = true;
+            return true;
+        }
+    }
+}
@@ -3,14 +3,37 @@ package com.global.api.serviceConfigs;
 import com.global.api.ConfiguredServices;
 import com.global.api.entities.enums.Environment;
 import com.global.api.entities.exceptions.ConfigurationException;
+import com.global.api.logging.IRequestLogger;
+import com.global.api.resilience.ConcurrencyLimiter;
+import com.global.api.resilience.ICircuitBreakerListener;
+import com.global.api.resilience.IIdempotencyStore;
+import com.global.api.resilience.ResiliencePolicy;
+
+import javax.net.ssl.SSLSocketFactory;
 
 public abstract class Configuration {
     protected boolean enableLogging = false;
+    protected IRequestLogger requestLogger;
+    protected double logSampleRate = 1.0;
     protected Environment environment = Environment.TEST;
     protected boolean forceGatewayTimeout = false;
     protected String serviceUrl;
     protected int timeout = 30000;
     protected boolean validated;
+    protected boolean enableCircuitBreaker = false;
+    protected double circuitBreakerFailureRate = 0.5;
+    protected int circuitBreakerMinimumRequests = 20;
+    protected int circuitBreakerOpenDuration = 30000;
+    protected ICircuitBreakerListener circuitBreakerListener;
+    protected int maxConcurrentRequests = 0;
+    protected SSLSocketFactory sslSocketFactory;
+    protected long idempotencyWindow = 0;
+    protected int idempotencyCacheSize = 10000;
+    protected IIdempotencyStore idempotencyStore;
+    protected long duplicateCheckWindow = 0;
+    protected int duplicateCheckCapacity = 10000;
+    protected double duplicateCheckFalsePositiveRate = 0.001;
+    protected boolean rejectDuplicates = false;
 
     public int getTimeout() {
         return timeout;
@@ -33,6 +56,20 @@ public abstract class Configuration {
         this.enableLogging = enableLogging;
     }
 
+    public IRequestLogger getRequestLogger() {
+        return requestLogger;
+    }
+    public void setRequestLogger(IRequestLogger requestLogger) {
+        this.requestLogger = requestLogger;
+    }
+
+    public double getLogSampleRate() {
+        return logSampleRate;
+    }
+    public void setLogSampleRate(double logSampleRate) {
+        this.logSampleRate = logSampleRate;
+    }
+
     public boolean isForceGatewayTimeout() {
         return forceGatewayTimeout;
     }
@@ -47,6 +84,149 @@ public abstract class Configuration {
         this.environment = environment;
     }
 
+    public boolean isEnableCircuitBreaker() {
+        return enableCircuitBreaker;
+    }
+    public void setEnableCircuitBreaker(boolean enableCircuitBreaker) {
+        this.enableCircuitBreaker = enableCircuitBreaker;
+    }
+
+    public double getCircuitBreakerFailureRate() {
+        return circuitBreakerFailureRate;
+    }
+    public void setCircuitBreakerFailureRate(double circuitBreakerFailureRate) {
+        this.circuitBreakerFailureRate = circuitBreakerFailureRate;
+    }
+
+    public int getCircuitBreakerMinimumRequests() {
+        return circuitBreakerMinimumRequests;
+    }
+    public void setCircuitBreakerMinimumRequests(int circuitBreakerMinimumRequests) {
+        this.circuitBreakerMinimumRequests = circuitBreakerMinimumRequests;
+    }
+
+    public int getCircuitBreakerOpenDuration() {
+        return circuitBreakerOpenDuration;
+    }
+    public void setCircuitBreakerOpenDuration(int circuitBreakerOpenDuration) {
+        this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+    }
+
+    public ICircuitBreakerListener getCircuitBreakerListener() {
+        return circuitBreakerListener;
+    }
+    public void setCircuitBreakerListener(ICircuitBreakerListener circuitBreakerListener) {
+        this.circuitBreakerListener = circuitBreakerListener;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+    /**
+     * Upper bound for the adaptive concurrency limit; zero disables limiting.
+     */
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public SSLSocketFactory getSslSocketFactory() {
+        return sslSocketFactory;
+    }
+    /**
+     * Replaces the default TLS setup of the HTTP connectors, e.g. to trust a local mock gateway.
+     */
+    public void setSslSocketFactory(SSLSocketFactory sslSocketFactory) {
+        this.sslSocketFactory = sslSocketFactory;
+    }
+
+    public long getIdempotencyWindow() {
+        return idempotencyWindow;
+    }
+    /**
+     * Milliseconds for which a response is replayed to retries carrying the same client transaction
+     * id (or Realex order id) and the same type, amount, currency and payment method; zero disables
+     * the idempotency cache. Timeouts are not remembered, so a retry after a timeout is sent again.
+     */
+    public void setIdempotencyWindow(long idempotencyWindow) {
+        this.idempotencyWindow = idempotencyWindow;
+    }
+    public int getIdempotencyCacheSize() {
+        return idempotencyCacheSize;
+    }
+    public void setIdempotencyCacheSize(int idempotencyCacheSize) {
+        this.idempotencyCacheSize = idempotencyCacheSize;
+    }
+    public IIdempotencyStore getIdempotencyStore() {
+        return idempotencyStore;
+    }
+    /**
+     * Optional durable store consulted behind the in-memory idempotency cache.
+     */
+    public void setIdempotencyStore(IIdempotencyStore idempotencyStore) {
+        this.idempotencyStore = idempotencyStore;
+    }
+
+    public long getDuplicateCheckWindow() {
+        return duplicateCheckWindow;
+    }
+    /**
+     * Milliseconds for which an approved sale or authorization of the same card, amount and
+     * currency is treated as a likely duplicate before it is sent; zero disables the duplicate
+     * check. Declines, timeouts and failures are not remembered, so they may be retried.
+     */
+    public void setDuplicateCheckWindow(long duplicateCheckWindow) {
+        this.duplicateCheckWindow = duplicateCheckWindow;
+    }
+    public int getDuplicateCheckCapacity() {
+        return duplicateCheckCapacity;
+    }
+    /**
+     * Requests expected within one duplicate check window, which sizes the filter.
+     */
+    public void setDuplicateCheckCapacity(int duplicateCheckCapacity) {
+        this.duplicateCheckCapacity = duplicateCheckCapacity;
+    }
+    public double getDuplicateCheckFalsePositiveRate() {
+        return duplicateCheckFalsePositiveRate;
+    }
+    /**
+     * Chance of a request being taken for a duplicate when it is not, at the expected volume.
+     */
+    public void setDuplicateCheckFalsePositiveRate(double duplicateCheckFalsePositiveRate) {
+        this.duplicateCheckFalsePositiveRate = duplicateCheckFalsePositiveRate;
+    }
+    public boolean isRejectDuplicates() {
+        return rejectDuplicates;
+    }
+    /**
+     * Whether a likely duplicate is refused with a DuplicateTransactionException; by default it
+     * is sent and flagged on its response.
+     */
+    public void setRejectDuplicates(boolean rejectDuplicates) {
+        this.rejectDuplicates = rejectDuplicates;
+    }
+
+    /**
+     * @return the resilience policy for a connector built from this configuration, or null when
+     * neither circuit breaking nor concurrency limiting is enabled
+     */
+    protected ResiliencePolicy createResiliencePolicy(String connectorName) {
+        if(!enableCircuitBreaker && maxConcurrentRequests <= 0) {
+            return null;
+        }
+
+        ResiliencePolicy policy = new ResiliencePolicy(connectorName);
+        policy.setCircuitBreakerEnabled(enableCircuitBreaker);
+        policy.setFailureRateThreshold(circuitBreakerFailureRate);
+        policy.setMinimumRequests(circuitBreakerMinimumRequests);
+        policy.setOpenDuration(circuitBreakerOpenDuration);
+        policy.setListener(circuitBreakerListener);
+        if(maxConcurrentRequests > 0) {
+            policy.setConcurrencyLimiter(new ConcurrencyLimiter(maxConcurrentRequests));
+        }
+        return policy;
+    }
+
     public void setValidated(boolean validated) {
         this.validated = validated;
     }
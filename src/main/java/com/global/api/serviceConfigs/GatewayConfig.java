@@ -1,6 +1,7 @@
 package com.global.api.serviceConfigs;
 
 import com.global.api.ConfiguredServices;
+import com.global.api.entities.DccRateData;
 import com.global.api.entities.enums.Environment;
 import com.global.api.entities.enums.Secure3dVersion;
 import com.global.api.entities.enums.ServiceEndpoints;
@@ -10,6 +11,7 @@ import com.global.api.gateways.PayPlanConnector;
 import com.global.api.gateways.PorticoConnector;
 import com.global.api.gateways.RealexConnector;
 import com.global.api.utils.StringUtils;
+import com.global.api.utils.TtlCache;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -41,12 +43,16 @@ public class GatewayConfig extends Configuration {
     private String sharedSecret;
     private String channel;
     private HostedPaymentConfig hostedPaymentConfig;
+    private long dccRateCacheTtl;               // milliseconds a rate is reused for indicative DCC lookups, 0 disables the cache
+    private int dccRateCacheSize = 1000;
 
     // 3DS
     private String challengeNotificationUrl;
     private String merchantContactUrl;
     private String methodNotificationUrl;
     private Secure3dVersion secure3dVersion;
+    private long enrollmentCacheTtl;            // milliseconds a not enrolled card range is remembered for, 0 disables the cache
+    private int enrollmentCacheSize = 10000;
 
     // GP-API
     private String appId;           // For example: OWTP5ptQZKGj7EnvPt3uqO844XDBt8Oj
@@ -201,6 +207,13 @@ public class GatewayConfig extends Configuration {
             gateway.setServiceUrl(serviceUrl);
             gateway.setHostedPaymentConfig(hostedPaymentConfig);
             gateway.setEnableLogging(enableLogging);
+            gateway.setRequestLogger(requestLogger);
+            gateway.setLogSampleRate(logSampleRate);
+            gateway.setResiliencePolicy(createResiliencePolicy("RealexConnector"));
+            gateway.setSslSocketFactory(sslSocketFactory);
+            if(dccRateCacheTtl > 0) {
+                gateway.setDccRateCache(new TtlCache<String, DccRateData>("RealexConnector", "dccRateCache", dccRateCacheTtl, dccRateCacheSize));
+            }
 
             services.setGatewayConnector(gateway);
             services.setRecurringConnector(gateway);
@@ -226,6 +239,13 @@ public class GatewayConfig extends Configuration {
                 secure3d2.setMethodNotificationUrl(methodNotificationUrl);
                 secure3d2.setChallengeNotificationUrl(challengeNotificationUrl);
                 secure3d2.setEnableLogging(enableLogging);
+                secure3d2.setRequestLogger(requestLogger);
+                secure3d2.setLogSampleRate(logSampleRate);
+                secure3d2.setResiliencePolicy(createResiliencePolicy("Gp3DSProvider"));
+                secure3d2.setSslSocketFactory(sslSocketFactory);
+                if(enrollmentCacheTtl > 0) {
+                    secure3d2.setEnrollmentCache(new TtlCache<String, Gp3DSProvider.CachedEnrollment>("Gp3DSProvider", "enrollmentCache", enrollmentCacheTtl, enrollmentCacheSize));
+                }
 
                 services.setSecure3dProvider(Secure3dVersion.TWO, secure3d2);
             }
@@ -250,10 +270,18 @@ public class GatewayConfig extends Configuration {
             gateway.setTimeout(timeout);
             gateway.setServiceUrl(serviceUrl + "/Hps.Exchange.PosGateway/PosGatewayService.asmx");
             gateway.setEnableLogging(enableLogging);
+            gateway.setRequestLogger(requestLogger);
+            gateway.setLogSampleRate(logSampleRate);
+            gateway.setResiliencePolicy(createResiliencePolicy("PorticoConnector"));
+            gateway.setSslSocketFactory(sslSocketFactory);
             services.setGatewayConnector(gateway);
 
             PayPlanConnector payplan = new PayPlanConnector();
             payplan.setEnableLogging(enableLogging);
+            payplan.setRequestLogger(requestLogger);
+            payplan.setLogSampleRate(logSampleRate);
+            payplan.setResiliencePolicy(createResiliencePolicy("PayPlanConnector"));
+            payplan.setSslSocketFactory(sslSocketFactory);
             payplan.setSecretApiKey(secretApiKey);
             payplan.setTimeout(timeout);
             payplan.setServiceUrl(serviceUrl + "/Portico.PayPlan.v2/");
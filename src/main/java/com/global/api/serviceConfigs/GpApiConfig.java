@@ -24,6 +24,8 @@ public class GpApiConfig extends GatewayConfig {
 
     public void configureContainer(ConfiguredServices services) {
         GpApiConnector gpApiConnector = new GpApiConnector(this);
+        gpApiConnector.setResiliencePolicy(createResiliencePolicy("GpApiConnector"));
+        gpApiConnector.setSslSocketFactory(sslSocketFactory);
 
         if (StringUtils.isNullOrEmpty(serviceUrl)) {
             serviceUrl = environment.equals(Environment.TEST) ?
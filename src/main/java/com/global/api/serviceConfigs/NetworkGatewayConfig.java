@@ -7,6 +7,8 @@ import com.global.api.network.abstractions.IStanProvider;
 import com.global.api.network.enums.*;
 import com.global.api.entities.exceptions.ConfigurationException;
 import com.global.api.gateways.VapsConnector;
+import com.global.api.io.ISslEngineFactory;
+import com.global.api.network.StandInEngine;
 import com.global.api.utils.StringUtils;
 
 public class NetworkGatewayConfig extends Configuration {
@@ -26,6 +28,11 @@ public class NetworkGatewayConfig extends Configuration {
     private String terminalId;
     private String uniqueDeviceId;
     private Boolean persistentConnection = false;
+    private boolean hedgingEnabled = false;
+    private int hedgeDelay = 0;
+    private boolean tlsEnabled = true;
+    private ISslEngineFactory sslEngineFactory;
+    private StandInEngine standInEngine;
 
     public AcceptorConfig getAcceptorConfig() {
         return acceptorConfig;
@@ -128,6 +135,45 @@ public class NetworkGatewayConfig extends Configuration {
     public void setPersistentConnection(Boolean persistentConnection) {
         this.persistentConnection = persistentConnection;
     }
+    public boolean isHedgingEnabled() {
+        return hedgingEnabled;
+    }
+    public void setHedgingEnabled(boolean hedgingEnabled) {
+        this.hedgingEnabled = hedgingEnabled;
+    }
+    public int getHedgeDelay() {
+        return hedgeDelay;
+    }
+    public void setHedgeDelay(int hedgeDelay) {
+        this.hedgeDelay = hedgeDelay;
+    }
+    public boolean isTlsEnabled() {
+        return tlsEnabled;
+    }
+    /**
+     * Plain TCP is only meant for local host emulators; the Heartland hosts require TLS.
+     */
+    public void setTlsEnabled(boolean tlsEnabled) {
+        this.tlsEnabled = tlsEnabled;
+    }
+    public ISslEngineFactory getSslEngineFactory() {
+        return sslEngineFactory;
+    }
+    /**
+     * Replaces the default TLS setup, e.g. to trust a test host's certificate.
+     */
+    public void setSslEngineFactory(ISslEngineFactory sslEngineFactory) {
+        this.sslEngineFactory = sslEngineFactory;
+    }
+    public StandInEngine getStandInEngine() {
+        return standInEngine;
+    }
+    /**
+     * Approves eligible EMV sales locally while the host cannot be reached.
+     */
+    public void setStandInEngine(StandInEngine standInEngine) {
+        this.standInEngine = standInEngine;
+    }
     
     public void configureContainer(ConfiguredServices services) {
         VapsConnector gateway = new VapsConnector();
@@ -138,7 +184,14 @@ public class NetworkGatewayConfig extends Configuration {
         gateway.setSecondaryPort(secondaryPort);
         gateway.setTimeout(timeout);
         gateway.setEnableLogging(enableLogging);
+        gateway.setRequestLogger(requestLogger);
+        gateway.setLogSampleRate(logSampleRate);
         gateway.setForceGatewayTimeout(forceGatewayTimeout);
+        gateway.setHedgingEnabled(hedgingEnabled);
+        gateway.setHedgeDelay(hedgeDelay);
+        gateway.setTlsEnabled(tlsEnabled);
+        gateway.setSslEngineFactory(sslEngineFactory);
+        gateway.setResiliencePolicy(createResiliencePolicy("VapsConnector"));
 
         // other fields
         gateway.setCompanyId(companyId);
@@ -166,6 +219,9 @@ public class NetworkGatewayConfig extends Configuration {
         // event handler
         gateway.setGatewayEventHandler(gatewayEventHandler);
 
+        // stand-in engine
+        gateway.setStandInEngine(standInEngine);
+
         services.setGatewayConnector(gateway);
     }
 
@@ -0,0 +1,443 @@
+package com.global.api.services;
+
+import com.global.api.builders.BaseBuilder;
+import com.global.api.entities.Transaction;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.CircuitBreakerOpenException;
+import com.global.api.entities.exceptions.ConcurrencyLimitExceededException;
+import com.global.api.entities.exceptions.ConfigurationException;
+import com.global.api.entities.exceptions.GatewayException;
+import com.global.api.terminals.abstractions.IDisposable;
+
+import java.util.Iterator;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a stream of builders, e.g. {@code RecurringPaymentMethod.charge(amount)} for every
+ * subscription in a billing run, against one configuration. Builders are pulled from the
+ * input only as fast as the configuration's concurrency and rate limits admit them, so the input
+ * can be a lazy cursor of any length, and each result is handed to the result handler as soon
+ * as it completes rather than collected.
+ * <p>
+ * Limits belong to the configuration, so concurrent runs against the same gateway share them.
+ * Requests the connector's {@link com.global.api.resilience.ResiliencePolicy} refused without
+ * sending are retried after a back-off. With a checkpoint, every request whose result reached
+ * the handler is marked completed and skipped when the run is resumed; a request that failed, or
+ * whose result was in flight when the process stopped, runs again. Give such builders a client
+ * transaction id and configure an idempotency window and store so a repeat is answered from the
+ * first attempt instead of charging twice.
+ */
+public class BulkExecutor implements IDisposable {
+    public interface IResultHandler {
+        /**
+         * Called on a worker thread as each request completes, so implementations must be thread
+         * safe. Throwing leaves the request unmarked in the checkpoint.
+         */
+        void onResult(Result result);
+    }
+
+    private final ExecutorService workers = Executors.newCachedThreadPool(daemonThreads("gp-bulk-worker"));
+    private final ConcurrentHashMap<String, Gate> gates = new ConcurrentHashMap<String, Gate>();
+    private final ConcurrentHashMap<String, Integer> concurrency = new ConcurrentHashMap<String, Integer>();
+    private final ConcurrentHashMap<String, Double> rateLimits = new ConcurrentHashMap<String, Double>();
+    private int defaultConcurrency;
+    private int maxRetries = 5;
+    private long retryBackoff = 250;
+
+    public BulkExecutor() {
+        this(4);
+    }
+    public BulkExecutor(int defaultConcurrency) {
+        this.defaultConcurrency = Math.max(1, defaultConcurrency);
+    }
+
+    public int getDefaultConcurrency() {
+        return defaultConcurrency;
+    }
+    /**
+     * Requests in flight at once for configurations without their own limit.
+     */
+    public void setDefaultConcurrency(int defaultConcurrency) {
+        this.defaultConcurrency = Math.max(1, defaultConcurrency);
+        gates.clear();
+    }
+
+    /**
+     * Requests in flight at once against the configuration; applies to runs started afterwards.
+     */
+    public void setConcurrency(String configName, int limit) {
+        concurrency.put(configName, Math.max(1, limit));
+        gates.remove(configName);
+    }
+
+    /**
+     * Requests started per second against the configuration; zero removes the limit.
+     */
+    public void setRateLimit(String configName, double requestsPerSecond) {
+        if(requestsPerSecond > 0) {
+            rateLimits.put(configName, requestsPerSecond);
+        }
+        else {
+            rateLimits.remove(configName);
+        }
+        Gate gate = gates.get(configName);
+        if(gate != null) {
+            gate.setRate(requestsPerSecond);
+        }
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+    /**
+     * Times a request refused by the resilience policy without being sent is tried again.
+     */
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public long getRetryBackoff() {
+        return retryBackoff;
+    }
+    /**
+     * Milliseconds to wait before the first retry; doubled for each further retry.
+     */
+    public void setRetryBackoff(long retryBackoff) {
+        this.retryBackoff = retryBackoff;
+    }
+
+    public Summary execute(Iterator<? extends BaseBuilder<?>> builders, IResultHandler handler) throws ApiException {
+        return execute(builders, "default", null, handler);
+    }
+    public Summary execute(Iterator<? extends BaseBuilder<?>> builders, String configName, IResultHandler handler) throws ApiException {
+        return execute(builders, configName, null, handler);
+    }
+
+    /**
+     * Runs every builder from the input and returns once all of them have completed. The
+     * sequence of a request is its zero based position in the input, so a resumed run must be
+     * given the same input in the same order.
+     */
+    public Summary execute(Iterator<? extends BaseBuilder<?>> builders, String configName, IBulkCheckpoint checkpoint, IResultHandler handler) throws ApiException {
+        if(handler == null) {
+            throw new ConfigurationException("A result handler is required.");
+        }
+        if(workers.isShutdown()) {
+            throw new ConfigurationException("The bulk executor has been disposed.");
+        }
+
+        Gate gate = getGate(configName);
+        Run run = new Run(configName, gate, checkpoint, handler);
+        long sequence = 0;
+        try {
+            while(builders.hasNext()) {
+                BaseBuilder<?> builder = builders.next();
+                long current = sequence++;
+                if(checkpoint != null && checkpoint.isCompleted(current)) {
+                    run.skipped.incrementAndGet();
+                    continue;
+                }
+
+                gate.acquire();
+                run.submit(current, builder);
+            }
+        }
+        catch(InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new GatewayException("Interrupted while submitting bulk requests.", exc);
+        }
+        finally {
+            run.await();
+        }
+        return run.getSummary();
+    }
+
+    public void dispose() {
+        workers.shutdownNow();
+    }
+
+    private Gate getGate(String configName) {
+        Gate gate = gates.get(configName);
+        if(gate == null) {
+            Integer limit = concurrency.get(configName);
+            Double rate = rateLimits.get(configName);
+            Gate created = new Gate(limit != null ? limit : defaultConcurrency, rate != null ? rate : 0);
+            gate = gates.putIfAbsent(configName, created);
+            if(gate == null) {
+                gate = created;
+            }
+        }
+        return gate;
+    }
+
+    private class Run {
+        private final String configName;
+        private final Gate gate;
+        private final IBulkCheckpoint checkpoint;
+        private final IResultHandler handler;
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private int inFlight;
+
+        Run(String configName, Gate gate, IBulkCheckpoint checkpoint, IResultHandler handler) {
+            this.configName = configName;
+            this.gate = gate;
+            this.checkpoint = checkpoint;
+            this.handler = handler;
+        }
+
+        void submit(final long sequence, final BaseBuilder<?> builder) throws ApiException {
+            synchronized (this) {
+                inFlight++;
+            }
+            try {
+                workers.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            process(sequence, builder);
+                        }
+                        finally {
+                            gate.release();
+                            finished();
+                        }
+                    }
+                });
+            }
+            catch(RejectedExecutionException exc) {
+                gate.release();
+                finished();
+                throw new ConfigurationException("The bulk executor has been disposed.");
+            }
+        }
+
+        private void process(long sequence, BaseBuilder<?> builder) {
+            long start = System.nanoTime();
+            Object response = null;
+            ApiException failure = null;
+            for(int attempt = 0; ; attempt++) {
+                try {
+                    response = builder.execute(configName);
+                    break;
+                }
+                catch(CircuitBreakerOpenException exc) {
+                    failure = exc;
+                    if(attempt >= maxRetries || !backOff(Math.max(exc.getRetryAfter(), retryBackoff << attempt))) {
+                        break;
+                    }
+                }
+                catch(ConcurrencyLimitExceededException exc) {
+                    failure = exc;
+                    if(attempt >= maxRetries || !backOff(retryBackoff << attempt)) {
+                        break;
+                    }
+                }
+                catch(ApiException exc) {
+                    failure = exc;
+                    break;
+                }
+                catch(RuntimeException exc) {
+                    failure = new ApiException(exc.getMessage(), exc);
+                    break;
+                }
+                failure = null;
+            }
+
+            Result result = new Result(sequence, builder, response, failure, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            try {
+                handler.onResult(result);
+                if(checkpoint != null && failure == null) {
+                    checkpoint.markCompleted(sequence);
+                }
+                (failure == null ? succeeded : failed).incrementAndGet();
+            }
+            catch(ApiException exc) {
+                failed.incrementAndGet();
+            }
+            catch(RuntimeException exc) {
+                failed.incrementAndGet();
+            }
+        }
+
+        /**
+         * Waits out a back-off, paced like a new request.
+         *
+         * @return false when interrupted
+         */
+        private boolean backOff(long millis) {
+            try {
+                Thread.sleep(millis);
+                gate.pace();
+                return true;
+            }
+            catch(InterruptedException exc) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private synchronized void finished() {
+            inFlight--;
+            notifyAll();
+        }
+
+        synchronized void await() {
+            boolean interrupted = false;
+            while(inFlight > 0) {
+                try {
+                    wait();
+                }
+                catch(InterruptedException exc) {
+                    interrupted = true;
+                }
+            }
+            if(interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        Summary getSummary() {
+            return new Summary(skipped.get(), succeeded.get(), failed.get());
+        }
+    }
+
+    /**
+     * Concurrency and rate limit shared by every run against one configuration.
+     */
+    private static class Gate {
+        private final Semaphore permits;
+        private long intervalNanos;
+        private long nextStart = System.nanoTime();
+
+        Gate(int concurrency, double requestsPerSecond) {
+            permits = new Semaphore(concurrency, true);
+            setRate(requestsPerSecond);
+        }
+
+        synchronized void setRate(double requestsPerSecond) {
+            intervalNanos = requestsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond) : 0;
+        }
+
+        void acquire() throws InterruptedException {
+            permits.acquire();
+            try {
+                pace();
+            }
+            catch(InterruptedException exc) {
+                permits.release();
+                throw exc;
+            }
+        }
+
+        void release() {
+            permits.release();
+        }
+
+        /**
+         * Sleeps until the next start slot allowed by the rate limit.
+         */
+        void pace() throws InterruptedException {
+            long wait;
+            synchronized (this) {
+                if(intervalNanos == 0) {
+                    return;
+                }
+                long now = System.nanoTime();
+                long start = Math.max(now, nextStart);
+                nextStart = start + intervalNanos;
+                wait = start - now;
+            }
+            if(wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+    }
+
+    public static class Result {
+        private final long sequence;
+        private final BaseBuilder<?> builder;
+        private final Object response;
+        private final ApiException exception;
+        private final long elapsed;
+
+        Result(long sequence, BaseBuilder<?> builder, Object response, ApiException exception, long elapsed) {
+            this.sequence = sequence;
+            this.builder = builder;
+            this.response = response;
+            this.exception = exception;
+            this.elapsed = elapsed;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+        public BaseBuilder<?> getBuilder() {
+            return builder;
+        }
+        /**
+         * @return the builder's result, e.g. the created entity of a recurring request, or null
+         *         when the request failed
+         */
+        public Object getResponse() {
+            return response;
+        }
+        /**
+         * @return the gateway's response to a transaction builder, or null when the request failed
+         */
+        public Transaction getTransaction() {
+            return response instanceof Transaction ? (Transaction) response : null;
+        }
+        public ApiException getException() {
+            return exception;
+        }
+        public boolean isSuccessful() {
+            return exception == null;
+        }
+        /**
+         * @return milliseconds from the first attempt to the response, including any back-off
+         */
+        public long getElapsed() {
+            return elapsed;
+        }
+    }
+
+    public static class Summary {
+        private final int skipped;
+        private final int succeeded;
+        private final int failed;
+
+        Summary(int skipped, int succeeded, int failed) {
+            this.skipped = skipped;
+            this.succeeded = succeeded;
+            this.failed = failed;
+        }
+
+        /**
+         * @return requests the checkpoint already recorded as completed
+         */
+        public int getSkipped() {
+            return skipped;
+        }
+        /**
+         * @return requests answered by the gateway, declines included
+         */
+        public int getSucceeded() {
+            return succeeded;
+        }
+        public int getFailed() {
+            return failed;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+        final AtomicInteger count = new AtomicInteger();
+        return new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+}
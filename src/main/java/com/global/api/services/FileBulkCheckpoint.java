@@ -0,0 +1,124 @@
+package com.global.api.services;
+
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.ConfigurationException;
+import com.global.api.terminals.abstractions.IDisposable;
+
+import java.io.*;
+import java.util.BitSet;
+
+/**
+ * Checkpoint kept as an append-only journal of completed sequence numbers, one per line and
+ * flushed as each request completes. A line torn by a crash is dropped when the journal is
+ * reopened, so at worst the request it recorded runs again.
+ */
+public class FileBulkCheckpoint implements IBulkCheckpoint, IDisposable {
+    private final BitSet completed = new BitSet();
+    private final Writer writer;
+    private int completedCount;
+
+    public FileBulkCheckpoint(String path) throws ApiException {
+        this(new File(path));
+    }
+    public FileBulkCheckpoint(File file) throws ApiException {
+        try {
+            if(file.exists()) {
+                long valid = load(file);
+                if(valid < file.length()) {
+                    truncate(file, valid);
+                }
+            }
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), "UTF-8"));
+        }
+        catch(IOException exc) {
+            throw new ApiException(String.format("Unable to open checkpoint %s.", file), exc);
+        }
+    }
+
+    public synchronized int getCompletedCount() {
+        return completedCount;
+    }
+
+    public synchronized boolean isCompleted(long sequence) {
+        return sequence <= Integer.MAX_VALUE && completed.get((int) sequence);
+    }
+
+    public synchronized void markCompleted(long sequence) throws ApiException {
+        if(sequence > Integer.MAX_VALUE) {
+            throw new ConfigurationException("Sequence exceeds the capacity of a file checkpoint.");
+        }
+        if(completed.get((int) sequence)) {
+            return;
+        }
+
+        try {
+            writer.write(Long.toString(sequence));
+            writer.write('\n');
+            writer.flush();
+        }
+        catch(IOException exc) {
+            throw new ApiException("Unable to write checkpoint.", exc);
+        }
+        completed.set((int) sequence);
+        completedCount++;
+    }
+
+    public synchronized void dispose() {
+        try {
+            writer.close();
+        }
+        catch(IOException exc) {
+            /* NOM NOM */
+        }
+    }
+
+    /**
+     * @return the length of the journal up to the end of its last complete line
+     */
+    private long load(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            StringBuilder line = new StringBuilder();
+            long length = 0;
+            long valid = 0;
+            int c;
+            while((c = reader.read()) != -1) {
+                length++;
+                if(c != '\n') {
+                    line.append((char) c);
+                    continue;
+                }
+                record(line.toString().trim());
+                line.setLength(0);
+                valid = length;
+            }
+            return valid;
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    private void truncate(File file, long length) throws IOException {
+        RandomAccessFile journal = new RandomAccessFile(file, "rw");
+        try {
+            journal.setLength(length);
+        }
+        finally {
+            journal.close();
+        }
+    }
+
+    private void record(String line) {
+        try {
+            int sequence = Integer.parseInt(line);
+            if(sequence >= 0 && !completed.get(sequence)) {
+                completed.set(sequence);
+                completedCount++;
+            }
+        }
+        catch(NumberFormatException exc) {
+            // a torn or garbled line; the request it recorded will run again
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.global.api.services;
+
+import com.global.api.entities.exceptions.ApiException;
+
+/**
+ * Progress of a {@link BulkExecutor} run, recorded by the position of each request in the
+ * run's input. A run resumed with the same checkpoint and the same input in the same order
+ * skips every request already marked completed.
+ */
+public interface IBulkCheckpoint {
+    boolean isCompleted(long sequence);
+
+    void markCompleted(long sequence) throws ApiException;
+}
@@ -8,11 +8,18 @@ import com.global.api.serviceConfigs.PayrollConfig;
 import com.global.api.terminals.abstractions.IDisposable;
 import org.joda.time.DateTime;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class PayrollService implements IDisposable {
+    private static final String SENT_EMPLOYEES = "Employee:sent";
+
     private String configName;
     private PayrollConnector connector;
+    private int syncThreads = 4;
+    private ExecutorService syncPool;
 
     public PayrollService(PayrollConfig config) throws ApiException {
         this(config, "default");
@@ -26,6 +33,16 @@ public class PayrollService implements IDisposable {
         this.connector.signIn();
     }
 
+    public int getSyncThreads() {
+        return syncThreads;
+    }
+    /**
+     * Requests a sync runs at once under this service's session; set before the first sync.
+     */
+    public void setSyncThreads(int syncThreads) {
+        this.syncThreads = Math.max(1, syncThreads);
+    }
+
     public List<ClientInfo> getClientInfo(int federalEin) throws ApiException {
         ClientInfo request = new ClientInfo();
         request.setFederalEin(federalEin);
@@ -140,6 +157,118 @@ public class PayrollService implements IDisposable {
         return response != null;
     }
 
+    /**
+     * Fetches the client's employees, pay items, labor fields and work locations in parallel and
+     * returns only the records added, changed or removed since the snapshot, which is brought up
+     * to date; save it once the changes have been processed. Records are kept per client, so one
+     * snapshot may be shared by the syncs of several clients.
+     */
+    public PayrollSyncResult sync(final ClientInfo client, PayrollSnapshot clientsSnapshot) throws ApiException {
+        final PayrollSnapshot snapshot = clientsSnapshot.forClient(client.getClientCode());
+        Future<PayrollResponse<Employee>> employees = submit(new Callable<PayrollResponse<Employee>>() {
+            public PayrollResponse<Employee> call() throws ApiException {
+                EmployeeFilter filter = new EmployeeFilter();
+                filter.setClientCode(client.getClientCode());
+                return connector.sendEncryptedRequest(filter.getEmployeeRequest(), Employee.class, snapshot);
+            }
+        });
+        Future<PayrollResponse<PayItem>> payItems = submitCollection(client, PayItem.class, snapshot);
+        Future<PayrollResponse<LaborField>> laborFields = submitCollection(client, LaborField.class, snapshot);
+        Future<PayrollResponse<WorkLocation>> workLocations = submitCollection(client, WorkLocation.class, snapshot);
+
+        PayrollSyncResult result = new PayrollSyncResult();
+        result.setEmployees(await(employees));
+        result.setPayItems(await(payItems));
+        result.setLaborFields(await(laborFields));
+        result.setWorkLocations(await(workLocations));
+        return result;
+    }
+
+    /**
+     * Adds the employees without an id and updates the others, in parallel, sending only those
+     * that changed since they were last sent with this snapshot.
+     *
+     * @return the gateway's copy of each employee sent
+     */
+    public List<Employee> saveEmployees(List<Employee> employees, final PayrollSnapshot snapshot) throws ApiException {
+        List<Future<PayrollResponse<Employee>>> futures = new ArrayList<Future<PayrollResponse<Employee>>>();
+        for(Employee employee : employees) {
+            IPayrollRequestBuilder builder = employee.getEmployeeId() == 0 ? employee.addEmployeeRequest() : employee.updateEmployeeRequest();
+            final PayrollRequest request = builder.buildRequest(connector.getEncoder(), Employee.class);
+            final String key = employee.getEmployeeId() == 0 ? null : String.valueOf(employee.getEmployeeId());
+            final String digest = PayrollSnapshot.digest(request.getEndpoint() + request.getRequestBody());
+            if(key != null && digest.equals(snapshot.get(SENT_EMPLOYEES, key))) {
+                continue;
+            }
+
+            futures.add(submit(new Callable<PayrollResponse<Employee>>() {
+                public PayrollResponse<Employee> call() throws ApiException {
+                    PayrollResponse<Employee> response = connector.sendEncryptedRequest(request, Employee.class);
+                    if(key != null) {
+                        snapshot.put(SENT_EMPLOYEES, key, digest);
+                    }
+                    return response;
+                }
+            }));
+        }
+
+        List<Employee> results = new ArrayList<Employee>();
+        ApiException failure = null;
+        for(Future<PayrollResponse<Employee>> future : futures) {
+            try {
+                PayrollResponse<Employee> response = await(future);
+                if(response != null && response.getResults().size() > 0)
+                    results.add(response.getResults().get(0));
+            }
+            catch(ApiException exc) {
+                if(failure == null)
+                    failure = exc;
+            }
+        }
+        if(failure != null)
+            throw failure;
+        return results;
+    }
+
+    private <T extends PayrollCollectionItem> Future<PayrollResponse<T>> submitCollection(final ClientInfo client, final Class<T> clazz, final PayrollSnapshot snapshot) {
+        return submit(new Callable<PayrollResponse<T>>() {
+            public PayrollResponse<T> call() throws ApiException {
+                return connector.sendEncryptedRequest(client.getCollectionRequestByType(), clazz, snapshot);
+            }
+        });
+    }
+
+    private synchronized <T> Future<T> submit(Callable<T> task) {
+        if(syncPool == null) {
+            final AtomicInteger count = new AtomicInteger();
+            syncPool = Executors.newFixedThreadPool(syncThreads, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "gp-payroll-sync-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return syncPool.submit(task);
+    }
+
+    private <T> T await(Future<T> future) throws ApiException {
+        try {
+            return future.get();
+        }
+        catch(InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Interrupted while waiting for a payroll sync.", exc);
+        }
+        catch(ExecutionException exc) {
+            if(exc.getCause() instanceof ApiException)
+                throw (ApiException)exc.getCause();
+            if(exc.getCause() instanceof Error)
+                throw (Error)exc.getCause();
+            throw new ApiException(exc.getCause().getMessage(), (Exception)exc.getCause());
+        }
+    }
+
     private <T extends PayrollCollectionItem> List<T> getPayrollCollectionItem(ClientInfo client, Class<T> clazz) throws ApiException {
         PayrollResponse<T> response = connector.sendEncryptedRequest(client.getCollectionRequestByType(), clazz);
         if(response != null)
@@ -148,6 +277,10 @@ public class PayrollService implements IDisposable {
     }
 
     public void dispose() {
+        synchronized (this) {
+            if(syncPool != null)
+                syncPool.shutdownNow();
+        }
         try {
             connector.signOut();
         }
@@ -0,0 +1,85 @@
+package com.global.api.services;
+
+import com.global.api.builders.RecurringBuilder;
+import com.global.api.entities.RecurringCollection;
+import com.global.api.entities.exceptions.ApiException;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Pages through the results of a recurring search. A page is requested only once the previous
+ * one has been consumed, so walking the whole customer base holds a single page in memory.
+ * Iterating cannot throw {@link ApiException}; a failed page request surfaces from
+ * {@link #hasNext()} as an {@link IllegalStateException} caused by it. Use {@link #nextPage()}
+ * directly to handle it as an {@link ApiException} instead.
+ */
+public class RecurringSearchIterator<T> implements Iterator<T> {
+    private final RecurringBuilder<? extends RecurringCollection<T>> search;
+    private final int pageSize;
+    private final String configName;
+    private int offset;
+    private boolean lastPage;
+    private Iterator<T> page;
+
+    public RecurringSearchIterator(RecurringBuilder<? extends RecurringCollection<T>> search, int pageSize, String configName) {
+        this.search = search;
+        this.pageSize = Math.max(1, pageSize);
+        this.configName = configName;
+    }
+
+    /**
+     * @return the number of results requested so far
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return the next page of results, or null once they are exhausted
+     */
+    public RecurringCollection<T> nextPage() throws ApiException {
+        if(lastPage) {
+            return null;
+        }
+
+        RecurringCollection<T> results = search.withPageOffset(offset).withPageSize(pageSize).execute(configName);
+        if(results == null || results.isEmpty()) {
+            lastPage = true;
+            return null;
+        }
+
+        offset += results.size();
+        Integer total = results.getTotalRecords();
+        lastPage = results.size() < pageSize || (total != null && offset >= total);
+        return results;
+    }
+
+    public boolean hasNext() {
+        while(page == null || !page.hasNext()) {
+            RecurringCollection<T> results;
+            try {
+                results = nextPage();
+            }
+            catch(ApiException exc) {
+                throw new IllegalStateException(exc.getMessage(), exc);
+            }
+            if(results == null) {
+                return false;
+            }
+            page = results.iterator();
+        }
+        return true;
+    }
+
+    public T next() {
+        if(!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
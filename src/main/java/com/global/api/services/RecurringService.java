@@ -4,14 +4,19 @@ import com.global.api.builders.RecurringBuilder;
 import com.global.api.entities.Customer;
 import com.global.api.entities.IRecurringCollection;
 import com.global.api.entities.IRecurringEntity;
+import com.global.api.entities.RecurringCollection;
 import com.global.api.entities.enums.TransactionType;
 import com.global.api.entities.exceptions.ApiException;
 
+import java.util.Iterator;
 import java.util.List;
 
 public class RecurringService {
     public static <T extends IRecurringEntity> T create(T entity, Class<T> clazz) throws ApiException {
-        return new RecurringBuilder<T>(TransactionType.Create, entity, clazz).execute();
+        return create(entity, clazz, "default");
+    }
+    public static <T extends IRecurringEntity> T create(T entity, Class<T> clazz, String configName) throws ApiException {
+        return new RecurringBuilder<T>(TransactionType.Create, entity, clazz).execute(configName);
     }
 
     public static <T extends IRecurringEntity> T delete(T entity, Class<T> clazz) throws ApiException {
@@ -36,4 +41,45 @@ public class RecurringService {
     public static <T extends IRecurringCollection> RecurringBuilder<T> search(Class<T> clazz) throws ApiException {
         return new RecurringBuilder<T>(TransactionType.Search, clazz);
     }
+
+    public static <T> RecurringSearchIterator<T> stream(RecurringBuilder<? extends RecurringCollection<T>> search, int pageSize) {
+        return stream(search, pageSize, "default");
+    }
+    /**
+     * Iterates over every result of the search, requesting it a page at a time.
+     */
+    public static <T> RecurringSearchIterator<T> stream(RecurringBuilder<? extends RecurringCollection<T>> search, int pageSize, String configName) {
+        return new RecurringSearchIterator<T>(search, pageSize, configName);
+    }
+
+    /**
+     * Creates every entity through the executor, which bounds how many requests run at once;
+     * each created entity is the response of its result.
+     */
+    public static <T extends IRecurringEntity> BulkExecutor.Summary createAll(BulkExecutor executor, Iterator<T> entities, Class<T> clazz, String configName, BulkExecutor.IResultHandler handler) throws ApiException {
+        return executor.execute(builders(TransactionType.Create, entities, clazz), configName, handler);
+    }
+
+    /**
+     * Saves the changes to every entity through the executor; see {@link #createAll}.
+     */
+    public static <T extends IRecurringEntity> BulkExecutor.Summary editAll(BulkExecutor executor, Iterator<T> entities, Class<T> clazz, String configName, BulkExecutor.IResultHandler handler) throws ApiException {
+        return executor.execute(builders(TransactionType.Edit, entities, clazz), configName, handler);
+    }
+
+    private static <T extends IRecurringEntity> Iterator<RecurringBuilder<T>> builders(final TransactionType type, final Iterator<T> entities, final Class<T> clazz) {
+        return new Iterator<RecurringBuilder<T>>() {
+            public boolean hasNext() {
+                return entities.hasNext();
+            }
+
+            public RecurringBuilder<T> next() {
+                return new RecurringBuilder<T>(type, entities.next(), clazz);
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
 }
@@ -0,0 +1,159 @@
+package com.global.api.services;
+
+import com.global.api.ServicesContainer;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.ConfigurationException;
+import com.global.api.io.NioReactor;
+import com.global.api.terminals.ConnectionConfig;
+import com.global.api.terminals.DeviceController;
+import com.global.api.terminals.abstractions.IDeviceInterface;
+import com.global.api.terminals.abstractions.IDeviceMessage;
+import com.global.api.terminals.abstractions.IDisposable;
+import com.global.api.terminals.pax.interfaces.PaxTcpInterface;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives many terminals from one process. Lane connections are spread across a small number of
+ * {@link NioReactor}s, so idle lanes hold no thread; sends run on a shared worker pool with
+ * each lane serialised (see {@link TerminalLane}). PAX lanes keep their TCP connection open
+ * between messages and HeartSIP lanes are kept warm with a HEARTBEAT whenever they have been
+ * idle for the heartbeat interval.
+ */
+public class TerminalFleet implements IDisposable {
+    private final NioReactor[] reactors;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentHashMap<String, TerminalLane> lanes = new ConcurrentHashMap<String, TerminalLane>();
+    private final AtomicInteger nextReactor = new AtomicInteger();
+    private int heartbeatInterval = 60000;
+    private ScheduledFuture<?> heartbeatTask;
+
+    public TerminalFleet() throws IOException {
+        this(1, 8);
+    }
+    public TerminalFleet(int reactorCount, int workerThreads) throws IOException {
+        reactors = new NioReactor[Math.max(1, reactorCount)];
+        for(int i = 0; i < reactors.length; i++) {
+            reactors[i] = new NioReactor("gp-terminal-fleet-" + i);
+        }
+        workers = Executors.newFixedThreadPool(Math.max(1, workerThreads), daemonThreads("gp-terminal-lane"));
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("gp-terminal-heartbeat"));
+        scheduleHeartbeats();
+    }
+
+    public int getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+    /**
+     * Idle time in milliseconds after which a HeartSIP lane is sent a HEARTBEAT; zero disables.
+     */
+    public synchronized void setHeartbeatInterval(int heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+        scheduleHeartbeats();
+    }
+
+    /**
+     * Configures the device under the lane id (so it is also reachable through
+     * {@link ServicesContainer}) and starts connecting it in the background.
+     */
+    public TerminalLane register(String laneId, ConnectionConfig config) throws ApiException {
+        if(lanes.containsKey(laneId)) {
+            throw new ConfigurationException(String.format("Lane %s is already registered.", laneId));
+        }
+
+        config.setReactor(reactors[(nextReactor.getAndIncrement() & Integer.MAX_VALUE) % reactors.length]);
+        IDeviceInterface device = DeviceService.create(config, laneId);
+        DeviceController controller = ServicesContainer.getInstance().getDeviceController(laneId);
+        if(controller.getCommInterface() instanceof PaxTcpInterface) {
+            ((PaxTcpInterface) controller.getCommInterface()).setPersistent(true);
+        }
+
+        TerminalLane lane = new TerminalLane(laneId, config, controller, device, workers);
+        TerminalLane existing = lanes.putIfAbsent(laneId, lane);
+        if(existing != null) {
+            throw new ConfigurationException(String.format("Lane %s is already registered.", laneId));
+        }
+        lane.connect();
+        return lane;
+    }
+
+    public TerminalLane getLane(String laneId) {
+        return lanes.get(laneId);
+    }
+
+    public Collection<TerminalLane> getLanes() {
+        return new ArrayList<TerminalLane>(lanes.values());
+    }
+
+    /**
+     * Closes the lane, cancelling its queued work, and removes its device from
+     * {@link ServicesContainer}.
+     */
+    public void unregister(String laneId) {
+        TerminalLane lane = lanes.remove(laneId);
+        if(lane != null) {
+            lane.close();
+            ServicesContainer.removeDevice(laneId, lane.getController());
+        }
+    }
+
+    /**
+     * @throws RejectedExecutionException if the lane was closed while the message was submitted
+     */
+    public Future<byte[]> sendAsync(String laneId, IDeviceMessage message) throws ApiException {
+        TerminalLane lane = lanes.get(laneId);
+        if(lane == null) {
+            throw new ConfigurationException(String.format("Lane %s is not registered.", laneId));
+        }
+        return lane.sendAsync(message);
+    }
+
+    private synchronized void scheduleHeartbeats() {
+        if(heartbeatTask != null) {
+            heartbeatTask.cancel(false);
+            heartbeatTask = null;
+        }
+        if(heartbeatInterval <= 0) {
+            return;
+        }
+
+        long period = Math.max(100, heartbeatInterval / 4);
+        heartbeatTask = scheduler.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                long idleSince = System.currentTimeMillis() - heartbeatInterval;
+                for(TerminalLane lane : lanes.values()) {
+                    if(lane.isHeartbeatSupported() && lane.getLastActivity() <= idleSince) {
+                        lane.heartbeat();
+                    }
+                }
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public void dispose() {
+        scheduler.shutdownNow();
+        for(String laneId : new ArrayList<String>(lanes.keySet())) {
+            unregister(laneId);
+        }
+        workers.shutdown();
+        for(NioReactor reactor : reactors) {
+            reactor.dispose();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+        final AtomicInteger count = new AtomicInteger();
+        return new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+}
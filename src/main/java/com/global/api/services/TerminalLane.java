@@ -0,0 +1,222 @@
+package com.global.api.services;
+
+import com.global.api.entities.enums.DeviceType;
+import com.global.api.entities.enums.HpaMsgId;
+import com.global.api.entities.enums.MessageFormat;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.metrics.MetricsRegistry;
+import com.global.api.terminals.ConnectionConfig;
+import com.global.api.terminals.DeviceController;
+import com.global.api.terminals.TerminalUtilities;
+import com.global.api.terminals.abstractions.IDeviceInterface;
+import com.global.api.terminals.abstractions.IDeviceMessage;
+import com.global.api.terminals.hpa.builders.HpaAdminBuilder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * One device registered with a {@link TerminalFleet}. Work submitted to a lane runs on the
+ * fleet's shared worker pool but strictly one task at a time, in submission order, since a
+ * terminal only handles a single message at once.
+ */
+public class TerminalLane {
+    private final String id;
+    private final ConnectionConfig config;
+    private final DeviceController controller;
+    private final IDeviceInterface device;
+    private final Executor workers;
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>();
+    private boolean draining;
+    private volatile long lastActivity = System.currentTimeMillis();
+    private volatile boolean heartbeatPending;
+    private volatile boolean closed;
+
+    TerminalLane(String id, ConnectionConfig config, DeviceController controller, IDeviceInterface device, Executor workers) {
+        this.id = id;
+        this.config = config;
+        this.controller = controller;
+        this.device = device;
+        this.workers = workers;
+    }
+
+    public String getId() {
+        return id;
+    }
+    public ConnectionConfig getConfig() {
+        return config;
+    }
+    /**
+     * High level device operations. Calls made directly on the interface bypass the lane's
+     * queue; use {@link #submit(Callable)} to order them with other lane traffic.
+     */
+    public IDeviceInterface getDevice() {
+        return device;
+    }
+    public long getLastActivity() {
+        return lastActivity;
+    }
+    DeviceController getController() {
+        return controller;
+    }
+
+    public Future<byte[]> sendAsync(final IDeviceMessage message) {
+        return submit(new Callable<byte[]>() {
+            public byte[] call() throws Exception {
+                return controller.send(message);
+            }
+        });
+    }
+
+    /**
+     * @throws RejectedExecutionException if the lane has been closed
+     */
+    public <T> Future<T> submit(final Callable<T> task) {
+        FutureTask<T> future = new FutureTask<T>(new Callable<T>() {
+            public T call() throws Exception {
+                try {
+                    return task.call();
+                }
+                finally {
+                    lastActivity = System.currentTimeMillis();
+                }
+            }
+        });
+        enqueue(future);
+        return future;
+    }
+
+    boolean isHeartbeatSupported() {
+        return config.getDeviceType() == DeviceType.HPA_ISC250;
+    }
+
+    void connect() {
+        enqueue(new Runnable() {
+            public void run() {
+                controller.getCommInterface().connect();
+            }
+        });
+    }
+
+    // queues a heartbeat unless one is already waiting behind other work
+    void heartbeat() {
+        if(heartbeatPending || closed) {
+            return;
+        }
+        heartbeatPending = true;
+        try {
+            enqueueHeartbeat();
+        }
+        catch(RejectedExecutionException exc) {
+            heartbeatPending = false;
+        }
+    }
+
+    private void enqueueHeartbeat() {
+        enqueue(new Runnable() {
+            public void run() {
+                long started = System.nanoTime();
+                String responseCode = "error";
+                try {
+                    HpaAdminBuilder builder = new HpaAdminBuilder(HpaMsgId.HEARTBEAT.getValue());
+                    if(config.getRequestIdProvider() != null) {
+                        builder.set("RequestId", config.getRequestIdProvider().getRequestId());
+                    }
+                    IDeviceMessage message = TerminalUtilities.buildRequest(builder.buildMessage(), MessageFormat.HPA);
+                    message.setAwaitResponse(true);
+
+                    controller.send(message);
+                    responseCode = "success";
+                }
+                catch(ApiException exc) {
+                    // the next request reconnects if the device went away
+                }
+                finally {
+                    heartbeatPending = false;
+                    lastActivity = System.currentTimeMillis();
+                    MetricsRegistry.getInstance().recordLatency("TerminalFleet", "heartbeat", id, "device", responseCode, started);
+                }
+            }
+        });
+    }
+
+    void close() {
+        synchronized (tasks) {
+            closed = true;
+        }
+        cancelPending(false);
+
+        // HeartSIP's controller and interface dispose each other, so only drop the connection
+        controller.getCommInterface().disconnect();
+    }
+
+    private void enqueue(Runnable task) {
+        synchronized (tasks) {
+            if(closed) {
+                throw new RejectedExecutionException(String.format("Lane %s is closed.", id));
+            }
+            tasks.add(task);
+            if(draining) {
+                return;
+            }
+            draining = true;
+        }
+
+        try {
+            workers.execute(new Runnable() {
+                public void run() {
+                    drain();
+                }
+            });
+        }
+        catch(RejectedExecutionException exc) {
+            // the fleet's pool is shut down, nothing queued here will ever run
+            cancelPending(true);
+            throw exc;
+        }
+    }
+
+    // releases callers waiting on work that will not run
+    private void cancelPending(boolean stopDraining) {
+        List<Runnable> pending;
+        synchronized (tasks) {
+            pending = new ArrayList<Runnable>(tasks);
+            tasks.clear();
+            if(stopDraining) {
+                draining = false;
+            }
+        }
+
+        for(Runnable task : pending) {
+            if(task instanceof Future) {
+                ((Future<?>) task).cancel(false);
+            }
+        }
+    }
+
+    private void drain() {
+        while(true) {
+            Runnable task;
+            synchronized (tasks) {
+                task = tasks.poll();
+                if(task == null) {
+                    draining = false;
+                    return;
+                }
+            }
+
+            try {
+                task.run();
+            }
+            catch(RuntimeException exc) {
+                // a failed task must not stall the lane
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.global.api.terminals;
 import com.global.api.ConfiguredServices;
 import com.global.api.entities.enums.*;
 import com.global.api.entities.exceptions.ConfigurationException;
+import com.global.api.io.NioReactor;
 import com.global.api.serviceConfigs.Configuration;
 import com.global.api.terminals.abstractions.ITerminalConfiguration;
 import com.global.api.terminals.hpa.HpaController;
@@ -19,6 +20,7 @@ public class ConnectionConfig extends Configuration implements ITerminalConfigur
     private int port;
     private DeviceType deviceType;
     private IRequestIdProvider requestIdProvider;
+    private NioReactor reactor;
 
     public ConnectionModes getConnectionMode() {
         return connectionMode;
@@ -75,6 +77,16 @@ public class ConnectionConfig extends Configuration implements ITerminalConfigur
 		this.requestIdProvider = requestIdProvider;
 	}
 
+    public NioReactor getReactor() {
+        return reactor;
+    }
+    /**
+     * Reactor servicing the device's TCP connection; when not set the shared default is used.
+     */
+    public void setReactor(NioReactor reactor) {
+        this.reactor = reactor;
+    }
+
     public ConnectionConfig(){
         timeout = 30000;
     }
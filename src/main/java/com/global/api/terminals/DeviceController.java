@@ -24,6 +24,10 @@ public abstract class DeviceController implements IDisposable {
         return null;
     }
 
+    public IDeviceCommInterface getCommInterface() {
+        return _interface;
+    }
+
     public DeviceController(ITerminalConfiguration settings) throws ConfigurationException {
         settings.validate();
         this.settings = settings;
@@ -0,0 +1,213 @@
+package com.global.api.terminals;
+
+import com.global.api.entities.exceptions.MessageException;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Signature strokes as captured by the device: a sequence of points where the pen up marker
+ * (0, 65535) separates strokes. Keeping the vector form lets a response be stored or shipped
+ * in a few hundred bytes via {@link #toByteArray()}; drawing it with AWT only happens when an
+ * image is actually asked for, which {@link SignatureRenderer} can do off the calling thread.
+ */
+public class SignaturePath {
+    public static final int WIDTH = 150;
+    public static final int HEIGHT = 100;
+
+    private static final int PEN_UP_X = 0;
+    private static final int PEN_UP_Y = 65535;
+    private static final int ENCODING_VERSION = 1;
+
+    private final int[] points;
+    private final int pointCount;
+
+    private SignaturePath(int[] points, int pointCount) {
+        this.points = points;
+        this.pointCount = pointCount;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+    public int getX(int index) {
+        return points[index * 2];
+    }
+    public int getY(int index) {
+        return points[index * 2 + 1];
+    }
+    public boolean isPenUp(int index) {
+        return getX(index) == PEN_UP_X && getY(index) == PEN_UP_Y;
+    }
+
+    /**
+     * Parses the PAX path data, {@code x,y^x,y^0,65535^...^~}, where the comma may also appear
+     * in its rendered {@code [COMMA]} form.
+     */
+    public static SignaturePath parse(String pathData) throws MessageException {
+        int[] points = new int[64];
+        int count = 0;
+
+        int length = pathData.length();
+        int position = 0;
+        while(position < length && pathData.charAt(position) != '~') {
+            int end = pathData.indexOf('^', position);
+            if(end < 0) {
+                end = length;
+            }
+
+            if(end > position) {
+                int comma = pathData.indexOf(',', position);
+                int separator = 1;
+                int rendered = pathData.indexOf("[COMMA]", position);
+                if(rendered >= 0 && rendered < end && (comma < 0 || rendered < comma)) {
+                    comma = rendered;
+                    separator = 7;
+                }
+                if(comma < 0 || comma >= end) {
+                    throw new MessageException(String.format("Invalid signature coordinate %s.", pathData.substring(position, end)));
+                }
+
+                if(count * 2 == points.length) {
+                    int[] grown = new int[points.length * 2];
+                    System.arraycopy(points, 0, grown, 0, points.length);
+                    points = grown;
+                }
+                points[count * 2] = parseCoordinate(pathData, position, comma);
+                points[count * 2 + 1] = parseCoordinate(pathData, comma + separator, end);
+                count++;
+            }
+            position = end + 1;
+        }
+        return new SignaturePath(points, count);
+    }
+
+    /**
+     * Compact binary form: a version byte, the point count, then each point as zig-zag varint
+     * deltas from the previous one.
+     */
+    public byte[] toByteArray() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(4 + pointCount * 2);
+        buffer.write(ENCODING_VERSION);
+        writeVarInt(buffer, pointCount);
+
+        int lastX = 0;
+        int lastY = 0;
+        for(int i = 0; i < pointCount; i++) {
+            int x = getX(i);
+            int y = getY(i);
+            writeVarInt(buffer, zigZag(x - lastX));
+            writeVarInt(buffer, zigZag(y - lastY));
+            lastX = x;
+            lastY = y;
+        }
+        return buffer.toByteArray();
+    }
+
+    public static SignaturePath fromByteArray(byte[] data) throws MessageException {
+        int[] position = { 0 };
+        if(data.length == 0 || data[position[0]++] != ENCODING_VERSION) {
+            throw new MessageException("Unsupported signature encoding.");
+        }
+
+        int count = readVarInt(data, position);
+        int[] points = new int[Math.max(2, count * 2)];
+        int x = 0;
+        int y = 0;
+        for(int i = 0; i < count; i++) {
+            x += unZigZag(readVarInt(data, position));
+            y += unZigZag(readVarInt(data, position));
+            points[i * 2] = x;
+            points[i * 2 + 1] = y;
+        }
+        return new SignaturePath(points, count);
+    }
+
+    /**
+     * Draws the strokes on a white {@link #WIDTH} x {@link #HEIGHT} canvas and encodes it with
+     * ImageIO, e.g. "png" or "bmp".
+     */
+    public byte[] render(String format) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D gfx = image.createGraphics();
+        gfx.setColor(Color.WHITE);
+        gfx.fillRect(0, 0, WIDTH, HEIGHT);
+        gfx.setColor(Color.BLACK);
+
+        boolean penDown = false;
+        for(int i = 0; i < pointCount; i++) {
+            if(isPenUp(i)) {
+                penDown = false;
+                continue;
+            }
+
+            if(penDown) {
+                gfx.drawLine(getX(i - 1), getY(i - 1), getX(i), getY(i));
+            }
+            else if(i + 1 >= pointCount || isPenUp(i + 1)) {
+                gfx.fillRect(getX(i), getY(i), 1, 1);
+            }
+            penDown = true;
+        }
+        gfx.dispose();
+
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            ImageIO.write(image, format, buffer);
+            return buffer.toByteArray();
+        }
+        catch(IOException exc) {
+            return null;
+        }
+    }
+
+    private static int parseCoordinate(String pathData, int from, int to) throws MessageException {
+        if(from >= to) {
+            throw new MessageException("Invalid signature coordinate.");
+        }
+        int value = 0;
+        for(int i = from; i < to; i++) {
+            char c = pathData.charAt(i);
+            if(c < '0' || c > '9') {
+                throw new MessageException(String.format("Invalid signature coordinate %s.", pathData.substring(from, to)));
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream buffer, int value) {
+        while((value & ~0x7F) != 0) {
+            buffer.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer.write(value);
+    }
+
+    private static int readVarInt(byte[] data, int[] position) throws MessageException {
+        int value = 0;
+        for(int shift = 0; shift < 35; shift += 7) {
+            if(position[0] >= data.length) {
+                throw new MessageException("Truncated signature data.");
+            }
+            byte b = data[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new MessageException("Malformed signature data.");
+    }
+}
@@ -0,0 +1,68 @@
+package com.global.api.terminals;
+
+import com.global.api.terminals.abstractions.IDisposable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders {@link SignaturePath}s to images on background threads so AWT and ImageIO stay off
+ * the transaction path. The default renderer uses a single daemon thread and PNG output.
+ */
+public class SignatureRenderer implements IDisposable {
+    private static SignatureRenderer defaultRenderer;
+
+    private final ExecutorService executor;
+    private final String format;
+
+    public SignatureRenderer(int threads, String format) {
+        this.format = format;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "gp-signature-renderer-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    public static synchronized SignatureRenderer getDefault() {
+        if(defaultRenderer == null) {
+            defaultRenderer = new SignatureRenderer(1, "png");
+        }
+        return defaultRenderer;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public Future<byte[]> render(final SignaturePath path) {
+        return executor.submit(new Callable<byte[]>() {
+            public byte[] call() {
+                return path.render(format);
+            }
+        });
+    }
+
+    public List<Future<byte[]>> renderAll(Collection<SignaturePath> paths) {
+        List<Future<byte[]>> images = new ArrayList<Future<byte[]>>(paths.size());
+        for(SignaturePath path : paths) {
+            images.add(render(path));
+        }
+        return images;
+    }
+
+    public void dispose() {
+        executor.shutdown();
+    }
+}
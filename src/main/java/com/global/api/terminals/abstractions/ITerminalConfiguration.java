@@ -3,6 +3,7 @@ package com.global.api.terminals.abstractions;
 import com.global.api.entities.enums.*;
 import com.global.api.entities.exceptions.ApiException;
 import com.global.api.entities.exceptions.ConfigurationException;
+import com.global.api.io.NioReactor;
 import com.global.api.terminals.IRequestIdProvider;
 
 public interface ITerminalConfiguration {
@@ -27,4 +28,14 @@ public interface ITerminalConfiguration {
     void setDeviceType(DeviceType type);
     IRequestIdProvider getRequestIdProvider();
     void setRequestIdProvider(IRequestIdProvider requestIdProvider);
+    /**
+     * @return the reactor serving the device connection, or null to use the shared default
+     */
+    default NioReactor getReactor() {
+        return null;
+    }
+    /**
+     * Ignored unless the configuration overrides {@link #getReactor()}.
+     */
+    default void setReactor(NioReactor reactor) { }
 }
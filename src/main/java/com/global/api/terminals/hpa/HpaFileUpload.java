@@ -3,25 +3,35 @@ package com.global.api.terminals.hpa;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
-import com.global.api.utils.IOUtils;
-import com.global.api.utils.StringUtils;
-import org.apache.commons.codec.binary.Hex;
 import com.global.api.entities.enums.SendFileType;
 import com.global.api.entities.exceptions.ApiException;
 
+/**
+ * Streams an image to the device in hex encoded parts. The file is read through a channel one
+ * part at a time into buffers reused across parts, so memory use does not grow with the image.
+ */
 class HpaFileUpload {
-    private String hexData;
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
     private String fileName;
-    private int fileSize;
+    private long fileSize;
+    private long bytesRead;
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private char[] hexData;
 
     String getFileName() {
         return fileName;
     }
-    int getFileSize() {
+    long getFileSize() {
         return fileSize;
     }
+    long getBytesRead() {
+        return bytesRead;
+    }
 
     HpaFileUpload(SendFileType imageType, String filePath) throws ApiException {
         //File name
@@ -43,32 +53,65 @@ class HpaFileUpload {
                 throw new ApiException("Unknown Send file type");
             }
         }
-        
+
         //File size
-        byte[] buffer;
         try {
-            FileInputStream input = new FileInputStream(file);
-            buffer = new byte[input.available()];
-            int bytesRead = input.read(buffer, 0, buffer.length);
+            channel = new FileInputStream(file).getChannel();
+            fileSize = channel.size();
         } catch (IOException e) {
+            close();
+            throw new ApiException("Buffer should not be empty.", e);
+        }
+        if (fileSize == 0) {
+            close();
             throw new ApiException("Buffer should not be empty.");
         }
-        hexData = Hex.encodeHexString(buffer).toUpperCase();
-        fileSize = buffer.length;
     }
-    
-    LinkedList<String> getFileParts(int maxDataLength) {
-        if (StringUtils.isNullOrEmpty(hexData)) {
-            return null;
+
+    boolean hasMoreParts() {
+        return bytesRead < fileSize;
+    }
+
+    /**
+     * @param maxDataLength the most hex characters the device accepts in one FileData element
+     */
+    String readPart(int maxDataLength) throws ApiException {
+        int partSize = Math.max(1, maxDataLength / 2);
+        if (buffer == null || buffer.capacity() != partSize) {
+            buffer = ByteBuffer.allocate(partSize);
+            hexData = new char[partSize * 2];
+        }
+
+        buffer.clear();
+        try {
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // fill the part unless the file ends first
+            }
+        } catch (IOException e) {
+            throw new ApiException("Failed to read the file.", e);
         }
+        buffer.flip();
 
-        LinkedList<String> fileParts = new LinkedList<String>();
-        for (int i = 0; i < hexData.length(); i += maxDataLength) {
-            int remainingBytes = hexData.length() - i;
-            int endIndex = i + Math.min(maxDataLength, remainingBytes);
+        int length = buffer.remaining();
+        if (length == 0) {
+            throw new ApiException("The file ended before its reported size.");
+        }
+        for (int i = 0; i < length; i++) {
+            int b = buffer.get(i) & 0xFF;
+            hexData[i * 2] = HEX[b >>> 4];
+            hexData[i * 2 + 1] = HEX[b & 0x0F];
+        }
+        bytesRead += length;
+        return new String(hexData, 0, length * 2);
+    }
 
-            fileParts.add(hexData.substring(i, endIndex));
+    void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // nothing left to release
+            }
         }
-        return fileParts;
     }
 }
@@ -22,6 +22,7 @@ import com.global.api.terminals.hpa.responses.EODResponse;
 import com.global.api.terminals.hpa.responses.InitializeResponse;
 import com.global.api.terminals.hpa.responses.SAFResponse;
 import com.global.api.terminals.hpa.responses.SignatureResponse;
+import com.global.api.terminals.messaging.IFileUploadProgressInterface;
 import com.global.api.terminals.messaging.IMessageSentInterface;
 import com.global.api.terminals.pax.responses.SAFDeleteResponse;
 import com.global.api.terminals.pax.responses.SAFSummaryReport;
@@ -29,7 +30,6 @@ import com.global.api.terminals.pax.responses.SAFUploadResponse;
 import com.global.api.utils.StringUtils;
 
 import java.math.BigDecimal;
-import java.util.LinkedList;
 
 public class HpaInterface implements IDeviceInterface {
     private HpaController _controller;
@@ -129,43 +129,57 @@ public class HpaInterface implements IDeviceInterface {
     }
     
     public IDeviceResponse sendFile(SendFileType imageType, String filePath) throws ApiException {
+        return sendFile(imageType, filePath, null);
+    }
+
+    /**
+     * Streams the image to the device. The parts are written back to back on the open
+     * connection since the device only answers the last one.
+     */
+    public IDeviceResponse sendFile(SendFileType imageType, String filePath, IFileUploadProgressInterface progress) throws ApiException {
         if(filePath == null) {
             throw new ApiException("Filename is required for SendFile");
         }
 
         //Load the File
         HpaFileUpload fileUpload = new HpaFileUpload(imageType, filePath);
+        try {
+            //Build the initial message
+            HpaAdminBuilder builder = new HpaAdminBuilder(HpaMsgId.SEND_FILE.getValue())
+                    .set("FileName", fileUpload.getFileName())
+                    .set("FileSize", String.valueOf(fileUpload.getFileSize()))
+                    .set("MultipleMessage", "1");
+
+            SipSendFileResponse response = _controller.sendAdminMessage(SipSendFileResponse.class, builder);
+            if(!response.getDeviceResponseCode().equals("00")) {
+                throw new ApiException(String.format("Failed to upload file: %s", response.getDeviceResponseText()));
+            }
 
-        //Build the initial message
-        HpaAdminBuilder builder = new HpaAdminBuilder(HpaMsgId.SEND_FILE.getValue()) {{ setKeepAlive(true); }}
-                .set("FileName", fileUpload.getFileName())
-                .set("FileSize", fileUpload.getFileSize())
-                .set("MultipleMessage", "1");
-
-        SipSendFileResponse response = _controller.sendAdminMessage(SipSendFileResponse.class, builder);
-        if(response.getDeviceResponseCode().equals("00")) {
-            LinkedList<String> fileParts = fileUpload.getFileParts(response.getMaxDataSize() / 5);
-            String lastElement = fileParts.getLast();
-
-            for(String filePart: fileParts) {
-                final String multipleMessage = filePart.equals(lastElement) ? "0" : "1";
+            int maxDataLength = response.getMaxDataSize() / 5;
+            while(fileUpload.hasMoreParts()) {
+                String filePart = fileUpload.readPart(maxDataLength);
+                final boolean lastPart = !fileUpload.hasMoreParts();
 
                 SipSendFileResponse dataResponse = _controller.sendAdminMessage(SipSendFileResponse.class,
                         new HpaAdminBuilder(HpaMsgId.SEND_FILE.getValue()) {{
-                            setKeepAlive(multipleMessage.equals("1"));
-                            setAwaitResponse(multipleMessage.equals("0"));
+                            setAwaitResponse(lastPart);
                         }}
                         .set("FileData", filePart)
-                        .set("MultipleMessage", multipleMessage)
+                        .set("MultipleMessage", lastPart ? "0" : "1")
                     );
 
                 if (dataResponse != null) {
                     response = dataResponse;
                 }
+                if (progress != null) {
+                    progress.uploadProgress(fileUpload.getBytesRead(), fileUpload.getFileSize());
+                }
             }
             return response;
         }
-        else throw new ApiException(String.format("Failed to upload file: %s", response.getDeviceResponseText()));
+        finally {
+            fileUpload.close();
+        }
     }
 
     public IEODResponse endOfDay() throws ApiException {
@@ -1,6 +1,12 @@
 package com.global.api.terminals.hpa.interfaces;
 
 import com.global.api.entities.exceptions.MessageException;
+import com.global.api.io.IFrameHandler;
+import com.global.api.io.LengthPrefixedFrameDecoder;
+import com.global.api.io.NioConnection;
+import com.global.api.io.NioReactor;
+import com.global.api.io.PlainTransport;
+import com.global.api.metrics.MetricsRegistry;
 import com.global.api.terminals.abstractions.IDeviceCommInterface;
 import com.global.api.terminals.abstractions.IDeviceMessage;
 import com.global.api.terminals.abstractions.ITerminalConfiguration;
@@ -10,20 +16,20 @@ import com.global.api.utils.AutoResetEvent;
 import com.global.api.utils.Element;
 import com.global.api.utils.ElementTree;
 
-import java.io.DataOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.Socket;
-import java.util.ArrayList;
-import java.util.List;
 
+/**
+ * TCP connection to a HeartSIP device. Frames carry a two byte length prefix that excludes the
+ * header and are read by the shared {@link NioReactor} as they arrive; a response split across
+ * several frames ({@code MultipleMessage}) is assembled in a reusable buffer with a carriage
+ * return between the parts.
+ */
 public class HpaTcpInterface implements IDeviceCommInterface {
-    private Socket client;
-    private DataOutputStream out;
-    private InputStream in;
+    private NioConnection connection;
     private AutoResetEvent await;
     private ITerminalConfiguration settings;
-    private List<Byte> messageQueue;
+    private final ByteArrayOutputStream messageQueue = new ByteArrayOutputStream(8192);
     private String lastConnectionError;
 
     private IMessageSentInterface onMessageSent;
@@ -39,131 +45,92 @@ public class HpaTcpInterface implements IDeviceCommInterface {
 
         onMessageReceived = new IMessageReceivedInterface() {
             public void messageReceived(byte[] message) {
-                if(messageQueue == null)
-                    messageQueue = new ArrayList<Byte>();
-
-                for(byte b: message)
-                    messageQueue.add(b);
-
-                try {
-                    Element msg = ElementTree.parse(message).get("SIP");
-                    int multiMessage = msg.getInt("MultipleMessage");
-                    if(multiMessage == 0)
-                        await.set();
-                    else messageQueue.add((byte)'\r'); // delimiter
-                }
-                catch(Exception e) {
-                    // this should never cause a failure
-                    messageQueue.add((byte)'\r'); // delimiter
-                }
-            }
-        };
-    }
+                synchronized (messageQueue) {
+                    messageQueue.write(message, 0, message.length);
 
-    private void beginReceiveThread() {
-        Thread receiveThread = new Thread() {
-            public void run() {
-                while(true) {
                     try {
-                        if(in.available() > 0) {
-                            do {
-                                int length = getLength();
-                                if (length > 0) {
-                                    byte[] buffer = new byte[8192];
-
-                                    boolean incomplete = true;
-                                    int offset = 0;
-                                    int tempLength = length;
-                                    do {
-                                        int bytesReceived = in.read(buffer, offset, tempLength);
-                                        if (bytesReceived != tempLength) {
-                                            offset += bytesReceived;
-                                            tempLength -= bytesReceived;
-                                            sleep(10);
-                                        } else incomplete = false;
-                                    }
-                                    while (incomplete);
-
-                                    byte[] readBuffer = new byte[length];
-                                    System.arraycopy(buffer, 0, readBuffer, 0, length);
-                                    onMessageReceived.messageReceived(readBuffer);
-                                }
-                                else break;
-                            }
-                            while(true);
-                        }
-                        sleep(300);
-                    } catch (Exception e) {
-                        // This never needs to fail
+                        Element msg = ElementTree.parse(message).get("SIP");
+                        int multiMessage = msg.getInt("MultipleMessage");
+                        if(multiMessage == 0)
+                            await.set();
+                        else messageQueue.write('\r'); // delimiter
+                    }
+                    catch(Exception e) {
+                        // this should never cause a failure
+                        messageQueue.write('\r'); // delimiter
                     }
                 }
             }
         };
-        receiveThread.start();
     }
 
-    public void connect() {
-        if(client == null) {
+    public synchronized void connect() {
+        if(connection == null || !connection.isOpen()) {
             try {
-                client = new Socket(settings.getIpAddress(), settings.getPort());
-
-                if(client.isConnected()) {
-                    out = new DataOutputStream(client.getOutputStream());
-                    in = client.getInputStream();
-
-                    beginReceiveThread();
-                }
+                NioReactor reactor = settings.getReactor() != null ? settings.getReactor() : NioReactor.getDefault();
+                NioConnection newConnection = new NioConnection(new PlainTransport(), new LengthPrefixedFrameDecoder(false), reactor);
+                newConnection.setFrameHandler(new IFrameHandler() {
+                    public void frameReceived(byte[] frame) {
+                        onMessageReceived.messageReceived(frame);
+                    }
+                });
+                newConnection.open(settings.getIpAddress(), settings.getPort(), settings.getTimeout());
+                connection = newConnection;
             }
             catch(IOException e) {
                 lastConnectionError = e.getMessage();
+                connection = null;
             }
         }
     }
 
-    public void disconnect() {
-        try {
-            if (!client.isClosed()) {
-                in.close();
-                out.close();
-                client.close();
-            }
-            messageQueue = null;
-        }
-        catch(IOException e) {
-            // Eating the close exception
+    public synchronized void disconnect() {
+        if(connection != null) {
+            connection.close();
+            connection = null;
         }
-        finally {
-            in = null;
-            out = null;
-            client = null;
+        synchronized (messageQueue) {
+            messageQueue.reset();
         }
     }
 
-    public byte[] send(IDeviceMessage message) throws MessageException {
+    public synchronized byte[] send(IDeviceMessage message) throws MessageException {
+        long started = System.nanoTime();
+        String responseCode = "error";
         connect();
 
-        if(client == null || !client.isConnected()) {
+        if(connection == null) {
             throw new MessageException(String.format("Could not connect to the device. %s", lastConnectionError));
         }
 
         String strMessage = message.toString();
-        messageQueue = new ArrayList<Byte>();
+        synchronized (messageQueue) {
+            messageQueue.reset();
+        }
+        await.reset();
         try{
             byte[] buffer = message.getSendBuffer();
 
-            if(out != null) {
-                out.write(buffer, 0, buffer.length);
-                out.flush();
+            if(connection.isOpen()) {
+                connection.send(buffer);
 
                 if(message.isAwaitResponse()) {
                     await.waitOne(settings.getTimeout());
-                    if(messageQueue.size() == 0) {
+                    byte[] response;
+                    synchronized (messageQueue) {
+                        response = messageQueue.toByteArray();
+                    }
+                    if(response.length == 0) {
                         throw new MessageException("Device did not response within the timeout");
                     }
 
-                    return convertBytes(messageQueue.toArray(new Byte[messageQueue.size()]));
+                    responseCode = "success";
+                    return response;
+                }
+                else {
+                    responseCode = "sent";
+                    return null;
                 }
-                else return null;
             }
             else throw new MessageException("Device not connected");
         }
@@ -178,30 +145,7 @@ public class HpaTcpInterface implements IDeviceCommInterface {
             if(message.isKeepAlive()) {
                 disconnect();
             }
+            MetricsRegistry.getInstance().recordLatency("HpaTcpInterface", "send", "device", responseCode, started);
         }
     }
-
-    private int getLength() {
-        try {
-            byte[] lengthBuffer = new byte[2];
-            int byteCount = in.read(lengthBuffer, 0, 2);
-
-            if(byteCount != 2)
-                return 0;
-            return (short)(((lengthBuffer[0] & 0xFF) << 8) | (lengthBuffer[1] & 0xFF));
-        }
-        catch(IOException e) {
-            return 0;
-        }
-    }
-
-    private byte[] convertBytes(Byte[] buffer) {
-        byte[] returnBuffer = new byte[buffer.length];
-
-        int index = 0;
-        for(Byte b: buffer)
-            returnBuffer[index++] = b;
-
-        return returnBuffer;
-    }
 }
@@ -37,7 +37,7 @@ public class SAFResponse extends SipBaseResponse implements ISAFResponse {
         return declined;
     }
 
-    SAFResponse(byte[] buffer, String... messageIds) throws ApiException {
+    public SAFResponse(byte[] buffer, String... messageIds) throws ApiException {
         super(buffer, messageIds);
     }
 
@@ -0,0 +1,5 @@
+package com.global.api.terminals.messaging;
+
+public interface IFileUploadProgressInterface {
+    void uploadProgress(long bytesSent, long totalBytes);
+}
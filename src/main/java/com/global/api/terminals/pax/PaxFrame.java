@@ -0,0 +1,183 @@
+package com.global.api.terminals.pax;
+
+import com.global.api.entities.enums.ControlCodes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Index over a PAX response frame ({@code STX field FS field ... ETX LRC}). A single scan
+ * records where each FS delimited field and each US delimited component starts; text is only
+ * materialised when a field or component is asked for. Fields are consumed in order with
+ * {@link #readField()} / {@link #readComponents()}, mirroring the layout of the response.
+ *
+ * Control codes other than the delimiters are rendered as {@code [NAME]}, the same way the
+ * frame is rendered by {@link #toString(byte[])}.
+ */
+public class PaxFrame {
+    private static final String[] CODE_NAMES = new String[256];
+    private static final String[] NO_COMPONENTS = new String[0];
+
+    static {
+        for(ControlCodes code : ControlCodes.values()) {
+            CODE_NAMES[code.getByte() & 0xFF] = code.toString();
+        }
+    }
+
+    private final byte[] buffer;
+    private final int end;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int[] firstSeparator = new int[17];
+    private int[] separators = new int[32];
+    private int fieldCount;
+    private int separatorCount;
+    private int position;
+
+    public PaxFrame(byte[] buffer) {
+        this.buffer = buffer;
+
+        int start = buffer.length > 0 && buffer[0] == ControlCodes.STX.getByte() ? 1 : 0;
+        int i = start;
+        for(; i < buffer.length; i++) {
+            byte b = buffer[i];
+            if(b == ControlCodes.ETX.getByte()) {
+                break;
+            }
+            else if(b == ControlCodes.FS.getByte()) {
+                addField(start, i);
+                start = i + 1;
+            }
+            else if(b == ControlCodes.US.getByte()) {
+                if(separatorCount == separators.length) {
+                    separators = Arrays.copyOf(separators, separatorCount * 2);
+                }
+                separators[separatorCount++] = i;
+            }
+        }
+        end = i;
+        addField(start, i);
+        firstSeparator[fieldCount] = separatorCount;
+    }
+
+    private void addField(int start, int end) {
+        if(fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+            firstSeparator = Arrays.copyOf(firstSeparator, fieldCount * 2 + 1);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        firstSeparator[fieldCount + 1] = separatorCount;
+        fieldCount++;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public boolean isEmpty(int field) {
+        return field >= fieldCount || fieldStarts[field] == fieldEnds[field];
+    }
+
+    /**
+     * @return the whole field with any US separators rendered as {@code [US]}
+     */
+    public String getField(int field) {
+        if(field >= fieldCount) {
+            return "";
+        }
+        return decode(fieldStarts[field], fieldEnds[field]);
+    }
+
+    /**
+     * @return the US separated components of the field; trailing empty components are
+     * dropped, as {@link String#split(String)} would
+     */
+    public String[] getComponents(int field) {
+        if(isEmpty(field)) {
+            return NO_COMPONENTS;
+        }
+
+        int from = firstSeparator[field];
+        int to = firstSeparator[field + 1];
+        int last = fieldEnds[field];
+        while(to > from && separators[to - 1] == last - 1) {
+            last = separators[--to];
+        }
+        if(to == from && last == fieldStarts[field]) {
+            // nothing but separators
+            return NO_COMPONENTS;
+        }
+
+        String[] rvalue = new String[to - from + 1];
+        int start = fieldStarts[field];
+        for(int i = from; i < to; i++) {
+            rvalue[i - from] = decode(start, separators[i]);
+            start = separators[i] + 1;
+        }
+        rvalue[rvalue.length - 1] = decode(start, last);
+        return rvalue;
+    }
+
+    /**
+     * @return everything from the start of the field up to ETX, with FS rendered as {@code [FS]}
+     */
+    public String getRemainder(int field) {
+        if(field >= fieldCount) {
+            return "";
+        }
+        return decode(fieldStarts[field], end);
+    }
+
+    public boolean hasNext() {
+        return position < fieldCount;
+    }
+
+    public String readField() {
+        return getField(position++);
+    }
+
+    public String[] readComponents() {
+        return getComponents(position++);
+    }
+
+    public String readToEnd() {
+        String rvalue = getRemainder(position);
+        position = fieldCount;
+        return rvalue;
+    }
+
+    private String decode(int from, int to) {
+        StringBuilder sb = null;
+        for(int i = from; i < to; i++) {
+            String code = CODE_NAMES[buffer[i] & 0xFF];
+            if(code != null) {
+                if(sb == null) {
+                    sb = new StringBuilder(to - from + 16);
+                    sb.append(new String(buffer, from, i - from, StandardCharsets.ISO_8859_1));
+                }
+                sb.append(code);
+            }
+            else if(sb != null) {
+                sb.append((char) (buffer[i] & 0xFF));
+            }
+        }
+        return sb == null ? new String(buffer, from, to - from, StandardCharsets.ISO_8859_1) : sb.toString();
+    }
+
+    /**
+     * Renders a raw frame with control codes spelled out, e.g. {@code [STX]0[FS]T01...}.
+     */
+    public static String toString(byte[] buffer) {
+        StringBuilder sb = new StringBuilder(buffer.length + 64);
+        for(byte b : buffer) {
+            String code = CODE_NAMES[b & 0xFF];
+            if(code != null) {
+                sb.append(code);
+            }
+            else sb.append((char) (b & 0xFF));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,57 @@
+package com.global.api.terminals.pax.interfaces;
+
+import com.global.api.entities.enums.ControlCodes;
+import com.global.api.io.IFrameDecoder;
+import com.global.api.io.IFrameHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Splits a PAX byte stream into {@code STX ... ETX LRC} message frames and the single byte
+ * ACK, NAK and EOT control frames exchanged around them. Anything else outside a frame is
+ * line noise and dropped.
+ */
+public class PaxFrameDecoder implements IFrameDecoder {
+    private static final int MAX_FRAME_LENGTH = 65535;
+
+    private final ByteArrayOutputStream frame = new ByteArrayOutputStream(4096);
+    private boolean inFrame;
+    private boolean awaitingLrc;
+
+    public void decode(ByteBuffer data, IFrameHandler handler) throws IOException {
+        while(data.hasRemaining()) {
+            byte b = data.get();
+
+            if(inFrame) {
+                frame.write(b);
+                if(awaitingLrc) {
+                    byte[] completed = frame.toByteArray();
+                    reset();
+                    handler.frameReceived(completed);
+                }
+                else if(b == ControlCodes.ETX.getByte()) {
+                    awaitingLrc = true;
+                }
+                else if(frame.size() > MAX_FRAME_LENGTH) {
+                    reset();
+                    throw new IOException(String.format("Frame exceeds the maximum length of %s.", MAX_FRAME_LENGTH));
+                }
+            }
+            else if(b == ControlCodes.STX.getByte()) {
+                inFrame = true;
+                frame.write(b);
+            }
+            else if(b == ControlCodes.ACK.getByte() || b == ControlCodes.NAK.getByte() || b == ControlCodes.EOT.getByte()) {
+                handler.frameReceived(new byte[] { b });
+            }
+        }
+    }
+
+    public void reset() {
+        frame.reset();
+        inFrame = false;
+        awaitingLrc = false;
+    }
+}
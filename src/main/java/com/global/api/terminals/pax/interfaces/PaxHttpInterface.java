@@ -2,6 +2,7 @@ package com.global.api.terminals.pax.interfaces;
 
 import com.global.api.entities.exceptions.ApiException;
 import com.global.api.entities.exceptions.MessageException;
+import com.global.api.metrics.MetricsRegistry;
 import com.global.api.terminals.abstractions.IDeviceCommInterface;
 import com.global.api.terminals.abstractions.IDeviceMessage;
 import com.global.api.terminals.messaging.IMessageSentInterface;
@@ -35,6 +36,8 @@ public class PaxHttpInterface implements IDeviceCommInterface {
     }
 
     public byte[] send(IDeviceMessage message) throws ApiException {
+        long started = System.nanoTime();
+        String responseCode = "error";
         if(onMessageSent != null)
             onMessageSent.messageSent(message.toString());
 
@@ -54,9 +57,13 @@ public class PaxHttpInterface implements IDeviceCommInterface {
             _client.addRequestProperty("Content-Type", "text/xml; charset=UTF-8");
 
             InputStream responseStream = _client.getInputStream();
-            return IOUtils.readFully(responseStream).getBytes();
+            byte[] rvalue = IOUtils.readFully(responseStream).getBytes();
+            responseCode = "success";
+            return rvalue;
         } catch(IOException e){
             throw new MessageException("Failed to send message. Check inner exception for more details.", e);
+        } finally {
+            MetricsRegistry.getInstance().recordLatency("PaxHttpInterface", "send", "device", responseCode, started);
         }
     }
 }
\ No newline at end of file
@@ -2,74 +2,85 @@ package com.global.api.terminals.pax.interfaces;
 
 import com.global.api.entities.enums.ControlCodes;
 import com.global.api.entities.exceptions.MessageException;
+import com.global.api.io.NioConnection;
+import com.global.api.io.NioReactor;
+import com.global.api.io.PlainTransport;
+import com.global.api.metrics.MetricsRegistry;
 import com.global.api.terminals.TerminalUtilities;
 import com.global.api.terminals.abstractions.*;
 import com.global.api.terminals.messaging.IMessageSentInterface;
-import com.global.api.utils.EnumUtils;
 
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.Socket;
 
+/**
+ * TCP connection to a PAX device. Incoming bytes are framed by {@link PaxFrameDecoder} on the
+ * {@link NioReactor} from the terminal configuration (or the shared default), so waiting for
+ * the terminal never spins a thread. By default the connection is dropped after each message
+ * as before; a persistent interface keeps it open and reconnects when the device closes it.
+ */
 public class PaxTcpInterface implements IDeviceCommInterface {
-    private Socket client;
-    private DataOutputStream out;
-    private InputStream in;
+    private NioConnection connection;
     private ITerminalConfiguration settings;
+    private boolean persistent;
     private int nakCount = 0;
-
+    private String lastConnectionError;
 
     private IMessageSentInterface onMessageSent;
 
     public void setMessageSentHandler(IMessageSentInterface onMessageSent) {
         this.onMessageSent = onMessageSent;
     }
+    public boolean isPersistent() {
+        return persistent;
+    }
+    public void setPersistent(boolean persistent) {
+        this.persistent = persistent;
+    }
 
     public PaxTcpInterface(ITerminalConfiguration settings) {
         this.settings = settings;
     }
 
-    public void connect() {
-        if(client == null) {
+    public synchronized void connect() {
+        if(connection == null || !connection.isOpen()) {
             try {
-                client = new Socket(settings.getIpAddress(), settings.getPort());
-                if(client.isConnected()) {
-                    out = new DataOutputStream(client.getOutputStream());
-                    in = client.getInputStream();
-                    client.setKeepAlive(true);
-                }
-                else throw new IOException("Client failed to connect");
+                NioReactor reactor = settings.getReactor() != null ? settings.getReactor() : NioReactor.getDefault();
+                PlainTransport transport = new PlainTransport();
+                NioConnection newConnection = new NioConnection(transport, new PaxFrameDecoder(), reactor);
+                newConnection.open(settings.getIpAddress(), settings.getPort(), settings.getTimeout());
+                transport.getChannel().socket().setKeepAlive(true);
+                connection = newConnection;
             }
             catch(IOException exc) {
-                //TODO: Handle this exception
+                lastConnectionError = exc.getMessage();
+                connection = null;
             }
         }
     }
 
-    public void disconnect() {
-        try {
-            if (!client.isClosed()) {
-                in.close();
-                out.close();
-                client.close();
-            }
-            client = null;
-        } catch(IOException e) {
-            // Eating the close exception
+    public synchronized void disconnect() {
+        if(connection != null) {
+            connection.close();
+            connection = null;
         }
     }
 
-    public byte[] send(IDeviceMessage message) throws MessageException {
+    public synchronized byte[] send(IDeviceMessage message) throws MessageException {
+        long started = System.nanoTime();
+        String responseCode = "error";
         connect();
 
         byte[] buffer = message.getSendBuffer();
         try {
+            if(connection == null)
+                throw new MessageException(String.format("Could not connect to the device. %s", lastConnectionError));
+
             if(onMessageSent != null)
                 onMessageSent.messageSent(message.toString());
 
+            connection.clearFrames();
             for(int i = 0; i < 3; i++) {
-                out.write(buffer);
+                connection.send(buffer);
 
                 byte[] rvalue = getTerminalResponse();
                 if (rvalue != null) {
@@ -78,17 +89,24 @@ public class PaxTcpInterface implements IDeviceCommInterface {
                         sendControlCode(ControlCodes.NAK);
                     else {
                         sendControlCode(ControlCodes.ACK);
+                        responseCode = "success";
                         return rvalue;
                     }
                 }
             }
             throw new MessageException("Terminal did not respond in the given timeout.");
         }
+        catch(MessageException exc) {
+            throw exc;
+        }
         catch(Exception exc) {
             throw new MessageException(exc.getMessage(), exc);
         }
         finally {
-            disconnect();
+            if(!persistent) {
+                disconnect();
+            }
+            MetricsRegistry.getInstance().recordLatency("PaxTcpInterface", "send", "device", responseCode, started);
         }
     }
 
@@ -96,7 +114,7 @@ public class PaxTcpInterface implements IDeviceCommInterface {
         try {
             if (code != ControlCodes.NAK) {
                 nakCount = 0;
-                out.write((int) code.getByte());
+                connection.send(new byte[] { code.getByte() });
             } else if (++nakCount == 3) {
                 sendControlCode(ControlCodes.EOT);
             }
@@ -105,45 +123,22 @@ public class PaxTcpInterface implements IDeviceCommInterface {
         }
     }
 
-    private byte[] getTerminalResponse() throws MessageException {
-        try {
-            byte[] buffer = new byte[4096];
-            int bytesReceived = awaitResponse(in, buffer);
-
-            if(bytesReceived > 0) {
-                byte[] rec_buffer = new byte[bytesReceived];
-                System.arraycopy(buffer, 0, rec_buffer, 0, bytesReceived);
-
-                ControlCodes code = EnumUtils.parse(ControlCodes.class, rec_buffer[0]); // queue.readCode();
-                if (code.equals(ControlCodes.NAK))
-                    return null;
-                else if (code.equals(ControlCodes.EOT))
-                    throw new MessageException("Terminal returned EOT for the current message");
-                else if (code.equals(ControlCodes.ACK))
-                    return getTerminalResponse();
-                else if (code.equals(ControlCodes.STX)) {
-                    return rec_buffer;
-                } else throw new MessageException(String.format("Unknown message received: %s", code));
-            }
-
-            return null;
-        }
-        catch(IOException exc) {
-            return null;
-        }
-    }
-
-    private int awaitResponse(InputStream in, byte[] buffer) throws IOException {
-        long t = System.currentTimeMillis();
-        do {
-            if(in.available() > 0) {
-                return in.read(buffer);
-            }
-
-            if (System.currentTimeMillis() - t >= settings.getTimeout())
-                break;
+    // null when the terminal NAKed the request or did not answer in time
+    private byte[] getTerminalResponse() throws MessageException, IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + settings.getTimeout();
+        while(true) {
+            byte[] frame = connection.awaitFrame(deadline);
+            if(frame == null)
+                return null;
+
+            byte code = frame[0];
+            if (code == ControlCodes.NAK.getByte())
+                return null;
+            else if (code == ControlCodes.EOT.getByte())
+                throw new MessageException("Terminal returned EOT for the current message");
+            else if (code == ControlCodes.STX.getByte())
+                return frame;
+            // ACK, keep waiting for the response itself
         }
-        while(true);
-        throw new IOException("Terminal did not respond in the given timeout");
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,9 @@
 package com.global.api.terminals.pax.responses;
 
-import com.global.api.entities.enums.ControlCodes;
 import com.global.api.entities.enums.PaxMsgId;
 import com.global.api.entities.exceptions.MessageException;
+import com.global.api.terminals.pax.PaxFrame;
 import com.global.api.terminals.pax.subgroups.*;
-import com.global.api.utils.MessageReader;
 
 public class CreditResponse extends PaxDeviceResponse {
     public CreditResponse(byte[] buffer) throws MessageException {
@@ -12,19 +11,19 @@ public class CreditResponse extends PaxDeviceResponse {
     }
 
     @Override
-    protected void parseResponse(MessageReader br) throws MessageException {
-        super.parseResponse(br);
+    protected void parseResponse(PaxFrame frame) throws MessageException {
+        super.parseResponse(frame);
 
         if (deviceResponseCode.equals("000000")) {
-            hostResponse = new HostResponse(br);
-            transactionType = br.readToCode(ControlCodes.FS);
-            amountResponse = new AmountResponse(br);
-            accountResponse = new AccountResponse(br);
-            traceResponse = new TraceResponse(br);
-            avsResponse = new AvsResponse(br);
-            commercialResponse = new CommercialResponse(br);
-            ecomResponse = new EcomSubGroup(br);
-            extDataResponse = new ExtDataSubGroup(br);
+            hostResponse = new HostResponse(frame);
+            transactionType = frame.readField();
+            amountResponse = new AmountResponse(frame);
+            accountResponse = new AccountResponse(frame);
+            traceResponse = new TraceResponse(frame);
+            avsResponse = new AvsResponse(frame);
+            commercialResponse = new CommercialResponse(frame);
+            ecomResponse = new EcomSubGroup(frame);
+            extDataResponse = new ExtDataSubGroup(frame);
 
             mapResponse();
         }
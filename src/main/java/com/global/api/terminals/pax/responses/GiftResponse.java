@@ -1,10 +1,9 @@
 package com.global.api.terminals.pax.responses;
 
-import com.global.api.entities.enums.ControlCodes;
 import com.global.api.entities.enums.PaxMsgId;
 import com.global.api.entities.exceptions.MessageException;
+import com.global.api.terminals.pax.PaxFrame;
 import com.global.api.terminals.pax.subgroups.*;
-import com.global.api.utils.MessageReader;
 
 public class GiftResponse extends PaxDeviceResponse {
     public GiftResponse(byte[] buffer) throws MessageException {
@@ -12,16 +11,16 @@ public class GiftResponse extends PaxDeviceResponse {
     }
 
     @Override
-    protected void parseResponse(MessageReader br) throws MessageException {
-        super.parseResponse(br);
+    protected void parseResponse(PaxFrame frame) throws MessageException {
+        super.parseResponse(frame);
 
         if (deviceResponseCode.equals("000000")) {
-            hostResponse = new HostResponse(br);
-            transactionType = br.readToCode(ControlCodes.FS);
-            amountResponse = new AmountResponse(br);
-            accountResponse = new AccountResponse(br);
-            traceResponse = new TraceResponse(br);
-            extDataResponse = new ExtDataSubGroup(br);
+            hostResponse = new HostResponse(frame);
+            transactionType = frame.readField();
+            amountResponse = new AmountResponse(frame);
+            accountResponse = new AccountResponse(frame);
+            traceResponse = new TraceResponse(frame);
+            extDataResponse = new ExtDataSubGroup(frame);
 
             mapResponse();
         }
@@ -1,10 +1,9 @@
 package com.global.api.terminals.pax.responses;
 
-import com.global.api.entities.enums.ControlCodes;
 import com.global.api.entities.enums.PaxMsgId;
 import com.global.api.entities.exceptions.MessageException;
 import com.global.api.terminals.abstractions.IInitializeResponse;
-import com.global.api.utils.MessageReader;
+import com.global.api.terminals.pax.PaxFrame;
 
 public class InitializeResponse extends PaxDeviceResponse implements IInitializeResponse {
     private String serialNumber;
@@ -21,8 +20,8 @@ public class InitializeResponse extends PaxDeviceResponse implements IInitialize
     }
 
     @Override
-    protected void parseResponse(MessageReader mr) throws MessageException {
-        super.parseResponse(mr);
-        setSerialNumber(mr.readToCode(ControlCodes.ETX));
+    protected void parseResponse(PaxFrame frame) throws MessageException {
+        super.parseResponse(frame);
+        setSerialNumber(frame.readToEnd());
     }
 }
@@ -1,12 +1,11 @@
 package com.global.api.terminals.pax.responses;
 
-import com.global.api.entities.enums.ControlCodes;
 import com.global.api.entities.enums.PaxMsgId;
 import com.global.api.entities.exceptions.MessageException;
 import com.global.api.terminals.TerminalResponse;
+import com.global.api.terminals.pax.PaxFrame;
 import com.global.api.terminals.pax.subgroups.*;
 import com.global.api.utils.EnumUtils;
-import com.global.api.utils.MessageReader;
 
 import java.util.Arrays;
 
@@ -28,16 +27,15 @@ public class PaxBaseResponse extends TerminalResponse {
         this.messageIds = messageIds;
         this.buffer = buffer;
 
-        this.parseResponse(new MessageReader(buffer));
+        this.parseResponse(new PaxFrame(buffer));
     }
 
-    protected void parseResponse(MessageReader mr) throws MessageException {
-        ControlCodes code = mr.readCode();  //STX
-        setStatus(mr.readToCode(ControlCodes.FS));
-        setCommand(mr.readToCode(ControlCodes.FS));
-        setVersion(mr.readToCode(ControlCodes.FS));
-        setDeviceResponseCode(mr.readToCode(ControlCodes.FS));
-        setDeviceResponseText(mr.readToCode(ControlCodes.FS));
+    protected void parseResponse(PaxFrame frame) throws MessageException {
+        setStatus(frame.readField());
+        setCommand(frame.readField());
+        setVersion(frame.readField());
+        setDeviceResponseCode(frame.readField());
+        setDeviceResponseText(frame.readField());
 
         PaxMsgId msgId = EnumUtils.parse(PaxMsgId.class, command);
         if(!Arrays.asList(messageIds).contains(msgId))
@@ -46,15 +44,6 @@ public class PaxBaseResponse extends TerminalResponse {
 
     @Override
     public String toString(){
-        StringBuilder sb = new StringBuilder();
-        for(byte b : buffer){
-            if(EnumUtils.isDefined(ControlCodes.class, b)){
-                ControlCodes code = EnumUtils.parse(ControlCodes.class, b);
-                sb.append(code.toString());
-            }
-            else sb.append((char)b);
-        }
-
-        return sb.toString();
+        return PaxFrame.toString(buffer);
     }
 }
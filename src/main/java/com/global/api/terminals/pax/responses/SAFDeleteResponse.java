@@ -1,9 +1,8 @@
 package com.global.api.terminals.pax.responses;
 
-import com.global.api.entities.enums.ControlCodes;
 import com.global.api.entities.enums.PaxMsgId;
 import com.global.api.entities.exceptions.MessageException;
-import com.global.api.utils.MessageReader;
+import com.global.api.terminals.pax.PaxFrame;
 
 public class SAFDeleteResponse extends PaxDeviceResponse {
     
@@ -22,11 +21,11 @@ public class SAFDeleteResponse extends PaxDeviceResponse {
     }
     
     @Override
-    protected void parseResponse(MessageReader mr) throws MessageException {
-        super.parseResponse(mr);
+    protected void parseResponse(PaxFrame frame) throws MessageException {
+        super.parseResponse(frame);
 
         if(deviceResponseCode.equals("000000")) {
-            safDeletedCount = Integer.parseInt(mr.readToCode(ControlCodes.FS));
+            safDeletedCount = Integer.parseInt(frame.readField());
         }
     }
 
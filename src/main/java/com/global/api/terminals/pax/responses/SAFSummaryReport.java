@@ -1,9 +1,8 @@
 package com.global.api.terminals.pax.responses;
 
-import com.global.api.entities.enums.ControlCodes;
 import com.global.api.entities.enums.PaxMsgId;
 import com.global.api.entities.exceptions.MessageException;
-import com.global.api.utils.MessageReader;
+import com.global.api.terminals.pax.PaxFrame;
 
 public class SAFSummaryReport extends PaxDeviceResponse {
     
@@ -31,12 +30,12 @@ public class SAFSummaryReport extends PaxDeviceResponse {
     }
     
     @Override
-    protected void parseResponse(MessageReader mr) throws MessageException {
-        super.parseResponse(mr);
+    protected void parseResponse(PaxFrame frame) throws MessageException {
+        super.parseResponse(frame);
         
         if(deviceResponseCode.equals("000000")) {
-            safTotalCount = mr.readToCode(ControlCodes.FS);
-            safTotalAmount = mr.readToCode(ControlCodes.FS);
+            safTotalCount = frame.readField();
+            safTotalAmount = frame.readField();
         }
     }
 
@@ -1,9 +1,8 @@
 package com.global.api.terminals.pax.responses;
 
-import com.global.api.entities.enums.ControlCodes;
 import com.global.api.entities.enums.PaxMsgId;
 import com.global.api.entities.exceptions.MessageException;
-import com.global.api.utils.MessageReader;
+import com.global.api.terminals.pax.PaxFrame;
 
 public class SAFUploadResponse extends PaxDeviceResponse {
     
@@ -76,17 +75,17 @@ public class SAFUploadResponse extends PaxDeviceResponse {
     }
     
     @Override
-    protected void parseResponse(MessageReader mr) throws MessageException {
-        super.parseResponse(mr);
+    protected void parseResponse(PaxFrame frame) throws MessageException {
+        super.parseResponse(frame);
         
         if (deviceResponseCode.equals("000000")) {
-            totalCount = Integer.parseInt(mr.readToCode(ControlCodes.FS));
-            totalAmount = Integer.parseInt(mr.readToCode(ControlCodes.FS));
-            timeStamp = mr.readToCode(ControlCodes.FS);
-            safUploadedCount = Integer.parseInt(mr.readToCode(ControlCodes.FS));
-            safUploadedAmount = Integer.parseInt(mr.readToCode(ControlCodes.FS));
-            safFailedCount = Integer.parseInt(mr.readToCode(ControlCodes.FS));
-            safFailedTotal = Integer.parseInt(mr.readToCode(ControlCodes.FS));
+            totalCount = Integer.parseInt(frame.readField());
+            totalAmount = Integer.parseInt(frame.readField());
+            timeStamp = frame.readField();
+            safUploadedCount = Integer.parseInt(frame.readField());
+            safUploadedAmount = Integer.parseInt(frame.readField());
+            safFailedCount = Integer.parseInt(frame.readField());
+            safFailedTotal = Integer.parseInt(frame.readField());
         }
     }
 
@@ -1,16 +1,16 @@
 package com.global.api.terminals.pax.responses;
 
-import com.global.api.entities.enums.ControlCodes;
 import com.global.api.entities.enums.PaxMsgId;
 import com.global.api.entities.exceptions.ApiException;
 import com.global.api.entities.exceptions.MessageException;
-import com.global.api.terminals.TerminalUtilities;
+import com.global.api.terminals.SignaturePath;
 import com.global.api.terminals.abstractions.ISignatureResponse;
-import com.global.api.utils.MessageReader;
+import com.global.api.terminals.pax.PaxFrame;
 
 public class SignatureResponse extends PaxBaseResponse implements ISignatureResponse {
     private Integer totalLength;
     private Integer responseLength;
+    private SignaturePath signaturePath;
 
     public int getTotalLength() {
         return totalLength;
@@ -25,19 +25,37 @@ public class SignatureResponse extends PaxBaseResponse implements ISignatureResp
         this.responseLength = responseLength;
     }
 
+    /**
+     * The captured strokes, or null when the response carries no signature.
+     */
+    public SignaturePath getSignaturePath() {
+        return signaturePath;
+    }
+
+    /**
+     * The signature drawn as a BMP, rendered on first use.
+     */
+    @Override
+    public byte[] getSignatureData() {
+        if(signatureData == null && signaturePath != null) {
+            signatureData = signaturePath.render("bmp");
+        }
+        return signatureData;
+    }
+
     public SignatureResponse(byte[] response) throws ApiException {
         super(response, PaxMsgId.A09_RSP_GET_SIGNATURE, PaxMsgId.A21_RSP_DO_SIGNATURE);
     }
 
     @Override
-    protected void parseResponse(MessageReader mr) throws MessageException {
-        super.parseResponse(mr);
+    protected void parseResponse(PaxFrame frame) throws MessageException {
+        super.parseResponse(frame);
 
         if(deviceResponseCode.equals("000000") && command.equals(PaxMsgId.A09_RSP_GET_SIGNATURE.getValue())) {
-            totalLength = Integer.parseInt(mr.readToCode(ControlCodes.FS));
-            responseLength = Integer.parseInt(mr.readToCode(ControlCodes.FS));
+            totalLength = Integer.parseInt(frame.readField());
+            responseLength = Integer.parseInt(frame.readField());
 
-            signatureData = TerminalUtilities.buildSignatureImage(mr.readToCode(ControlCodes.ETX));
+            signaturePath = SignaturePath.parse(frame.readToEnd());
         }
     }
 }
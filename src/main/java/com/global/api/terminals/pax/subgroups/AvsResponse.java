@@ -1,9 +1,7 @@
 package com.global.api.terminals.pax.subgroups;
 
-import com.global.api.entities.enums.ControlCodes;
 import com.global.api.terminals.abstractions.IResponseSubGroup;
-import com.global.api.utils.MessageReader;
-import com.global.api.utils.StringUtils;
+import com.global.api.terminals.pax.PaxFrame;
 
 public class AvsResponse implements IResponseSubGroup {
     private String avsResponseCode;
@@ -16,12 +14,8 @@ public class AvsResponse implements IResponseSubGroup {
         return avsResponseMessage;
     }
 
-    public AvsResponse(MessageReader br) {
-        String values = br.readToCode(ControlCodes.FS);
-        if (StringUtils.isNullOrEmpty(values))
-            return;
-
-        String[] data = values.split("\\[US\\]");
+    public AvsResponse(PaxFrame frame) {
+        String[] data = frame.readComponents();
         try {
             avsResponseCode = data[0];
             avsResponseMessage = data[1];
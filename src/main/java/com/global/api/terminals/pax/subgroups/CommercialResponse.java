@@ -1,9 +1,7 @@
 package com.global.api.terminals.pax.subgroups;
 
-import com.global.api.entities.enums.ControlCodes;
 import com.global.api.terminals.abstractions.IResponseSubGroup;
-import com.global.api.utils.MessageReader;
-import com.global.api.utils.StringUtils;
+import com.global.api.terminals.pax.PaxFrame;
 
 public class CommercialResponse implements IResponseSubGroup {
     private String poNumber;
@@ -24,12 +22,8 @@ public class CommercialResponse implements IResponseSubGroup {
         return taxExemptId;
     }
 
-    public CommercialResponse(MessageReader br) {
-        String values = br.readToCode(ControlCodes.FS);
-        if (StringUtils.isNullOrEmpty(values))
-            return;
-
-        String[] data = values.split("\\[US\\]");
+    public CommercialResponse(PaxFrame frame) {
+        String[] data = frame.readComponents();
         try {
             this.poNumber = data[0];
             this.customerCode = data[1];
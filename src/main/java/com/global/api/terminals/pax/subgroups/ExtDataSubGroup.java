@@ -4,7 +4,7 @@ import com.global.api.entities.enums.ControlCodes;
 import com.global.api.entities.enums.PaxExtData;
 import com.global.api.terminals.abstractions.IRequestSubGroup;
 import com.global.api.terminals.abstractions.IResponseSubGroup;
-import com.global.api.utils.MessageReader;
+import com.global.api.terminals.pax.PaxFrame;
 import com.global.api.utils.StringUtils;
 
 import java.util.Dictionary;
@@ -26,12 +26,8 @@ public class ExtDataSubGroup implements IRequestSubGroup, IResponseSubGroup {
     }
 
     public ExtDataSubGroup() { }
-    public ExtDataSubGroup(MessageReader br) {
-        String values = br.readToCode(ControlCodes.ETX);
-        if (StringUtils.isNullOrEmpty(values))
-            return;
-
-        String[] elements = values.split("\\[US\\]");
+    public ExtDataSubGroup(PaxFrame frame) {
+        String[] elements = frame.readComponents();
         for(String element: elements) {
             String[] kv = element.split("=");
 
@@ -10,7 +10,9 @@ import org.xml.sax.SAXException;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
@@ -21,6 +23,9 @@ import java.io.StringWriter;
 import java.math.BigDecimal;
 
 public class ElementTree {
+    private static final ThreadLocal<Transformer> documentTransformer = new ThreadLocal<Transformer>();
+    private static final ThreadLocal<Transformer> fragmentTransformer = new ThreadLocal<Transformer>();
+
     private Document doc;
 
     public void setDocument(Document doc) {
@@ -81,8 +86,7 @@ public class ElementTree {
         doc.appendChild(root.getElement());
 
         try {
-            TransformerFactory tFact = TransformerFactory.newInstance();
-            Transformer trans = tFact.newTransformer();
+            Transformer trans = getTransformer(false);
 
             StringWriter writer = new StringWriter();
             StreamResult result = new StreamResult(writer);
@@ -96,6 +100,52 @@ public class ElementTree {
         }
     }
 
+    /**
+     * Serializes an element without the XML declaration, for splicing into a {@link RequestTemplate}.
+     */
+    public String toFragment(Element root) {
+        try {
+            StringWriter writer = new StringWriter();
+            getTransformer(true).transform(new DOMSource(root.getElement()), new StreamResult(writer));
+            return writer.toString();
+        } catch (TransformerException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Serializes the children of an element without the element itself, for splicing into a
+     * {@link RequestTemplate} whose static part already renders the parent.
+     */
+    public String toInnerFragment(Element parent) {
+        try {
+            Transformer trans = getTransformer(true);
+
+            StringWriter writer = new StringWriter();
+            StreamResult result = new StreamResult(writer);
+            for(Node child = parent.getElement().getFirstChild(); child != null; child = child.getNextSibling()) {
+                trans.transform(new DOMSource(child), result);
+            }
+            return writer.toString();
+        } catch (TransformerException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static Transformer getTransformer(boolean fragment) throws TransformerConfigurationException {
+        ThreadLocal<Transformer> cache = fragment ? fragmentTransformer : documentTransformer;
+
+        Transformer trans = cache.get();
+        if(trans == null) {
+            trans = TransformerFactory.newInstance().newTransformer();
+            if(fragment) {
+                trans.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+            }
+            cache.set(trans);
+        }
+        return trans;
+    }
+
     public Element get(String tagName) {
         Node node = doc.getElementsByTagName(tagName).item(0);
         if(node != null) {
@@ -1,5 +1,8 @@
 package com.global.api.utils;
 
+import com.global.api.logging.GatewayLogger;
+import com.global.api.logging.ILogMessage;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -138,9 +141,21 @@ public class EmvUtils {
         return parseTagData(tagData, false);
     }
     public static EmvData parseTagData(String tagData, boolean verbose) {
+        GatewayLogger logger = null;
+        if(verbose) {
+            logger = new GatewayLogger("EmvUtils");
+            logger.setEnabled(true);
+        }
+        return parseTagData(tagData, logger);
+    }
+    public static EmvData parseTagData(String tagData, GatewayLogger logger) {
         tagData = tagData.toUpperCase();
 
         EmvData rvalue = new EmvData();
+        // stand-in needs the terminal's verification results; the first problem found is kept
+        String standInFailure = null;
+        boolean hasTvr = false;
+        boolean hasTsi = false;
 
         for(int i = 0; i < tagData.length();) {
             try {
@@ -162,26 +177,31 @@ public class EmvUtils {
 
                 if(!blackList.containsKey(tagName)) {
                     TlvData approvedTag = new TlvData(tagName, lengthStr, value, knownTags.get(tagName));
-                    if(tagName.equals("5F28") && !value.equals("840")) {
-                        rvalue.setStandInStatus(false, "Card is not domestically issued");
+                    // issuer country code is n3, so 840 arrives as 0840
+                    if(tagName.equals("5F28") && !value.matches("0?840")) {
+                        if(standInFailure == null) {
+                            standInFailure = "Card is not domestically issued";
+                        }
                     }
                     else if(tagName.equals("95")) {
+                        hasTvr = true;
                         byte[] valueBuffer = StringUtils.bytesFromHex(value);
                         byte[] maskBuffer = StringUtils.bytesFromHex("FC50FC2000");
 
-                        for(int idx = 0; idx < valueBuffer.length; idx++) {
-                            if((valueBuffer[idx] & maskBuffer[idx]) != 0x00) {
-                                rvalue.setStandInStatus(false, String.format("Invalid TVR status in byte %s of tag 95", idx + 1));
+                        for(int idx = 0; idx < valueBuffer.length && idx < maskBuffer.length; idx++) {
+                            if((valueBuffer[idx] & maskBuffer[idx]) != 0x00 && standInFailure == null) {
+                                standInFailure = String.format("Invalid TVR status in byte %s of tag 95", idx + 1);
                             }
                         }
                     }
                     else if(tagName.equals("9B")) {
+                        hasTsi = true;
                         byte[] valueBuffer = StringUtils.bytesFromHex(value);
                         byte[] maskBuffer = StringUtils.bytesFromHex("E800");
 
-                        for(int idx = 0; idx < valueBuffer.length; idx++) {
-                            if((valueBuffer[idx] & maskBuffer[idx]) != maskBuffer[idx]) {
-                                rvalue.setStandInStatus(false, String.format("Invalid TSI status in byte %s of tag 9B", idx + 1));
+                        for(int idx = 0; idx < valueBuffer.length && idx < maskBuffer.length; idx++) {
+                            if((valueBuffer[idx] & maskBuffer[idx]) != maskBuffer[idx] && standInFailure == null) {
+                                standInFailure = String.format("Invalid TSI status in byte %s of tag 9B", idx + 1);
                             }
                         }
                     }
@@ -196,24 +216,44 @@ public class EmvUtils {
             catch(IndexOutOfBoundsException exc) {}
         }
 
-        if(verbose) {
-            System.out.println("Accepted Tags:");
-            for(String tagName: rvalue.getAcceptedTags().keySet()) {
-                TlvData tag = rvalue.getTag(tagName);
-                boolean appendBinary = dataTypes.containsKey(tagName);
-
-                System.out.println(String.format("TAG: %s - %s", tagName, tag.getDescription()));
-                System.out.println(String.format("%s: %s%s\r\n",tag.getLength(), tag.getValue(), appendBinary ? String.format(" [%s]", tag.getBinaryValue()) : ""));
-            }
+        if(standInFailure == null && !hasTvr) {
+            standInFailure = "Missing TVR (tag 95)";
+        }
+        else if(standInFailure == null && !hasTsi) {
+            standInFailure = "Missing TSI (tag 9B)";
+        }
+        rvalue.setStandInStatus(standInFailure == null, standInFailure);
 
-            System.out.println("Removed Tags:");
-            for(String tagName: rvalue.getRemovedTags().keySet()) {
-                TlvData tag = rvalue.getRemovedTags().get(tagName);
-                System.out.println(String.format("TAG: %s - %s", tagName, tag.getDescription()));
-                System.out.println(String.format("%s: %s\r\n",tag.getLength(), tag.getValue()));
-            }
+        if(logger != null) {
+            final EmvData parsed = rvalue;
+            logger.log(new ILogMessage() {
+                public String getMessage() {
+                    return describeTags(parsed);
+                }
+            });
         }
 
         return rvalue;
     }
+
+    private static String describeTags(EmvData emvData) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("Accepted Tags:\r\n");
+        for(String tagName: emvData.getAcceptedTags().keySet()) {
+            TlvData tag = emvData.getTag(tagName);
+            boolean appendBinary = dataTypes.containsKey(tagName);
+
+            sb.append(String.format("TAG: %s - %s\r\n", tagName, tag.getDescription()));
+            sb.append(String.format("%s: %s%s\r\n\r\n", tag.getLength(), tag.getValue(), appendBinary ? String.format(" [%s]", tag.getBinaryValue()) : ""));
+        }
+
+        sb.append("Removed Tags:\r\n");
+        for(String tagName: emvData.getRemovedTags().keySet()) {
+            TlvData tag = emvData.getRemovedTags().get(tagName);
+            sb.append(String.format("TAG: %s - %s\r\n", tagName, tag.getDescription()));
+            sb.append(String.format("%s: %s\r\n", tag.getLength(), tag.getValue()));
+        }
+        return sb.toString();
+    }
 }
@@ -2,14 +2,22 @@ package com.global.api.utils;
 
 import com.global.api.entities.enums.IStringConstant;
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.joda.time.DateTime;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.math.BigDecimal;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
 public class JsonDoc {
+    public interface IArrayVisitor {
+        void visit(JsonDoc element);
+    }
+
     private HashMap<String, Object> dict;
     private IRequestEncoder encoder;
     private static final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
@@ -236,6 +244,40 @@ public class JsonDoc {
         return null;
     }
 
+    /**
+     * Parses an object whose array under the given name may be large. Each object in the array
+     * is decoded and passed to the visitor in turn instead of being kept, so only one element is
+     * held at a time; the returned document holds the object's other members.
+     */
+    public static JsonDoc parse(String json, String arrayName, IArrayVisitor visitor) {
+        JsonReader reader = new JsonReader(new StringReader(json));
+        JsonParser parser = new JsonParser();
+        HashMap<String, Object> values = new HashMap<String, Object>();
+        try {
+            reader.beginObject();
+            while(reader.hasNext()) {
+                String name = reader.nextName();
+                if(name.equals(arrayName) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while(reader.hasNext()) {
+                        JsonElement element = parser.parse(reader);
+                        if(element.isJsonObject())
+                            visitor.visit(parseObject(element.getAsJsonObject(), null));
+                    }
+                    reader.endArray();
+                }
+                else {
+                    putValue(values, name, parser.parse(reader), null);
+                }
+            }
+            reader.endObject();
+        }
+        catch(IOException exc) {
+            throw new JsonSyntaxException(exc);
+        }
+        return new JsonDoc(values);
+    }
+
     public static String parseSingleValue(String json, String name) {
         return parseSingleValue(json, name, null);
     }
@@ -247,23 +289,26 @@ public class JsonDoc {
     private static JsonDoc parseObject(JsonObject obj, IRequestEncoder encoder) {
         HashMap<String, Object> values = new HashMap<String, Object>();
         for(Map.Entry<String, JsonElement> child: obj.entrySet()) {
-            if(child.getValue().isJsonArray()) {
-                List<JsonDoc> objs = parseArray(child.getValue().getAsJsonArray(), encoder);
-                values.put(child.getKey(), objs);
-            }
-            else if(child.getValue().isJsonObject()){
-                values.put(child.getKey(), parseObject(child.getValue().getAsJsonObject(), encoder));
-            }
-            else {
-                JsonElement childValue = child.getValue();
-                if(!childValue.isJsonNull())
-                    values.put(child.getKey(), childValue.getAsString());
-                //else values.put(child.getKey(), null);
-            }
+            putValue(values, child.getKey(), child.getValue(), encoder);
         }
         return new JsonDoc(values, encoder);
     }
 
+    private static void putValue(HashMap<String, Object> values, String key, JsonElement value, IRequestEncoder encoder) {
+        if(value.isJsonArray()) {
+            List<JsonDoc> objs = parseArray(value.getAsJsonArray(), encoder);
+            values.put(key, objs);
+        }
+        else if(value.isJsonObject()){
+            values.put(key, parseObject(value.getAsJsonObject(), encoder));
+        }
+        else {
+            if(!value.isJsonNull())
+                values.put(key, value.getAsString());
+            //else values.put(key, null);
+        }
+    }
+
     private static List<JsonDoc> parseArray(JsonArray objs, IRequestEncoder encoder) {
         List<JsonDoc> responses = new ArrayList<JsonDoc>();
         for (JsonElement obj: objs) {
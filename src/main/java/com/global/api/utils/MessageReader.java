@@ -28,8 +28,7 @@ public class MessageReader {
     }
 
     public <T extends Enum<T> & IByteConstant> T readEnum(Class<T> enumType){
-        ReverseByteEnumMap<T> map = new ReverseByteEnumMap<T>(enumType);
-        return map.get(buffer[position++]);
+        return ReverseByteEnumMap.of(enumType).get(buffer[position++]);
     }
 
     public byte readByte() {
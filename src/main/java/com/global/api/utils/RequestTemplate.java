@@ -0,0 +1,138 @@
+package com.global.api.utils;
+
+import java.util.ArrayList;
+
+/**
+ * A request document rendered once per configuration, with numbered slots ({@code {{0}}},
+ * {@code {{1}}}, ...) in place of the parts that change on every transaction. Rendering only
+ * splices the slot values into the pre-rendered static text, so credentials, merchant and device
+ * identifiers are not rebuilt and re-serialized for each request.
+ */
+public class RequestTemplate {
+    private final String[] segments;
+    private final int[] slots;
+    private final int staticLength;
+
+    private RequestTemplate(String[] segments, int[] slots) {
+        this.segments = segments;
+        this.slots = slots;
+
+        int length = 0;
+        for(String segment : segments) {
+            length += segment.length();
+        }
+        this.staticLength = length;
+    }
+
+    public static String slot(int index) {
+        return "{{" + index + "}}";
+    }
+
+    public static RequestTemplate compile(String rendered) {
+        ArrayList<String> segments = new ArrayList<String>();
+        ArrayList<Integer> slots = new ArrayList<Integer>();
+
+        int start = 0;
+        int open = rendered.indexOf("{{");
+        while(open != -1) {
+            int close = rendered.indexOf("}}", open + 2);
+            if(close == -1) {
+                break;
+            }
+
+            String index = rendered.substring(open + 2, close);
+            if(index.length() > 0 && isNumeric(index)) {
+                segments.add(rendered.substring(start, open));
+                slots.add(Integer.parseInt(index));
+                start = close + 2;
+                open = rendered.indexOf("{{", start);
+            }
+            else {
+                open = rendered.indexOf("{{", open + 2);
+            }
+        }
+        segments.add(rendered.substring(start));
+
+        int[] slotArray = new int[slots.size()];
+        for(int i = 0; i < slotArray.length; i++) {
+            slotArray[i] = slots.get(i);
+        }
+        return new RequestTemplate(segments.toArray(new String[0]), slotArray);
+    }
+
+    /**
+     * Splices the values into their slots. Values are inserted as-is; use {@link #escape(String)} or
+     * {@link #element(String, String)} for raw text, or pass an already serialized fragment.
+     */
+    public String render(String... values) {
+        int length = staticLength;
+        for(String value : values) {
+            if(value != null) {
+                length += value.length();
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(length);
+        for(int i = 0; i < slots.length; i++) {
+            sb.append(segments[i]);
+
+            String value = slots[i] < values.length ? values[slots[i]] : null;
+            if(value != null) {
+                sb.append(value);
+            }
+        }
+        sb.append(segments[segments.length - 1]);
+        return sb.toString();
+    }
+
+    /**
+     * Renders a simple text element the way {@link ElementTree#subElement(Element, String, String)}
+     * does, omitting it entirely when the value is null or empty.
+     */
+    public static String element(String tagName, String value) {
+        if(StringUtils.isNullOrEmpty(value)) {
+            return "";
+        }
+        return "<" + tagName + ">" + escape(value) + "</" + tagName + ">";
+    }
+
+    public static String escape(String value) {
+        if(value == null) {
+            return "";
+        }
+
+        StringBuilder sb = null;
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            String replacement = null;
+            switch(c) {
+                case '&': replacement = "&amp;"; break;
+                case '<': replacement = "&lt;"; break;
+                case '>': replacement = "&gt;"; break;
+                case '"': replacement = "&quot;"; break;
+                case '\r': replacement = "&#13;"; break;
+            }
+
+            if(replacement != null) {
+                if(sb == null) {
+                    sb = new StringBuilder(value.length() + 16).append(value, 0, i);
+                }
+                sb.append(replacement);
+            }
+            else if(sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb != null ? sb.toString() : value;
+    }
+
+    private static boolean isNumeric(String value) {
+        for(int i = 0; i < value.length(); i++) {
+            if(!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
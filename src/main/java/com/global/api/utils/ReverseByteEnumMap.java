@@ -4,8 +4,11 @@ import com.global.api.entities.enums.IByteConstant;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ReverseByteEnumMap<V extends Enum<V> & IByteConstant> {
+    private static final ConcurrentHashMap<Class<?>, ReverseByteEnumMap<?>> cache = new ConcurrentHashMap<Class<?>, ReverseByteEnumMap<?>>();
+
     private Map<Byte, V> map = new HashMap<Byte, V>();
 
     ReverseByteEnumMap(Class<V> valueType) {
@@ -18,8 +21,20 @@ public class ReverseByteEnumMap<V extends Enum<V> & IByteConstant> {
         return map.get(value);
     }
 
+    /**
+     * @return the shared, read-only map for the enum type; built once per type
+     */
+    @SuppressWarnings("unchecked")
+    public static <V extends Enum<V> & IByteConstant> ReverseByteEnumMap<V> of(Class<V> valueType) {
+        ReverseByteEnumMap<V> map = (ReverseByteEnumMap<V>) cache.get(valueType);
+        if(map == null) {
+            map = new ReverseByteEnumMap<V>(valueType);
+            cache.putIfAbsent(valueType, map);
+        }
+        return map;
+    }
+
     public static <TResult extends Enum<TResult> & IByteConstant> TResult parse(byte value, Class<TResult> clazz) {
-        ReverseByteEnumMap<TResult> mapper = new ReverseByteEnumMap<TResult>(clazz);
-        return mapper.get(value);
+        return of(clazz).get(value);
     }
 }
\ No newline at end of file
@@ -4,8 +4,11 @@ import com.global.api.entities.enums.INumericConstant;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ReverseIntEnumMap<V extends Enum<V> & INumericConstant> {
+    private static final ConcurrentHashMap<Class<?>, ReverseIntEnumMap<?>> cache = new ConcurrentHashMap<Class<?>, ReverseIntEnumMap<?>>();
+
     private Map<Integer, V> map = new HashMap<Integer, V>();
 
     public ReverseIntEnumMap(Class<V> valueType) {
@@ -17,4 +20,17 @@ public class ReverseIntEnumMap<V extends Enum<V> & INumericConstant> {
     public V get(int value) {
         return map.get(value);
     }
+
+    /**
+     * @return the shared, read-only map for the enum type; built once per type
+     */
+    @SuppressWarnings("unchecked")
+    public static <V extends Enum<V> & INumericConstant> ReverseIntEnumMap<V> of(Class<V> valueType) {
+        ReverseIntEnumMap<V> map = (ReverseIntEnumMap<V>) cache.get(valueType);
+        if(map == null) {
+            map = new ReverseIntEnumMap<V>(valueType);
+            cache.putIfAbsent(valueType, map);
+        }
+        return map;
+    }
 }
\ No newline at end of file
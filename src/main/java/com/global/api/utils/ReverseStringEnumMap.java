@@ -4,8 +4,11 @@ import com.global.api.entities.enums.IStringConstant;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ReverseStringEnumMap<V extends Enum<V> & IStringConstant> {
+    private static final ConcurrentHashMap<Class<?>, ReverseStringEnumMap<?>> cache = new ConcurrentHashMap<Class<?>, ReverseStringEnumMap<?>>();
+
     private Map<String, V> map = new HashMap<String, V>();
 
     public ReverseStringEnumMap(Class<V> valueType) {
@@ -18,8 +21,20 @@ public class ReverseStringEnumMap<V extends Enum<V> & IStringConstant> {
         return map.get(value);
     }
 
+    /**
+     * @return the shared, read-only map for the enum type; built once per type
+     */
+    @SuppressWarnings("unchecked")
+    public static <V extends Enum<V> & IStringConstant> ReverseStringEnumMap<V> of(Class<V> valueType) {
+        ReverseStringEnumMap<V> map = (ReverseStringEnumMap<V>) cache.get(valueType);
+        if(map == null) {
+            map = new ReverseStringEnumMap<V>(valueType);
+            cache.putIfAbsent(valueType, map);
+        }
+        return map;
+    }
+
     public static <TResult extends Enum<TResult> & IStringConstant> TResult parse(String value, Class<TResult> clazz) {
-        ReverseStringEnumMap<TResult> mapper = new ReverseStringEnumMap<TResult>(clazz);
-        return mapper.get(value);
+        return of(clazz).get(value);
     }
 }
\ No newline at end of file
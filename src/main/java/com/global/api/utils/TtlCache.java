@@ -0,0 +1,207 @@
+package com.global.api.utils;
+
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.GatewayException;
+import com.global.api.metrics.MetricsRegistry;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size bounded cache whose entries expire a fixed time after they were loaded. Concurrent misses
+ * on the same key are coalesced: one caller runs the loader while the others wait for its
+ * result, so a burst of identical lookups costs a single gateway call. Hits and misses are
+ * counted here and, when a connector name is given, as {@link MetricsRegistry} gauges.
+ */
+public class TtlCache<K, V> {
+    public interface ILoader<K, V> {
+        /**
+         * @return the value to cache, or null to return nothing and cache nothing
+         */
+        V load(K key) throws ApiException;
+    }
+
+    private final String connector;
+    private final String name;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, CacheEntry<V>> entries;
+    private final HashMap<K, Flight<V>> loading = new HashMap<K, Flight<V>>();
+    private long hits;
+    private long misses;
+
+    public TtlCache(long ttlMillis, int maxSize) {
+        this(null, null, ttlMillis, maxSize);
+    }
+    public TtlCache(String connector, String name, long ttlMillis, final int maxSize) {
+        this.connector = connector;
+        this.name = name;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.entries = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+    public synchronized long getMissCount() {
+        return misses;
+    }
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getTtlMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(ttlNanos);
+    }
+
+    /**
+     * Returns the fresh value for the key, or null, counting the lookup as a hit or a miss.
+     */
+    public synchronized V get(K key) {
+        CacheEntry<V> entry = entries.get(key);
+        if(entry != null && !entry.isExpired()) {
+            hit();
+            return entry.value;
+        }
+        else if(entry != null) {
+            entries.remove(key);
+        }
+        miss();
+        return null;
+    }
+
+    public V get(K key, ILoader<K, V> loader) throws ApiException {
+        Flight<V> flight;
+        boolean owner = false;
+        synchronized (this) {
+            CacheEntry<V> entry = entries.get(key);
+            if(entry != null && !entry.isExpired()) {
+                hit();
+                return entry.value;
+            }
+            else if(entry != null) {
+                entries.remove(key);
+            }
+
+            flight = loading.get(key);
+            if(flight != null) {
+                hit();
+            }
+            else {
+                miss();
+                flight = new Flight<V>();
+                loading.put(key, flight);
+                owner = true;
+            }
+        }
+
+        if(!owner) {
+            return flight.await();
+        }
+
+        V value = null;
+        ApiException failure = null;
+        try {
+            value = loader.load(key);
+            if(value != null) {
+                put(key, value);
+            }
+            return value;
+        }
+        catch(ApiException exc) {
+            failure = exc;
+            throw exc;
+        }
+        catch(RuntimeException exc) {
+            failure = new ApiException(exc.getMessage(), exc);
+            throw exc;
+        }
+        catch(Error exc) {
+            failure = new ApiException(exc.getMessage());
+            throw exc;
+        }
+        finally {
+            synchronized (this) {
+                loading.remove(key);
+            }
+            flight.complete(value, failure);
+        }
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new CacheEntry<V>(value, System.nanoTime() + ttlNanos));
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private void hit() {
+        hits++;
+        if(connector != null) {
+            MetricsRegistry.getInstance().incrementGauge(connector, name + ".hit");
+        }
+    }
+
+    private void miss() {
+        misses++;
+        if(connector != null) {
+            MetricsRegistry.getInstance().incrementGauge(connector, name + ".miss");
+        }
+    }
+
+    private static class CacheEntry<V> {
+        private final V value;
+        private final long expires;
+
+        CacheEntry(V value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expires >= 0;
+        }
+    }
+
+    private static class Flight<V> {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private V value;
+        private ApiException exception;
+
+        void complete(V value, ApiException exception) {
+            this.value = value;
+            this.exception = exception;
+            done.countDown();
+        }
+
+        V await() throws ApiException {
+            try {
+                done.await();
+            }
+            catch(InterruptedException exc) {
+                Thread.currentThread().interrupt();
+                throw new GatewayException("Interrupted while waiting for a cached lookup.", exc);
+            }
+
+            if(exception != null) {
+                throw exception;
+            }
+            return value;
+        }
+    }
+}
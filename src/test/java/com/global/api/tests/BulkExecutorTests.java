@@ -0,0 +1,185 @@
+package com.global.api.tests;
+
+import com.global.api.builders.BaseBuilder;
+import com.global.api.entities.Transaction;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.ConcurrencyLimitExceededException;
+import com.global.api.entities.exceptions.GatewayException;
+import com.global.api.services.BulkExecutor;
+import com.global.api.services.FileBulkCheckpoint;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BulkExecutorTests {
+    private final BulkExecutor executor = new BulkExecutor();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger executed = new AtomicInteger();
+
+    @After
+    public void tearDown() {
+        executor.dispose();
+    }
+
+    private class FakeBuilder extends BaseBuilder<Transaction> {
+        private final String id;
+        private int rejections;
+        private boolean fail;
+
+        FakeBuilder(String id) {
+            this.id = id;
+        }
+
+        public Transaction execute(String configName) throws ApiException {
+            executed.incrementAndGet();
+            if(rejections > 0) {
+                rejections--;
+                throw new ConcurrencyLimitExceededException(1);
+            }
+
+            int current = inFlight.incrementAndGet();
+            while(true) {
+                int max = maxInFlight.get();
+                if(current <= max || maxInFlight.compareAndSet(max, current)) {
+                    break;
+                }
+            }
+            try {
+                Thread.sleep(10);
+            }
+            catch(InterruptedException exc) {
+                throw new GatewayException("interrupted", exc);
+            }
+            finally {
+                inFlight.decrementAndGet();
+            }
+
+            if(fail) {
+                throw new GatewayException("declined by test");
+            }
+            Transaction response = new Transaction();
+            response.setResponseCode("00");
+            response.setClientTransactionId(id);
+            return response;
+        }
+
+        public void setupValidations() { }
+    }
+
+    private static class CollectingHandler implements BulkExecutor.IResultHandler {
+        private final List<BulkExecutor.Result> results = Collections.synchronizedList(new ArrayList<BulkExecutor.Result>());
+
+        public void onResult(BulkExecutor.Result result) {
+            results.add(result);
+        }
+    }
+
+    private List<FakeBuilder> builders(int count) {
+        List<FakeBuilder> builders = new ArrayList<FakeBuilder>();
+        for(int i = 0; i < count; i++) {
+            builders.add(new FakeBuilder("txn-" + i));
+        }
+        return builders;
+    }
+
+    @Test
+    public void runsEveryBuilderWithinConcurrencyLimit() throws ApiException {
+        executor.setConcurrency("bulk", 3);
+        CollectingHandler handler = new CollectingHandler();
+
+        BulkExecutor.Summary summary = executor.execute(builders(20).iterator(), "bulk", handler);
+
+        assertEquals(20, summary.getSucceeded());
+        assertEquals(20, handler.results.size());
+        assertTrue(maxInFlight.get() <= 3);
+    }
+
+    @Test
+    public void rateLimitPacesStarts() throws ApiException {
+        executor.setConcurrency("bulk", 10);
+        executor.setRateLimit("bulk", 50);
+
+        long start = System.currentTimeMillis();
+        executor.execute(builders(11).iterator(), "bulk", new CollectingHandler());
+
+        assertTrue(System.currentTimeMillis() - start >= 180);
+    }
+
+    @Test
+    public void retriesRequestsRefusedBeforeSending() throws ApiException {
+        executor.setRetryBackoff(1);
+        List<FakeBuilder> builders = builders(2);
+        builders.get(0).rejections = 2;
+        CollectingHandler handler = new CollectingHandler();
+
+        BulkExecutor.Summary summary = executor.execute(builders.iterator(), "bulk", handler);
+
+        assertEquals(2, summary.getSucceeded());
+        assertEquals(4, executed.get());
+    }
+
+    @Test
+    public void resumeSkipsCompletedRequests() throws Exception {
+        File file = File.createTempFile("bulk", ".checkpoint");
+        file.deleteOnExit();
+        try {
+            List<FakeBuilder> builders = builders(10);
+            builders.get(4).fail = true;
+            FileBulkCheckpoint checkpoint = new FileBulkCheckpoint(file);
+            BulkExecutor.Summary first = executor.execute(builders.iterator(), "bulk", checkpoint, new CollectingHandler());
+            checkpoint.dispose();
+            assertEquals(9, first.getSucceeded());
+            assertEquals(1, first.getFailed());
+
+            builders.get(4).fail = false;
+            executed.set(0);
+            checkpoint = new FileBulkCheckpoint(file);
+            CollectingHandler handler = new CollectingHandler();
+            BulkExecutor.Summary resumed = executor.execute(builders.iterator(), "bulk", checkpoint, handler);
+            checkpoint.dispose();
+
+            assertEquals(9, resumed.getSkipped());
+            assertEquals(1, resumed.getSucceeded());
+            assertEquals(1, executed.get());
+            assertEquals(4, handler.results.get(0).getSequence());
+            assertEquals("txn-4", handler.results.get(0).getTransaction().getClientTransactionId());
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void checkpointIgnoresTornLine() throws Exception {
+        File file = File.createTempFile("bulk", ".checkpoint");
+        file.deleteOnExit();
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            out.write("0\n1\n12".getBytes("UTF-8"));
+            out.close();
+
+            FileBulkCheckpoint checkpoint = new FileBulkCheckpoint(file);
+            assertEquals(2, checkpoint.getCompletedCount());
+            assertFalse(checkpoint.isCompleted(12));
+            checkpoint.markCompleted(2);
+            checkpoint.dispose();
+
+            checkpoint = new FileBulkCheckpoint(file);
+            assertTrue(checkpoint.isCompleted(2));
+            assertEquals(3, checkpoint.getCompletedCount());
+            checkpoint.dispose();
+        }
+        finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.global.api.tests;
+
+import com.global.api.entities.enums.TransactionType;
+import com.global.api.paymentMethods.CreditCardData;
+import com.global.api.resilience.DuplicateDetector;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.*;
+
+public class DuplicateDetectorTests {
+    @Test
+    public void secondRequestIsDuplicate() {
+        DuplicateDetector detector = new DuplicateDetector(60000, 1000, 0.001);
+        assertNotNull(detector.register("sale|4111111111111111|10|USD"));
+        assertNull(detector.register("sale|4111111111111111|10|USD"));
+        assertNotNull(detector.register("sale|4111111111111111|12|USD"));
+    }
+
+    @Test
+    public void releasedRequestMaySendAgain() {
+        DuplicateDetector detector = new DuplicateDetector(60000, 1000, 0.001);
+        DuplicateDetector.Registration registration = detector.register("sale|4111111111111111|10|USD");
+        detector.release(registration);
+        assertNotNull(detector.register("sale|4111111111111111|10|USD"));
+    }
+
+    @Test
+    public void forgottenAfterWindow() throws InterruptedException {
+        DuplicateDetector detector = new DuplicateDetector(200, 1000, 0.001);
+        assertNotNull(detector.register("sale|4111111111111111|10|USD"));
+        Thread.sleep(300);
+        assertNotNull(detector.register("sale|4111111111111111|10|USD"));
+    }
+
+    @Test
+    public void falsePositivesNearConfiguredRate() {
+        DuplicateDetector detector = new DuplicateDetector(60000, 10000, 0.01);
+        int falsePositives = 0;
+        for(int i = 0; i < 10000; i++) {
+            if(detector.register("seen-" + i) == null) {
+                falsePositives++;
+            }
+        }
+        // the filter fills as keys are added, so the rate only reaches 1% for the last of them
+        assertTrue("false positives: " + falsePositives, falsePositives < 100);
+    }
+
+    @Test
+    public void keyNeedsCardAndAmount() {
+        CreditCardData card = new CreditCardData();
+        card.setNumber("4111111111111111");
+        assertNotNull(DuplicateDetector.getKey(TransactionType.Sale, card, new BigDecimal("10.00"), "USD"));
+        assertEquals(DuplicateDetector.getKey(TransactionType.Sale, card, new BigDecimal("10.00"), "USD"),
+                DuplicateDetector.getKey(TransactionType.Sale, card, new BigDecimal("10"), "USD"));
+        assertNull(DuplicateDetector.getKey(TransactionType.Sale, card, null, "USD"));
+        assertNull(DuplicateDetector.getKey(TransactionType.Sale, new CreditCardData(), new BigDecimal("10"), "USD"));
+    }
+}
@@ -0,0 +1,160 @@
+package com.global.api.tests;
+
+import com.global.api.ServicesContainer;
+import com.global.api.entities.Transaction;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.BuilderException;
+import com.global.api.entities.exceptions.ConfigurationException;
+import com.global.api.paymentMethods.CreditCardData;
+import com.global.api.resilience.GatewayRouter;
+import com.global.api.serviceConfigs.GatewayConfig;
+import com.global.api.tests.mock.MockHttpGateway;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.*;
+
+public class GatewayRouterTests {
+    private MockHttpGateway fast;
+    private MockHttpGateway slow;
+    private GatewayRouter router;
+    private CreditCardData card;
+
+    @Before
+    public void setUp() throws Exception {
+        fast = new MockHttpGateway();
+        slow = new MockHttpGateway();
+        slow.setLatency(200);
+        configure(fast, "route-fast");
+        configure(slow, "route-slow");
+
+        router = new GatewayRouter();
+        router.addTarget("route-fast").addTarget("route-slow");
+        ServicesContainer.configureRouter(router, "routed");
+
+        card = new CreditCardData();
+        card.setNumber("4111111111111111");
+        card.setExpMonth(12);
+        card.setExpYear(2025);
+        card.setCvn("123");
+    }
+
+    @After
+    public void tearDown() {
+        router.dispose();
+        fast.dispose();
+        slow.dispose();
+    }
+
+    private void configure(MockHttpGateway gateway, String configName) throws Exception {
+        GatewayConfig config = new GatewayConfig();
+        config.setSecretApiKey("skapi_cert_MTeSAQAfG1UA9qQDrzl-kz4toXvARyieptFwSKP24w");
+        config.setServiceUrl(gateway.getUrl());
+        config.setSslSocketFactory(gateway.getSslSocketFactory());
+        ServicesContainer.configureService(config, configName);
+    }
+
+    private Transaction sale() throws ApiException {
+        return card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true).execute("routed");
+    }
+
+    @Test
+    public void trafficShiftsToFasterGateway() throws ApiException {
+        // the first request to each pays for the TLS handshake
+        card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true).execute("route-fast");
+        card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true).execute("route-slow");
+        fast.getRequests().clear();
+        slow.getRequests().clear();
+
+        for(int i = 0; i < 60; i++) {
+            sale();
+        }
+
+        assertTrue(router.getLatency("route-fast") > 0);
+        assertTrue(fast.getRequests().size() > 3 * slow.getRequests().size());
+    }
+
+    @Test
+    public void followUpGoesToOriginalGateway() throws ApiException {
+        Transaction response = sale();
+        MockHttpGateway original = fast.getRequests().size() > 0 ? fast : slow;
+
+        for(int i = 0; i < 5; i++) {
+            int before = original.getRequests().size();
+            response.capture().execute("routed");
+            assertEquals(before + 1, original.getRequests().size());
+        }
+    }
+
+    @Test
+    public void retryGoesToFirstAttemptsGateway() throws ApiException {
+        card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true)
+                .withClientTransactionId("router-retry-1").execute("routed");
+        MockHttpGateway original = fast.getRequests().size() > 0 ? fast : slow;
+
+        // new traffic now avoids the original gateway, its retries must not
+        router.setEjectionThreshold(1);
+        router.record(original == fast ? "route-fast" : "route-slow", 0, true);
+        for(int i = 0; i < 5; i++) {
+            card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true)
+                    .withClientTransactionId("router-retry-1").execute("routed");
+        }
+        assertEquals(6, original.getRequests().size());
+    }
+
+    @Test(expected = BuilderException.class)
+    public void unroutedFollowUpIsRefused() throws ApiException {
+        Transaction.fromId("unrouted").capture().execute("routed");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unconfiguredTargetIsRefusedAfterRegistration() {
+        router.addTarget("route-missing");
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void configurationCannotHideRoute() throws Exception {
+        configure(fast, "routed");
+    }
+
+    @Test
+    public void failingGatewayIsEjected() throws ApiException {
+        slow.setErrorRate(1);
+        router.setEjectionThreshold(3);
+
+        for(int i = 0; i < 500 && slow.getRequests().size() < 3; i++) {
+            try {
+                sale();
+            }
+            catch(ApiException exc) {
+                // answered with a 500
+            }
+        }
+        assertEquals(3, slow.getRequests().size());
+        assertFalse(router.isAvailable("route-slow"));
+
+        for(int i = 0; i < 20; i++) {
+            sale();
+        }
+        assertEquals(3, slow.getRequests().size());
+    }
+
+    @Test
+    public void unhealthyGatewayIsSkipped() throws Exception {
+        router.setHealthCheck(new GatewayRouter.IHealthCheck() {
+            public boolean isHealthy(String configName) {
+                return !configName.equals("route-fast");
+            }
+        }, 50);
+        Thread.sleep(100);
+
+        for(int i = 0; i < 10; i++) {
+            sale();
+        }
+        assertEquals(0, fast.getRequests().size());
+        assertEquals(10, slow.getRequests().size());
+    }
+}
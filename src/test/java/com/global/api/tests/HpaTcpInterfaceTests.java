@@ -0,0 +1,108 @@
+package com.global.api.tests;
+
+import com.global.api.entities.exceptions.MessageException;
+import com.global.api.terminals.ConnectionConfig;
+import com.global.api.terminals.DeviceMessage;
+import com.global.api.terminals.hpa.interfaces.HpaTcpInterface;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import static org.junit.Assert.*;
+
+public class HpaTcpInterfaceTests {
+    private ServerSocket server;
+    private HpaTcpInterface device;
+
+    @Before
+    public void setup() throws IOException {
+        server = new ServerSocket(0);
+
+        ConnectionConfig config = new ConnectionConfig();
+        config.setIpAddress("127.0.0.1");
+        config.setPort(server.getLocalPort());
+        config.setTimeout(2000);
+        device = new HpaTcpInterface(config);
+    }
+
+    @After
+    public void teardown() throws IOException {
+        device.disconnect();
+        server.close();
+    }
+
+    @Test
+    public void assemblesMultipleMessages() throws Exception {
+        final String first = "<SIP><Response>GetBatchReport</Response><MultipleMessage>1</MultipleMessage></SIP>";
+        final String last = "<SIP><Response>GetBatchReport</Response><MultipleMessage>0</MultipleMessage></SIP>";
+        startDevice(first, last);
+
+        byte[] response = device.send(request());
+        assertEquals(first + "\r" + last, new String(response));
+    }
+
+    @Test
+    public void respondsWithoutPolling() throws Exception {
+        startDevice("<SIP><Response>Reboot</Response><MultipleMessage>0</MultipleMessage></SIP>");
+
+        long started = System.currentTimeMillis();
+        device.send(request());
+        device.disconnect();
+        startDevice("<SIP><Response>Reboot</Response><MultipleMessage>0</MultipleMessage></SIP>");
+        device.send(request());
+        assertTrue(System.currentTimeMillis() - started < 600);
+    }
+
+    @Test(expected = MessageException.class)
+    public void timesOutWithoutResponse() throws Exception {
+        startDevice();
+        device.send(request());
+    }
+
+    private DeviceMessage request() {
+        byte[] body = "<SIP><Version>1.0</Version></SIP>".getBytes();
+        byte[] buffer = new byte[body.length + 2];
+        buffer[0] = (byte) (body.length >> 8);
+        buffer[1] = (byte) body.length;
+        System.arraycopy(body, 0, buffer, 2, body.length);
+
+        DeviceMessage message = new DeviceMessage(buffer);
+        message.setAwaitResponse(true);
+        return message;
+    }
+
+    private void startDevice(final String... responses) {
+        Thread thread = new Thread() {
+            public void run() {
+                try {
+                    Socket socket = server.accept();
+                    DataInputStream in = new DataInputStream(socket.getInputStream());
+                    byte[] body = new byte[in.readUnsignedShort()];
+                    in.readFully(body);
+
+                    OutputStream out = socket.getOutputStream();
+                    for(String response : responses) {
+                        byte[] data = response.getBytes();
+                        out.write(data.length >> 8);
+                        out.write(data.length);
+                        out.write(data);
+                        out.flush();
+                    }
+                    Thread.sleep(2500);
+                    socket.close();
+                }
+                catch(Exception exc) {
+                    // the client side assertions report failures
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,83 @@
+package com.global.api.tests;
+
+import com.global.api.metrics.LatencyHistogram;
+import com.global.api.metrics.LatencySnapshot;
+import com.global.api.metrics.MetricKey;
+import com.global.api.metrics.MetricsRegistry;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MetricsTests {
+    @Test
+    public void histogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for(int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000L, histogram.getMax());
+        assertEquals(500500.0, histogram.getMean(), 0.1);
+
+        long p50 = histogram.getValueAtPercentile(50.0);
+        assertTrue(p50 >= 500000L && p50 <= 500000L * 1.07);
+        long p99 = histogram.getValueAtPercentile(99.0);
+        assertTrue(p99 >= 990000L && p99 <= 1000000L);
+    }
+
+    @Test
+    public void histogramSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3);
+        histogram.record(7);
+        assertEquals(3, histogram.getValueAtPercentile(50.0));
+        assertEquals(7, histogram.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    public void registryBreaksDownByKey() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.reset();
+
+        long started = System.nanoTime();
+        registry.recordLatency("TestConnector", "Sale", "primary", "00", started);
+        registry.recordLatency("TestConnector", "Sale", "primary", "00", started);
+        registry.recordLatency("TestConnector", "Sale", "secondary", "05", started);
+        registry.incrementGauge("TestConnector", "openConnections");
+
+        List<LatencySnapshot> snapshots = registry.getLatencySnapshots();
+        assertEquals(2, snapshots.size());
+        for(LatencySnapshot snapshot : snapshots) {
+            if(snapshot.getKey().getEndpoint().equals("primary")) {
+                assertEquals(2, snapshot.getCount());
+            }
+            else assertEquals(1, snapshot.getCount());
+        }
+        assertEquals(Long.valueOf(1), registry.getGauges().get("TestConnector.openConnections"));
+        registry.reset();
+    }
+
+    @Test
+    public void registryKeepsRouteApartFromEndpoint() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.reset();
+
+        long started = System.nanoTime();
+        registry.recordLatency("TestConnector", "Sale", "east", "primary", "00", started);
+        registry.recordLatency("TestConnector", "Sale", "west", "primary", "00", started);
+        registry.recordLatency("TestConnector", "Sale", "primary", "00", started);
+
+        List<LatencySnapshot> snapshots = registry.getLatencySnapshots();
+        assertEquals(3, snapshots.size());
+        for(LatencySnapshot snapshot : snapshots) {
+            assertEquals("primary", snapshot.getKey().getEndpoint());
+            assertEquals(1, snapshot.getCount());
+        }
+        assertEquals("TestConnector.Sale(east)[primary].00", new MetricKey("TestConnector", "Sale", "east", "primary", "00").toString());
+        assertEquals("TestConnector.Sale[primary].00", new MetricKey("TestConnector", "Sale", "primary", "00").toString());
+        registry.reset();
+    }
+}
@@ -0,0 +1,584 @@
+package com.global.api.tests;
+
+import com.global.api.ServicesContainer;
+import com.global.api.entities.Customer;
+import com.global.api.entities.CustomerCollection;
+import com.global.api.entities.ThreeDSecure;
+import com.global.api.entities.Transaction;
+import com.global.api.entities.enums.DccProcessor;
+import com.global.api.entities.enums.DccRateType;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.BuilderException;
+import com.global.api.entities.exceptions.DuplicateTransactionException;
+import com.global.api.entities.exceptions.GatewayException;
+import com.global.api.gateways.Gp3DSProvider;
+import com.global.api.gateways.PayPlanConnector;
+import com.global.api.gateways.PayrollConnector;
+import com.global.api.gateways.TableServiceConnector;
+import com.global.api.metrics.LatencySnapshot;
+import com.global.api.metrics.MetricsRegistry;
+import com.global.api.paymentMethods.CreditCardData;
+import com.global.api.serviceConfigs.GatewayConfig;
+import com.global.api.resilience.IIdempotencyStore;
+import com.global.api.serviceConfigs.GpApiConfig;
+import com.global.api.services.BulkExecutor;
+import com.global.api.services.RecurringSearchIterator;
+import com.global.api.services.RecurringService;
+import com.global.api.services.Secure3dService;
+import com.global.api.tests.mock.MockHttpGateway;
+import com.global.api.utils.TtlCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MockHttpGatewayTests {
+    private MockHttpGateway gateway;
+    private CreditCardData card;
+
+    @Before
+    public void setUp() throws Exception {
+        gateway = new MockHttpGateway();
+
+        GatewayConfig portico = new GatewayConfig();
+        portico.setSecretApiKey("skapi_cert_MTeSAQAfG1UA9qQDrzl-kz4toXvARyieptFwSKP24w");
+        portico.setServiceUrl(gateway.getUrl());
+        portico.setSslSocketFactory(gateway.getSslSocketFactory());
+        ServicesContainer.configureService(portico, "mock-portico");
+
+        GatewayConfig realex = new GatewayConfig();
+        realex.setMerchantId("heartlandgpsandbox");
+        realex.setAccountId("api");
+        realex.setSharedSecret("secret");
+        realex.setServiceUrl(gateway.getUrl() + MockHttpGateway.REALEX_PATH);
+        realex.setSslSocketFactory(gateway.getSslSocketFactory());
+        ServicesContainer.configureService(realex, "mock-realex");
+
+        GpApiConfig gpApi = new GpApiConfig();
+        gpApi.setAppId("i872l4VgZRtSrykvSn8Lkah8RE1jihvT");
+        gpApi.setAppKey("9pArW2uWoA8enxKc");
+        gpApi.setServiceUrl(gateway.getUrl() + MockHttpGateway.GP_API_PATH);
+        gpApi.setSslSocketFactory(gateway.getSslSocketFactory());
+        ServicesContainer.configureService(gpApi, "mock-gpapi");
+
+        card = new CreditCardData();
+        card.setNumber("4111111111111111");
+        card.setExpMonth(12);
+        card.setExpYear(2025);
+        card.setCvn("123");
+        card.setCardHolderName("John Smith");
+    }
+
+    @After
+    public void tearDown() {
+        gateway.dispose();
+    }
+
+    @Test
+    public void porticoSale() throws ApiException {
+        Transaction response = card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true).execute("mock-portico");
+        assertEquals("00", response.getResponseCode());
+        assertEquals("POST " + MockHttpGateway.PORTICO_PATH, gateway.getRequests().get(0));
+    }
+
+    @Test
+    public void porticoSale_recordsRouteAndEndpointSeparately() throws ApiException {
+        MetricsRegistry.getInstance().reset();
+        card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true).execute("mock-portico");
+
+        LatencySnapshot execute = null;
+        LatencySnapshot send = null;
+        for(LatencySnapshot snapshot : MetricsRegistry.getInstance().getLatencySnapshots()) {
+            if(snapshot.getKey().getOperation().equals("Sale")) {
+                execute = snapshot;
+            }
+            else if(snapshot.getKey().getOperation().equals("POST")) {
+                send = snapshot;
+            }
+        }
+        MetricsRegistry.getInstance().reset();
+
+        assertNotNull(execute);
+        assertEquals("mock-portico", execute.getKey().getRoute());
+        assertNull(execute.getKey().getEndpoint());
+        assertNotNull(send);
+        assertEquals("127.0.0.1", send.getKey().getEndpoint());
+        assertEquals("200", send.getKey().getResponseCode());
+    }
+
+    @Test
+    public void warmUp_sendsNoRequests() throws ApiException {
+        ServicesContainer.warmUp("mock-portico", 50);
+        ServicesContainer.warmUp("mock-realex", 50);
+        ServicesContainer.warmUp("mock-gpapi", 50);
+        assertTrue(gateway.getRequests().isEmpty());
+
+        Transaction response = card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true).execute("mock-portico");
+        assertEquals("00", response.getResponseCode());
+    }
+
+    @Test
+    public void warmUp_mapsEachConnectorsCannedResponse() throws ApiException {
+        PayPlanConnector payPlan = new PayPlanConnector();
+        payPlan.setSecretApiKey("skapi_cert_MTeSAQAfG1UA9qQDrzl-kz4toXvARyieptFwSKP24w");
+        payPlan.warmUp(5);
+
+        PayrollConnector payroll = new PayrollConnector();
+        payroll.setUsername("warmup");
+        payroll.setApiKey("warmup");
+        payroll.warmUp(5);
+
+        Gp3DSProvider secure3d = new Gp3DSProvider();
+        secure3d.setMerchantId("heartlandgpsandbox");
+        secure3d.setSharedSecret("secret");
+        secure3d.warmUp(5);
+
+        new TableServiceConnector().warmUp(5);
+        assertTrue(gateway.getRequests().isEmpty());
+    }
+
+    @Test(expected = ApiException.class)
+    public void warmUp_unknownConfiguration() throws ApiException {
+        ServicesContainer.warmUp("not-configured");
+    }
+
+    @Test
+    public void realexSale() throws ApiException {
+        Transaction response = card.charge(new BigDecimal("10")).withCurrency("EUR").withOrderId("mock-order-1").execute("mock-realex");
+        assertEquals("00", response.getResponseCode());
+        assertEquals("mock-order-1", response.getOrderId());
+    }
+
+    @Test
+    public void realexDccRateCache() throws Exception {
+        GatewayConfig config = new GatewayConfig();
+        config.setMerchantId("heartlandgpsandbox");
+        config.setAccountId("apidcc");
+        config.setSharedSecret("secret");
+        config.setServiceUrl(gateway.getUrl() + MockHttpGateway.REALEX_PATH);
+        config.setSslSocketFactory(gateway.getSslSocketFactory());
+        config.setDccRateCacheTtl(60000);
+        ServicesContainer.configureService(config, "mock-dcc");
+
+        gateway.respond("POST", MockHttpGateway.REALEX_PATH, 200, "<response timestamp=\"{{request:timestamp}}\">"
+                + "<orderid>{{request:orderid}}</orderid><result>00</result><message>Success</message><pasref>{{sequence}}</pasref>"
+                + "<dccinfo><cardholdercurrency>GBP</cardholdercurrency><cardholderamount>897</cardholderamount>"
+                + "<cardholderrate>0.8962</cardholderrate><merchantcurrency>EUR</merchantcurrency><merchantamount>1001</merchantamount>"
+                + "<marginratepercentage>3.5</marginratepercentage><exchangeratesourcename>REUTERS WHOLESALE INTERBANK</exchangeratesourcename>"
+                + "<commissionpercentage>0</commissionpercentage><exchangeratesourcetimestamp>20201029 08:30</exchangeratesourcetimestamp></dccinfo></response>");
+
+        // regular lookups are always live, so their quotes can be charged
+        Transaction live = card.getDccRate(DccRateType.Sale, DccProcessor.Fexco)
+                .withAmount(new BigDecimal("10.01"))
+                .withCurrency("EUR")
+                .execute("mock-dcc");
+        card.getDccRate(DccRateType.Sale, DccProcessor.Fexco)
+                .withAmount(new BigDecimal("10.01"))
+                .withCurrency("EUR")
+                .execute("mock-dcc");
+        assertEquals("00", live.getResponseCode());
+        assertFalse(live.getDccRateData().isIndicative());
+        assertEquals(2, gateway.getRequests().size());
+
+        // indicative lookups are indicative whether or not they were served from the cache
+        Transaction first = card.getIndicativeDccRate(DccRateType.Sale, DccProcessor.Fexco)
+                .withAmount(new BigDecimal("10.01"))
+                .withCurrency("EUR")
+                .execute("mock-dcc");
+        assertEquals("00", first.getResponseCode());
+        assertEquals(new BigDecimal("897"), first.getDccRateData().getCardHolderAmount());
+        assertTrue(first.getDccRateData().isIndicative());
+        assertEquals(3, gateway.getRequests().size());
+
+        Transaction second = card.getIndicativeDccRate(DccRateType.Sale, DccProcessor.Fexco)
+                .withAmount(new BigDecimal("20.00"))
+                .withCurrency("EUR")
+                .execute("mock-dcc");
+        assertEquals("00", second.getResponseCode());
+        assertEquals(new BigDecimal("1792"), second.getDccRateData().getCardHolderAmount());
+        assertEquals("GBP", second.getDccRateData().getCardHolderCurrency());
+        assertTrue(second.getDccRateData().isIndicative());
+        assertNull(second.getOrderId());
+        assertEquals(3, gateway.getRequests().size());
+
+        try {
+            card.charge(new BigDecimal("20.00"))
+                    .withCurrency("EUR")
+                    .withDccRateData(second.getDccRateData())
+                    .execute("mock-dcc");
+            fail("Indicative rate data should not be accepted for a charge.");
+        }
+        catch(BuilderException exc) {
+            assertEquals(3, gateway.getRequests().size());
+        }
+
+        card.getIndicativeDccRate(DccRateType.Sale, DccProcessor.Fexco)
+                .withAmount(new BigDecimal("10.01"))
+                .withCurrency("USD")
+                .execute("mock-dcc");
+        assertEquals(4, gateway.getRequests().size());
+    }
+
+    @Test
+    public void realexDccRateCacheUsesCurrencyExponents() throws Exception {
+        GatewayConfig config = new GatewayConfig();
+        config.setMerchantId("heartlandgpsandbox");
+        config.setAccountId("apidcc");
+        config.setSharedSecret("secret");
+        config.setServiceUrl(gateway.getUrl() + MockHttpGateway.REALEX_PATH);
+        config.setSslSocketFactory(gateway.getSslSocketFactory());
+        config.setDccRateCacheTtl(60000);
+        ServicesContainer.configureService(config, "mock-dcc-jpy");
+
+        gateway.respond("POST", MockHttpGateway.REALEX_PATH, 200, "<response timestamp=\"{{request:timestamp}}\">"
+                + "<orderid>{{request:orderid}}</orderid><result>00</result><message>Success</message><pasref>{{sequence}}</pasref>"
+                + "<dccinfo><cardholdercurrency>JPY</cardholdercurrency><cardholderamount>1602</cardholderamount>"
+                + "<cardholderrate>160.0500</cardholderrate><merchantcurrency>EUR</merchantcurrency><merchantamount>1001</merchantamount>"
+                + "<marginratepercentage>3.5</marginratepercentage><exchangeratesourcename>REUTERS WHOLESALE INTERBANK</exchangeratesourcename>"
+                + "<commissionpercentage>0</commissionpercentage><exchangeratesourcetimestamp>20201029 08:30</exchangeratesourcetimestamp></dccinfo></response>");
+
+        card.getIndicativeDccRate(DccRateType.Sale, DccProcessor.Fexco)
+                .withAmount(new BigDecimal("10.01"))
+                .withCurrency("EUR")
+                .execute("mock-dcc-jpy");
+
+        Transaction cached = card.getIndicativeDccRate(DccRateType.Sale, DccProcessor.Fexco)
+                .withAmount(new BigDecimal("20.00"))
+                .withCurrency("EUR")
+                .execute("mock-dcc-jpy");
+        assertEquals(1, gateway.getRequests().size());
+        assertEquals(new BigDecimal("2000"), cached.getDccRateData().getMerchantAmount());
+        assertEquals(new BigDecimal("3201"), cached.getDccRateData().getCardHolderAmount());
+    }
+
+    @Test
+    public void gpApiSale() throws ApiException {
+        Transaction response = card.charge(new BigDecimal("10")).withCurrency("USD").execute("mock-gpapi");
+        assertEquals("SUCCESS", response.getResponseCode());
+        assertEquals("POST " + MockHttpGateway.GP_API_PATH + "/accesstoken", gateway.getRequests().get(0));
+        assertEquals("POST " + MockHttpGateway.GP_API_PATH + "/transactions", gateway.getRequests().get(1));
+    }
+
+    @Test
+    public void payPlanCreateCustomer() throws ApiException {
+        Customer customer = new Customer();
+        customer.setId("mock-customer");
+        customer.setFirstName("John");
+        customer.setLastName("Doe");
+        customer.setStatus("Active");
+        customer.setEmail("john.doe@example.com");
+
+        customer = customer.create("mock-portico");
+        assertNotNull(customer.getKey());
+        assertEquals("mock-customer", customer.getId());
+    }
+
+    @Test
+    public void payPlanSearchStreamsPages() throws ApiException {
+        gateway.respond("*", MockHttpGateway.PAYPLAN_PATH + "searchCustomers", 200, "{\"totalRecords\":5,\"results\":["
+                + "{\"customerKey\":\"{{sequence}}\",\"firstName\":\"John\",\"paymentMethods\":[{\"paymentMethodKey\":\"pm\"}]},"
+                + "{\"customerKey\":\"{{sequence}}\",\"firstName\":\"Jane\"}],\"offset\":0}");
+
+        RecurringSearchIterator<Customer> customers = RecurringService.stream(
+                RecurringService.search(CustomerCollection.class).addSearchCriteria("customerStatus", "Active"), 2, "mock-portico");
+        int count = 0;
+        while(customers.hasNext()) {
+            Customer customer = customers.next();
+            assertNotNull(customer.getKey());
+            count++;
+        }
+
+        assertEquals(6, count);
+        assertEquals(3, gateway.getRequests().size());
+        assertTrue(gateway.getRequests().get(2).contains("offset=4"));
+        assertTrue(gateway.getRequests().get(2).contains("limit=2"));
+    }
+
+    @Test
+    public void payPlanSearchHydratesPage() throws ApiException {
+        CustomerCollection customers = RecurringService.search(CustomerCollection.class)
+                .addSearchCriteria("customerIdentifier", "mock-customer")
+                .execute("mock-portico");
+        assertEquals(1, customers.size());
+        assertEquals(Integer.valueOf(1), customers.getTotalRecords());
+        assertEquals("mock-customer", customers.get(0).getId());
+    }
+
+    @Test
+    public void payPlanCreateAll() throws ApiException {
+        List<Customer> customers = new ArrayList<Customer>();
+        for(int i = 0; i < 6; i++) {
+            Customer customer = new Customer();
+            customer.setId("bulk-" + i);
+            customer.setFirstName("John");
+            customer.setLastName("Doe");
+            customer.setStatus("Active");
+            customers.add(customer);
+        }
+
+        final List<String> created = Collections.synchronizedList(new ArrayList<String>());
+        BulkExecutor executor = new BulkExecutor(3);
+        try {
+            BulkExecutor.Summary summary = RecurringService.createAll(executor, customers.iterator(), Customer.class, "mock-portico", new BulkExecutor.IResultHandler() {
+                public void onResult(BulkExecutor.Result result) {
+                    created.add(((Customer) result.getResponse()).getId());
+                }
+            });
+            assertEquals(6, summary.getSucceeded());
+        }
+        finally {
+            executor.dispose();
+        }
+        assertEquals(6, created.size());
+        assertTrue(created.contains("bulk-5"));
+    }
+
+    @Test
+    public void gp3dsCheckEnrollment() throws Exception {
+        Gp3DSProvider provider = new Gp3DSProvider();
+        provider.setMerchantId("myMerchantId");
+        provider.setAccountId("ecom3ds");
+        provider.setSharedSecret("secret");
+        provider.setMethodNotificationUrl("https://www.example.com/methodNotificationUrl");
+        provider.setServiceUrl(gateway.getUrl() + MockHttpGateway.GP_3DS_PATH);
+        provider.setSslSocketFactory(gateway.getSslSocketFactory());
+
+        Transaction response = provider.processSecure3d(Secure3dService.checkEnrollment(card));
+        ThreeDSecure secureEcom = response.getThreeDsecure();
+        assertTrue(secureEcom.isEnrolled());
+        assertNotNull(secureEcom.getServerTransactionId());
+    }
+
+    @Test
+    public void gp3dsEnrollmentCache() throws Exception {
+        Gp3DSProvider provider = new Gp3DSProvider();
+        provider.setMerchantId("myMerchantId");
+        provider.setAccountId("ecom3ds");
+        provider.setSharedSecret("secret");
+        provider.setMethodNotificationUrl("https://www.example.com/methodNotificationUrl");
+        provider.setServiceUrl(gateway.getUrl() + MockHttpGateway.GP_3DS_PATH);
+        provider.setSslSocketFactory(gateway.getSslSocketFactory());
+        provider.setEnrollmentCache(new TtlCache<String, Gp3DSProvider.CachedEnrollment>(400, 100));
+
+        gateway.respond("POST", MockHttpGateway.GP_3DS_PATH + "protocol-versions", 200, "{\"server_trans_id\":\"{{uuid}}\","
+                + "\"enrolled\":false,\"ds_protocol_version_start\":\"2.1.0\",\"ds_protocol_version_end\":\"2.1.0\"}");
+
+        CreditCardData sameRange = new CreditCardData();
+        sameRange.setNumber("4111111111111129");
+        sameRange.setExpMonth(12);
+        sameRange.setExpYear(2025);
+        sameRange.setCardType("Visa");
+
+        Transaction first = provider.processSecure3d(Secure3dService.checkEnrollment(card));
+        assertFalse(first.getThreeDsecure().isEnrolled());
+        assertNotNull(first.getThreeDsecure().getServerTransactionId());
+
+        Transaction cached = provider.processSecure3d(Secure3dService.checkEnrollment(sameRange));
+        assertFalse(cached.getThreeDsecure().isEnrolled());
+        assertNull(cached.getThreeDsecure().getServerTransactionId());
+        assertEquals("2.1.0", cached.getThreeDsecure().getDirectoryServerStartVersion());
+        assertEquals(1, gateway.getRequests().size());
+
+        // past three quarters of the TTL a hit is still answered from the cache but refreshed in the background
+        Thread.sleep(320);
+        provider.processSecure3d(Secure3dService.checkEnrollment(card));
+        for(int i = 0; i < 100 && gateway.getRequests().size() < 2; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(2, gateway.getRequests().size());
+
+        // enrolled answers carry a per authentication server transaction id and are never reused
+        gateway.respond("POST", MockHttpGateway.GP_3DS_PATH + "protocol-versions", 200, "{\"server_trans_id\":\"{{uuid}}\",\"enrolled\":true}");
+        CreditCardData enrolled = new CreditCardData();
+        enrolled.setNumber("5425230000004415");
+        enrolled.setExpMonth(12);
+        enrolled.setExpYear(2025);
+        provider.processSecure3d(Secure3dService.checkEnrollment(enrolled));
+        provider.processSecure3d(Secure3dService.checkEnrollment(enrolled));
+        assertEquals(4, gateway.getRequests().size());
+    }
+
+    @Test
+    public void idempotentRetryReplaysResponse() throws Exception {
+        GatewayConfig config = new GatewayConfig();
+        config.setSecretApiKey("skapi_cert_MTeSAQAfG1UA9qQDrzl-kz4toXvARyieptFwSKP24w");
+        config.setServiceUrl(gateway.getUrl());
+        config.setSslSocketFactory(gateway.getSslSocketFactory());
+        config.setIdempotencyWindow(60000);
+        ServicesContainer.configureService(config, "mock-idempotent");
+
+        Transaction first = card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true)
+                .withClientTransactionId("retry-1").execute("mock-idempotent");
+        Transaction retry = card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true)
+                .withClientTransactionId("retry-1").execute("mock-idempotent");
+        assertSame(first, retry);
+        assertEquals(1, gateway.getRequests().size());
+
+        card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true)
+                .withClientTransactionId("retry-2").execute("mock-idempotent");
+        card.charge(new BigDecimal("12")).withCurrency("USD").withAllowDuplicates(true)
+                .withClientTransactionId("retry-1").execute("mock-idempotent");
+        card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true).execute("mock-idempotent");
+        assertEquals(4, gateway.getRequests().size());
+
+        card.charge(new BigDecimal("10")).withCurrency("EUR").withAllowDuplicates(true)
+                .withClientTransactionId("retry-1").execute("mock-idempotent");
+        CreditCardData other = new CreditCardData();
+        other.setNumber("5454545454545454");
+        other.setExpMonth(12);
+        other.setExpYear(2025);
+        other.setCvn("123");
+        other.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true)
+                .withClientTransactionId("retry-1").execute("mock-idempotent");
+        assertEquals(6, gateway.getRequests().size());
+    }
+
+    @Test
+    public void duplicateCheckRejectsRepeatBeforeSending() throws Exception {
+        GatewayConfig config = new GatewayConfig();
+        config.setSecretApiKey("skapi_cert_MTeSAQAfG1UA9qQDrzl-kz4toXvARyieptFwSKP24w");
+        config.setServiceUrl(gateway.getUrl());
+        config.setSslSocketFactory(gateway.getSslSocketFactory());
+        config.setDuplicateCheckWindow(60000);
+        config.setRejectDuplicates(true);
+        ServicesContainer.configureService(config, "mock-duplicates");
+
+        card.charge(new BigDecimal("10")).withCurrency("USD").execute("mock-duplicates");
+        try {
+            card.charge(new BigDecimal("10")).withCurrency("USD").execute("mock-duplicates");
+            fail("Expected the repeat to be rejected");
+        }
+        catch(DuplicateTransactionException exc) {
+            assertEquals(1, gateway.getRequests().size());
+        }
+
+        card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true).execute("mock-duplicates");
+        card.charge(new BigDecimal("11")).withCurrency("USD").execute("mock-duplicates");
+        assertEquals(3, gateway.getRequests().size());
+    }
+
+    @Test
+    public void duplicateCheckFlagsRepeat() throws Exception {
+        GatewayConfig config = new GatewayConfig();
+        config.setSecretApiKey("skapi_cert_MTeSAQAfG1UA9qQDrzl-kz4toXvARyieptFwSKP24w");
+        config.setServiceUrl(gateway.getUrl());
+        config.setSslSocketFactory(gateway.getSslSocketFactory());
+        config.setDuplicateCheckWindow(60000);
+        ServicesContainer.configureService(config, "mock-duplicates");
+
+        Transaction first = card.charge(new BigDecimal("10")).withCurrency("USD").execute("mock-duplicates");
+        Transaction repeat = card.charge(new BigDecimal("10")).withCurrency("USD").execute("mock-duplicates");
+        assertFalse(first.isSuspectedDuplicate());
+        assertTrue(repeat.isSuspectedDuplicate());
+        assertEquals(2, gateway.getRequests().size());
+    }
+
+    @Test
+    public void duplicateCheckForgetsDeclines() throws Exception {
+        GatewayConfig config = new GatewayConfig();
+        config.setSecretApiKey("skapi_cert_MTeSAQAfG1UA9qQDrzl-kz4toXvARyieptFwSKP24w");
+        config.setServiceUrl(gateway.getUrl());
+        config.setSslSocketFactory(gateway.getSslSocketFactory());
+        config.setDuplicateCheckWindow(60000);
+        config.setRejectDuplicates(true);
+        ServicesContainer.configureService(config, "mock-duplicates");
+
+        gateway.respond("POST", MockHttpGateway.PORTICO_PATH, 200, "<?xml version=\"1.0\" encoding=\"utf-8\"?>"
+                + "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+                + "<PosResponse rootUrl=\"https://127.0.0.1/Hps.Exchange.PosGateway\" xmlns=\"http://Hps.Exchange.PosGateway\"><Ver1.0>"
+                + "<Header><GatewayTxnId>{{sequence}}</GatewayTxnId><GatewayRspCode>0</GatewayRspCode><GatewayRspMsg>Success</GatewayRspMsg></Header>"
+                + "<Transaction><Response><RspCode>05</RspCode><RspText>DECLINE</RspText></Response></Transaction>"
+                + "</Ver1.0></PosResponse></soap:Body></soap:Envelope>");
+
+        Transaction declined = card.charge(new BigDecimal("10")).withCurrency("USD").execute("mock-duplicates");
+        assertEquals("05", declined.getResponseCode());
+
+        Transaction retry = card.charge(new BigDecimal("10")).withCurrency("USD").execute("mock-duplicates");
+        assertFalse(retry.isSuspectedDuplicate());
+        assertEquals(2, gateway.getRequests().size());
+    }
+
+    @Test
+    public void idempotentConcurrentDuplicatesShareOneCall() throws Exception {
+        GatewayConfig config = new GatewayConfig();
+        config.setSecretApiKey("skapi_cert_MTeSAQAfG1UA9qQDrzl-kz4toXvARyieptFwSKP24w");
+        config.setServiceUrl(gateway.getUrl());
+        config.setSslSocketFactory(gateway.getSslSocketFactory());
+        config.setIdempotencyWindow(60000);
+        ServicesContainer.configureService(config, "mock-idempotent");
+        gateway.setLatency(300);
+
+        final Transaction[] responses = new Transaction[4];
+        Thread[] threads = new Thread[responses.length];
+        for(int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        responses[index] = card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true)
+                                .withClientTransactionId("concurrent-1").execute("mock-idempotent");
+                    }
+                    catch(ApiException exc) {
+                        fail(exc.getMessage());
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, gateway.getRequests().size());
+        for(Transaction response : responses) {
+            assertSame(responses[0], response);
+        }
+    }
+
+    @Test
+    public void idempotentReplayFromStore() throws Exception {
+        final Transaction stored = new Transaction();
+        stored.setResponseCode("00");
+
+        GatewayConfig config = new GatewayConfig();
+        config.setSecretApiKey("skapi_cert_MTeSAQAfG1UA9qQDrzl-kz4toXvARyieptFwSKP24w");
+        config.setServiceUrl(gateway.getUrl());
+        config.setSslSocketFactory(gateway.getSslSocketFactory());
+        config.setIdempotencyWindow(60000);
+        config.setIdempotencyStore(new IIdempotencyStore() {
+            public Transaction get(String key) {
+                return key.contains("stored-1") ? stored : null;
+            }
+            public void put(String key, Transaction response, long windowMillis) { }
+        });
+        ServicesContainer.configureService(config, "mock-idempotent");
+
+        Transaction response = card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true)
+                .withClientTransactionId("stored-1").execute("mock-idempotent");
+        assertSame(stored, response);
+        assertEquals(0, gateway.getRequests().size());
+    }
+
+    @Test
+    public void customTemplate() throws ApiException {
+        gateway.respond("POST", MockHttpGateway.PORTICO_PATH, 200, "<PosResponse><Ver1.0><Header><GatewayRspCode>0</GatewayRspCode>"
+                + "<GatewayTxnId>{{sequence}}</GatewayTxnId></Header><Transaction><Response><RspCode>51</RspCode>"
+                + "<RspText>DECLINE</RspText></Response></Transaction></Ver1.0></PosResponse>");
+
+        Transaction response = card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true).execute("mock-portico");
+        assertEquals("51", response.getResponseCode());
+    }
+
+    @Test(expected = GatewayException.class)
+    public void injectedError() throws ApiException {
+        gateway.setErrorRate(1);
+
+        card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true).execute("mock-portico");
+    }
+}
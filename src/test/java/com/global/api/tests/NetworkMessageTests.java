@@ -18,6 +18,37 @@ import static org.junit.Assert.assertEquals;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class NetworkMessageTests {
+    @Test
+    public void setAll_sharesElements() {
+        NetworkMessage fixed = new NetworkMessage();
+        fixed.set(DataElementId.DE_018, "5541");
+        fixed.set(DataElementId.DE_041, "0044    ");
+
+        NetworkMessage request = new NetworkMessage();
+        request.setAll(fixed);
+        request.set(DataElementId.DE_041, "0055    ");
+
+        assertSame(fixed.getByteArray(DataElementId.DE_018), request.getByteArray(DataElementId.DE_018));
+        assertEquals("0044    ", fixed.getString(DataElementId.DE_041));
+        assertEquals("0055    ", request.getString(DataElementId.DE_041));
+    }
+
+    @Test
+    public void posDataCode_rendersOverTemplate() {
+        DE22_PosDataCode capabilities = new DE22_PosDataCode();
+        capabilities.setCardDataInputCapability(CardDataInputCapability.ContactEmv);
+        capabilities.setPinCaptureCapability(PinCaptureCapability.FourCharacters);
+
+        DE22_PosDataCode dataCode = new DE22_PosDataCode();
+        dataCode.setCardDataInputCapability(capabilities.getCardDataInputCapability());
+        dataCode.setPinCaptureCapability(capabilities.getPinCaptureCapability());
+        dataCode.setCardHolderPresence(DE22_CardHolderPresence.CardHolder_NotPresent);
+        dataCode.setCardPresence(DE22_CardPresence.CardNotPresent);
+        dataCode.setCardDataInputMode(DE22_CardDataInputMode.Manual);
+
+        assertEquals(new String(dataCode.toByteArray()), new String(dataCode.toByteArray(capabilities.toByteArray())));
+    }
+
     @Test
     public void bitmap_parse_tests() {
         String original = "9c00000020000000";
@@ -0,0 +1,143 @@
+package com.global.api.tests;
+
+import com.global.api.io.LengthPrefixedFrameDecoder;
+import com.global.api.io.NioConnection;
+import com.global.api.io.NioReactor;
+import com.global.api.io.PlainTransport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import static org.junit.Assert.*;
+
+public class NioConnectionTests {
+    private ServerSocket server;
+    private NioReactor reactor;
+
+    @Before
+    public void setup() throws IOException {
+        server = new ServerSocket(0);
+        reactor = new NioReactor("test-reactor");
+    }
+
+    @After
+    public void teardown() throws IOException {
+        reactor.dispose();
+        server.close();
+    }
+
+    @Test
+    public void decodesLargeAndBackToBackFrames() throws Exception {
+        final byte[] large = new byte[60000];
+        for(int i = 0; i < large.length; i++) {
+            large[i] = (byte) i;
+        }
+
+        Thread peer = new Thread() {
+            public void run() {
+                try {
+                    Socket socket = server.accept();
+                    OutputStream out = socket.getOutputStream();
+
+                    // large frame delivered in pieces, followed by two small frames in one write
+                    byte[] framed = frame(large, true);
+                    out.write(framed, 0, 1000);
+                    out.flush();
+                    Thread.sleep(50);
+                    out.write(framed, 1000, framed.length - 1000);
+
+                    byte[] a = frame("A".getBytes(), true);
+                    byte[] b = frame("BC".getBytes(), true);
+                    byte[] both = new byte[a.length + b.length];
+                    System.arraycopy(a, 0, both, 0, a.length);
+                    System.arraycopy(b, 0, both, a.length, b.length);
+                    out.write(both);
+                    out.flush();
+                    Thread.sleep(200);
+                    socket.close();
+                }
+                catch(Exception exc) {
+                    // test will fail on the client side
+                }
+            }
+        };
+        peer.start();
+
+        NioConnection connection = new NioConnection(new PlainTransport(), new LengthPrefixedFrameDecoder(true), reactor);
+        connection.open("127.0.0.1", server.getLocalPort(), 5000);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        assertArrayEquals(large, connection.awaitFrame(deadline));
+        assertEquals("A", new String(connection.awaitFrame(deadline)));
+        assertEquals("BC", new String(connection.awaitFrame(deadline)));
+
+        try {
+            connection.awaitFrame(deadline);
+            fail("Expected the closed connection to be reported");
+        }
+        catch(IOException exc) {
+            assertFalse(connection.isOpen());
+        }
+        peer.join();
+    }
+
+    @Test
+    public void failedOpenIsNotOpen() throws Exception {
+        int port = server.getLocalPort();
+        server.close();
+
+        NioConnection connection = new NioConnection(new PlainTransport(), new LengthPrefixedFrameDecoder(true), reactor);
+        try {
+            connection.open("127.0.0.1", port, 1000);
+            fail("Expected the connection to be refused");
+        }
+        catch(IOException exc) {
+            assertFalse(connection.isOpen());
+        }
+    }
+
+    @Test
+    public void awaitFrameTimesOutWithoutSpinning() throws Exception {
+        Thread peer = new Thread() {
+            public void run() {
+                try {
+                    Socket socket = server.accept();
+                    DataInputStream in = new DataInputStream(socket.getInputStream());
+                    in.readFully(new byte[4]);
+                    Thread.sleep(500);
+                    socket.close();
+                }
+                catch(Exception exc) {
+                    // ignored
+                }
+            }
+        };
+        peer.start();
+
+        NioConnection connection = new NioConnection(new PlainTransport(), new LengthPrefixedFrameDecoder(false), reactor);
+        connection.open("127.0.0.1", server.getLocalPort(), 5000);
+        connection.send(new byte[] { 0, 2, 1, 2 });
+
+        long started = System.currentTimeMillis();
+        assertNull(connection.awaitFrame(started + 100));
+        assertTrue(System.currentTimeMillis() - started >= 100);
+
+        connection.close();
+        peer.join();
+    }
+
+    private static byte[] frame(byte[] data, boolean lengthIncludesHeader) {
+        int length = data.length + (lengthIncludesHeader ? 2 : 0);
+        byte[] rvalue = new byte[data.length + 2];
+        rvalue[0] = (byte) (length >> 8);
+        rvalue[1] = (byte) length;
+        System.arraycopy(data, 0, rvalue, 2, data.length);
+        return rvalue;
+    }
+}
@@ -0,0 +1,66 @@
+package com.global.api.tests;
+
+import com.global.api.logging.AsyncRequestLogger;
+import com.global.api.logging.GatewayLogger;
+import com.global.api.logging.ILogMessage;
+import com.global.api.logging.IRequestLogger;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RequestLoggerTests {
+    private final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+    private final IRequestLogger capture = new IRequestLogger() {
+        public void log(String connectorName, String message) {
+            messages.add(connectorName + ": " + message);
+        }
+    };
+
+    @Test
+    public void disabledLoggerNeverSamples() {
+        GatewayLogger logger = new GatewayLogger("Test");
+        logger.setRequestLogger(capture);
+        assertFalse(logger.sample());
+    }
+
+    @Test
+    public void zeroSampleRateSuppressesLogging() {
+        GatewayLogger logger = new GatewayLogger("Test");
+        logger.setEnabled(true);
+        logger.setSampleRate(0.0);
+        for(int i = 0; i < 100; i++) {
+            assertFalse(logger.sample());
+        }
+    }
+
+    @Test
+    public void lazyMessageEvaluatedOnLog() {
+        GatewayLogger logger = new GatewayLogger("Test");
+        logger.setEnabled(true);
+        logger.setRequestLogger(capture);
+
+        assertTrue(logger.sample());
+        logger.log(new ILogMessage() {
+            public String getMessage() {
+                return "lazy";
+            }
+        });
+        assertEquals("Test: lazy", messages.get(0));
+    }
+
+    @Test
+    public void asyncLoggerDeliversMessages() {
+        AsyncRequestLogger async = new AsyncRequestLogger(capture, 16);
+        for(int i = 0; i < 10; i++) {
+            async.log("Test", String.valueOf(i));
+        }
+        async.dispose();
+
+        assertEquals(10, messages.size() + async.getDroppedCount());
+        assertEquals("Test: 0", messages.get(0));
+    }
+}
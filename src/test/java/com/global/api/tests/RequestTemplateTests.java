@@ -0,0 +1,57 @@
+package com.global.api.tests;
+
+import com.global.api.utils.Element;
+import com.global.api.utils.ElementTree;
+import com.global.api.utils.RequestTemplate;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RequestTemplateTests {
+    @Test
+    public void renderSplicesSlots() {
+        RequestTemplate template = RequestTemplate.compile("<a>{{0}}</a><b id=\"{{1}}\">{{0}}</b>");
+        assertEquals("<a>x</a><b id=\"y\">x</b>", template.render("x", "y"));
+    }
+
+    @Test
+    public void renderLeavesMissingSlotsEmpty() {
+        RequestTemplate template = RequestTemplate.compile("<a>{{0}}</a>{{1}}");
+        assertEquals("<a>x</a>", template.render("x"));
+        assertEquals("<a></a>", template.render(null, null));
+    }
+
+    @Test
+    public void compileIgnoresNonNumericBraces() {
+        RequestTemplate template = RequestTemplate.compile("{{key}}{{0}}");
+        assertEquals("{{key}}value", template.render("value"));
+    }
+
+    @Test
+    public void elementOmittedWhenEmpty() {
+        assertEquals("", RequestTemplate.element("ClientTxnId", null));
+        assertEquals("", RequestTemplate.element("ClientTxnId", ""));
+        assertEquals("<ClientTxnId>a&amp;b&lt;c&gt;</ClientTxnId>", RequestTemplate.element("ClientTxnId", "a&b<c>"));
+    }
+
+    @Test
+    public void templateMatchesElementTree() {
+        ElementTree et = new ElementTree();
+        Element request = et.element("request").set("timestamp", "20200101120000").set("type", "auth");
+        et.subElement(request, "merchantid").text("merchant&co");
+        et.subElement(request, "orderid", "order-1");
+        String expected = et.toString(request);
+
+        ElementTree templateTree = new ElementTree();
+        Element root = templateTree.element("request").set("timestamp", RequestTemplate.slot(0)).set("type", RequestTemplate.slot(1));
+        templateTree.subElement(root, "merchantid").text("merchant&co");
+        root.text(RequestTemplate.slot(2));
+        RequestTemplate template = RequestTemplate.compile(templateTree.toString(root));
+
+        ElementTree body = new ElementTree();
+        Element fragment = body.element("request");
+        body.subElement(fragment, "orderid", "order-1");
+
+        assertEquals(expected, template.render("20200101120000", "auth", body.toInnerFragment(fragment)));
+    }
+}
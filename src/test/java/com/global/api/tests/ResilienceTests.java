@@ -0,0 +1,101 @@
+package com.global.api.tests;
+
+import com.global.api.entities.exceptions.CircuitBreakerOpenException;
+import com.global.api.entities.exceptions.ConcurrencyLimitExceededException;
+import com.global.api.resilience.CircuitBreaker;
+import com.global.api.resilience.CircuitState;
+import com.global.api.resilience.ConcurrencyLimiter;
+import com.global.api.resilience.ResiliencePolicy;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ResilienceTests {
+    @Test
+    public void breakerOpensAtFailureRate() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 0.5, 10, 4, 60000);
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        assertEquals(CircuitState.Closed, breaker.getState());
+
+        breaker.recordFailure();
+        assertEquals(CircuitState.Open, breaker.getState());
+        assertFalse(breaker.isCallPermitted());
+        assertFalse(breaker.tryAcquirePermission());
+        assertTrue(breaker.getRetryAfter() > 0);
+    }
+
+    @Test
+    public void halfOpenProbeClosesOrReopens() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("test", 0.5, 10, 1, 20);
+        breaker.recordFailure();
+        assertEquals(CircuitState.Open, breaker.getState());
+
+        Thread.sleep(30);
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(CircuitState.HalfOpen, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+
+        breaker.recordFailure();
+        assertEquals(CircuitState.Open, breaker.getState());
+
+        Thread.sleep(30);
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.recordSuccess();
+        assertEquals(CircuitState.Closed, breaker.getState());
+        assertEquals(0.0, breaker.getFailureRate(), 0.0);
+    }
+
+    @Test
+    public void limiterBacksOffAndRecovers() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 8, 0.5, 0);
+        for(int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+
+        limiter.onDropped();
+        assertEquals(2, limiter.getLimit());
+        assertEquals(3, limiter.getInFlight());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.onSuccess(5);
+        limiter.onSuccess(5);
+        limiter.onSuccess(5);
+        assertEquals(0, limiter.getInFlight());
+        assertTrue(limiter.getLimit() >= 2);
+    }
+
+    @Test
+    public void policyFailsFast() throws Exception {
+        ResiliencePolicy policy = new ResiliencePolicy("test");
+        policy.setMinimumRequests(1);
+        policy.setConcurrencyLimiter(new ConcurrencyLimiter(1, 1, 1, 0.5, 0));
+
+        ResiliencePolicy.Permit permit = policy.acquire("primary");
+        try {
+            policy.acquire("primary");
+            fail("Expected the concurrency limit to be enforced");
+        }
+        catch(ConcurrencyLimitExceededException exc) {
+            assertEquals(1, exc.getLimit());
+        }
+
+        permit.failure();
+        permit.failure();
+        assertFalse(policy.isAvailable("primary"));
+        assertTrue(policy.isAvailable("secondary"));
+        assertEquals(0, policy.getConcurrencyLimiter().getInFlight());
+
+        try {
+            policy.acquire("primary");
+            fail("Expected the open circuit to be reported");
+        }
+        catch(CircuitBreakerOpenException exc) {
+            assertEquals("primary", exc.getEndpoint());
+        }
+        assertEquals(0, policy.getConcurrencyLimiter().getInFlight());
+        policy.acquire("secondary").success();
+    }
+}
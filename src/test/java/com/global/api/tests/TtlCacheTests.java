@@ -0,0 +1,145 @@
+package com.global.api.tests;
+
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.GatewayException;
+import com.global.api.utils.TtlCache;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TtlCacheTests {
+    private static class CountingLoader implements TtlCache.ILoader<String, String> {
+        private final AtomicInteger loads = new AtomicInteger();
+
+        public String load(String key) throws ApiException {
+            return key + "-" + loads.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void hitWhileFresh() throws ApiException {
+        TtlCache<String, String> cache = new TtlCache<String, String>(60000, 10);
+        CountingLoader loader = new CountingLoader();
+
+        assertEquals("a-1", cache.get("a", loader));
+        assertEquals("a-1", cache.get("a", loader));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void reloadAfterExpiry() throws Exception {
+        TtlCache<String, String> cache = new TtlCache<String, String>(20, 10);
+        CountingLoader loader = new CountingLoader();
+
+        assertEquals("a-1", cache.get("a", loader));
+        Thread.sleep(40);
+        assertNull(cache.get("a"));
+        assertEquals("a-2", cache.get("a", loader));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws ApiException {
+        TtlCache<String, String> cache = new TtlCache<String, String>(60000, 2);
+        CountingLoader loader = new CountingLoader();
+
+        cache.get("a", loader);
+        cache.get("b", loader);
+        cache.get("a", loader);
+        cache.get("c", loader);
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    public void nullIsNotCached() throws ApiException {
+        TtlCache<String, String> cache = new TtlCache<String, String>(60000, 10);
+        final AtomicInteger loads = new AtomicInteger();
+        TtlCache.ILoader<String, String> loader = new TtlCache.ILoader<String, String>() {
+            public String load(String key) {
+                loads.incrementAndGet();
+                return null;
+            }
+        };
+
+        assertNull(cache.get("a", loader));
+        assertNull(cache.get("a", loader));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void concurrentMissesShareOneLoad() throws Exception {
+        final TtlCache<String, String> cache = new TtlCache<String, String>(60000, 10);
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final TtlCache.ILoader<String, String> loader = new TtlCache.ILoader<String, String>() {
+            public String load(String key) throws ApiException {
+                loads.incrementAndGet();
+                loading.countDown();
+                try {
+                    release.await();
+                }
+                catch(InterruptedException exc) {
+                    throw new GatewayException("interrupted", exc);
+                }
+                return "rate";
+            }
+        };
+
+        final String[] results = new String[4];
+        Thread[] threads = new Thread[results.length];
+        for(int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        results[index] = cache.get("a", loader);
+                    }
+                    catch(ApiException exc) {
+                        results[index] = exc.getMessage();
+                    }
+                }
+            };
+            threads[i].start();
+            if(i == 0) {
+                loading.await();
+            }
+        }
+        while(cache.getHitCount() < threads.length - 1) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        for(Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, loads.get());
+        for(String result : results) {
+            assertEquals("rate", result);
+        }
+    }
+
+    @Test
+    public void loaderFailureIsNotCached() throws ApiException {
+        TtlCache<String, String> cache = new TtlCache<String, String>(60000, 10);
+        try {
+            cache.get("a", new TtlCache.ILoader<String, String>() {
+                public String load(String key) throws ApiException {
+                    throw new GatewayException("unavailable");
+                }
+            });
+            fail("Expected the loader's exception");
+        }
+        catch(GatewayException exc) {
+            assertEquals("unavailable", exc.getMessage());
+        }
+
+        assertEquals("a-1", cache.get("a", new CountingLoader()));
+    }
+}
@@ -0,0 +1,177 @@
+package com.global.api.tests.mock;
+
+import com.global.api.ServicesContainer;
+import com.global.api.entities.Customer;
+import com.global.api.gateways.Gp3DSProvider;
+import com.global.api.paymentMethods.CreditCardData;
+import com.global.api.serviceConfigs.GatewayConfig;
+import com.global.api.serviceConfigs.GpApiConfig;
+import com.global.api.services.Secure3dService;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives one connector against a {@link MockHttpGateway} from several threads and reports
+ * throughput, latency percentiles and the bytes allocated per transaction by the calling threads.
+ * Run with {@code java ... HttpGatewayLoadHarness [portico|realex|gpapi|payplan|3ds] [threads]
+ * [requestsPerThread] [gatewayLatencyMs]}.
+ */
+public class HttpGatewayLoadHarness {
+    private static final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        final String connector = args.length > 0 ? args[0] : "portico";
+        int threadCount = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 250;
+        int latency = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+        MockHttpGateway gateway = new MockHttpGateway();
+        gateway.setLatency(latency);
+        try {
+            final Task task = createTask(connector, gateway);
+            run(task, threadCount, Math.max(1, requests / 10), false);
+            run(task, threadCount, requests, true);
+        }
+        finally {
+            gateway.dispose();
+        }
+    }
+
+    private static Task createTask(String connector, MockHttpGateway gateway) throws Exception {
+        final CreditCardData card = new CreditCardData();
+        card.setNumber("4111111111111111");
+        card.setExpMonth(12);
+        card.setExpYear(2025);
+        card.setCvn("123");
+        card.setCardHolderName("John Smith");
+
+        if(connector.equals("realex")) {
+            GatewayConfig config = new GatewayConfig();
+            config.setMerchantId("heartlandgpsandbox");
+            config.setAccountId("api");
+            config.setSharedSecret("secret");
+            config.setServiceUrl(gateway.getUrl() + MockHttpGateway.REALEX_PATH);
+            config.setSslSocketFactory(gateway.getSslSocketFactory());
+            ServicesContainer.configureService(config, "load");
+
+            return new Task() {
+                public void run() throws Exception {
+                    card.charge(new BigDecimal("10")).withCurrency("EUR").execute("load");
+                }
+            };
+        }
+        else if(connector.equals("gpapi")) {
+            GpApiConfig config = new GpApiConfig();
+            config.setAppId("i872l4VgZRtSrykvSn8Lkah8RE1jihvT");
+            config.setAppKey("9pArW2uWoA8enxKc");
+            config.setServiceUrl(gateway.getUrl() + MockHttpGateway.GP_API_PATH);
+            config.setSslSocketFactory(gateway.getSslSocketFactory());
+            ServicesContainer.configureService(config, "load");
+
+            return new Task() {
+                public void run() throws Exception {
+                    card.charge(new BigDecimal("10")).withCurrency("USD").execute("load");
+                }
+            };
+        }
+        else if(connector.equals("3ds")) {
+            final Gp3DSProvider provider = new Gp3DSProvider();
+            provider.setMerchantId("myMerchantId");
+            provider.setAccountId("ecom3ds");
+            provider.setSharedSecret("secret");
+            provider.setMethodNotificationUrl("https://www.example.com/methodNotificationUrl");
+            provider.setServiceUrl(gateway.getUrl() + MockHttpGateway.GP_3DS_PATH);
+            provider.setSslSocketFactory(gateway.getSslSocketFactory());
+
+            return new Task() {
+                public void run() throws Exception {
+                    provider.processSecure3d(Secure3dService.checkEnrollment(card));
+                }
+            };
+        }
+
+        GatewayConfig config = new GatewayConfig();
+        config.setSecretApiKey("skapi_cert_MTeSAQAfG1UA9qQDrzl-kz4toXvARyieptFwSKP24w");
+        config.setServiceUrl(gateway.getUrl());
+        config.setSslSocketFactory(gateway.getSslSocketFactory());
+        ServicesContainer.configureService(config, "load");
+
+        if(connector.equals("payplan")) {
+            final AtomicInteger customers = new AtomicInteger();
+            return new Task() {
+                public void run() throws Exception {
+                    Customer customer = new Customer();
+                    customer.setId("load-" + customers.incrementAndGet());
+                    customer.setFirstName("John");
+                    customer.setLastName("Doe");
+                    customer.setStatus("Active");
+                    customer.create("load");
+                }
+            };
+        }
+        return new Task() {
+            public void run() throws Exception {
+                card.charge(new BigDecimal("10")).withCurrency("USD").withAllowDuplicates(true).execute("load");
+            }
+        };
+    }
+
+    private static void run(final Task task, int threadCount, final int requests, boolean report) throws InterruptedException {
+        final long[] latencies = new long[threadCount * requests];
+        final AtomicInteger errors = new AtomicInteger();
+        final AtomicLong allocated = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(threadCount);
+
+        long started = System.nanoTime();
+        for(int i = 0; i < threadCount; i++) {
+            final int thread = i;
+            new Thread() {
+                public void run() {
+                    long allocatedBefore = threads.getThreadAllocatedBytes(getId());
+                    try {
+                        for(int j = 0; j < requests; j++) {
+                            long sent = System.nanoTime();
+                            try {
+                                task.run();
+                            }
+                            catch(Exception exc) {
+                                if(errors.incrementAndGet() == 1) {
+                                    exc.printStackTrace();
+                                }
+                            }
+                            latencies[thread * requests + j] = System.nanoTime() - sent;
+                        }
+                    }
+                    finally {
+                        allocated.addAndGet(threads.getThreadAllocatedBytes(getId()) - allocatedBefore);
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - started;
+
+        if(report) {
+            Arrays.sort(latencies);
+            System.out.println(String.format("threads=%d requests=%d errors=%d", threadCount, latencies.length, errors.get()));
+            System.out.println(String.format("throughput %10.1f tps  allocated %10.1f KB/txn", latencies.length / (elapsed / 1e9), allocated.get() / 1024.0 / latencies.length));
+            System.out.println(String.format("p50 %8.3f ms  p95 %8.3f ms  p99 %8.3f ms  max %8.3f ms",
+                    percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6));
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+}
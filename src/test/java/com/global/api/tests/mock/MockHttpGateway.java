@@ -0,0 +1,331 @@
+package com.global.api.tests.mock;
+
+import com.global.api.terminals.abstractions.IDisposable;
+import com.global.api.tests.testdata.TestCertificates;
+import com.global.api.utils.IOUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import org.joda.time.DateTime;
+
+import javax.net.ssl.SSLSocketFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local HTTPS stand-in for the HTTP gateways. Requests are matched by method and the longest
+ * registered path prefix and answered from a template; approvals for Portico, Realex, GP-API,
+ * PayPlan and the 3DS 2 server are registered up front under the paths below. Templates may use
+ * {@code {{sequence}}}, {@code {{uuid}}}, {@code {{timestamp}}} and {@code {{request:name}}},
+ * which takes the named XML element or JSON field from the request body.
+ */
+public class MockHttpGateway implements IDisposable {
+    public static final String PORTICO_PATH = "/Hps.Exchange.PosGateway/PosGatewayService.asmx";
+    public static final String PAYPLAN_PATH = "/Portico.PayPlan.v2/";
+    public static final String REALEX_PATH = "/epage-remote.cgi";
+    public static final String GP_API_PATH = "/ucp";
+    public static final String GP_3DS_PATH = "/3ds2/";
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{([a-z]+)(?::([A-Za-z_]+))?\\}\\}");
+
+    private final HttpsServer server;
+    private final ExecutorService workers;
+    private final List<Route> routes = new CopyOnWriteArrayList<Route>();
+    private final List<String> requests = new CopyOnWriteArrayList<String>();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final Random random = new Random(1004);
+    private volatile int latency;
+    private volatile int jitter;
+    private volatile double errorRate;
+
+    public MockHttpGateway() throws IOException, GeneralSecurityException {
+        server = HttpsServer.create(new InetSocketAddress("127.0.0.1", 0), 128);
+        server.setHttpsConfigurator(new HttpsConfigurator(TestCertificates.getContext()));
+        workers = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "mock-gateway-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        server.setExecutor(workers);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    serve(exchange);
+                }
+                finally {
+                    exchange.close();
+                }
+            }
+        });
+
+        registerDefaults();
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    /**
+     * @return the base url, to which the connector specific paths are appended
+     */
+    public String getUrl() {
+        return "https://127.0.0.1:" + getPort();
+    }
+    /**
+     * Socket factory trusting the mock's certificate, for
+     * {@link com.global.api.serviceConfigs.Configuration#setSslSocketFactory}.
+     */
+    public SSLSocketFactory getSslSocketFactory() throws GeneralSecurityException, IOException {
+        return TestCertificates.getClientFactory();
+    }
+    /**
+     * Method, path and query string of the requests received so far, in arrival order.
+     */
+    public List<String> getRequests() {
+        return requests;
+    }
+    public int getLatency() {
+        return latency;
+    }
+    /**
+     * Processing time in milliseconds added before every response.
+     */
+    public void setLatency(int latency) {
+        this.latency = latency;
+    }
+    public int getJitter() {
+        return jitter;
+    }
+    public void setJitter(int jitter) {
+        this.jitter = jitter;
+    }
+    public double getErrorRate() {
+        return errorRate;
+    }
+    /**
+     * Fraction of requests answered with a 500 instead of their template.
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Registers a response for requests whose path starts with the prefix; a later registration
+     * for the same method and prefix replaces the earlier one.
+     *
+     * @param method the HTTP method, or "*" for any
+     */
+    public void respond(String method, String pathPrefix, int status, String template) {
+        Route route = new Route(method.toUpperCase(), pathPrefix, status, template);
+        for(Route existing : routes) {
+            if(existing.method.equals(route.method) && existing.prefix.equals(route.prefix)) {
+                routes.remove(existing);
+            }
+        }
+        routes.add(route);
+    }
+
+    public void dispose() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+
+    private void registerDefaults() {
+        respond("POST", PORTICO_PATH, 200, "<?xml version=\"1.0\" encoding=\"utf-8\"?>"
+                + "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+                + "<PosResponse rootUrl=\"https://127.0.0.1/Hps.Exchange.PosGateway\" xmlns=\"http://Hps.Exchange.PosGateway\"><Ver1.0>"
+                + "<Header><LicenseId>20903</LicenseId><SiteId>20904</SiteId><DeviceId>90911395</DeviceId>"
+                + "<GatewayTxnId>{{sequence}}</GatewayTxnId><GatewayRspCode>0</GatewayRspCode><GatewayRspMsg>Success</GatewayRspMsg>"
+                + "<RspDT>{{timestamp}}</RspDT></Header>"
+                + "<Transaction><Response><RspCode>00</RspCode><RspText>APPROVAL</RspText><AuthCode>12345A</AuthCode>"
+                + "<AVSRsltCode>0</AVSRsltCode><CVVRsltCode>M</CVVRsltCode><RefNbr>{{sequence}}</RefNbr>"
+                + "<CardType>Visa</CardType><AVSRsltText>AVS Not Requested.</AVSRsltText><CVVRsltText>Match.</CVVRsltText>"
+                + "</Response></Transaction></Ver1.0></PosResponse></soap:Body></soap:Envelope>");
+
+        respond("POST", REALEX_PATH, 200, "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<response timestamp=\"{{request:timestamp}}\"><merchantid>{{request:merchantid}}</merchantid><account>{{request:account}}</account>"
+                + "<orderid>{{request:orderid}}</orderid><result>00</result><authcode>12345</authcode>"
+                + "<message>[ test system ] AUTHORISED</message><pasref>{{sequence}}</pasref>"
+                + "<cvnresult>M</cvnresult><avspostcoderesponse>M</avspostcoderesponse><avsaddressresponse>M</avsaddressresponse>"
+                + "<batchid>319623</batchid></response>");
+
+        respond("POST", GP_API_PATH + "/accesstoken", 200, "{\"token\":\"{{uuid}}\",\"type\":\"Bearer\",\"app_id\":\"{{request:app_id}}\","
+                + "\"seconds_to_expire\":86400,\"dataAccountName\":\"Settlement Reporting\",\"disputeManagementAccountName\":\"Dispute Management\","
+                + "\"tokenizationAccountName\":\"Tokenization\",\"transactionProcessingAccountName\":\"Transaction_Processing\"}");
+        respond("*", GP_API_PATH + "/transactions", 200, "{\"id\":\"TRN_{{uuid}}\",\"time_created\":\"{{timestamp}}\","
+                + "\"type\":\"SALE\",\"status\":\"CAPTURED\",\"channel\":\"CNP\",\"amount\":\"{{request:amount}}\",\"currency\":\"{{request:currency}}\","
+                + "\"reference\":\"{{request:reference}}\",\"country\":\"US\",\"batch_id\":\"BAT_{{sequence}}\","
+                + "\"payment_method\":{\"result\":\"00\",\"message\":\"[ test system ] AUTHORISED\",\"entry_mode\":\"ECOM\","
+                + "\"card\":{\"brand\":\"VISA\",\"masked_number_last4\":\"XXXXXXXXXXXX1111\",\"authcode\":\"12345\"}},"
+                + "\"action\":{\"id\":\"ACT_{{uuid}}\",\"type\":\"AUTHORIZE\",\"time_created\":\"{{timestamp}}\",\"result_code\":\"SUCCESS\"}}");
+
+        respond("*", PAYPLAN_PATH + "customers", 200, "{\"customerKey\":\"{{sequence}}\",\"customerIdentifier\":\"{{request:customerIdentifier}}\","
+                + "\"firstName\":\"{{request:firstName}}\",\"lastName\":\"{{request:lastName}}\",\"company\":\"{{request:company}}\","
+                + "\"customerStatus\":\"Active\",\"primaryEmail\":\"{{request:primaryEmail}}\",\"country\":\"USA\"}");
+        respond("*", PAYPLAN_PATH + "searchCustomers", 200, "{\"totalRecords\":1,\"results\":[{\"customerKey\":\"{{sequence}}\","
+                + "\"customerIdentifier\":\"{{request:customerIdentifier}}\",\"firstName\":\"John\",\"lastName\":\"Doe\",\"customerStatus\":\"Active\"}]}");
+
+        respond("POST", GP_3DS_PATH + "protocol-versions", 200, "{\"server_trans_id\":\"{{uuid}}\",\"enrolled\":true,"
+                + "\"method_url\":\"https://127.0.0.1/method\",\"message_version\":\"2.1.0\",\"acs_protocol_version_start\":\"2.1.0\","
+                + "\"acs_protocol_version_end\":\"2.1.0\"}");
+        respond("*", GP_3DS_PATH + "authentications", 200, "{\"server_trans_id\":\"{{request:server_trans_id}}\",\"acs_trans_id\":\"{{uuid}}\","
+                + "\"ds_trans_id\":\"{{uuid}}\",\"status\":\"AUTHENTICATION_SUCCESSFUL\",\"eci\":\"05\",\"challenge_mandated\":false,"
+                + "\"authentication_value\":\"ODQzNjgwNjU0ZjM3N2JmYTg0NTM=\",\"message_version\":\"2.1.0\"}");
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod().toUpperCase();
+        String path = exchange.getRequestURI().getPath();
+        String query = exchange.getRequestURI().getRawQuery();
+        String body = IOUtils.readFully(exchange.getRequestBody());
+        requests.add(method + " " + path + (query != null ? "?" + query : ""));
+
+        simulateLatency();
+
+        Route route = findRoute(method, path);
+        int status;
+        String response;
+        if(route == null) {
+            status = 404;
+            response = "{\"error\":{\"message\":\"No mock response for " + method + " " + path + "\"}}";
+        }
+        else if(chance(errorRate)) {
+            status = 500;
+            response = "{\"error\":{\"message\":\"Injected error\"}}";
+        }
+        else {
+            status = route.status;
+            response = render(route.template, body);
+        }
+
+        byte[] buffer = response.getBytes("UTF-8");
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if(acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+            gzip.write(buffer);
+            gzip.close();
+            buffer = compressed.toByteArray();
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", response.startsWith("<") ? "text/xml; charset=utf-8" : "application/json");
+        exchange.sendResponseHeaders(status, buffer.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(buffer);
+        out.close();
+    }
+
+    private Route findRoute(String method, String path) {
+        Route match = null;
+        for(Route route : routes) {
+            if((route.method.equals("*") || route.method.equals(method)) && path.startsWith(route.prefix)) {
+                if(match == null || route.prefix.length() > match.prefix.length()) {
+                    match = route;
+                }
+            }
+        }
+        return match;
+    }
+
+    private String render(String template, String body) {
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        StringBuffer sb = new StringBuffer();
+        while(matcher.find()) {
+            String name = matcher.group(1);
+            String value;
+            if(name.equals("sequence")) {
+                value = String.valueOf(sequence.incrementAndGet());
+            }
+            else if(name.equals("uuid")) {
+                value = UUID.randomUUID().toString();
+            }
+            else if(name.equals("timestamp")) {
+                value = new DateTime().toString("yyyy-MM-dd'T'HH:mm:ss.SSS");
+            }
+            else value = extract(body, matcher.group(2));
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    // value of the first matching XML element, attribute or JSON field, empty when absent
+    private String extract(String body, String name) {
+        if(body == null || name == null) {
+            return "";
+        }
+
+        Matcher matcher = Pattern.compile("<" + name + "(?:\\s[^>]*)?>([^<]*)</" + name + ">"
+                + "|\\s" + name + "=\"([^\"]*)\""
+                + "|\"" + name + "\"\\s*:\\s*\"?([^\",}]*)").matcher(body);
+        if(!matcher.find()) {
+            return "";
+        }
+        for(int i = 1; i <= 3; i++) {
+            if(matcher.group(i) != null) {
+                return matcher.group(i);
+            }
+        }
+        return "";
+    }
+
+    private boolean chance(double rate) {
+        if(rate <= 0) {
+            return false;
+        }
+        synchronized (random) {
+            return random.nextDouble() < rate;
+        }
+    }
+
+    private void simulateLatency() {
+        int delay = latency;
+        if(jitter > 0) {
+            synchronized (random) {
+                delay += random.nextInt(jitter + 1);
+            }
+        }
+        if(delay > 0) {
+            try {
+                Thread.sleep(delay);
+            }
+            catch(InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class Route {
+        private final String method;
+        private final String prefix;
+        private final int status;
+        private final String template;
+
+        Route(String method, String prefix, int status, String template) {
+            this.method = method;
+            this.prefix = prefix;
+            this.status = status;
+            this.template = template;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.global.api.tests.network;
+
+import com.global.api.ServicesContainer;
+import com.global.api.entities.Transaction;
+import com.global.api.entities.exceptions.GatewayException;
+import com.global.api.entities.exceptions.GatewayTimeoutException;
+import com.global.api.network.StandInEngine;
+import com.global.api.paymentMethods.CreditTrackData;
+import com.global.api.serviceConfigs.AcceptorConfig;
+import com.global.api.serviceConfigs.NetworkGatewayConfig;
+import com.global.api.tests.network.emulator.VapsHostEmulator;
+import com.global.api.tests.testdata.TestCards;
+import com.global.api.utils.EmvData;
+import com.global.api.utils.EmvUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StandInEngineTests {
+    private static final String TAG_DATA = "950500000000009B02E8005F280208405F2A0208405F3401009F02060000000010009F3704C6B1A04F";
+
+    private final StandInEngine engine = new StandInEngine();
+    private final CreditTrackData track = TestCards.MasterCardSwipe();
+    private VapsHostEmulator emulator;
+
+    public StandInEngineTests() {
+        engine.setFloorLimit(new BigDecimal("50"));
+    }
+
+    @After
+    public void tearDown() {
+        engine.dispose();
+        if(emulator != null) {
+            emulator.dispose();
+        }
+    }
+
+    private void configure(int port) throws Exception {
+        NetworkGatewayConfig config = new NetworkGatewayConfig();
+        config.setPrimaryEndpoint("127.0.0.1");
+        config.setPrimaryPort(port);
+        config.setCompanyId("0044");
+        config.setTerminalId("0000912197711");
+        config.setUniqueDeviceId("0001");
+        config.setMerchantType("5541");
+        config.setAcceptorConfig(new AcceptorConfig());
+        config.setTimeout(1000);
+        config.setTlsEnabled(false);
+        config.setStandInEngine(engine);
+
+        ServicesContainer.configureService(config, "standin");
+    }
+
+    private void configureHostDown() throws Exception {
+        VapsHostEmulator closed = new VapsHostEmulator();
+        int port = closed.getPort();
+        closed.dispose();
+        configure(port);
+    }
+
+    private Transaction sale(String amount) throws Exception {
+        return track.charge(new BigDecimal(amount))
+                .withCurrency("USD")
+                .withTagData(TAG_DATA)
+                .execute("standin");
+    }
+
+    @Test
+    public void tagData_standInStatus() {
+        assertTrue(EmvUtils.parseTagData(TAG_DATA).getStandInStatus());
+
+        EmvData failedCvm = EmvUtils.parseTagData(TAG_DATA.replace("95050000000000", "95050000800000"));
+        assertFalse(failedCvm.getStandInStatus());
+        assertEquals("Invalid TVR status in byte 3 of tag 95", failedCvm.getStandInStatusReason());
+
+        EmvData foreign = EmvUtils.parseTagData(TAG_DATA.replace("5F28020840", "5F28020826"));
+        assertFalse(foreign.getStandInStatus());
+
+        assertFalse(EmvUtils.parseTagData("5F280208405F2A020840").getStandInStatus());
+    }
+
+    @Test
+    public void hostDown_approvesWithinFloorLimit() throws Exception {
+        configureHostDown();
+
+        Transaction response = sale("10");
+        assertEquals("000", response.getResponseCode());
+        assertTrue(response.getTransactionReference().getAuthCode().matches("Y3[0-9]{4}"));
+        assertEquals(1, engine.getPendingAdvices().size());
+        assertEquals(0, new BigDecimal("10").compareTo(engine.getOutstanding()));
+    }
+
+    @Test(expected = GatewayException.class)
+    public void hostDown_overFloorLimit() throws Exception {
+        configureHostDown();
+        sale("75");
+    }
+
+    @Test
+    public void hostDown_velocityLimit() throws Exception {
+        configureHostDown();
+        sale("10");
+
+        try {
+            sale("10");
+            fail("Expected the second stand-in for the card to be refused");
+        }
+        catch(GatewayException exc) {
+            assertEquals(1, engine.getPendingAdvices().size());
+        }
+    }
+
+    @Test(expected = GatewayException.class)
+    public void hostReject_notStoodIn() throws Exception {
+        emulator = new VapsHostEmulator();
+        emulator.setNakRate(1);
+        configure(emulator.getPort());
+        sale("10");
+    }
+
+    @Test
+    public void hostDisconnectAfterSend_notStoodIn() throws Exception {
+        emulator = new VapsHostEmulator();
+        emulator.setDisconnectRate(1);
+        configure(emulator.getPort());
+
+        try {
+            sale("10");
+            fail("Expected a sale that may have reached the host not to be stood in");
+        }
+        catch(GatewayTimeoutException exc) {
+            assertTrue(engine.getPendingAdvices().isEmpty());
+        }
+    }
+
+    @Test
+    public void forwardAdvices_sendsStandInCapture() throws Exception {
+        configureHostDown();
+        sale("10");
+
+        emulator = new VapsHostEmulator();
+        configure(emulator.getPort());
+        List<StandInEngine.Advice> forwarded = engine.forwardAdvices("standin");
+
+        assertEquals(1, forwarded.size());
+        assertEquals("000", forwarded.get(0).getResponse().getResponseCode());
+        assertTrue(emulator.getRequests().contains("1220"));
+        assertTrue(engine.getPendingAdvices().isEmpty());
+        assertEquals(0, BigDecimal.ZERO.compareTo(engine.getOutstanding()));
+    }
+}
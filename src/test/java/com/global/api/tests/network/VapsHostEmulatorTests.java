@@ -0,0 +1,308 @@
+package com.global.api.tests.network;
+
+import com.global.api.ServicesContainer;
+import com.global.api.entities.BatchSummary;
+import com.global.api.entities.Transaction;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.CircuitBreakerOpenException;
+import com.global.api.entities.exceptions.GatewayException;
+import com.global.api.entities.exceptions.GatewayTimeoutException;
+import com.global.api.gateways.VapsConnector;
+import com.global.api.paymentMethods.CreditCardData;
+import com.global.api.serviceConfigs.AcceptorConfig;
+import com.global.api.serviceConfigs.NetworkGatewayConfig;
+import com.global.api.services.BatchService;
+import com.global.api.tests.network.emulator.VapsHostEmulator;
+import org.junit.After;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.*;
+
+public class VapsHostEmulatorTests {
+    private VapsHostEmulator emulator;
+    private VapsHostEmulator secondary;
+    private CreditCardData card;
+
+    public VapsHostEmulatorTests() {
+        card = new CreditCardData();
+        card.setNumber("4111111111111111");
+        card.setExpMonth(12);
+        card.setExpYear(2025);
+        card.setCvn("123");
+    }
+
+    @After
+    public void tearDown() {
+        if(emulator != null) {
+            emulator.dispose();
+        }
+        if(secondary != null) {
+            secondary.dispose();
+        }
+    }
+
+    private void configure(boolean tls) throws Exception {
+        emulator = new VapsHostEmulator(tls);
+
+        NetworkGatewayConfig config = new NetworkGatewayConfig();
+        config.setPrimaryEndpoint("127.0.0.1");
+        config.setPrimaryPort(emulator.getPort());
+        config.setCompanyId("0044");
+        config.setTerminalId("0000912197711");
+        config.setUniqueDeviceId("0001");
+        config.setMerchantType("5541");
+        config.setAcceptorConfig(new AcceptorConfig());
+        config.setTimeout(1000);
+        config.setTlsEnabled(tls);
+        if(tls) {
+            config.setSslEngineFactory(VapsHostEmulator.createClientEngineFactory());
+        }
+
+        ServicesContainer.configureService(config, "emulator");
+    }
+
+    // plain primary and secondary emulators, returning the connector so tests can read its endpoint health
+    private VapsConnector configureFailOver(boolean hedging, int hedgeDelay, int timeout) throws Exception {
+        emulator = new VapsHostEmulator();
+        secondary = new VapsHostEmulator();
+
+        NetworkGatewayConfig config = new NetworkGatewayConfig();
+        config.setPrimaryEndpoint("127.0.0.1");
+        config.setPrimaryPort(emulator.getPort());
+        config.setSecondaryEndpoint("localhost");
+        config.setSecondaryPort(secondary.getPort());
+        config.setCompanyId("0044");
+        config.setTerminalId("0000912197711");
+        config.setUniqueDeviceId("0001");
+        config.setMerchantType("5541");
+        config.setAcceptorConfig(new AcceptorConfig());
+        config.setTimeout(timeout);
+        config.setTlsEnabled(false);
+        config.setHedgingEnabled(hedging);
+        config.setHedgeDelay(hedgeDelay);
+        ServicesContainer.configureService(config, "emulator");
+
+        return (VapsConnector) ServicesContainer.getInstance().getGateway("emulator");
+    }
+
+    @Test
+    public void hedgedBalanceInquiry_racesSlowPrimary() throws Exception {
+        configureFailOver(true, 50, 5000);
+        emulator.setLatency(2000);
+
+        long started = System.currentTimeMillis();
+        Transaction response = card.balanceInquiry().execute("emulator");
+        long elapsed = System.currentTimeMillis() - started;
+
+        assertEquals("000", response.getResponseCode());
+        assertEquals("1100", emulator.getRequests().get(0));
+        assertEquals("1100", secondary.getRequests().get(0));
+        assertTrue("hedge answered after " + elapsed + "ms", elapsed < 1000);
+    }
+
+    @Test
+    public void send_honoursTransactionDeadline() throws Exception {
+        configureFailOver(false, 0, 10000);
+        emulator.setDropRate(1);
+        secondary.setDropRate(1);
+
+        long started = System.currentTimeMillis();
+        try {
+            card.authorize(new BigDecimal("10")).withCurrency("USD").withTimeout(600).execute("emulator");
+            fail("Expected a timeout");
+        }
+        catch(GatewayTimeoutException exc) {
+            // pre-auths are not reversed, so the time spent is the send alone
+        }
+        long elapsed = System.currentTimeMillis() - started;
+
+        // the budget is split between the hosts rather than each getting the configured timeout
+        assertEquals("1100", emulator.getRequests().get(0));
+        assertEquals("1100", secondary.getRequests().get(0));
+        assertTrue("timed out after " + elapsed + "ms", elapsed >= 500 && elapsed < 2000);
+    }
+
+    @Test
+    public void slowPrimary_isDemotedAndPromotedAgain() throws Exception {
+        VapsConnector gateway = configureFailOver(true, 50, 5000);
+        gateway.getPrimaryHealth().setWindow(1000);
+        gateway.getPrimaryHealth().setProbeInterval(5);
+        gateway.getSecondaryHealth().setWindow(1000);
+        emulator.setLatency(1000);
+
+        // every inquiry is answered by the hedge, so the primary collects slow samples
+        for(int i = 0; i < 25; i++) {
+            assertEquals("000", card.balanceInquiry().execute("emulator").getResponseCode());
+        }
+        assertTrue(gateway.getPrimaryHealth().isWorseThan(gateway.getSecondaryHealth()));
+
+        // demoted, the secondary goes first and answers before the hedge delay, apart from probes
+        int primaryRequests = emulator.getRequests().size();
+        for(int i = 0; i < 10; i++) {
+            card.balanceInquiry().execute("emulator");
+        }
+        assertEquals(2, emulator.getRequests().size() - primaryRequests);
+
+        // once recovered, probes record fast samples and the slow ones age out of the window
+        emulator.setLatency(0);
+        long deadline = System.currentTimeMillis() + 5000;
+        while(gateway.getPrimaryHealth().isWorseThan(gateway.getSecondaryHealth()) && System.currentTimeMillis() < deadline) {
+            card.balanceInquiry().execute("emulator");
+            Thread.sleep(50);
+        }
+        assertFalse(gateway.getPrimaryHealth().isWorseThan(gateway.getSecondaryHealth()));
+
+        primaryRequests = emulator.getRequests().size();
+        int secondaryRequests = secondary.getRequests().size();
+        card.balanceInquiry().execute("emulator");
+        assertEquals(primaryRequests + 1, emulator.getRequests().size());
+        assertEquals(secondaryRequests, secondary.getRequests().size());
+    }
+
+    @Test
+    public void creditSale_plain() throws Exception {
+        configure(false);
+
+        Transaction response = card.charge(new BigDecimal("10")).withCurrency("USD").execute("emulator");
+        assertEquals("000", response.getResponseCode());
+        assertNotNull(response.getTransactionReference().getAuthCode());
+        assertEquals("1200", emulator.getRequests().get(0));
+    }
+
+    @Test
+    public void creditAuth_tls() throws Exception {
+        configure(true);
+
+        Transaction response = card.authorize(new BigDecimal("10")).withCurrency("USD").execute("emulator");
+        assertEquals("000", response.getResponseCode());
+        assertEquals("1100", emulator.getRequests().get(0));
+    }
+
+    @Test
+    public void warmUp_sendsNoMessages() throws Exception {
+        configure(true);
+
+        ServicesContainer.warmUp("emulator", 50);
+        assertTrue(emulator.getRequests().isEmpty());
+
+        Transaction response = card.charge(new BigDecimal("10")).withCurrency("USD").execute("emulator");
+        assertEquals("000", response.getResponseCode());
+    }
+
+    @Test
+    public void creditSale_declined() throws Exception {
+        configure(false);
+        emulator.setDeclineRate(1);
+
+        Transaction response = card.charge(new BigDecimal("10")).withCurrency("USD").execute("emulator");
+        assertEquals("100", response.getResponseCode());
+    }
+
+    @Test
+    public void batchClose() throws Exception {
+        configure(false);
+
+        Transaction response = BatchService.closeBatch(1, new BigDecimal("10"), BigDecimal.ZERO)
+                .withBatchNumber(1, 1)
+                .execute("emulator");
+        BatchSummary summary = response.getBatchSummary();
+        assertEquals("500", summary.getResponseCode());
+        assertEquals("1520", emulator.getRequests().get(0));
+    }
+
+    @Test
+    public void droppedResponse_sendsReversal() throws Exception {
+        configure(false);
+        emulator.setDropRate(1);
+
+        try {
+            card.charge(new BigDecimal("10")).withCurrency("USD").execute("emulator");
+            fail("Expected a timeout");
+        }
+        catch(GatewayTimeoutException exc) {
+            assertTrue(exc.getReversalCount() > 0);
+        }
+        assertEquals("1200", emulator.getRequests().get(0));
+        assertTrue(emulator.getRequests().contains("1420"));
+    }
+
+    @Test
+    public void hostReject() throws Exception {
+        configure(false);
+        emulator.setNakRate(1);
+
+        try {
+            card.charge(new BigDecimal("10")).withCurrency("USD").execute("emulator");
+            fail("Expected a gateway exception");
+        }
+        catch(GatewayException exc) {
+            assertEquals("FormatError_ServiceProvider", exc.getResponseCode());
+        }
+    }
+
+    @Test
+    public void disconnect_failsOverToSecondary() throws Exception {
+        configure(false);
+        emulator.setDisconnectRate(1);
+        VapsHostEmulator secondary = new VapsHostEmulator();
+        try {
+            NetworkGatewayConfig config = new NetworkGatewayConfig();
+            config.setPrimaryEndpoint("127.0.0.1");
+            config.setPrimaryPort(emulator.getPort());
+            config.setSecondaryEndpoint("localhost");
+            config.setSecondaryPort(secondary.getPort());
+            config.setCompanyId("0044");
+            config.setTerminalId("0000912197711");
+            config.setUniqueDeviceId("0001");
+            config.setMerchantType("5541");
+            config.setAcceptorConfig(new AcceptorConfig());
+            config.setTimeout(2000);
+            config.setTlsEnabled(false);
+            ServicesContainer.configureService(config, "emulator");
+
+            Transaction response = card.charge(new BigDecimal("10")).withCurrency("USD").execute("emulator");
+            assertEquals("000", response.getResponseCode());
+            assertEquals("1200", emulator.getRequests().get(0));
+            assertEquals("1200", secondary.getRequests().get(0));
+        }
+        finally {
+            secondary.dispose();
+        }
+    }
+
+    @Test(expected = CircuitBreakerOpenException.class)
+    public void connectFailOver_respectsOpenCircuits() throws Exception {
+        VapsHostEmulator closed = new VapsHostEmulator();
+        int port = closed.getPort();
+        closed.dispose();
+
+        NetworkGatewayConfig config = new NetworkGatewayConfig();
+        config.setPrimaryEndpoint("127.0.0.1");
+        config.setPrimaryPort(port);
+        config.setSecondaryEndpoint("localhost");
+        config.setSecondaryPort(port);
+        config.setCompanyId("0044");
+        config.setTerminalId("0000912197711");
+        config.setUniqueDeviceId("0001");
+        config.setMerchantType("5541");
+        config.setAcceptorConfig(new AcceptorConfig());
+        config.setTimeout(1000);
+        config.setTlsEnabled(false);
+        config.setEnableCircuitBreaker(true);
+        config.setCircuitBreakerMinimumRequests(1);
+        ServicesContainer.configureService(config, "emulator");
+
+        // each endpoint's first failure opens its circuit, so the connection loop stops there
+        card.charge(new BigDecimal("10")).withCurrency("USD").execute("emulator");
+    }
+
+    @Test(expected = ApiException.class)
+    public void disconnect() throws Exception {
+        configure(false);
+        emulator.setDisconnectRate(1);
+
+        card.charge(new BigDecimal("10")).withCurrency("USD").execute("emulator");
+    }
+}
@@ -0,0 +1,197 @@
+package com.global.api.tests.network.emulator;
+
+import com.global.api.io.ISslEngineFactory;
+import com.global.api.network.NetworkMessage;
+import com.global.api.network.enums.DataElementId;
+import com.global.api.network.enums.Iso8583MessageType;
+import com.global.api.network.enums.NetworkResponseCode;
+import com.global.api.network.enums.NetworkResponseCodeOrigin;
+import com.global.api.tests.terminals.simulator.DeviceSimulator;
+import com.global.api.tests.testdata.TestCertificates;
+
+import javax.net.ServerSocketFactory;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loopback stand-in for the Heartland network host. Speaks the 32 byte header plus ISO 8583
+ * framing used by {@link com.global.api.gateways.VapsConnector} over plain TCP or TLS and answers
+ * authorizations (1100), financials (1200), advices (1220), reversals (1420) and batch closes
+ * (1500, or 1520 as the SDK sends them) with configurable action codes. The shared simulator
+ * settings apply: latency and jitter delay each response, dropped requests are never answered
+ * and NAKed requests are rejected in the header as format errors.
+ */
+public class VapsHostEmulator extends DeviceSimulator {
+    private static final int HEADER_LENGTH = 30;
+
+    private final Map<String, String> actionCodes = new ConcurrentHashMap<String, String>();
+    private final AtomicInteger authCodes = new AtomicInteger();
+    private volatile double declineRate;
+    private volatile String declineCode = "100";
+    private volatile double disconnectRate;
+
+    public VapsHostEmulator() throws IOException {
+        super("vaps-emulator");
+        initialize();
+    }
+    /**
+     * @param tls whether to accept TLS connections, using the loopback test certificate
+     */
+    public VapsHostEmulator(boolean tls) throws IOException, GeneralSecurityException {
+        super("vaps-emulator", tls ? TestCertificates.getContext().getServerSocketFactory() : ServerSocketFactory.getDefault());
+        initialize();
+    }
+
+    private void initialize() {
+        actionCodes.put("1100", "000");
+        actionCodes.put("1200", "000");
+        actionCodes.put("1220", "000");
+        actionCodes.put("1420", "400");
+        actionCodes.put("1500", "500");
+        actionCodes.put("1520", "500");
+    }
+
+    /**
+     * Action code (DE 39) returned for a request class, e.g. "1200" also covers 1201 repeats.
+     */
+    public void setActionCode(String messageTypeIndicator, String actionCode) {
+        actionCodes.put(messageTypeIndicator, actionCode);
+    }
+    public double getDeclineRate() {
+        return declineRate;
+    }
+    /**
+     * Fraction of authorizations and financials answered with the decline code instead.
+     */
+    public void setDeclineRate(double declineRate) {
+        this.declineRate = declineRate;
+    }
+    public String getDeclineCode() {
+        return declineCode;
+    }
+    public void setDeclineCode(String declineCode) {
+        this.declineCode = declineCode;
+    }
+    public double getDisconnectRate() {
+        return disconnectRate;
+    }
+    /**
+     * Fraction of requests after which the host drops the connection without answering.
+     */
+    public void setDisconnectRate(double disconnectRate) {
+        this.disconnectRate = disconnectRate;
+    }
+
+    /**
+     * Client side TLS setup trusting the emulator's certificate, for
+     * {@link com.global.api.serviceConfigs.NetworkGatewayConfig#setSslEngineFactory}.
+     */
+    public static ISslEngineFactory createClientEngineFactory() throws GeneralSecurityException, IOException {
+        return TestCertificates.getClientFactory();
+    }
+
+    @Override
+    protected void serve(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        OutputStream out = socket.getOutputStream();
+
+        while(true) {
+            byte[] request;
+            try {
+                request = new byte[in.readUnsignedShort() - 2];
+            }
+            catch(EOFException exc) {
+                return;
+            }
+            in.readFully(request);
+
+            // keep alive, header only
+            if(request.length <= HEADER_LENGTH) {
+                recordRequest("KeepAlive");
+                write(out, Arrays.copyOf(request, HEADER_LENGTH));
+                continue;
+            }
+
+            String mti = new String(request, HEADER_LENGTH, 4);
+            recordRequest(mti);
+
+            if(chance(disconnectRate)) {
+                return;
+            }
+            if(shouldDrop()) {
+                continue;
+            }
+
+            simulateLatency();
+
+            byte[] header = Arrays.copyOf(request, HEADER_LENGTH);
+            if(shouldNak()) {
+                header[6] = NetworkResponseCode.FormatError_ServiceProvider.getByte();
+                header[7] = NetworkResponseCodeOrigin.FrontEndProcess.getByte();
+                write(out, header);
+                continue;
+            }
+
+            NetworkMessage message = NetworkMessage.parse(Arrays.copyOfRange(request, HEADER_LENGTH + 4, request.length), Iso8583MessageType.CompleteMessage);
+            byte[] response = buildResponse(mti, message).buildMessage();
+
+            byte[] buffer = new byte[HEADER_LENGTH + response.length];
+            System.arraycopy(header, 0, buffer, 0, HEADER_LENGTH);
+            System.arraycopy(response, 0, buffer, HEADER_LENGTH, response.length);
+            write(out, buffer);
+        }
+    }
+
+    private NetworkMessage buildResponse(String mti, NetworkMessage request) {
+        String requestClass = mti.substring(0, 3) + "0";
+
+        String actionCode = actionCodes.get(requestClass);
+        if(actionCode == null) {
+            actionCode = "904";
+        }
+        else if((requestClass.equals("1100") || requestClass.equals("1200")) && chance(declineRate)) {
+            actionCode = declineCode;
+        }
+
+        NetworkMessage response = new NetworkMessage();
+        response.setMessageTypeIndicator(String.format("%s%s0", mti.substring(0, 2), (char) (mti.charAt(2) + 1)));
+        copy(request, response, DataElementId.DE_003, DataElementId.DE_004, DataElementId.DE_007, DataElementId.DE_011,
+                DataElementId.DE_012, DataElementId.DE_024, DataElementId.DE_041, DataElementId.DE_042,
+                DataElementId.DE_048, DataElementId.DE_049);
+
+        int sequence = authCodes.incrementAndGet();
+        response.set(DataElementId.DE_037, String.format("%012d", sequence));
+        if(actionCode.startsWith("0")) {
+            response.set(DataElementId.DE_038, String.format("%06d", sequence % 1000000));
+        }
+        response.set(DataElementId.DE_039, actionCode);
+        return response;
+    }
+
+    private void copy(NetworkMessage from, NetworkMessage to, DataElementId... ids) {
+        for(DataElementId id : ids) {
+            if(from.has(id)) {
+                to.set(id, from.getByteArray(id));
+            }
+        }
+    }
+
+    private void write(OutputStream out, byte[] frame) throws IOException {
+        int length = frame.length + 2;
+        byte[] buffer = new byte[length];
+        buffer[0] = (byte) (length >> 8);
+        buffer[1] = (byte) length;
+        System.arraycopy(frame, 0, buffer, 2, frame.length);
+
+        out.write(buffer);
+        out.flush();
+    }
+}
@@ -0,0 +1,118 @@
+package com.global.api.tests.network.emulator;
+
+import com.global.api.ServicesContainer;
+import com.global.api.metrics.LatencySnapshot;
+import com.global.api.metrics.MetricsRegistry;
+import com.global.api.paymentMethods.CreditCardData;
+import com.global.api.serviceConfigs.AcceptorConfig;
+import com.global.api.serviceConfigs.NetworkGatewayConfig;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives concurrent credit sales through {@link com.global.api.gateways.VapsConnector} against a
+ * {@link VapsHostEmulator} and reports sustained throughput, the end to end latency percentiles
+ * and the {@code NetworkGateway.send} latencies collected by the {@link MetricsRegistry}. Run with
+ * {@code java ... VapsLoadDriver [tls|plain] [threads] [salesPerThread] [hostLatencyMs] [dropRate]}.
+ */
+public class VapsLoadDriver {
+    public static void main(String[] args) throws Exception {
+        boolean tls = args.length == 0 || args[0].equals("tls");
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int sales = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        int latency = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        double dropRate = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+
+        VapsHostEmulator emulator = new VapsHostEmulator(tls);
+        emulator.setLatency(latency);
+        emulator.setDropRate(dropRate);
+
+        NetworkGatewayConfig config = new NetworkGatewayConfig();
+        config.setPrimaryEndpoint("127.0.0.1");
+        config.setPrimaryPort(emulator.getPort());
+        config.setCompanyId("0044");
+        config.setTerminalId("0000912197711");
+        config.setUniqueDeviceId("0001");
+        config.setMerchantType("5541");
+        config.setAcceptorConfig(new AcceptorConfig());
+        config.setTimeout(5000);
+        config.setTlsEnabled(tls);
+        if(tls) {
+            config.setSslEngineFactory(VapsHostEmulator.createClientEngineFactory());
+        }
+        ServicesContainer.configureService(config, "load");
+
+        try {
+            run(threads, Math.max(1, sales / 10), false);
+            MetricsRegistry.getInstance().reset();
+            run(threads, sales, true);
+
+            for(LatencySnapshot snapshot : MetricsRegistry.getInstance().getLatencySnapshots()) {
+                if(snapshot.getKey().getOperation().equals("send")) {
+                    System.out.println(snapshot);
+                }
+            }
+        }
+        finally {
+            emulator.dispose();
+        }
+    }
+
+    private static void run(int threads, final int sales, boolean report) throws InterruptedException {
+        final long[] latencies = new long[threads * sales];
+        final AtomicInteger errors = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        final CreditCardData card = new CreditCardData();
+        card.setNumber("4111111111111111");
+        card.setExpMonth(12);
+        card.setExpYear(2025);
+        card.setCvn("123");
+
+        long started = System.nanoTime();
+        for(int i = 0; i < threads; i++) {
+            final int thread = i;
+            new Thread() {
+                public void run() {
+                    try {
+                        for(int j = 0; j < sales; j++) {
+                            long sent = System.nanoTime();
+                            try {
+                                card.charge(new BigDecimal("10"))
+                                        .withCurrency("USD")
+                                        .execute("load");
+                            }
+                            catch(Exception exc) {
+                                if(errors.incrementAndGet() == 1) {
+                                    exc.printStackTrace();
+                                }
+                            }
+                            latencies[thread * sales + j] = System.nanoTime() - sent;
+                        }
+                    }
+                    finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - started;
+
+        if(report) {
+            Arrays.sort(latencies);
+            System.out.println(String.format("threads=%d sales=%d errors=%d", threads, latencies.length, errors.get()));
+            System.out.println(String.format("throughput %10.1f tps", latencies.length / (elapsed / 1e9)));
+            System.out.println(String.format("p50 %8.3f ms  p95 %8.3f ms  p99 %8.3f ms  max %8.3f ms",
+                    percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6));
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
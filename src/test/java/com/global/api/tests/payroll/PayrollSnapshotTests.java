@@ -0,0 +1,90 @@
+package com.global.api.tests.payroll;
+
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.payroll.*;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class PayrollSnapshotTests {
+    private final PayrollEncoder encoder = new PayrollEncoder("testapiuser", "iGF9UtaLc526poWWNgUpiCoO3BckcZUKNF3nhyKul8A=");
+
+    private String workLocations(String... locations) {
+        StringBuilder results = new StringBuilder();
+        for(int i = 0; i < locations.length; i += 2) {
+            if(results.length() > 0)
+                results.append(",");
+            results.append(String.format("{\"WorkLocationId\":\"%s\",\"WorkLocationDescription\":\"%s\"}", locations[i], locations[i + 1]));
+        }
+        return String.format("{\"TotalRecords\":%s,\"StatusCode\":200,\"ResponseMessage\":\"OK\",\"Results\":[%s]}", locations.length / 2, results);
+    }
+
+    @Test
+    public void encoderRoundTrip() {
+        String encoded = encoder.encode("123-45-6789");
+        assertNotEquals("123-45-6789", encoded);
+        assertEquals(encoded, encoder.encode("123-45-6789"));
+        assertEquals("123-45-6789", encoder.decode(encoded));
+
+        encoder.setUsername("otheruser");
+        assertNotEquals(encoded, encoder.encode("123-45-6789"));
+    }
+
+    @Test
+    public void onlyChangedRecordsAreReturned() throws ApiException {
+        PayrollSnapshot snapshot = new PayrollSnapshot();
+
+        PayrollResponse<WorkLocation> first = new PayrollResponse<WorkLocation>(workLocations("1", "Main", "2", "Annex"), encoder, WorkLocation.class, snapshot);
+        assertEquals(2, first.getResults().size());
+        assertEquals(0, first.getUnchangedCount());
+
+        PayrollResponse<WorkLocation> second = new PayrollResponse<WorkLocation>(workLocations("1", "Main", "3", "Depot"), encoder, WorkLocation.class, snapshot);
+        assertEquals(1, second.getResults().size());
+        assertEquals("3", second.getResults().get(0).getId());
+        assertEquals(1, second.getUnchangedCount());
+        assertEquals(1, second.getRemovedKeys().size());
+        assertEquals("2", second.getRemovedKeys().get(0));
+
+        PayrollResponse<WorkLocation> third = new PayrollResponse<WorkLocation>(workLocations("1", "Head office", "3", "Depot"), encoder, WorkLocation.class, snapshot);
+        assertEquals(1, third.getResults().size());
+        assertEquals("Head office", third.getResults().get(0).getDescription());
+    }
+
+    @Test
+    public void clientsDoNotShareRecords() throws ApiException {
+        PayrollSnapshot snapshot = new PayrollSnapshot();
+
+        new PayrollResponse<WorkLocation>(workLocations("1", "Main", "2", "Annex"), encoder, WorkLocation.class, snapshot.forClient("A"));
+        PayrollResponse<WorkLocation> other = new PayrollResponse<WorkLocation>(workLocations("1", "Main"), encoder, WorkLocation.class, snapshot.forClient("B"));
+        assertEquals(1, other.getResults().size());
+        assertEquals(0, other.getRemovedKeys().size());
+
+        PayrollResponse<WorkLocation> again = new PayrollResponse<WorkLocation>(workLocations("1", "Main", "2", "Annex"), encoder, WorkLocation.class, snapshot.forClient("A"));
+        assertEquals(0, again.getResults().size());
+        assertEquals(2, again.getUnchangedCount());
+        assertEquals(2, snapshot.forClient("A").size());
+        assertEquals(3, snapshot.size());
+    }
+
+    @Test
+    public void snapshotSurvivesSaveAndLoad() throws Exception {
+        File file = File.createTempFile("payroll", ".snapshot");
+        file.deleteOnExit();
+        try {
+            PayrollSnapshot snapshot = new PayrollSnapshot();
+            new PayrollResponse<WorkLocation>(workLocations("1", "Main", "2", "Annex"), encoder, WorkLocation.class, snapshot);
+            snapshot.save(file.getPath());
+
+            PayrollSnapshot loaded = PayrollSnapshot.load(file.getPath());
+            assertEquals(2, loaded.size());
+            PayrollResponse<WorkLocation> response = new PayrollResponse<WorkLocation>(workLocations("2", "Annex", "1", "Main"), encoder, WorkLocation.class, loaded);
+            assertEquals(0, response.getResults().size());
+            assertEquals(2, response.getUnchangedCount());
+        }
+        finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.global.api.tests.terminals;
+
+import com.global.api.entities.enums.ConnectionModes;
+import com.global.api.entities.enums.DeviceType;
+import com.global.api.entities.enums.SendFileType;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.MessageException;
+import com.global.api.services.DeviceService;
+import com.global.api.terminals.ConnectionConfig;
+import com.global.api.terminals.TerminalResponse;
+import com.global.api.terminals.abstractions.IDeviceInterface;
+import com.global.api.terminals.abstractions.IDeviceResponse;
+import com.global.api.terminals.abstractions.IEODResponse;
+import com.global.api.terminals.abstractions.IInitializeResponse;
+import com.global.api.terminals.abstractions.ISAFResponse;
+import com.global.api.terminals.hpa.HpaInterface;
+import com.global.api.terminals.messaging.IFileUploadProgressInterface;
+import com.global.api.tests.terminals.hpa.RandomIdProvider;
+import com.global.api.tests.terminals.simulator.DeviceSimulator;
+import com.global.api.tests.terminals.simulator.HpaDeviceSimulator;
+import com.global.api.tests.terminals.simulator.PaxDeviceSimulator;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class DeviceSimulatorTests {
+    private DeviceSimulator simulator;
+
+    @After
+    public void teardown() {
+        if(simulator != null) {
+            simulator.dispose();
+        }
+    }
+
+    @Test
+    public void paxTcpCreditSale() throws Exception {
+        PaxDeviceSimulator pax = new PaxDeviceSimulator();
+        simulator = pax;
+
+        TerminalResponse response = device(DeviceType.PAX_S300, ConnectionModes.TCP_IP).creditSale(new BigDecimal(10))
+                .withAllowDuplicates(true)
+                .execute();
+        assertEquals("00", response.getResponseCode());
+        assertEquals("123456", response.getAuthorizationCode());
+        assertEquals("T00", pax.getRequests().get(0));
+    }
+
+    @Test
+    public void paxHttpInitialize() throws Exception {
+        simulator = new PaxDeviceSimulator();
+
+        IInitializeResponse response = device(DeviceType.PAX_S300, ConnectionModes.HTTP).initialize();
+        assertEquals("53012345", response.getSerialNumber());
+    }
+
+    @Test(expected = MessageException.class)
+    public void paxGivesUpAfterNaks() throws Exception {
+        PaxDeviceSimulator pax = new PaxDeviceSimulator();
+        pax.setNakRate(1);
+        simulator = pax;
+
+        device(DeviceType.PAX_S300, ConnectionModes.TCP_IP).initialize();
+    }
+
+    @Test(expected = MessageException.class)
+    public void paxReportsEot() throws Exception {
+        PaxDeviceSimulator pax = new PaxDeviceSimulator();
+        pax.setEotRate(1);
+        simulator = pax;
+
+        device(DeviceType.PAX_S300, ConnectionModes.TCP_IP).initialize();
+    }
+
+    @Test
+    public void hpaEndOfDay() throws Exception {
+        simulator = new HpaDeviceSimulator();
+
+        IEODResponse response = device(DeviceType.HPA_ISC250, ConnectionModes.TCP_IP).endOfDay();
+        assertEquals("00", response.getDeviceResponseCode());
+        assertNotNull(response.getReversalResponse());
+        assertNotNull(response.getBatchCloseResponse());
+    }
+
+    @Test
+    public void hpaSendStoreAndForward() throws Exception {
+        simulator = new HpaDeviceSimulator();
+
+        ISAFResponse response = device(DeviceType.HPA_ISC250, ConnectionModes.TCP_IP).sendStoreAndForward();
+        assertEquals("00", response.getDeviceResponseCode());
+        assertNotNull(response.getApproved());
+    }
+
+    @Test
+    public void hpaSendFile() throws Exception {
+        HpaDeviceSimulator hpa = new HpaDeviceSimulator();
+        simulator = hpa;
+
+        File directory = new File(System.getProperty("java.io.tmpdir"), "hpa-simulator-" + System.nanoTime());
+        assertTrue(directory.mkdirs());
+        File banner = new File(directory, "banner.jpg");
+        // repeating content, so several parts are identical to the last one
+        writeFile(banner, 10000);
+        try {
+            final AtomicLong progress = new AtomicLong();
+            HpaInterface device = (HpaInterface) device(DeviceType.HPA_ISC250, ConnectionModes.TCP_IP);
+            IDeviceResponse response = device.sendFile(SendFileType.Banner, banner.getPath(), new IFileUploadProgressInterface() {
+                public void uploadProgress(long bytesSent, long totalBytes) {
+                    assertEquals(10000, totalBytes);
+                    assertTrue(bytesSent > progress.get());
+                    progress.set(bytesSent);
+                }
+            });
+            assertEquals("00", response.getDeviceResponseCode());
+            assertEquals(10000, hpa.getReceivedFileSize());
+            assertEquals(10000, progress.get());
+            assertEquals(26, hpa.getRequests().size());
+        }
+        finally {
+            banner.delete();
+            directory.delete();
+        }
+    }
+
+    private IDeviceInterface device(DeviceType deviceType, ConnectionModes connectionMode) throws ApiException {
+        ConnectionConfig config = new ConnectionConfig();
+        config.setDeviceType(deviceType);
+        config.setConnectionMode(connectionMode);
+        config.setIpAddress("127.0.0.1");
+        config.setPort(simulator.getPort());
+        config.setTimeout(2000);
+        config.setRequestIdProvider(new RandomIdProvider());
+        return DeviceService.create(config);
+    }
+
+    private static void writeFile(File file, int length) throws IOException {
+        byte[] data = new byte[length];
+        for(int i = 0; i < length; i++) {
+            data[i] = (byte) i;
+        }
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        }
+        finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.global.api.tests.terminals;
+
+import com.global.api.entities.exceptions.MessageException;
+import com.global.api.terminals.SignaturePath;
+import com.global.api.terminals.SignatureRenderer;
+import com.global.api.terminals.pax.responses.SignatureResponse;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static com.global.api.tests.terminals.pax.PaxResponseParsingTests.frame;
+import static org.junit.Assert.*;
+
+public class SignaturePathTests {
+    private static final String PATH = "10[COMMA]10^40[COMMA]10^40[COMMA]40^0[COMMA]65535^100[COMMA]80^0[COMMA]65535^~";
+    private static final int BLACK = 0xFF000000;
+
+    @Test
+    public void parse() throws MessageException {
+        SignaturePath path = SignaturePath.parse(PATH);
+        assertEquals(6, path.getPointCount());
+        assertEquals(40, path.getX(2));
+        assertEquals(40, path.getY(2));
+        assertTrue(path.isPenUp(3));
+        assertFalse(path.isPenUp(4));
+        assertEquals(6, SignaturePath.parse(PATH.replace("[COMMA]", ",")).getPointCount());
+    }
+
+    @Test
+    public void compactEncodingRoundTrips() throws MessageException {
+        SignaturePath path = SignaturePath.parse(PATH);
+        byte[] encoded = path.toByteArray();
+        assertTrue(encoded.length < PATH.length() / 2);
+
+        SignaturePath decoded = SignaturePath.fromByteArray(encoded);
+        assertEquals(path.getPointCount(), decoded.getPointCount());
+        for(int i = 0; i < path.getPointCount(); i++) {
+            assertEquals(path.getX(i), decoded.getX(i));
+            assertEquals(path.getY(i), decoded.getY(i));
+        }
+    }
+
+    @Test
+    public void rendersStrokesAndDots() throws Exception {
+        BufferedImage image = read(SignaturePath.parse(PATH).render("png"));
+        assertEquals(SignaturePath.WIDTH, image.getWidth());
+        assertEquals(BLACK, image.getRGB(25, 10));
+        assertEquals(BLACK, image.getRGB(40, 25));
+        assertEquals(BLACK, image.getRGB(100, 80));
+        assertNotEquals(BLACK, image.getRGB(70, 60));
+    }
+
+    @Test(expected = MessageException.class)
+    public void rejectsMalformedCoordinates() throws MessageException {
+        SignaturePath.parse("10[COMMA]x^~");
+    }
+
+    @Test
+    public void responseRendersOnDemand() throws Exception {
+        SignatureResponse response = new SignatureResponse(frame("[STX]0[FS]A09[FS]1.28[FS]000000[FS]OK[FS]60[FS]60[FS]"
+                + PATH + "[ETX]L"));
+        assertEquals(6, response.getSignaturePath().getPointCount());
+
+        BufferedImage image = read(response.getSignatureData());
+        assertEquals(BLACK, image.getRGB(25, 10));
+        assertSame(response.getSignatureData(), response.getSignatureData());
+    }
+
+    @Test
+    public void rendersBatchesInBackground() throws Exception {
+        SignatureRenderer renderer = new SignatureRenderer(2, "png");
+        try {
+            List<Future<byte[]>> images = renderer.renderAll(Arrays.asList(
+                    SignaturePath.parse(PATH),
+                    SignaturePath.parse("5[COMMA]5^6[COMMA]6^~")));
+            assertEquals(2, images.size());
+            for(Future<byte[]> image : images) {
+                assertNotNull(read(image.get()));
+            }
+        }
+        finally {
+            renderer.dispose();
+        }
+    }
+
+    private static BufferedImage read(byte[] image) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(image));
+    }
+}
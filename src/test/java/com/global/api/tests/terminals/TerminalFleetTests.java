@@ -0,0 +1,178 @@
+package com.global.api.tests.terminals;
+
+import com.global.api.ServicesContainer;
+import com.global.api.entities.enums.ConnectionModes;
+import com.global.api.entities.enums.DeviceType;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.ConfigurationException;
+import com.global.api.services.TerminalFleet;
+import com.global.api.services.TerminalLane;
+import com.global.api.terminals.ConnectionConfig;
+import com.global.api.terminals.DeviceMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class TerminalFleetTests {
+    private static final Pattern REQUEST = Pattern.compile("<Request>(\\w+)</Request>");
+
+    private ServerSocket server;
+    private TerminalFleet fleet;
+    private final List<String> received = new CopyOnWriteArrayList<String>();
+
+    @Before
+    public void setup() throws IOException {
+        server = new ServerSocket(0);
+        startDevice();
+        fleet = new TerminalFleet(2, 4);
+    }
+
+    @After
+    public void teardown() throws IOException {
+        fleet.dispose();
+        server.close();
+    }
+
+    @Test
+    public void sendsOnEachLane() throws Exception {
+        fleet.setHeartbeatInterval(0);
+        TerminalLane first = fleet.register("lane-1", config());
+        TerminalLane second = fleet.register("lane-2", config());
+
+        Future<byte[]> firstResponse = first.sendAsync(request("Reboot"));
+        Future<byte[]> secondResponse = fleet.sendAsync("lane-2", request("LaneOpen"));
+
+        assertTrue(new String(firstResponse.get(5, TimeUnit.SECONDS)).contains("<Response>Reboot</Response>"));
+        assertTrue(new String(secondResponse.get(5, TimeUnit.SECONDS)).contains("<Response>LaneOpen</Response>"));
+        assertSame(second, fleet.getLane("lane-2"));
+        assertEquals(2, fleet.getLanes().size());
+    }
+
+    @Test
+    public void sendsHeartbeatToIdleLanes() throws Exception {
+        fleet.setHeartbeatInterval(200);
+        fleet.register("lane-3", config());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while(!received.contains("Heartbeat") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(received.contains("Heartbeat"));
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void rejectsDuplicateLane() throws Exception {
+        fleet.register("lane-4", config());
+        fleet.register("lane-4", config());
+    }
+
+    @Test
+    public void unregisterReleasesLane() throws Exception {
+        fleet.setHeartbeatInterval(0);
+        TerminalLane lane = fleet.register("lane-5", config());
+        assertNotNull(ServicesContainer.getInstance().getDeviceController("lane-5"));
+
+        fleet.unregister("lane-5");
+        try {
+            ServicesContainer.getInstance().getDeviceController("lane-5");
+            fail("Expected the lane's device to be removed");
+        }
+        catch(ApiException exc) {
+            // removed
+        }
+
+        try {
+            lane.sendAsync(request("Reboot"));
+            fail("Expected a closed lane to refuse work");
+        }
+        catch(RejectedExecutionException exc) {
+            assertFalse(received.contains("Reboot"));
+        }
+    }
+
+    private ConnectionConfig config() {
+        ConnectionConfig config = new ConnectionConfig();
+        config.setDeviceType(DeviceType.HPA_ISC250);
+        config.setConnectionMode(ConnectionModes.TCP_IP);
+        config.setIpAddress("127.0.0.1");
+        config.setPort(server.getLocalPort());
+        config.setTimeout(3000);
+        return config;
+    }
+
+    private DeviceMessage request(String name) {
+        byte[] body = String.format("<SIP><Version>1.0</Version><Request>%s</Request></SIP>", name).getBytes();
+        byte[] buffer = new byte[body.length + 2];
+        buffer[0] = (byte) (body.length >> 8);
+        buffer[1] = (byte) body.length;
+        System.arraycopy(body, 0, buffer, 2, body.length);
+
+        DeviceMessage message = new DeviceMessage(buffer);
+        message.setAwaitResponse(true);
+        return message;
+    }
+
+    // answers every request on every connection with a single message response of the same name
+    private void startDevice() {
+        Thread acceptor = new Thread() {
+            public void run() {
+                while(!server.isClosed()) {
+                    try {
+                        final Socket socket = server.accept();
+                        Thread session = new Thread() {
+                            public void run() {
+                                respond(socket);
+                            }
+                        };
+                        session.setDaemon(true);
+                        session.start();
+                    }
+                    catch(IOException exc) {
+                        return;
+                    }
+                }
+            }
+        };
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void respond(Socket socket) {
+        try {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            while(true) {
+                byte[] body = new byte[in.readUnsignedShort()];
+                in.readFully(body);
+
+                Matcher matcher = REQUEST.matcher(new String(body));
+                String name = matcher.find() ? matcher.group(1) : "Unknown";
+                received.add(name);
+
+                byte[] data = String.format("<SIP><Response>%s</Response><Result>00</Result><MultipleMessage>0</MultipleMessage></SIP>", name).getBytes();
+                out.write(data.length >> 8);
+                out.write(data.length);
+                out.write(data);
+                out.flush();
+            }
+        }
+        catch(IOException exc) {
+            // client disconnected
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.global.api.tests.terminals.pax;
+
+import com.global.api.entities.enums.ControlCodes;
+import com.global.api.terminals.pax.PaxFrame;
+import com.global.api.terminals.pax.responses.BatchCloseResponse;
+import com.global.api.terminals.pax.responses.CreditResponse;
+import com.global.api.utils.MessageReader;
+
+/**
+ * Rough throughput check for PAX response parsing over the recorded frames in
+ * {@link PaxResponseParsingTests}. Run with {@code java ... PaxResponseBenchmark [iterations]}.
+ */
+public class PaxResponseBenchmark {
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        final byte[] credit = PaxResponseParsingTests.frame(PaxResponseParsingTests.CREDIT_SALE);
+        final byte[] batch = PaxResponseParsingTests.frame(PaxResponseParsingTests.BATCH_CLOSE);
+
+        for(int round = 0; round < 2; round++) {
+            boolean report = round == 1;
+
+            run("CreditResponse", iterations, report, new Task() {
+                public Object run() throws Exception {
+                    return new CreditResponse(credit);
+                }
+            });
+            run("BatchCloseResponse", iterations, report, new Task() {
+                public Object run() throws Exception {
+                    return new BatchCloseResponse(batch);
+                }
+            });
+            run("CreditResponse.toString", iterations, report, new Task() {
+                public Object run() throws Exception {
+                    return PaxFrame.toString(credit);
+                }
+            });
+            run("PaxFrame fields", iterations, report, new Task() {
+                public Object run() {
+                    PaxFrame frame = new PaxFrame(credit);
+                    String last = null;
+                    while(frame.hasNext()) {
+                        last = frame.readField();
+                    }
+                    return last;
+                }
+            });
+            run("MessageReader fields", iterations, report, new Task() {
+                public Object run() {
+                    MessageReader reader = new MessageReader(credit);
+                    reader.readCode();
+                    String last = null;
+                    while(reader.canRead()) {
+                        last = reader.readToCode(ControlCodes.FS);
+                    }
+                    return last;
+                }
+            });
+        }
+    }
+
+    private static void run(String name, int iterations, boolean report, Task task) throws Exception {
+        long started = System.nanoTime();
+        for(int i = 0; i < iterations; i++) {
+            sink = task.run();
+        }
+        long elapsed = System.nanoTime() - started;
+        if(report) {
+            System.out.println(String.format("%-26s %10.1f ns/op", name, (double) elapsed / iterations));
+        }
+    }
+
+    private interface Task {
+        Object run() throws Exception;
+    }
+}
@@ -0,0 +1,113 @@
+package com.global.api.tests.terminals.pax;
+
+import com.global.api.entities.enums.ControlCodes;
+import com.global.api.entities.exceptions.MessageException;
+import com.global.api.terminals.pax.responses.BatchCloseResponse;
+import com.global.api.terminals.pax.responses.CreditResponse;
+import com.global.api.terminals.pax.responses.InitializeResponse;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+
+import static org.junit.Assert.*;
+
+/**
+ * Offline parsing of recorded PAX response frames.
+ */
+public class PaxResponseParsingTests {
+    public static final String CREDIT_SALE = "[STX]0[FS]T01[FS]1.28[FS]000000[FS]OK"
+            + "[FS]0[US]APPROVAL[US]123456[US]REF001[US]TRACE1[US]BATCH1"
+            + "[FS]01"
+            + "[FS]1000[US]0[US]200[US]0[US]0[US]0[US]2500"
+            + "[FS]1111[US]1[US]1225[US][US][US][US]VISA[US]JOHN SMITH[US][US][US]0"
+            + "[FS]5[US]REF123[US]20201019120000"
+            + "[FS]Y[US]MATCH"
+            + "[FS]"
+            + "[FS]"
+            + "[FS]HRef=HOST123[US]TOKEN=tok_abc[US]CARDBIN=411111[US]SIGNSTATUS=0[US]APPPN=VISA CREDIT[US]TC=ABCDEF"
+            + "[ETX]L";
+    public static final String CREDIT_DECLINE = "[STX]0[FS]T01[FS]1.28[FS]100001[FS]ABORTED[ETX]L";
+    public static final String BATCH_CLOSE = "[STX]0[FS]B01[FS]1.28[FS]000000[FS]OK"
+            + "[FS]0[US]OK[US][US][US][US]000123"
+            + "[FS]3[FS]4500[FS]20201019120000[FS]TID01[FS]MID01[ETX]L";
+    public static final String INITIALIZE = "[STX]0[FS]A01[FS]1.28[FS]000000[FS]OK[FS]53012345[ETX]L";
+
+    @Test
+    public void creditSale() throws MessageException {
+        CreditResponse response = new CreditResponse(frame(CREDIT_SALE));
+
+        assertEquals("000000", response.getDeviceResponseCode());
+        assertEquals("OK", response.getDeviceResponseText());
+        assertEquals("00", response.getResponseCode());
+        assertEquals("APPROVAL", response.getResponseText());
+        assertEquals("123456", response.getAuthorizationCode());
+        assertEquals("SALE", response.getTransactionType());
+        assertEquals(new BigDecimal("10"), response.getTransactionAmount());
+        assertEquals(new BigDecimal("2"), response.getTipAmount());
+        assertEquals(new BigDecimal("25"), response.getBalanceAmount());
+        assertEquals("************1111", response.getMaskedCardNumber());
+        assertEquals("Swipe", response.getEntryMethod());
+        assertEquals("VISA", response.getPaymentType());
+        assertEquals("JOHN SMITH", response.getCardHolderName());
+        assertTrue(response.isCardPresent());
+        assertEquals("5", response.getTerminalRefNumber());
+        assertEquals("REF123", response.getReferenceNumber());
+        assertEquals("Y", response.getAvsResponseCode());
+        assertEquals("MATCH", response.getAvsResponseText());
+        assertEquals("HOST123", response.getTransactionId());
+        assertEquals("tok_abc", response.getToken());
+        assertEquals("411111", response.getCardBIN());
+        assertEquals("VISA CREDIT", response.getApplicationPreferredName());
+        assertEquals("ABCDEF", response.getApplicationCryptogram());
+        assertEquals("", response.getApplicationLabel());
+        assertEquals(CREDIT_SALE, response.toString());
+    }
+
+    @Test
+    public void creditDecline() throws MessageException {
+        CreditResponse response = new CreditResponse(frame(CREDIT_DECLINE));
+        assertEquals("100001", response.getDeviceResponseCode());
+        assertEquals("ABORTED", response.getDeviceResponseText());
+        assertNull(response.getResponseCode());
+    }
+
+    @Test
+    public void batchClose() throws MessageException {
+        BatchCloseResponse response = new BatchCloseResponse(frame(BATCH_CLOSE));
+        assertEquals("000123", response.getBatchNumber());
+        assertEquals("3", response.getTotalCount());
+        assertEquals("4500", response.getTotalAmount());
+        assertEquals("TID01", response.getTid());
+        assertEquals("MID01", response.getMid());
+    }
+
+    @Test
+    public void initialize() throws MessageException {
+        InitializeResponse response = new InitializeResponse(frame(INITIALIZE));
+        assertEquals("53012345", response.getSerialNumber());
+    }
+
+    @Test(expected = MessageException.class)
+    public void unexpectedMessageType() throws MessageException {
+        new CreditResponse(frame(INITIALIZE));
+    }
+
+    /**
+     * Converts the readable form used by toString() back into the raw frame bytes.
+     */
+    public static byte[] frame(String template) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        for(int i = 0; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if(c == '[') {
+                int close = template.indexOf(']', i);
+                String name = template.substring(i + 1, close);
+                buffer.write(ControlCodes.valueOf(name).getByte());
+                i = close;
+            }
+            else buffer.write(c);
+        }
+        return buffer.toByteArray();
+    }
+}
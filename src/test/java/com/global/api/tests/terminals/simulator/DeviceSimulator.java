@@ -0,0 +1,182 @@
+package com.global.api.tests.terminals.simulator;
+
+import com.global.api.terminals.abstractions.IDisposable;
+
+import javax.net.ServerSocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loopback stand-in for a physical terminal. Each accepted connection is served on its own
+ * thread by the protocol specific subclass; latency and fault injection are shared so load runs
+ * can model a slow or flaky device.
+ */
+public abstract class DeviceSimulator implements IDisposable {
+    private final ServerSocket server;
+    private final ExecutorService sessions;
+    private final List<String> requests = new CopyOnWriteArrayList<String>();
+    private final Random random = new Random(1004);
+    private volatile int latency;
+    private volatile int jitter;
+    private volatile double dropRate;
+    private volatile double nakRate;
+
+    protected DeviceSimulator(String name) throws IOException {
+        this(name, ServerSocketFactory.getDefault());
+    }
+    protected DeviceSimulator(final String name, ServerSocketFactory serverSocketFactory) throws IOException {
+        server = serverSocketFactory.createServerSocket(0, 128, InetAddress.getByName("127.0.0.1"));
+        sessions = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        sessions.execute(new Runnable() {
+            public void run() {
+                accept();
+            }
+        });
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+    /**
+     * Names of the requests received so far, in arrival order.
+     */
+    public List<String> getRequests() {
+        return requests;
+    }
+    public int getLatency() {
+        return latency;
+    }
+    /**
+     * Processing time in milliseconds added before every response.
+     */
+    public void setLatency(int latency) {
+        this.latency = latency;
+    }
+    public int getJitter() {
+        return jitter;
+    }
+    /**
+     * Upper bound in milliseconds of the random delay added on top of the latency.
+     */
+    public void setJitter(int jitter) {
+        this.jitter = jitter;
+    }
+    public double getDropRate() {
+        return dropRate;
+    }
+    /**
+     * Fraction of requests that are read but never answered.
+     */
+    public void setDropRate(double dropRate) {
+        this.dropRate = dropRate;
+    }
+    public double getNakRate() {
+        return nakRate;
+    }
+    /**
+     * Fraction of requests rejected as if they arrived corrupted. HeartSIP has no NAK, so its
+     * simulator answers these with a failed result instead.
+     */
+    public void setNakRate(double nakRate) {
+        this.nakRate = nakRate;
+    }
+
+    protected abstract void serve(Socket socket) throws IOException;
+
+    protected void recordRequest(String name) {
+        requests.add(name);
+    }
+
+    protected boolean shouldDrop() {
+        return chance(dropRate);
+    }
+
+    protected boolean shouldNak() {
+        return chance(nakRate);
+    }
+
+    protected boolean chance(double rate) {
+        if(rate <= 0) {
+            return false;
+        }
+        synchronized (random) {
+            return random.nextDouble() < rate;
+        }
+    }
+
+    protected void simulateLatency() {
+        int delay = latency;
+        if(jitter > 0) {
+            synchronized (random) {
+                delay += random.nextInt(jitter + 1);
+            }
+        }
+        if(delay > 0) {
+            try {
+                Thread.sleep(delay);
+            }
+            catch(InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public void dispose() {
+        try {
+            server.close();
+        }
+        catch(IOException exc) {
+            // already closed
+        }
+        sessions.shutdownNow();
+    }
+
+    private void accept() {
+        while(!server.isClosed()) {
+            final Socket socket;
+            try {
+                socket = server.accept();
+                socket.setTcpNoDelay(true);
+            }
+            catch(IOException exc) {
+                return;
+            }
+
+            sessions.execute(new Runnable() {
+                public void run() {
+                    try {
+                        serve(socket);
+                    }
+                    catch(IOException exc) {
+                        // the client went away
+                    }
+                    finally {
+                        try {
+                            socket.close();
+                        }
+                        catch(IOException exc) {
+                            // ignored
+                        }
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.global.api.tests.terminals.simulator;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Simulates a HeartSIP (ISC250) device: length prefixed SIP XML in both directions. Besides
+ * single message requests it plays the multi message sequences the SDK relies on, namely EOD,
+ * SendSAF, BatchClose and the chunked SendFile upload.
+ */
+public class HpaDeviceSimulator extends DeviceSimulator {
+    private static final String[] EOD_SEQUENCE = {
+            "Reversal", "EMVOfflineDecline", "EMVTC", "Attachment", "SendSAF", "BatchClose", "EMVPDL"
+    };
+
+    private final AtomicInteger responseId = new AtomicInteger(1000);
+    private final StringBuilder fileData = new StringBuilder();
+    private volatile int maxDataSize = 4000;
+    private volatile int receivedFileSize;
+
+    public HpaDeviceSimulator() throws IOException {
+        super("hpa-simulator");
+    }
+
+    public int getMaxDataSize() {
+        return maxDataSize;
+    }
+    public void setMaxDataSize(int maxDataSize) {
+        this.maxDataSize = maxDataSize;
+    }
+    /**
+     * Size in bytes of the last file completed through SendFile.
+     */
+    public int getReceivedFileSize() {
+        return receivedFileSize;
+    }
+
+    protected void serve(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        OutputStream out = socket.getOutputStream();
+        while(true) {
+            byte[] body = new byte[in.readUnsignedShort()];
+            in.readFully(body);
+
+            String request = new String(body);
+            String name = getTag(request, "Request");
+            String requestId = getTag(request, "RequestId");
+            recordRequest(name);
+
+            if(shouldDrop()) {
+                continue;
+            }
+            simulateLatency();
+
+            if(shouldNak()) {
+                write(out, name, requestId, false, "<Result>1</Result><ResultText>Invalid Message</ResultText>");
+            }
+            else if(name.equals("EOD")) {
+                for(String message : EOD_SEQUENCE) {
+                    write(out, message, requestId, true, success(""));
+                }
+                StringBuilder summary = new StringBuilder();
+                for(String message : EOD_SEQUENCE) {
+                    summary.append(String.format("<%s>Success</%s>", message, message));
+                }
+                write(out, name, requestId, false, success(summary.toString()));
+            }
+            else if(name.equals("SendSAF")) {
+                write(out, name, requestId, true, success(safRecord("APPROVED SAF SUMMARY", "Count", "1", "Amount", "10.00")));
+                write(out, name, requestId, false, success(safRecord("APPROVED SAF RECORD", "TransactionType", "Sale", "ReferenceNumber", "1", "Amount", "10.00")));
+            }
+            else if(name.equals("BatchClose")) {
+                write(out, name, requestId, true, success("<BatchId>1</BatchId>"));
+                write(out, "GetBatchReport", requestId, false, success(""));
+            }
+            else if(name.equals("SendFile")) {
+                sendFile(out, request, requestId);
+            }
+            else {
+                write(out, name, requestId, false, success(
+                        "<ResponseCode>00</ResponseCode><ResponseText>APPROVAL</ResponseText><ApprovalCode>123456</ApprovalCode>"));
+            }
+        }
+    }
+
+    private void sendFile(OutputStream out, String request, String requestId) throws IOException {
+        String fileName = getTag(request, "FileName");
+        if(fileName != null) {
+            synchronized (fileData) {
+                fileData.setLength(0);
+            }
+            write(out, "SendFile", requestId, false, success(String.format("<MaxDataSize>%d</MaxDataSize>", maxDataSize)));
+            return;
+        }
+
+        synchronized (fileData) {
+            fileData.append(getTag(request, "FileData"));
+            if(!"0".equals(getTag(request, "MultipleMessage"))) {
+                // intermediate chunks are not acknowledged
+                return;
+            }
+            receivedFileSize = fileData.length() / 2;
+        }
+        write(out, "SendFile", requestId, false, success(""));
+    }
+
+    private void write(OutputStream out, String name, String requestId, boolean more, String body) throws IOException {
+        String message = String.format("<SIP><Version>1.0</Version><ECRId>1004</ECRId><SIPId>1</SIPId>"
+                        + "<RequestId>%s</RequestId><ResponseId>%d</ResponseId><Response>%s</Response>"
+                        + "<MultipleMessage>%d</MultipleMessage>%s</SIP>",
+                requestId, responseId.incrementAndGet(), name, more ? 1 : 0, body);
+
+        byte[] data = message.getBytes();
+        out.write(data.length >> 8);
+        out.write(data.length);
+        out.write(data);
+        out.flush();
+    }
+
+    private static String success(String fields) {
+        return "<Result>0</Result><ResultText>Success</ResultText>" + fields;
+    }
+
+    private static String safRecord(String category, String... fields) {
+        StringBuilder record = new StringBuilder(String.format("<TableCategory>%s</TableCategory>", category));
+        for(int i = 0; i < fields.length; i += 2) {
+            record.append(String.format("<Field><Key>%s</Key><Value>%s</Value></Field>", fields[i], fields[i + 1]));
+        }
+        return record.toString();
+    }
+
+    private static String getTag(String message, String tag) {
+        int start = message.indexOf("<" + tag + ">");
+        if(start < 0) {
+            return null;
+        }
+        start += tag.length() + 2;
+        return message.substring(start, message.indexOf("</" + tag + ">", start));
+    }
+}
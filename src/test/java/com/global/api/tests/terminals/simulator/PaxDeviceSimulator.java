@@ -0,0 +1,185 @@
+package com.global.api.tests.terminals.simulator;
+
+import com.global.api.entities.enums.ControlCodes;
+import com.global.api.terminals.TerminalUtilities;
+import com.global.api.tests.terminals.pax.PaxResponseParsingTests;
+import org.apache.commons.codec.binary.Base64;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Simulates a PAX terminal on one port for both connection modes: raw TCP with the
+ * STX/ETX/LRC framing and ACK/NAK/EOT handshake, and the HTTP mode where the request frame
+ * arrives base64 encoded in the query string.
+ * <p>
+ * Responses are looked up by response command (T01, B01, ...) and written in the readable
+ * template form used by {@link PaxResponseParsingTests}; the final byte is replaced with the
+ * real LRC. Commands without a template get a bare approval.
+ */
+public class PaxDeviceSimulator extends DeviceSimulator {
+    private static final byte STX = ControlCodes.STX.getByte();
+    private static final byte ETX = ControlCodes.ETX.getByte();
+    private static final byte FS = ControlCodes.FS.getByte();
+
+    private final Map<String, String> responses = new ConcurrentHashMap<String, String>();
+    private volatile double eotRate;
+
+    public PaxDeviceSimulator() throws IOException {
+        super("pax-simulator");
+        setResponse("T01", PaxResponseParsingTests.CREDIT_SALE);
+        setResponse("B01", PaxResponseParsingTests.BATCH_CLOSE);
+        setResponse("A01", PaxResponseParsingTests.INITIALIZE);
+    }
+
+    public void setResponse(String command, String template) {
+        responses.put(command, template);
+    }
+
+    public double getEotRate() {
+        return eotRate;
+    }
+    /**
+     * Fraction of requests the terminal aborts with EOT after acknowledging them.
+     */
+    public void setEotRate(double eotRate) {
+        this.eotRate = eotRate;
+    }
+
+    protected void serve(Socket socket) throws IOException {
+        InputStream in = new BufferedInputStream(socket.getInputStream());
+        OutputStream out = socket.getOutputStream();
+
+        in.mark(1);
+        int first = in.read();
+        in.reset();
+        if(first == 'G') {
+            serveHttp(in, out);
+        }
+        else {
+            serveTcp(in, out);
+        }
+    }
+
+    private void serveTcp(InputStream in, OutputStream out) throws IOException {
+        while(true) {
+            int b = in.read();
+            if(b == -1) {
+                return;
+            }
+            if(b != STX) {
+                // ACK/NAK/EOT from the host need no action here; a NAKed response is followed
+                // by the host resending its request
+                continue;
+            }
+
+            byte[] request = readFrame(in);
+            if(request[request.length - 1] != TerminalUtilities.calculateLRC(request) || shouldNak()) {
+                out.write(ControlCodes.NAK.getByte());
+                out.flush();
+                continue;
+            }
+
+            out.write(ControlCodes.ACK.getByte());
+            out.flush();
+
+            String command = recordCommand(request);
+            if(shouldDrop()) {
+                continue;
+            }
+            simulateLatency();
+            if(chance(eotRate)) {
+                out.write(ControlCodes.EOT.getByte());
+            }
+            else {
+                out.write(buildResponse(command));
+            }
+            out.flush();
+        }
+    }
+
+    private void serveHttp(InputStream in, OutputStream out) throws IOException {
+        String requestLine = readLine(in);
+        while(readLine(in).length() > 0) {
+            // skip the headers
+        }
+
+        int query = requestLine.indexOf('?');
+        int end = requestLine.lastIndexOf(' ');
+        byte[] request = Base64.decodeBase64(requestLine.substring(query + 1, end));
+        String command = recordCommand(request);
+        if(shouldDrop()) {
+            return;
+        }
+        simulateLatency();
+
+        byte[] body = buildResponse(command);
+        out.write(String.format("HTTP/1.1 200 OK\r\nContent-Type: text/xml\r\nContent-Length: %d\r\nConnection: close\r\n\r\n", body.length).getBytes());
+        out.write(body);
+        out.flush();
+    }
+
+    // the bytes from STX through the LRC, the STX already consumed
+    private byte[] readFrame(InputStream in) throws IOException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        frame.write(STX);
+        int b;
+        do {
+            b = in.read();
+            if(b == -1) {
+                throw new EOFException();
+            }
+            frame.write(b);
+        }
+        while(b != ETX);
+
+        int lrc = in.read();
+        if(lrc == -1) {
+            throw new EOFException();
+        }
+        frame.write(lrc);
+        return frame.toByteArray();
+    }
+
+    private String recordCommand(byte[] request) {
+        int end = 1;
+        while(end < request.length && request[end] != FS && request[end] != ETX) {
+            end++;
+        }
+        String command = new String(request, 1, end - 1);
+        recordRequest(command);
+        return command;
+    }
+
+    private byte[] buildResponse(String command) {
+        char last = command.charAt(command.length() - 1);
+        String responseCommand = command.substring(0, command.length() - 1) + (char) (last + 1);
+
+        String template = responses.get(responseCommand);
+        if(template == null) {
+            template = String.format("[STX]0[FS]%s[FS]1.28[FS]000000[FS]OK[ETX]L", responseCommand);
+        }
+
+        byte[] frame = PaxResponseParsingTests.frame(template);
+        frame[frame.length - 1] = TerminalUtilities.calculateLRC(frame);
+        return frame;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while((b = in.read()) != -1 && b != '\n') {
+            if(b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+}
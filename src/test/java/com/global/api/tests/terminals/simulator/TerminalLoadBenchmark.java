@@ -0,0 +1,103 @@
+package com.global.api.tests.terminals.simulator;
+
+import com.global.api.entities.enums.ConnectionModes;
+import com.global.api.entities.enums.DeviceType;
+import com.global.api.services.DeviceService;
+import com.global.api.terminals.ConnectionConfig;
+import com.global.api.terminals.abstractions.IDeviceInterface;
+import com.global.api.tests.terminals.hpa.RandomIdProvider;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives credit sales through {@link DeviceService} against simulated terminals, one thread and
+ * one simulator per lane, and reports throughput and latency percentiles. Run with
+ * {@code java ... TerminalLoadBenchmark [pax|pax-http|hpa] [lanes] [salesPerLane] [deviceLatencyMs]}.
+ */
+public class TerminalLoadBenchmark {
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "pax";
+        int lanes = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        final int sales = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int latency = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+        DeviceSimulator[] simulators = new DeviceSimulator[lanes];
+        final IDeviceInterface[] devices = new IDeviceInterface[lanes];
+        for(int i = 0; i < lanes; i++) {
+            simulators[i] = mode.equals("hpa") ? new HpaDeviceSimulator() : new PaxDeviceSimulator();
+            simulators[i].setLatency(latency);
+
+            ConnectionConfig config = new ConnectionConfig();
+            config.setDeviceType(mode.equals("hpa") ? DeviceType.HPA_ISC250 : DeviceType.PAX_S300);
+            config.setConnectionMode(mode.equals("pax-http") ? ConnectionModes.HTTP : ConnectionModes.TCP_IP);
+            config.setIpAddress("127.0.0.1");
+            config.setPort(simulators[i].getPort());
+            config.setTimeout(10000);
+            config.setRequestIdProvider(new RandomIdProvider());
+            devices[i] = DeviceService.create(config, "benchmark-" + i);
+        }
+
+        try {
+            run(devices, Math.max(1, sales / 10), false);
+            run(devices, sales, true);
+        }
+        finally {
+            for(DeviceSimulator simulator : simulators) {
+                simulator.dispose();
+            }
+        }
+    }
+
+    private static void run(final IDeviceInterface[] devices, final int sales, boolean report) throws InterruptedException {
+        final long[] latencies = new long[devices.length * sales];
+        final AtomicInteger errors = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(devices.length);
+
+        long started = System.nanoTime();
+        for(int i = 0; i < devices.length; i++) {
+            final int lane = i;
+            Thread thread = new Thread() {
+                public void run() {
+                    try {
+                        for(int j = 0; j < sales; j++) {
+                            long sent = System.nanoTime();
+                            try {
+                                devices[lane].creditSale(new BigDecimal(10))
+                                        .withAllowDuplicates(true)
+                                        .execute("benchmark-" + lane);
+                            }
+                            catch(Exception exc) {
+                                if(errors.incrementAndGet() == 1) {
+                                    exc.printStackTrace();
+                                }
+                            }
+                            latencies[lane * sales + j] = System.nanoTime() - sent;
+                        }
+                    }
+                    finally {
+                        done.countDown();
+                    }
+                }
+            };
+            thread.start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - started;
+
+        if(report) {
+            Arrays.sort(latencies);
+            System.out.println(String.format("lanes=%d sales=%d errors=%d", devices.length, latencies.length, errors.get()));
+            System.out.println(String.format("throughput %10.1f sales/s", latencies.length / (elapsed / 1e9)));
+            System.out.println(String.format("p50 %8.3f ms  p95 %8.3f ms  p99 %8.3f ms  max %8.3f ms",
+                    percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6));
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,52 @@
+package com.global.api.tests.testdata;
+
+import com.global.api.gateways.SSLSocketFactoryEx;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+/**
+ * Self signed certificate for 127.0.0.1 used by the loopback host emulators. The same context
+ * serves the emulator and, as it trusts its own certificate, the SDK connecting to it.
+ */
+public class TestCertificates {
+    private static final String KEYSTORE = "/loopback.jks";
+    private static final char[] KEYSTORE_PASSWORD = "emulator".toCharArray();
+
+    private static SSLContext context;
+
+    public static synchronized SSLContext getContext() throws GeneralSecurityException, IOException {
+        if(context == null) {
+            KeyStore keyStore = KeyStore.getInstance("JKS");
+            InputStream stream = TestCertificates.class.getResourceAsStream(KEYSTORE);
+            try {
+                keyStore.load(stream, KEYSTORE_PASSWORD);
+            }
+            finally {
+                stream.close();
+            }
+
+            KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagers.init(keyStore, KEYSTORE_PASSWORD);
+            TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagers.init(keyStore);
+
+            context = SSLContext.getInstance("TLS");
+            context.init(keyManagers.getKeyManagers(), trustManagers.getTrustManagers(), null);
+        }
+        return context;
+    }
+
+    /**
+     * Client side factory trusting the loopback certificate, usable both as the HTTP connectors'
+     * socket factory and the network gateway's engine factory.
+     */
+    public static SSLSocketFactoryEx getClientFactory() throws GeneralSecurityException, IOException {
+        return new SSLSocketFactoryEx(getContext());
+    }
+}